@@ -0,0 +1,274 @@
+package bean;
+
+import collections.ConcurrentCache;
+import exception.SystemException;
+import lang.string.StringTool;
+import org.apache.commons.beanutils.ConvertUtils;
+import org.apache.commons.beanutils.Converter;
+import org.apache.commons.lang3.ClassUtils;
+
+import java.beans.BeanInfo;
+import java.beans.IntrospectionException;
+import java.beans.Introspector;
+import java.beans.PropertyDescriptor;
+import java.lang.reflect.Array;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.*;
+import java.util.Map.Entry;
+
+/**
+ * Bean属性拷贝器
+ * <p>
+ * 对每个(源类, 目标类, 属性映射)组合只做一次内省，预先解析出成对的getter/setter方法，
+ * 拷贝时直接调用，不再每次查找PropertyDescriptor。
+ * 类型一致(含基本类型与其包装类)的属性直接赋值，
+ * 类型不一致的属性通过ConvertUtils中注册的转换器进行转换, 找不到转换器时抛出SystemException(与BeanUtils一样不会静默忽略)。
+ * 拷贝器是不可变的，线程安全，通过{@link #create}方法获取，内部用有界缓存保存最近使用的拷贝器，不会无限持有类及其类加载器。
+ * </p>
+ */
+public class BeanCopier {
+
+    private static final ConcurrentCache<CopierKey, BeanCopier> copiers = new ConcurrentCache<CopierKey, BeanCopier>(1024);
+
+    private final Class<?> sourceClass;
+    private final Class<?> targetClass;
+    private final PropertyCopier[] propertyCopiers;
+
+    private BeanCopier(Class<?> sourceClass, Class<?> targetClass, PropertyCopier[] propertyCopiers) {
+        this.sourceClass = sourceClass;
+        this.targetClass = targetClass;
+        this.propertyCopiers = propertyCopiers;
+    }
+
+    /**
+     * 取得拷贝源类所有可读属性到目标类同名可写属性的拷贝器
+     *
+     * @param sourceClass 源类
+     * @param targetClass 目标类
+     * @return 拷贝器
+     * @throws SystemException 如果内省失败
+     */
+    public static BeanCopier create(Class<?> sourceClass, Class<?> targetClass) {
+        return create(sourceClass, targetClass, null);
+    }
+
+    /**
+     * 取得按属性映射拷贝的拷贝器
+     *
+     * @param sourceClass 源类
+     * @param targetClass 目标类
+     * @param propertyMap 字段映射 Map<源对象属性名，目标对象属性名>(不支持嵌套/索引/映射), 为null将拷贝所有同名属性
+     * @return 拷贝器
+     * @throws IllegalArgumentException 如果映射中的源属性不可读或目标属性不可写
+     * @throws SystemException          如果内省失败
+     */
+    public static BeanCopier create(Class<?> sourceClass, Class<?> targetClass, Map<String, String> propertyMap) {
+        if (sourceClass == null || targetClass == null) {
+            throw new IllegalArgumentException("参数sourceClass和targetClass都不能为null!");
+        }
+        CopierKey key = new CopierKey(sourceClass, targetClass, propertyMap);
+        BeanCopier copier = copiers.getIfPresent(key);
+        if (copier == null) {
+            copier = new BeanCopier(sourceClass, targetClass, compile(sourceClass, targetClass, key.propertyMap));
+            BeanCopier existing = copiers.putIfAbsent(key, copier);
+            if (existing != null) {
+                copier = existing;
+            }
+        }
+        return copier;
+    }
+
+    /**
+     * 拷贝属性
+     *
+     * @param source 源对象，必须为源类的实例
+     * @param target 目标对象，必须为目标类的实例
+     * @throws SystemException 该异常是对下面几种异常的可能包装, 要得知真正的异常请获取该异常的cause:
+     *                         InvocationTargetException 对被调用方法的包装异常
+     *                         IllegalAccessException 如果请求的方法不能通过反射访问
+     *                         ConversionException 如果属性值转换出错
+     *                         SystemException 如果找不到属性值的转换器
+     */
+    public void copy(Object source, Object target) {
+        PropertyCopier current = null;
+        try {
+            for (PropertyCopier propertyCopier : propertyCopiers) {
+                current = propertyCopier;
+                propertyCopier.copy(source, target);
+            }
+        } catch (InvocationTargetException e) {
+            throw new SystemException(e.getTargetException(), "拷贝属性[{0}]出错！", current.name);
+        } catch (Exception e) {
+            throw new SystemException(e, "拷贝属性[{0}]出错！", current.name);
+        }
+    }
+
+    /**
+     * 创建目标类的实例并拷贝属性
+     *
+     * @param source 源对象，必须为源类的实例
+     * @return 目标类的实例
+     * @throws SystemException 如果目标类不能实例化或拷贝出错
+     */
+    public Object copy(Object source) {
+        Object target;
+        try {
+            target = targetClass.newInstance();
+        } catch (Exception e) {
+            throw new SystemException(e, "实例化类[{0}]出错！", targetClass);
+        }
+        copy(source, target);
+        return target;
+    }
+
+    public Class<?> getSourceClass() {
+        return sourceClass;
+    }
+
+    public Class<?> getTargetClass() {
+        return targetClass;
+    }
+
+    private static PropertyCopier[] compile(Class<?> sourceClass, Class<?> targetClass,
+                                            Map<String, String> propertyMap) {
+        Map<String, PropertyDescriptor> sourcePds = getPropertyDescriptors(sourceClass);
+        Map<String, PropertyDescriptor> targetPds = getPropertyDescriptors(targetClass);
+        List<PropertyCopier> result = new ArrayList<PropertyCopier>();
+        if (propertyMap == null) {
+            for (PropertyDescriptor targetPd : targetPds.values()) {
+                PropertyDescriptor sourcePd = sourcePds.get(targetPd.getName());
+                if (targetPd.getWriteMethod() != null && sourcePd != null && sourcePd.getReadMethod() != null) {
+                    result.add(new PropertyCopier(targetPd.getName(), sourcePd.getReadMethod(),
+                            targetPd.getWriteMethod()));
+                }
+            }
+        } else {
+            for (Entry<String, String> entry : propertyMap.entrySet()) {
+                PropertyDescriptor sourcePd = sourcePds.get(entry.getKey());
+                if (sourcePd == null || sourcePd.getReadMethod() == null) {
+                    throw new IllegalArgumentException("类[" + sourceClass.getName() + "]没有可读的属性: "
+                            + entry.getKey());
+                }
+                PropertyDescriptor targetPd = targetPds.get(entry.getValue());
+                if (targetPd == null || targetPd.getWriteMethod() == null) {
+                    throw new IllegalArgumentException("类[" + targetClass.getName() + "]没有可写的属性: "
+                            + entry.getValue());
+                }
+                result.add(new PropertyCopier(targetPd.getName(), sourcePd.getReadMethod(),
+                        targetPd.getWriteMethod()));
+            }
+        }
+        return result.toArray(new PropertyCopier[result.size()]);
+    }
+
+    private static Map<String, PropertyDescriptor> getPropertyDescriptors(Class<?> clazz) {
+        try {
+            BeanInfo beanInfo = Introspector.getBeanInfo(clazz);
+            Map<String, PropertyDescriptor> pdMap = new LinkedHashMap<String, PropertyDescriptor>();
+            for (PropertyDescriptor pd : beanInfo.getPropertyDescriptors()) {
+                pdMap.put(pd.getName(), pd);
+            }
+            return pdMap;
+        } catch (IntrospectionException e) {
+            throw new SystemException(e, "内省类[{0}]出错！", clazz);
+        }
+    }
+
+    /**
+     * 单个属性的拷贝器
+     */
+    private static class PropertyCopier {
+
+        private final String name;
+        private final Method readMethod;
+        private final Method writeMethod;
+        private final Class<?> targetType; // 目标属性的类型(基本类型已转为包装类)
+        private final Class<?> rawTargetType; // 目标属性的声明类型
+        private final boolean assignable; // 源属性的值是否可直接赋给目标属性
+        private final Object nullValue; // 源属性值为null时赋给目标属性的值
+
+        private PropertyCopier(String name, Method readMethod, Method writeMethod) {
+            this.name = name;
+            this.readMethod = readMethod;
+            this.writeMethod = writeMethod;
+            if (!Modifier.isPublic(readMethod.getDeclaringClass().getModifiers())) {
+                readMethod.setAccessible(true);
+            }
+            if (!Modifier.isPublic(writeMethod.getDeclaringClass().getModifiers())) {
+                writeMethod.setAccessible(true);
+            }
+            this.rawTargetType = writeMethod.getParameterTypes()[0];
+            this.targetType = ClassUtils.primitiveToWrapper(rawTargetType);
+            this.assignable = ClassUtils.isAssignable(readMethod.getReturnType(), rawTargetType, true);
+            this.nullValue = rawTargetType.isPrimitive() ? Array.get(Array.newInstance(rawTargetType, 1), 0) : null;
+        }
+
+        private void copy(Object source, Object target) throws Exception {
+            Object value = readMethod.invoke(source);
+            if (value == null) {
+                value = nullValue;
+            } else if (!assignable && !targetType.isInstance(value)) {
+                Converter converter = ConvertUtils.lookup(rawTargetType);
+                if (converter == null) {
+                    throw new SystemException("找不到将[{0}]转换为[{1}]的转换器！", value.getClass().getName(),
+                            rawTargetType.getName());
+                }
+                value = converter.convert(rawTargetType, value);
+                if (value == null) {
+                    value = nullValue;
+                }
+            }
+            writeMethod.invoke(target, value);
+        }
+    }
+
+    /**
+     * 拷贝器缓存的key
+     */
+    private static class CopierKey {
+
+        private final Class<?> sourceClass;
+        private final Class<?> targetClass;
+        private final Map<String, String> propertyMap;
+
+        private CopierKey(Class<?> sourceClass, Class<?> targetClass, Map<String, String> propertyMap) {
+            this.sourceClass = sourceClass;
+            this.targetClass = targetClass;
+            if (propertyMap == null) {
+                this.propertyMap = null;
+            } else {
+                Map<String, String> map = new LinkedHashMap<String, String>();
+                for (Entry<String, String> entry : propertyMap.entrySet()) {
+                    if (StringTool.isNotBlank(entry.getKey()) && StringTool.isNotBlank(entry.getValue())) {
+                        map.put(entry.getKey(), entry.getValue());
+                    }
+                }
+                this.propertyMap = Collections.unmodifiableMap(map);
+            }
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof CopierKey)) {
+                return false;
+            }
+            CopierKey other = (CopierKey) obj;
+            return sourceClass == other.sourceClass && targetClass == other.targetClass
+                    && (propertyMap == null ? other.propertyMap == null : propertyMap.equals(other.propertyMap));
+        }
+
+        @Override
+        public int hashCode() {
+            int result = sourceClass.hashCode();
+            result = 31 * result + targetClass.hashCode();
+            result = 31 * result + (propertyMap == null ? 0 : propertyMap.hashCode());
+            return result;
+        }
+    }
+
+}
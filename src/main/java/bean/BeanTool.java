@@ -3,11 +3,13 @@ package bean;
 import exception.ExceptionTool;
 import exception.SystemException;
 import lang.SerializationTool;
+import lang.serialize.DeepCloner;
 import lang.string.StringTool;
 import log.Log;
 import log.LogFactory;
 import org.apache.commons.beanutils.BeanUtils;
 import org.apache.commons.beanutils.ConvertUtils;
+import org.apache.commons.beanutils.DynaBean;
 import org.apache.commons.beanutils.PropertyUtils;
 import org.apache.commons.beanutils.converters.DateConverter;
 import org.apache.commons.lang3.SerializationException;
@@ -49,6 +51,19 @@ public class BeanTool {
         return SerializationTool.clone(bean);
     }
 
+    /**
+     * 深度复制指定的bean，不经过序列化，直接按字段复制，比{@link #deepClone}快很多，且bean不需要实现{@code Serializable}接口。
+     * 对象图中的共享引用和循环引用保持原有的结构，不可变的对象(String、包装类、BigDecimal、枚举等)直接共享。
+     *
+     * @param bean 被复制的bean
+     * @return 复制后的bean
+     * @throws SystemException 如果对象图中有不能复制的对象
+     * @see DeepCloner
+     */
+    public static <T> T deepCopy(T bean) {
+        return DeepCloner.clone(bean);
+    }
+
     /**
      * 根据字段映射，拷贝源对象的属性，到指定目标类对象的对应属性
      *
@@ -215,8 +230,22 @@ public class BeanTool {
      */
     public static <T> List<T> batchCopyProperties(Class<T> targetClass, Collection<?> srcObjects) {
         List<T> targetList = new ArrayList<T>(srcObjects.size());
+        BeanCopier copier = null;
         for (Object srcObj : srcObjects) {
-            targetList.add(copyProperties(srcObj, targetClass));
+            if (srcObj == null || srcObj instanceof Map || srcObj instanceof DynaBean) {
+                targetList.add(copyProperties(srcObj, targetClass));
+                continue;
+            }
+            if (copier == null || copier.getSourceClass() != srcObj.getClass()) {
+                copier = BeanCopier.create(srcObj.getClass(), targetClass);
+            }
+            try {
+                T target = targetClass.newInstance();
+                copier.copy(srcObj, target);
+                targetList.add(target);
+            } catch (Exception e) {
+                throw new SystemException(ExceptionTool.unwrapSystemException(e), "Bean对象拷贝出错！");
+            }
         }
         return targetList;
     }
@@ -247,6 +276,7 @@ public class BeanTool {
 
     /**
      * 拷贝(浅克隆)所有源bean的属性值到目标bean相同的属性值，能进行类型转换
+     * 普通bean之间的拷贝通过缓存的{@link BeanCopier}完成，源为Map或DynaBean时使用BeanUtils
      *
      * @param orig 源bean
      * @param dest 目标bean
@@ -256,7 +286,12 @@ public class BeanTool {
      */
     public static void copyProperties(Object orig, Object dest) {
         try {
-            BeanUtils.copyProperties(dest, orig);
+            if (orig == null || dest == null || orig instanceof Map || orig instanceof DynaBean
+                    || dest instanceof DynaBean) {
+                BeanUtils.copyProperties(dest, orig);
+            } else {
+                BeanCopier.create(orig.getClass(), dest.getClass()).copy(orig, dest);
+            }
         } catch (Exception e) {
             throw new SystemException(e, "Bean拷贝x出错！");
         }
@@ -0,0 +1,479 @@
+package cn;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 中文串的拼音前缀索引，用于姓名等的输入联想
+ * <p>
+ * 索引是以汉字为边的字典树，查询时每个汉字可以用汉字本身、全拼或拼音首字母匹配，并可混合使用，
+ * 最后一个字还可以只输入拼音的前几个字母。如“张三丰”可以用“zhangsanfeng”、“zsf”、“zhangs”、“张s”、“zhangsf”等查到。
+ * 拼音取自{@link PinYinTable}(多音字取第一个读音)，查询不区分大小写。
+ * </p>
+ * <p>
+ * 每个节点记录其子树中的最大权重，返回前K个结果时按权重从高到低、长度从短到长优先搜索，不必遍历整棵子树。
+ * 为了支撑百万级条目，节点按下标存放在基本类型的并行数组中(字符、父节点、第一个子节点、下一个兄弟节点、权重)，
+ * 兄弟节点按拼音首字母排序，查找时只需扫描首字母相同的一段。
+ * 支持增量添加和删除，查询可以并发执行，修改与查询之间用读写锁互斥。
+ * </p>
+ */
+public class PinYinIndex {
+
+    private static final int NONE = -1;
+    private static final int ROOT = 0;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private char[] labels;
+    private int[] parents;
+    private int[] firstChildren;
+    private int[] nextSiblings;
+    private int[] weights; // 本节点条目的权重
+    private int[] maxWeights; // 子树(含本节点)中条目的最大权重，没有条目为Integer.MIN_VALUE
+    private String[] texts; // 以本节点结尾的条目，没有为null
+    private int nodeCount;
+    private int freeList = NONE; // 已删除节点组成的链表(用nextSiblings链接)，添加时复用
+    private int size;
+
+    /**
+     * 构造空的索引
+     */
+    public PinYinIndex() {
+        this(16);
+    }
+
+    /**
+     * 构造索引并批量添加条目，权重均为0
+     *
+     * @param texts 中文串集合，null和空串将被忽略
+     */
+    public PinYinIndex(Collection<String> texts) {
+        this(texts == null ? 16 : texts.size() * 2 + 16);
+        addAll(texts);
+    }
+
+    private PinYinIndex(int capacity) {
+        labels = new char[capacity];
+        parents = new int[capacity];
+        firstChildren = new int[capacity];
+        nextSiblings = new int[capacity];
+        weights = new int[capacity];
+        maxWeights = new int[capacity];
+        texts = new String[capacity];
+        newNode(NONE, '\0'); // 根
+    }
+
+    /**
+     * 添加条目，权重为0
+     *
+     * @param text 中文串
+     * @return true: 新添加，false: 已存在或为空
+     */
+    public boolean add(String text) {
+        return add(text, 0);
+    }
+
+    /**
+     * 添加条目，已存在时更新其权重
+     *
+     * @param text   中文串
+     * @param weight 权重，越大越靠前
+     * @return true: 新添加，false: 已存在或为空
+     */
+    public boolean add(String text, int weight) {
+        if (text == null || text.length() == 0) {
+            return false;
+        }
+        lock.writeLock().lock();
+        try {
+            return insert(text, weight);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 批量添加条目，权重均为0，整个批次只加一次写锁
+     *
+     * @param texts 中文串集合，可以为null，null和空串将被忽略
+     * @return 新添加的个数
+     */
+    public int addAll(Collection<String> texts) {
+        if (texts == null || texts.isEmpty()) {
+            return 0;
+        }
+        int count = 0;
+        lock.writeLock().lock();
+        try {
+            for (String text : texts) {
+                if (text != null && text.length() > 0 && insert(text, 0)) {
+                    count++;
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        return count;
+    }
+
+    private boolean insert(String text, int weight) {
+        int node = ROOT;
+        for (int i = 0; i < text.length(); i++) {
+            node = getOrCreateChild(node, text.charAt(i));
+        }
+        boolean added = texts[node] == null;
+        int oldWeight = weights[node];
+        texts[node] = text;
+        weights[node] = weight;
+        if (added) {
+            size++;
+        }
+        if (added || weight >= oldWeight) {
+            for (int n = node; n != NONE && maxWeights[n] < weight; n = parents[n]) {
+                maxWeights[n] = weight;
+            }
+        } else {
+            updateMaxWeights(node);
+        }
+        return added;
+    }
+
+    /**
+     * 删除条目
+     *
+     * @param text 中文串
+     * @return true: 删除成功，false: 不存在
+     */
+    public boolean remove(String text) {
+        if (text == null || text.length() == 0) {
+            return false;
+        }
+        lock.writeLock().lock();
+        try {
+            int node = find(text);
+            if (node == NONE || texts[node] == null) {
+                return false;
+            }
+            texts[node] = null;
+            weights[node] = 0;
+            size--;
+            // 删除不再有用的叶子节点
+            while (node != ROOT && texts[node] == null && firstChildren[node] == NONE) {
+                int parent = parents[node];
+                unlink(parent, node);
+                node = parent;
+            }
+            updateMaxWeights(node);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 是否包含条目
+     *
+     * @param text 中文串
+     * @return true: 包含
+     */
+    public boolean contains(String text) {
+        if (text == null || text.length() == 0) {
+            return false;
+        }
+        lock.readLock().lock();
+        try {
+            int node = find(text);
+            return node != NONE && texts[node] != null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return 条目个数
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 按前缀查询
+     *
+     * @param query 查询串，汉字、全拼、拼音首字母可混合使用，最后一个字可以只输入拼音的前几个字母
+     * @param limit 最多返回的个数
+     * @return List<条目>，按权重从高到低、长度从短到长排序，没有匹配时返回空列表
+     * @throws IllegalArgumentException 如果个数小于1
+     */
+    public List<String> search(String query, int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("返回个数必须大于0: " + limit);
+        }
+        List<String> results = new ArrayList<String>();
+        if (query == null || query.length() == 0) {
+            return results;
+        }
+        char[] chars = query.toLowerCase().toCharArray();
+        lock.readLock().lock();
+        try {
+            Set<Integer> matched = new HashSet<Integer>();
+            match(ROOT, chars, 0, matched);
+            collect(matched, limit, results);
+        } finally {
+            lock.readLock().unlock();
+        }
+        return results;
+    }
+
+    /**
+     * 从节点的子节点开始匹配查询串的剩余部分，完全匹配的节点放入matched
+     */
+    private void match(int node, char[] query, int position, Set<Integer> matched) {
+        if (position == query.length) {
+            matched.add(node);
+            return;
+        }
+        char q = query[position];
+        char key = sortKey(q);
+        int child = firstChildren[node];
+        while (child != NONE && sortKey(labels[child]) < key) {
+            child = nextSiblings[child];
+        }
+        for (; child != NONE && sortKey(labels[child]) == key; child = nextSiblings[child]) {
+            char label = labels[child];
+            if (Character.toLowerCase(label) == q) { // 汉字或其他字符本身
+                match(child, query, position + 1, matched);
+                continue;
+            }
+            int index = PinYinTable.syllableIndex(label);
+            if (index < 0 || q > 'z') { // 没有拼音，或查询的是汉字(与同首字母的其他汉字排在一起)
+                continue;
+            }
+            char[] syllable = PinYinTable.syllableChars(index);
+            int remaining = query.length - position;
+            int common = commonLength(query, position, syllable);
+            if (common == syllable.length) { // 全拼
+                match(child, query, position + syllable.length, matched);
+            }
+            if (syllable.length > 1) { // 首字母
+                match(child, query, position + 1, matched);
+            }
+            if (remaining > 1 && remaining < syllable.length && common == remaining) { // 最后一个字的拼音前缀
+                matched.add(child);
+            }
+        }
+    }
+
+    private static int commonLength(char[] query, int position, char[] syllable) {
+        int length = Math.min(query.length - position, syllable.length);
+        int i = 0;
+        while (i < length && query[position + i] == syllable[i]) {
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * 从匹配的节点出发，按权重优先搜索前limit个条目
+     */
+    private void collect(Set<Integer> matched, int limit, List<String> results) {
+        PriorityQueue<Candidate> queue = new PriorityQueue<Candidate>();
+        for (int node : matched) {
+            if (!hasMatchedAncestor(node, matched)) { // 祖先已匹配时，其子树已包含本节点
+                queue.add(new Candidate(node, maxWeights[node], depth(node), false));
+            }
+        }
+        Candidate candidate;
+        while (results.size() < limit && (candidate = queue.poll()) != null) {
+            int node = candidate.node;
+            if (candidate.entry) {
+                results.add(texts[node]);
+                continue;
+            }
+            if (texts[node] != null) {
+                queue.add(new Candidate(node, weights[node], candidate.depth, true));
+            }
+            for (int child = firstChildren[node]; child != NONE; child = nextSiblings[child]) {
+                if (maxWeights[child] != Integer.MIN_VALUE) {
+                    queue.add(new Candidate(child, maxWeights[child], candidate.depth + 1, false));
+                }
+            }
+        }
+    }
+
+    private boolean hasMatchedAncestor(int node, Set<Integer> matched) {
+        for (int n = parents[node]; n != NONE; n = parents[n]) {
+            if (matched.contains(n)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int depth(int node) {
+        int depth = 0;
+        for (int n = node; n != ROOT; n = parents[n]) {
+            depth++;
+        }
+        return depth;
+    }
+
+    private int find(String text) {
+        int node = ROOT;
+        for (int i = 0; i < text.length() && node != NONE; i++) {
+            node = findChild(node, text.charAt(i));
+        }
+        return node;
+    }
+
+    private int findChild(int node, char c) {
+        char key = sortKey(c);
+        for (int child = firstChildren[node]; child != NONE; child = nextSiblings[child]) {
+            char childKey = sortKey(labels[child]);
+            if (childKey > key || (childKey == key && labels[child] > c)) {
+                return NONE;
+            }
+            if (labels[child] == c) {
+                return child;
+            }
+        }
+        return NONE;
+    }
+
+    /**
+     * 兄弟节点按(排序键, 字符)有序插入
+     */
+    private int getOrCreateChild(int node, char c) {
+        char key = sortKey(c);
+        int previous = NONE;
+        int child = firstChildren[node];
+        while (child != NONE) {
+            char childKey = sortKey(labels[child]);
+            if (childKey > key || (childKey == key && labels[child] > c)) {
+                break;
+            }
+            if (labels[child] == c) {
+                return child;
+            }
+            previous = child;
+            child = nextSiblings[child];
+        }
+        int created = newNode(node, c);
+        nextSiblings[created] = child;
+        if (previous == NONE) {
+            firstChildren[node] = created;
+        } else {
+            nextSiblings[previous] = created;
+        }
+        return created;
+    }
+
+    private int newNode(int parent, char c) {
+        int node;
+        if (freeList != NONE) {
+            node = freeList;
+            freeList = nextSiblings[node];
+        } else {
+            if (nodeCount == labels.length) {
+                grow();
+            }
+            node = nodeCount++;
+        }
+        labels[node] = c;
+        parents[node] = parent;
+        firstChildren[node] = NONE;
+        nextSiblings[node] = NONE;
+        weights[node] = 0;
+        maxWeights[node] = Integer.MIN_VALUE;
+        texts[node] = null;
+        return node;
+    }
+
+    private void unlink(int parent, int node) {
+        if (firstChildren[parent] == node) {
+            firstChildren[parent] = nextSiblings[node];
+        } else {
+            int sibling = firstChildren[parent];
+            while (nextSiblings[sibling] != node) {
+                sibling = nextSiblings[sibling];
+            }
+            nextSiblings[sibling] = nextSiblings[node];
+        }
+        parents[node] = NONE;
+        nextSiblings[node] = freeList;
+        freeList = node;
+    }
+
+    /**
+     * 从节点开始向上重新计算子树的最大权重，直到不再变化
+     */
+    private void updateMaxWeights(int node) {
+        for (int n = node; n != NONE; n = parents[n]) {
+            int max = texts[n] == null ? Integer.MIN_VALUE : weights[n];
+            for (int child = firstChildren[n]; child != NONE; child = nextSiblings[child]) {
+                max = Math.max(max, maxWeights[child]);
+            }
+            if (max == maxWeights[n] && n != node) {
+                return;
+            }
+            maxWeights[n] = max;
+        }
+    }
+
+    private void grow() {
+        int capacity = labels.length + (labels.length >> 1) + 16;
+        labels = Arrays.copyOf(labels, capacity);
+        parents = Arrays.copyOf(parents, capacity);
+        firstChildren = Arrays.copyOf(firstChildren, capacity);
+        nextSiblings = Arrays.copyOf(nextSiblings, capacity);
+        weights = Arrays.copyOf(weights, capacity);
+        maxWeights = Arrays.copyOf(maxWeights, capacity);
+        texts = Arrays.copyOf(texts, capacity);
+    }
+
+    /**
+     * 排序键：有拼音的字符取拼音首字母，其他字符取其小写，使首字母相同的汉字和字母相邻
+     */
+    private static char sortKey(char c) {
+        char initial = PinYinTable.initial(c);
+        return initial != 0 ? initial : Character.toLowerCase(c);
+    }
+
+    /**
+     * 搜索队列中的候选：子树或条目
+     */
+    private static class Candidate implements Comparable<Candidate> {
+
+        private final int node;
+        private final int weight;
+        private final int depth;
+        private final boolean entry;
+
+        private Candidate(int node, int weight, int depth, boolean entry) {
+            this.node = node;
+            this.weight = weight;
+            this.depth = depth;
+            this.entry = entry;
+        }
+
+        @Override
+        public int compareTo(Candidate other) {
+            if (weight != other.weight) {
+                return weight > other.weight ? -1 : 1;
+            }
+            if (depth != other.depth) {
+                return depth < other.depth ? -1 : 1;
+            }
+            if (entry != other.entry) {
+                return entry ? -1 : 1;
+            }
+            return node < other.node ? -1 : (node == other.node ? 0 : 1);
+        }
+    }
+
+}
@@ -0,0 +1,126 @@
+package cn;
+
+import exception.SystemException;
+import net.sourceforge.pinyin4j.PinyinHelper;
+import net.sourceforge.pinyin4j.format.HanyuPinyinCaseType;
+import net.sourceforge.pinyin4j.format.HanyuPinyinOutputFormat;
+import net.sourceforge.pinyin4j.format.HanyuPinyinToneType;
+import net.sourceforge.pinyin4j.format.HanyuPinyinVCharType;
+import net.sourceforge.pinyin4j.format.exception.BadHanyuPinyinOutputFormatCombination;
+
+import java.util.*;
+
+/**
+ * 汉字拼音的紧凑查找表
+ * <p>
+ * 类加载时从pinyin4j读取一次基本汉字区(U+4E00~U+9FA5)及“〇”的拼音，
+ * 按码点存入基本类型数组：每个汉字一个short型的音节下标(不带声调、小写、ü写作v，多音字取第一个读音)、
+ * 一个byte型的首字母；音节去重后只保存一份(约400个)。此后查找只是数组下标访问，不再调用pinyin4j。
+ * 多音字另有标记，需要全部读音时才调用pinyin4j。
+ * </p>
+ */
+class PinYinTable {
+
+    static final char FIRST = '\u4E00';
+    static final char LAST = '\u9FA5';
+    private static final char ZERO = '\u3007'; // 〇
+
+    static final HanyuPinyinOutputFormat FORMAT = new HanyuPinyinOutputFormat();
+
+    private static final short[] syllableIndexes = new short[LAST - FIRST + 1]; // 音节下标，没有拼音为-1
+    private static final byte[] initials = new byte[LAST - FIRST + 1]; // 首字母，没有拼音为0
+    private static final BitSet polyphones = new BitSet(LAST - FIRST + 1);
+    private static final String[] syllables;
+    private static final char[][] syllableChars;
+    private static final short zeroIndex;
+
+    static {
+        FORMAT.setCaseType(HanyuPinyinCaseType.LOWERCASE);
+        FORMAT.setToneType(HanyuPinyinToneType.WITHOUT_TONE);
+        FORMAT.setVCharType(HanyuPinyinVCharType.WITH_V);
+
+        Map<String, Short> indexes = new LinkedHashMap<String, Short>(512);
+        try {
+            for (char c = FIRST; c <= LAST; c++) {
+                String[] pinyins = PinyinHelper.toHanyuPinyinStringArray(c, FORMAT);
+                int offset = c - FIRST;
+                if (pinyins == null || pinyins.length == 0) {
+                    syllableIndexes[offset] = -1;
+                    continue;
+                }
+                syllableIndexes[offset] = indexOf(indexes, pinyins[0]);
+                initials[offset] = (byte) pinyins[0].charAt(0);
+                if (new HashSet<String>(Arrays.asList(pinyins)).size() > 1) {
+                    polyphones.set(offset);
+                }
+            }
+            String[] zero = PinyinHelper.toHanyuPinyinStringArray(ZERO, FORMAT);
+            zeroIndex = zero == null ? -1 : indexOf(indexes, zero[0]);
+        } catch (BadHanyuPinyinOutputFormatCombination e) {
+            throw new SystemException(e, "加载汉字拼音表出错！");
+        }
+        syllables = indexes.keySet().toArray(new String[indexes.size()]);
+        syllableChars = new char[syllables.length][];
+        for (int i = 0; i < syllables.length; i++) {
+            syllableChars[i] = syllables[i].toCharArray();
+        }
+    }
+
+    private PinYinTable() {
+    }
+
+    private static short indexOf(Map<String, Short> indexes, String syllable) {
+        Short index = indexes.get(syllable);
+        if (index == null) {
+            index = (short) indexes.size();
+            indexes.put(syllable, index);
+        }
+        return index;
+    }
+
+    /**
+     * 取得字符的拼音音节下标
+     *
+     * @param c 字符
+     * @return 音节下标，没有拼音时返回-1
+     */
+    static int syllableIndex(char c) {
+        if (c >= FIRST && c <= LAST) {
+            return syllableIndexes[c - FIRST];
+        }
+        return c == ZERO ? zeroIndex : -1;
+    }
+
+    /**
+     * 取得字符的拼音首字母
+     *
+     * @param c 字符
+     * @return 首字母(小写)，没有拼音时返回0
+     */
+    static char initial(char c) {
+        if (c >= FIRST && c <= LAST) {
+            return (char) initials[c - FIRST];
+        }
+        return c == ZERO && zeroIndex >= 0 ? syllables[zeroIndex].charAt(0) : 0;
+    }
+
+    /**
+     * @return 音节的个数
+     */
+    static int syllableCount() {
+        return syllables.length;
+    }
+
+    static String syllable(int index) {
+        return syllables[index];
+    }
+
+    static char[] syllableChars(int index) {
+        return syllableChars[index];
+    }
+
+    static boolean isPolyphone(char c) {
+        return c >= FIRST && c <= LAST && polyphones.get(c - FIRST);
+    }
+
+}
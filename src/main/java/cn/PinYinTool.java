@@ -2,13 +2,18 @@ package cn;
 
 import exception.SystemException;
 import net.sourceforge.pinyin4j.PinyinHelper;
-import net.sourceforge.pinyin4j.format.HanyuPinyinCaseType;
-import net.sourceforge.pinyin4j.format.HanyuPinyinOutputFormat;
-import net.sourceforge.pinyin4j.format.HanyuPinyinToneType;
-import net.sourceforge.pinyin4j.format.HanyuPinyinVCharType;
+import net.sourceforge.pinyin4j.format.exception.BadHanyuPinyinOutputFormatCombination;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
 
 /**
  * 拼音工具类
+ * <p>
+ * 汉字的拼音从类加载时构建的紧凑查找表中取得(见{@link PinYinTable})，转换时除输出外不分配内存；
+ * 多音字取第一个读音，需要全部读音时使用{@link #getAllPinYin(char)}。
+ * 批量转换时可使用appendXxx方法复用同一个StringBuilder。
+ * </p>
  */
 public class PinYinTool {
 
@@ -22,26 +27,38 @@ public class PinYinTool {
      * @return 全拼串
      */
     public static String getPinYin(String cnStr) {
-        // 设置汉字拼音输出的格式
-        HanyuPinyinOutputFormat fmt = new HanyuPinyinOutputFormat();
-        fmt.setCaseType(HanyuPinyinCaseType.LOWERCASE);
-        fmt.setToneType(HanyuPinyinToneType.WITHOUT_TONE);
-        fmt.setVCharType(HanyuPinyinVCharType.WITH_V);
+        return appendPinYin(cnStr, new StringBuilder(cnStr.length() * 4)).toString();
+    }
 
-        char[] charArray = cnStr.toCharArray();
-        StringBuilder result = new StringBuilder();
-        try {
-            for (char ch : charArray) {
-                if (Character.toString(ch).matches("[\\u4E00-\\u9FA5]+")) { // 判断是否为汉字字符
-                    result.append(PinyinHelper.toHanyuPinyinStringArray(ch, fmt)[0]);
-                } else {
-                    result.append(Character.toString(ch));
-                }
+    /**
+     * 将中文转换为全拼，追加到StringBuilder中，非汉字字符原样追加
+     *
+     * @param cnStr 中文串
+     * @param sb    StringBuilder
+     * @return 传入的StringBuilder
+     */
+    public static StringBuilder appendPinYin(CharSequence cnStr, StringBuilder sb) {
+        for (int i = 0, length = cnStr.length(); i < length; i++) {
+            char ch = cnStr.charAt(i);
+            int index = PinYinTable.syllableIndex(ch);
+            if (index >= 0) {
+                sb.append(PinYinTable.syllableChars(index));
+            } else {
+                sb.append(ch);
             }
-        } catch (Exception e) {
-            throw new SystemException(e, "汉字转换为全拼出错！");
         }
-        return result.toString();
+        return sb;
+    }
+
+    /**
+     * 取得单个汉字的拼音(不带声调，多音字取第一个读音)
+     *
+     * @param ch 汉字
+     * @return 拼音，不是汉字时返回null
+     */
+    public static String getPinYin(char ch) {
+        int index = PinYinTable.syllableIndex(ch);
+        return index < 0 ? null : PinYinTable.syllable(index);
     }
 
     /**
@@ -51,27 +68,58 @@ public class PinYinTool {
      * @return 拼音首字母串
      */
     public static String getPinYinHeadChars(String cnStr) {
-        HanyuPinyinOutputFormat fmt = new HanyuPinyinOutputFormat();
-        fmt.setCaseType(HanyuPinyinCaseType.LOWERCASE);
-        fmt.setToneType(HanyuPinyinToneType.WITHOUT_TONE);
-        fmt.setVCharType(HanyuPinyinVCharType.WITH_V);
+        return appendPinYinHeadChars(cnStr, new StringBuilder(cnStr.length())).toString();
+    }
+
+    /**
+     * 提取每个中文的首字母，追加到StringBuilder中，非汉字字符原样追加
+     *
+     * @param cnStr 中文串
+     * @param sb    StringBuilder
+     * @return 传入的StringBuilder
+     */
+    public static StringBuilder appendPinYinHeadChars(CharSequence cnStr, StringBuilder sb) {
+        for (int i = 0, length = cnStr.length(); i < length; i++) {
+            char ch = cnStr.charAt(i);
+            char initial = PinYinTable.initial(ch);
+            sb.append(initial == 0 ? ch : initial);
+        }
+        return sb;
+    }
 
-        char[] charArray = cnStr.toCharArray();
-        StringBuilder result = new StringBuilder();
+    /**
+     * 是否为多音字
+     *
+     * @param ch 字符
+     * @return true: 是多音字
+     */
+    public static boolean isPolyphone(char ch) {
+        return PinYinTable.isPolyphone(ch);
+    }
+
+    /**
+     * 取得汉字的全部读音(不带声调，去重)，用于多音字的消歧
+     *
+     * @param ch 汉字
+     * @return 全部读音，第一个与{@link #getPinYin(char)}相同；不是汉字时返回空数组
+     */
+    public static String[] getAllPinYin(char ch) {
+        int index = PinYinTable.syllableIndex(ch);
+        if (index < 0) {
+            return new String[0];
+        }
+        if (!PinYinTable.isPolyphone(ch)) {
+            return new String[]{PinYinTable.syllable(index)};
+        }
         try {
-            for (char ch : charArray) {
-                // 提取汉字的首字母
-                String[] pinyinArray = PinyinHelper.toHanyuPinyinStringArray(ch, fmt);
-                if (pinyinArray != null) {
-                    result.append(pinyinArray[0].charAt(0));
-                } else {
-                    result.append(ch);
-                }
+            Set<String> pinyins = new LinkedHashSet<String>();
+            for (String pinyin : PinyinHelper.toHanyuPinyinStringArray(ch, PinYinTable.FORMAT)) {
+                pinyins.add(pinyin);
             }
-        } catch (Exception e) {
-            throw new SystemException(e, "汉字的首字母提取出错！");
+            return pinyins.toArray(new String[pinyins.size()]);
+        } catch (BadHanyuPinyinOutputFormatCombination e) {
+            throw new SystemException(e, "取得汉字[{0}]的读音出错！", ch);
         }
-        return result.toString();
     }
 
 }
@@ -0,0 +1,114 @@
+package collections;
+
+import support.ICallback;
+
+/**
+ * {@link ConcurrentCache}的配置
+ * 所有的大小/时间配置小于0时表示不限制
+ *
+ * @param <K> key的类型
+ * @param <V> value的类型
+ */
+public class CacheConfig<K, V> {
+
+    /**
+     * value的引用强度
+     */
+    public enum ValueStrength {
+        /**
+         * 强引用
+         */
+        STRONG,
+        /**
+         * 软引用，内存不足时可被垃圾回收
+         */
+        SOFT,
+        /**
+         * 弱引用，没有其他强引用时可被垃圾回收
+         */
+        WEAK
+    }
+
+    private int concurrencyLevel = 16;                  // 预计的并发更新线程数，决定分段数
+    private long maximumSize = -1;                      // 最大条目数
+    private long maximumWeight = -1;                    // 最大权重，需要同时设置weigher
+    private ConcurrentCache.Weigher<? super K, ? super V> weigher; // 权重计算器
+    private ValueStrength valueStrength = ValueStrength.STRONG; // value的引用强度
+    private long expireAfterWriteMillis = -1;           // 写入后多久过期(毫秒)
+    private long expireAfterAccessMillis = -1;          // 最后一次访问后多久过期(毫秒)
+    private ICallback<? super K, ? extends V> loader;   // 缓存未命中时的加载器
+    private boolean recordStats;                        // 是否记录命中率等统计信息
+
+    public int getConcurrencyLevel() {
+        return concurrencyLevel;
+    }
+
+    public void setConcurrencyLevel(int concurrencyLevel) {
+        this.concurrencyLevel = concurrencyLevel;
+    }
+
+    public long getMaximumSize() {
+        return maximumSize;
+    }
+
+    public void setMaximumSize(long maximumSize) {
+        this.maximumSize = maximumSize;
+    }
+
+    public long getMaximumWeight() {
+        return maximumWeight;
+    }
+
+    public void setMaximumWeight(long maximumWeight) {
+        this.maximumWeight = maximumWeight;
+    }
+
+    public ConcurrentCache.Weigher<? super K, ? super V> getWeigher() {
+        return weigher;
+    }
+
+    public void setWeigher(ConcurrentCache.Weigher<? super K, ? super V> weigher) {
+        this.weigher = weigher;
+    }
+
+    public ValueStrength getValueStrength() {
+        return valueStrength;
+    }
+
+    public void setValueStrength(ValueStrength valueStrength) {
+        this.valueStrength = valueStrength;
+    }
+
+    public long getExpireAfterWriteMillis() {
+        return expireAfterWriteMillis;
+    }
+
+    public void setExpireAfterWriteMillis(long expireAfterWriteMillis) {
+        this.expireAfterWriteMillis = expireAfterWriteMillis;
+    }
+
+    public long getExpireAfterAccessMillis() {
+        return expireAfterAccessMillis;
+    }
+
+    public void setExpireAfterAccessMillis(long expireAfterAccessMillis) {
+        this.expireAfterAccessMillis = expireAfterAccessMillis;
+    }
+
+    public ICallback<? super K, ? extends V> getLoader() {
+        return loader;
+    }
+
+    public void setLoader(ICallback<? super K, ? extends V> loader) {
+        this.loader = loader;
+    }
+
+    public boolean isRecordStats() {
+        return recordStats;
+    }
+
+    public void setRecordStats(boolean recordStats) {
+        this.recordStats = recordStats;
+    }
+
+}
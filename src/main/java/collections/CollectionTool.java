@@ -1,10 +1,9 @@
 package collections;
 
-import bean.BeanTool;
 import bean.IEntity;
 import exception.SystemException;
 import lang.ArrayTool;
-import lang.reflect.MethodTool;
+import lang.reflect.PropertyPath;
 import lang.string.StringTool;
 import org.apache.commons.beanutils.PropertyUtils;
 import org.apache.commons.collections.*;
@@ -57,9 +56,10 @@ public class CollectionTool {
         if (StringTool.isBlank(propertyName)) {
             throw new IllegalArgumentException("propertyName参数不能为空!");
         }
+        PropertyPath path = PropertyPath.compile(propertyName);
         Map<Object, E> map = new LinkedHashMap<Object, E>(entities.size());
         for (E entity : entities) {
-            Object value = MethodTool.invokeGetter(entity, propertyName);
+            Object value = path.get(entity);
             map.put(value, entity);
         }
         return map;
@@ -94,12 +94,15 @@ public class CollectionTool {
             throw new IllegalArgumentException("参数valuePropertyName不能为空!");
         }
 
+        PropertyPath keyPath = compileSimplePath(keyPropertyName);
+        PropertyPath valuePath = compileSimplePath(valuePropertyName);
         Map map = new HashMap(collection.size());
         try {
             for (Object obj : collection) {
-                map.put(PropertyUtils.getProperty(obj, keyPropertyName),
-                        PropertyUtils.getProperty(obj, valuePropertyName));
+                map.put(getProperty(obj, keyPropertyName, keyPath), getProperty(obj, valuePropertyName, valuePath));
             }
+        } catch (SystemException e) {
+            throw e;
         } catch (Exception e) {
             throw new SystemException(e);
         }
@@ -127,12 +130,15 @@ public class CollectionTool {
         if (StringTool.isBlank(propertyName)) {
             throw new IllegalArgumentException("参数propertyName不能为空!");
         }
+        PropertyPath path = compileSimplePath(propertyName);
         List list = new ArrayList(collection.size());
 
         try {
             for (Object obj : collection) {
-                list.add(BeanTool.getProperty(obj, propertyName));
+                list.add(getProperty(obj, propertyName, path));
             }
+        } catch (SystemException e) {
+            throw e;
         } catch (Exception e) {
             throw new SystemException(e);
         }
@@ -164,6 +170,17 @@ public class CollectionTool {
         return StringTool.join(list, separator);
     }
 
+    /**
+     * 简单属性路径(不含索引/映射语法)编译为PropertyPath, 否则返回null, 由PropertyUtils处理
+     */
+    private static PropertyPath compileSimplePath(String propertyName) {
+        return PropertyPath.isSimplePath(propertyName) ? PropertyPath.compile(propertyName) : null;
+    }
+
+    private static Object getProperty(Object obj, String propertyName, PropertyPath path) throws Exception {
+        return path == null ? PropertyUtils.getProperty(obj, propertyName) : path.get(obj);
+    }
+
     /**
      * 转换Collection所有元素(通过toString())为String, 中间以separator分隔。
      *
@@ -0,0 +1,824 @@
+package collections;
+
+import collections.CacheConfig.ValueStrength;
+import exception.SystemException;
+import support.ICallback;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+import java.lang.ref.WeakReference;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 并发的有界缓存
+ * <p>
+ * 按key的hash分段，每段由一个无锁读取的ConcurrentHashMap和一把写锁组成。
+ * 有界时每段使用分段LRU(SLRU)淘汰: 新条目进入试用区，再次被访问后晋升到保护区(占段容量的80%)，
+ * 优先淘汰试用区中最久未访问的条目，从而避免一次性扫描冲掉热点数据。
+ * 读操作只在能立即获得段锁时才调整访问顺序，竞争激烈时放弃调整，读永远不会阻塞。
+ * </p>
+ * <p>
+ * 支持按条目数或权重限制容量、软/弱引用的value、写入后/访问后过期，
+ * 以及带加载器的读取: 同一个key并发未命中时只有一个线程执行加载，其余线程等待其结果。
+ * key和value都不能为null。
+ * </p>
+ *
+ * @param <K> key的类型
+ * @param <V> value的类型
+ */
+public class ConcurrentCache<K, V> {
+
+    /**
+     * 条目权重计算器
+     *
+     * @param <K> key的类型
+     * @param <V> value的类型
+     */
+    public interface Weigher<K, V> {
+
+        /**
+         * 计算条目的权重
+         *
+         * @param key   key
+         * @param value value
+         * @return 权重，不能小于0
+         */
+        int weigh(K key, V value);
+    }
+
+    private static final int MAX_SEGMENTS = 1 << 16;
+    private static final int MIN_SEGMENT_WEIGHT = 16; // 有界时每段的最小容量，避免分段过多导致淘汰不准
+    private static final double PROTECTED_RATIO = 0.8; // 保护区占段容量的比例
+    private static final int EXPIRE_SWEEP_LIMIT = 16; // 每次写操作顺带清理的过期条目的最大个数
+
+    private final Segment<K, V>[] segments;
+    private final int segmentShift;
+    private final int segmentMask;
+    private final Weigher<? super K, ? super V> weigher;
+    private final ValueStrength valueStrength;
+    private final long expireAfterWriteNanos;
+    private final long expireAfterAccessNanos;
+    private final ICallback<? super K, ? extends V> loader;
+    private final boolean recordStats;
+    private final ConcurrentMap<K, LoadingTask<V>> loading = new ConcurrentHashMap<K, LoadingTask<V>>();
+
+    /**
+     * 创建无界、强引用、不过期的缓存
+     */
+    public ConcurrentCache() {
+        this(new CacheConfig<K, V>());
+    }
+
+    /**
+     * 创建按条目数限制容量的缓存
+     *
+     * @param maximumSize 最大条目数
+     */
+    public ConcurrentCache(long maximumSize) {
+        this(ConcurrentCache.<K, V>sizeConfig(maximumSize));
+    }
+
+    /**
+     * 按配置创建缓存
+     *
+     * @param config 缓存配置
+     * @throws IllegalArgumentException 如果配置不合法
+     */
+    public ConcurrentCache(CacheConfig<K, V> config) {
+        if (config == null) {
+            throw new IllegalArgumentException("缓存配置不能为null!");
+        }
+        if (config.getMaximumWeight() >= 0 && config.getWeigher() == null) {
+            throw new IllegalArgumentException("设置了maximumWeight时必须设置weigher!");
+        }
+        if (config.getMaximumWeight() >= 0 && config.getMaximumSize() >= 0) {
+            throw new IllegalArgumentException("maximumSize和maximumWeight不能同时设置!");
+        }
+        this.weigher = config.getMaximumWeight() >= 0 ? config.getWeigher() : null;
+        this.valueStrength = config.getValueStrength() == null ? ValueStrength.STRONG : config.getValueStrength();
+        this.expireAfterWriteNanos = toNanos(config.getExpireAfterWriteMillis());
+        this.expireAfterAccessNanos = toNanos(config.getExpireAfterAccessMillis());
+        this.loader = config.getLoader();
+        this.recordStats = config.isRecordStats();
+
+        long maxWeight = weigher != null ? config.getMaximumWeight() : config.getMaximumSize();
+        int concurrencyLevel = Math.min(Math.max(config.getConcurrencyLevel(), 1), MAX_SEGMENTS);
+        int segmentCount = 1;
+        int shift = 0;
+        while (segmentCount < concurrencyLevel
+                && (maxWeight < 0 || (long) segmentCount * 2 * MIN_SEGMENT_WEIGHT <= maxWeight)) {
+            segmentCount <<= 1;
+            shift++;
+        }
+        this.segmentShift = 32 - shift;
+        this.segmentMask = segmentCount - 1;
+        this.segments = newSegmentArray(segmentCount);
+        for (int i = 0; i < segmentCount; i++) {
+            long segmentWeight = -1;
+            if (maxWeight >= 0) {
+                segmentWeight = maxWeight / segmentCount + (i < maxWeight % segmentCount ? 1 : 0);
+            }
+            segments[i] = new Segment<K, V>(this, segmentWeight);
+        }
+    }
+
+    private static <K, V> CacheConfig<K, V> sizeConfig(long maximumSize) {
+        CacheConfig<K, V> config = new CacheConfig<K, V>();
+        config.setMaximumSize(maximumSize);
+        return config;
+    }
+
+    private static long toNanos(long millis) {
+        return millis < 0 ? -1 : TimeUnit.MILLISECONDS.toNanos(millis);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <K, V> Segment<K, V>[] newSegmentArray(int length) {
+        return (Segment<K, V>[]) new Segment<?, ?>[length];
+    }
+
+    /**
+     * 取得缓存的值，不触发加载
+     *
+     * @param key key
+     * @return 值，不存在、已过期或已被垃圾回收时返回null
+     */
+    public V getIfPresent(Object key) {
+        return get(key, true);
+    }
+
+    /**
+     * 取得缓存的值，未命中时使用配置的加载器加载
+     *
+     * @param key key
+     * @return 值，加载器返回null时返回null(不缓存)
+     * @throws IllegalStateException 如果没有配置加载器
+     * @throws SystemException       如果加载出错
+     */
+    public V get(K key) {
+        if (loader == null) {
+            throw new IllegalStateException("没有配置缓存加载器!");
+        }
+        return get(key, loader);
+    }
+
+    /**
+     * 取得缓存的值，未命中时使用指定的加载器加载。
+     * 同一个key的并发加载只执行一次，其他线程等待并共享加载结果。
+     *
+     * @param key    key
+     * @param loader 加载器
+     * @return 值，加载器返回null时返回null(不缓存)
+     * @throws SystemException       如果加载出错或等待加载时被中断
+     * @throws IllegalStateException 如果加载器在同一线程中递归加载正在加载的key
+     */
+    public V get(final K key, final ICallback<? super K, ? extends V> loader) {
+        checkKey(key);
+        V value = get(key, true);
+        if (value != null) {
+            return value;
+        }
+        LoadingTask<V> task = new LoadingTask<V>(new Callable<V>() {
+            @Override
+            public V call() throws Exception {
+                V present = ConcurrentCache.this.get(key, false); // 可能在未命中后已被其他线程加载完成
+                if (present != null) {
+                    return present;
+                }
+                long start = System.nanoTime();
+                boolean success = false;
+                try {
+                    V loaded = loader.execute(key);
+                    success = true;
+                    if (loaded != null) {
+                        put(key, loaded);
+                    }
+                    return loaded;
+                } finally {
+                    segmentFor(key.hashCode()).recordLoad(success, System.nanoTime() - start);
+                }
+            }
+        });
+        LoadingTask<V> existing = loading.putIfAbsent(key, task);
+        if (existing != null) {
+            if (existing.owner == Thread.currentThread()) { // 等待自己正在执行的加载会永远阻塞
+                throw new IllegalStateException("递归加载缓存: " + key);
+            }
+            return waitFor(key, existing);
+        }
+        try {
+            task.run();
+            return waitFor(key, task);
+        } finally {
+            loading.remove(key, task);
+        }
+    }
+
+    private V waitFor(K key, FutureTask<V> task) {
+        try {
+            return task.get();
+        } catch (ExecutionException e) {
+            throw new SystemException(e.getCause(), "加载缓存[{0}]出错！", key);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SystemException(e, "等待加载缓存[{0}]时被中断！", key);
+        }
+    }
+
+    private V get(Object key, boolean record) {
+        checkKey(key);
+        int hash = key.hashCode();
+        Segment<K, V> segment = segmentFor(hash);
+        Node<K, V> node = segment.map.get(key);
+        V value = null;
+        if (node != null) {
+            value = node.holder.get();
+            long now = isExpiring() ? System.nanoTime() : 0;
+            if (value == null || isExpired(node, now)) {
+                segment.removeStale(node);
+                value = null;
+            } else {
+                if (expireAfterAccessNanos >= 0) {
+                    node.accessTime = now;
+                }
+                segment.recordAccess(node);
+            }
+        }
+        if (record && recordStats) {
+            (value == null ? segment.missCount : segment.hitCount).incrementAndGet();
+        }
+        return value;
+    }
+
+    /**
+     * 放入缓存，已存在时替换
+     *
+     * @param key   key
+     * @param value value
+     * @return 原来的值，不存在时返回null
+     */
+    public V put(K key, V value) {
+        checkKey(key);
+        if (value == null) {
+            throw new IllegalArgumentException("缓存的value不能为null!");
+        }
+        return segmentFor(key.hashCode()).put(key, value, false);
+    }
+
+    /**
+     * 不存在时放入缓存
+     *
+     * @param key   key
+     * @param value value
+     * @return 已存在的值，不存在时返回null(此时已放入)
+     */
+    public V putIfAbsent(K key, V value) {
+        checkKey(key);
+        if (value == null) {
+            throw new IllegalArgumentException("缓存的value不能为null!");
+        }
+        return segmentFor(key.hashCode()).put(key, value, true);
+    }
+
+    /**
+     * 移除缓存
+     *
+     * @param key key
+     * @return 原来的值，不存在时返回null
+     */
+    public V remove(Object key) {
+        checkKey(key);
+        return segmentFor(key.hashCode()).remove(key);
+    }
+
+    /**
+     * 清空缓存
+     */
+    public void clear() {
+        for (Segment<K, V> segment : segments) {
+            segment.clear();
+        }
+    }
+
+    /**
+     * 是否包含指定的key(不计入统计，不影响访问顺序)
+     *
+     * @param key key
+     * @return true: 包含且未过期
+     */
+    public boolean containsKey(Object key) {
+        checkKey(key);
+        Node<K, V> node = segmentFor(key.hashCode()).map.get(key);
+        return node != null && node.holder.get() != null
+                && !isExpired(node, isExpiring() ? System.nanoTime() : 0);
+    }
+
+    /**
+     * 取得条目数，会先清理已被垃圾回收的条目，但可能包含已过期而未清理的条目
+     *
+     * @return 条目数
+     */
+    public int size() {
+        long size = 0;
+        for (Segment<K, V> segment : segments) {
+            segment.drainReferenceQueue();
+            size += segment.map.size();
+        }
+        return (int) Math.min(size, Integer.MAX_VALUE);
+    }
+
+    /**
+     * @return 当前的总权重(不限制权重时为条目数)
+     */
+    public long weightedSize() {
+        long weight = 0;
+        for (Segment<K, V> segment : segments) {
+            weight += segment.totalWeight;
+        }
+        return weight;
+    }
+
+    /**
+     * 清理所有已过期和已被垃圾回收的条目
+     */
+    public void cleanUp() {
+        for (Segment<K, V> segment : segments) {
+            segment.cleanUp();
+        }
+    }
+
+    /**
+     * 取得当前所有有效条目的快照(不计入统计，不影响访问顺序)
+     *
+     * @return 新的Map，修改它不影响缓存
+     */
+    public Map<K, V> snapshot() {
+        Map<K, V> result = new HashMap<K, V>();
+        long now = isExpiring() ? System.nanoTime() : 0;
+        for (Segment<K, V> segment : segments) {
+            for (Node<K, V> node : segment.map.values()) {
+                V value = node.holder.get();
+                if (value != null && !isExpired(node, now)) {
+                    result.put(node.key, value);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 取得统计信息，需要配置recordStats才会记录命中/未命中次数
+     *
+     * @return 统计信息的快照
+     */
+    public CacheStats stats() {
+        long hits = 0, misses = 0, loadSuccess = 0, loadFailure = 0, loadTime = 0, evictions = 0, evictionWeight = 0;
+        for (Segment<K, V> segment : segments) {
+            hits += segment.hitCount.get();
+            misses += segment.missCount.get();
+            loadSuccess += segment.loadSuccessCount.get();
+            loadFailure += segment.loadFailureCount.get();
+            loadTime += segment.totalLoadTime.get();
+            evictions += segment.evictionCount.get();
+            evictionWeight += segment.evictionWeight.get();
+        }
+        return new CacheStats(hits, misses, loadSuccess, loadFailure, loadTime, evictions, evictionWeight);
+    }
+
+    private void checkKey(Object key) {
+        if (key == null) {
+            throw new IllegalArgumentException("缓存的key不能为null!");
+        }
+    }
+
+    private Segment<K, V> segmentFor(int hash) {
+        // 再散列，避免低质量的hashCode集中到少数段
+        hash += (hash << 15) ^ 0xffffcd7d;
+        hash ^= (hash >>> 10);
+        hash += (hash << 3);
+        hash ^= (hash >>> 6);
+        hash += (hash << 2) + (hash << 14);
+        hash ^= (hash >>> 16);
+        return segments[segmentMask == 0 ? 0 : (hash >>> segmentShift) & segmentMask];
+    }
+
+    private boolean isExpiring() {
+        return expireAfterWriteNanos >= 0 || expireAfterAccessNanos >= 0;
+    }
+
+    private boolean isExpired(Node<K, V> node, long now) {
+        return (expireAfterWriteNanos >= 0 && now - node.writeTime >= expireAfterWriteNanos)
+                || (expireAfterAccessNanos >= 0 && now - node.accessTime >= expireAfterAccessNanos);
+    }
+
+    private int weigh(K key, V value) {
+        if (weigher == null) {
+            return 1;
+        }
+        int weight = weigher.weigh(key, value);
+        if (weight < 0) {
+            throw new IllegalArgumentException("条目的权重不能小于0: " + weight);
+        }
+        return weight;
+    }
+
+    private ValueHolder<V> hold(V value, Node<K, V> node, ReferenceQueue<V> queue) {
+        switch (valueStrength) {
+            case SOFT:
+                return new SoftValue<K, V>(value, node, queue);
+            case WEAK:
+                return new WeakValue<K, V>(value, node, queue);
+            default:
+                return new StrongValue<V>(value);
+        }
+    }
+
+    /**
+     * 缓存的一段
+     */
+    private static final class Segment<K, V> extends ReentrantLock {
+
+        private static final long serialVersionUID = 1L;
+
+        private final ConcurrentCache<K, V> cache;
+        private final ConcurrentHashMap<K, Node<K, V>> map = new ConcurrentHashMap<K, Node<K, V>>();
+        private final ReferenceQueue<V> referenceQueue = new ReferenceQueue<V>();
+        private final long maxWeight; // 小于0表示不限制
+        private final long maxProtectedWeight;
+
+        // 以下字段由段锁保护
+        private final Node<K, V> probation = Node.sentinel(); // 试用区，head.next为最近访问的
+        private final Node<K, V> protectedQueue = Node.sentinel(); // 保护区
+        private long protectedWeight;
+        private volatile long totalWeight;
+
+        private final AtomicLong hitCount = new AtomicLong();
+        private final AtomicLong missCount = new AtomicLong();
+        private final AtomicLong loadSuccessCount = new AtomicLong();
+        private final AtomicLong loadFailureCount = new AtomicLong();
+        private final AtomicLong totalLoadTime = new AtomicLong();
+        private final AtomicLong evictionCount = new AtomicLong();
+        private final AtomicLong evictionWeight = new AtomicLong();
+
+        private Segment(ConcurrentCache<K, V> cache, long maxWeight) {
+            this.cache = cache;
+            this.maxWeight = maxWeight;
+            this.maxProtectedWeight = maxWeight < 0 ? -1 : (long) (maxWeight * PROTECTED_RATIO);
+        }
+
+        private boolean isTracking() {
+            return maxWeight >= 0 || cache.isExpiring();
+        }
+
+        private V put(K key, V value, boolean onlyIfAbsent) {
+            lock();
+            try {
+                long now = cache.isExpiring() ? System.nanoTime() : 0;
+                drainReferenceQueue();
+                sweepExpired(now);
+                Node<K, V> node = map.get(key);
+                if (node != null) {
+                    V old = node.holder.get();
+                    if (old != null && !cache.isExpired(node, now)) {
+                        if (onlyIfAbsent) {
+                            recordAccessLocked(node);
+                            return old;
+                        }
+                    } else {
+                        old = null;
+                    }
+                    int weight = cache.weigh(key, value);
+                    adjustWeight(node, weight - node.weight);
+                    node.weight = weight;
+                    node.holder = cache.hold(value, node, referenceQueue);
+                    node.writeTime = now;
+                    node.accessTime = now;
+                    recordAccessLocked(node);
+                    evict();
+                    return old;
+                }
+                node = new Node<K, V>(key, cache.weigh(key, value), now);
+                node.holder = cache.hold(value, node, referenceQueue);
+                map.put(key, node);
+                if (isTracking()) {
+                    node.linkAfter(probation);
+                }
+                totalWeight += node.weight;
+                evict();
+                return null;
+            } finally {
+                unlock();
+            }
+        }
+
+        private V remove(Object key) {
+            lock();
+            try {
+                drainReferenceQueue();
+                Node<K, V> node = map.get(key);
+                if (node == null) {
+                    return null;
+                }
+                V old = node.holder.get();
+                removeNode(node);
+                return old == null || cache.isExpired(node, cache.isExpiring() ? System.nanoTime() : 0) ? null : old;
+            } finally {
+                unlock();
+            }
+        }
+
+        private void clear() {
+            lock();
+            try {
+                map.clear();
+                probation.prev = probation.next = probation;
+                protectedQueue.prev = protectedQueue.next = protectedQueue;
+                protectedWeight = 0;
+                totalWeight = 0;
+                while (referenceQueue.poll() != null) {
+                    // 丢弃已回收的引用
+                }
+            } finally {
+                unlock();
+            }
+        }
+
+        private void cleanUp() {
+            lock();
+            try {
+                drainReferenceQueue();
+                if (cache.isExpiring()) {
+                    long now = System.nanoTime();
+                    for (Node<K, V> node : map.values()) {
+                        if (cache.isExpired(node, now)) {
+                            removeNode(node);
+                        }
+                    }
+                }
+            } finally {
+                unlock();
+            }
+        }
+
+        /**
+         * 读到已失效的条目时移除，拿不到锁时留给后续的写操作清理
+         */
+        private void removeStale(Node<K, V> node) {
+            if (tryLock()) {
+                try {
+                    if (map.get(node.key) == node) {
+                        removeNode(node);
+                    }
+                } finally {
+                    unlock();
+                }
+            }
+        }
+
+        /**
+         * 记录读访问，拿不到锁时放弃调整访问顺序
+         */
+        private void recordAccess(Node<K, V> node) {
+            if (isTracking() && tryLock()) {
+                try {
+                    recordAccessLocked(node);
+                } finally {
+                    unlock();
+                }
+            }
+        }
+
+        private void recordAccessLocked(Node<K, V> node) {
+            if (node.prev == null) {
+                return; // 不跟踪顺序，或已被移除
+            }
+            if (maxWeight < 0) {
+                node.unlink();
+                node.linkAfter(probation);
+                return;
+            }
+            if (node.protectedNode) {
+                node.unlink();
+                node.linkAfter(protectedQueue);
+                return;
+            }
+            // 试用区中再次被访问的条目晋升到保护区，保护区溢出的条目降级回试用区
+            node.unlink();
+            node.linkAfter(protectedQueue);
+            node.protectedNode = true;
+            protectedWeight += node.weight;
+            while (protectedWeight > maxProtectedWeight && protectedQueue.prev != protectedQueue) {
+                Node<K, V> demoted = protectedQueue.prev;
+                demoted.unlink();
+                demoted.protectedNode = false;
+                protectedWeight -= demoted.weight;
+                demoted.linkAfter(probation);
+            }
+        }
+
+        private void adjustWeight(Node<K, V> node, int delta) {
+            totalWeight += delta;
+            if (node.protectedNode) {
+                protectedWeight += delta;
+            }
+        }
+
+        private void evict() {
+            if (maxWeight < 0) {
+                return;
+            }
+            while (totalWeight > maxWeight) {
+                Node<K, V> victim = probation.prev != probation ? probation.prev : protectedQueue.prev;
+                if (victim == protectedQueue) {
+                    return;
+                }
+                removeNode(victim);
+                evictionCount.incrementAndGet();
+                evictionWeight.addAndGet(victim.weight);
+            }
+        }
+
+        /**
+         * 顺带清理两个队列尾部(最久未访问)的少量过期条目
+         */
+        private void sweepExpired(long now) {
+            if (!cache.isExpiring()) {
+                return;
+            }
+            sweepExpired(probation, now);
+            sweepExpired(protectedQueue, now);
+        }
+
+        private void sweepExpired(Node<K, V> head, long now) {
+            for (int i = 0; i < EXPIRE_SWEEP_LIMIT && head.prev != head; i++) {
+                Node<K, V> node = head.prev;
+                if (!cache.isExpired(node, now)) {
+                    return;
+                }
+                removeNode(node);
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private void drainReferenceQueue() {
+            if (cache.valueStrength == ValueStrength.STRONG) {
+                return;
+            }
+            boolean acquired = !isHeldByCurrentThread();
+            if (acquired && !tryLock()) {
+                return; // 获得锁之前不出队，引用留在队列中由下次清理处理，条目的权重不会漏减
+            }
+            try {
+                Reference<? extends V> reference;
+                while ((reference = referenceQueue.poll()) != null) {
+                    Node<K, V> node = ((ValueReference<K, V>) reference).node();
+                    if (node.holder == reference && map.get(node.key) == node) {
+                        removeNode(node);
+                    }
+                }
+            } finally {
+                if (acquired) {
+                    unlock();
+                }
+            }
+        }
+
+        private void removeNode(Node<K, V> node) {
+            map.remove(node.key, node);
+            if (node.prev != null) {
+                node.unlink();
+            }
+            if (node.protectedNode) {
+                protectedWeight -= node.weight;
+                node.protectedNode = false;
+            }
+            totalWeight -= node.weight;
+        }
+
+        private void recordLoad(boolean success, long nanos) {
+            (success ? loadSuccessCount : loadFailureCount).incrementAndGet();
+            totalLoadTime.addAndGet(nanos);
+        }
+    }
+
+    /**
+     * 加载任务，记录创建并执行它的线程，用于发现加载器中的递归加载
+     */
+    private static final class LoadingTask<V> extends FutureTask<V> {
+
+        private final Thread owner = Thread.currentThread();
+
+        private LoadingTask(Callable<V> callable) {
+            super(callable);
+        }
+    }
+
+    /**
+     * 缓存条目，同时是访问顺序双向链表的节点
+     */
+    private static final class Node<K, V> {
+
+        private final K key;
+        private volatile ValueHolder<V> holder;
+        private volatile long writeTime;
+        private volatile long accessTime;
+        // 以下字段由段锁保护
+        private int weight;
+        private boolean protectedNode;
+        private Node<K, V> prev;
+        private Node<K, V> next;
+
+        private Node(K key, int weight, long now) {
+            this.key = key;
+            this.weight = weight;
+            this.writeTime = now;
+            this.accessTime = now;
+        }
+
+        private static <K, V> Node<K, V> sentinel() {
+            Node<K, V> head = new Node<K, V>(null, 0, 0);
+            head.prev = head;
+            head.next = head;
+            return head;
+        }
+
+        private void linkAfter(Node<K, V> head) {
+            prev = head;
+            next = head.next;
+            head.next.prev = this;
+            head.next = this;
+        }
+
+        private void unlink() {
+            prev.next = next;
+            next.prev = prev;
+            prev = null;
+            next = null;
+        }
+    }
+
+    private interface ValueHolder<V> {
+        V get();
+    }
+
+    private interface ValueReference<K, V> {
+        Node<K, V> node();
+    }
+
+    private static final class StrongValue<V> implements ValueHolder<V> {
+
+        private final V value;
+
+        private StrongValue(V value) {
+            this.value = value;
+        }
+
+        @Override
+        public V get() {
+            return value;
+        }
+    }
+
+    private static final class SoftValue<K, V> extends SoftReference<V>
+            implements ValueHolder<V>, ValueReference<K, V> {
+
+        private final Node<K, V> node;
+
+        private SoftValue(V value, Node<K, V> node, ReferenceQueue<V> queue) {
+            super(value, queue);
+            this.node = node;
+        }
+
+        @Override
+        public Node<K, V> node() {
+            return node;
+        }
+    }
+
+    private static final class WeakValue<K, V> extends WeakReference<V>
+            implements ValueHolder<V>, ValueReference<K, V> {
+
+        private final Node<K, V> node;
+
+        private WeakValue(V value, Node<K, V> node, ReferenceQueue<V> queue) {
+            super(value, queue);
+            this.node = node;
+        }
+
+        @Override
+        public Node<K, V> node() {
+            return node;
+        }
+    }
+
+}
@@ -1,11 +1,11 @@
 package collections;
 
-import java.lang.ref.ReferenceQueue;
+import collections.CacheConfig.ValueStrength;
+
 import java.lang.ref.SoftReference;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentLinkedQueue;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 /**
  * A <code><em>Soft</em>HashMap</code> is a memory-constrained map that stores
@@ -25,6 +25,10 @@ import java.util.concurrent.locks.ReentrantLock;
  * version (with their approval)</a>, with continued modifications.
  * <p/>
  * This implementation is thread-safe and usable in concurrent environments.
+ * It is a thin soft-value mode of {@link ConcurrentCache}: entries are stored
+ * in an unbounded cache with {@link CacheConfig.ValueStrength#SOFT SOFT}
+ * values, and the most recently used values are strongly retained in a
+ * lock-free ring.
  * 
  * @since 1.0.0
  * @time 2013-4-6 上午10:12:53
@@ -37,29 +41,16 @@ import java.util.concurrent.locks.ReentrantLock;
 	private static final int DEFAULT_RETENTION_SIZE = 100;
 
 	/**
-	 * The internal HashMap that will hold the SoftReference.
-	 */
-	private final Map<K, SoftValue<V, K>> map;
-
-	/**
-	 * The number of strong references to hold internally, that is, the number
-	 * of instances to prevent from being garbage collected automatically
-	 * (unlike other soft references).
-	 */
-	private final int RETENTION_SIZE;
-
-	/**
-	 * The FIFO list of strong references (not to be garbage collected), order
-	 * of last access.
+	 * The internal cache that will hold the values in soft references.
 	 */
-	private final Queue<V> strongReferences; // guarded by
-												// 'strongReferencesLock'
-	private final ReentrantLock strongReferencesLock;
+	private final ConcurrentCache<K, V> cache;
 
 	/**
-	 * Reference queue for cleared SoftReference objects.
+	 * The ring of strong references (not to be garbage collected), order of
+	 * last access. Slots are overwritten round-robin, so no lock is needed.
 	 */
-	private final ReferenceQueue<? super V> queue;
+	private final AtomicReferenceArray<V> strongReferences;
+	private final AtomicInteger strongReferencesIndex;
 
 	/**
 	 * Creates a new SoftHashMap with a default retention size size of
@@ -92,11 +83,11 @@ import java.util.concurrent.locks.ReentrantLock;
 	 */
 	public SoftHashMap(int retentionSize) {
 		super();
-		RETENTION_SIZE = Math.max(0, retentionSize);
-		queue = new ReferenceQueue<V>();
-		strongReferencesLock = new ReentrantLock();
-		map = new ConcurrentHashMap<K, SoftValue<V, K>>();
-		strongReferences = new ConcurrentLinkedQueue<V>();
+		CacheConfig<K, V> config = new CacheConfig<K, V>();
+		config.setValueStrength(ValueStrength.SOFT);
+		cache = new ConcurrentCache<K, V>(config);
+		strongReferences = new AtomicReferenceArray<V>(Math.max(0, retentionSize));
+		strongReferencesIndex = new AtomicInteger();
 	}
 
 	/**
@@ -115,23 +106,12 @@ import java.util.concurrent.locks.ReentrantLock;
 	/**
 	 * Creates a {@code SoftHashMap} backed by the specified {@code source},
 	 * with the specified retention size.
-	 * <p/>
-	 * The retention size (n) is the total number of most recent entries in the
-	 * map that will be strongly referenced (ie 'retained') to prevent them from
-	 * being eagerly garbage collected. That is, the point of a SoftHashMap is
-	 * to allow the garbage collector to remove as many entries from this map as
-	 * it desires, but there will always be (n) elements retained after a GC due
-	 * to the strong references.
-	 * <p/>
-	 * Note that in a highly concurrent environments the exact total number of
-	 * strong references may differ slightly than the actual
-	 * <code>retentionSize</code> value. This number is intended to be a
-	 * best-effort retention low water mark.
 	 * 
 	 * @param source the backing map to populate this {@code SoftHashMap}
 	 * @param retentionSize the total number of most recent entries in the map
 	 *            that will be strongly referenced (retained), preventing them
 	 *            from being eagerly garbage collected by the JVM.
+	 * @see #SoftHashMap(int)
 	 */
 	public SoftHashMap(Map<K, V> source, int retentionSize) {
 		this(retentionSize);
@@ -139,82 +119,35 @@ import java.util.concurrent.locks.ReentrantLock;
 	}
 
 	public V get(Object key) {
-		processQueue();
-
-		V result = null;
-		SoftValue<V, K> value = map.get(key);
-
-		if (value != null) {
-			// unwrap the 'real' value from the SoftReference
-			result = value.get();
-			if (result == null) {
-				// The wrapped value was garbage collected, so remove this entry
-				// from the backing map:
-				// noinspection SuspiciousMethodCalls
-				map.remove(key);
-			} else {
-				// Add this value to the beginning of the strong reference queue
-				// (FIFO).
-				addToStrongReferences(result);
-			}
+		V result = cache.getIfPresent(key);
+		if (result != null) {
+			addToStrongReferences(result);
 		}
 		return result;
 	}
 
 	private void addToStrongReferences(V result) {
-		strongReferencesLock.lock();
-		try {
-			strongReferences.add(result);
-			trimStrongReferencesIfNecessary();
-		} finally {
-			strongReferencesLock.unlock();
-		}
-
-	}
-
-	// Guarded by the strongReferencesLock in the addToStrongReferences method
-
-	private void trimStrongReferencesIfNecessary() {
-		// trim the strong ref queue if necessary:
-		while (strongReferences.size() > RETENTION_SIZE) {
-			strongReferences.poll();
-		}
-	}
-
-	/**
-	 * Traverses the ReferenceQueue and removes garbage-collected SoftValue
-	 * objects from the backing map by looking them up using the SoftValue.key
-	 * data member.
-	 */
-	@SuppressWarnings("rawtypes")
-	private void processQueue() {
-		SoftValue sv;
-		while ((sv = (SoftValue) queue.poll()) != null) {
-			// noinspection SuspiciousMethodCalls
-			map.remove(sv.key); // we can access private data!
+		int length = strongReferences.length();
+		if (length > 0) {
+			int index = (strongReferencesIndex.getAndIncrement() & Integer.MAX_VALUE) % length;
+			strongReferences.lazySet(index, result);
 		}
 	}
 
 	public boolean isEmpty() {
-		processQueue();
-		return map.isEmpty();
+		return size() == 0;
 	}
 
 	public boolean containsKey(Object key) {
-		processQueue();
-		return map.containsKey(key);
+		return cache.containsKey(key);
 	}
 
-	@SuppressWarnings("rawtypes")
 	public boolean containsValue(Object value) {
-		processQueue();
-		Collection values = values();
-		return values.contains(value);
+		return values().contains(value);
 	}
 
 	public void putAll(Map<? extends K, ? extends V> m) {
 		if (m == null || m.isEmpty()) {
-			processQueue();
 			return;
 		}
 		for (Entry<? extends K, ? extends V> entry : m.entrySet()) {
@@ -222,144 +155,50 @@ import java.util.concurrent.locks.ReentrantLock;
 		}
 	}
 
+	/**
+	 * Returns a snapshot of the keys whose values have not been reclaimed.
+	 */
 	public Set<K> keySet() {
-		processQueue();
-		return map.keySet();
+		return cache.snapshot().keySet();
 	}
 
-	@SuppressWarnings("unchecked")
+	/**
+	 * Returns a snapshot of the values that have not been reclaimed.
+	 */
 	public Collection<V> values() {
-		processQueue();
-		Collection<K> keys = map.keySet();
-		if (keys.isEmpty()) {
-			// noinspection unchecked
-			return Collections.EMPTY_SET;
-		}
-		Collection<V> values = new ArrayList<V>(keys.size());
-		for (K key : keys) {
-			V v = get(key);
-			if (v != null) {
-				values.add(v);
-			}
-		}
-		return values;
+		return cache.snapshot().values();
 	}
 
 	/**
-	 * Creates a new entry, but wraps the value in a SoftValue instance to
+	 * Creates a new entry, the cache wraps the value in a SoftReference to
 	 * enable auto garbage collection.
 	 */
 	public V put(K key, V value) {
-		processQueue(); // throw out garbage collected values first
-		SoftValue<V, K> sv = new SoftValue<V, K>(value, key, queue);
-		SoftValue<V, K> previous = map.put(key, sv);
+		V previous = cache.put(key, value);
 		addToStrongReferences(value);
-		return previous != null ? previous.get() : null;
+		return previous;
 	}
 
 	public V remove(Object key) {
-		processQueue(); // throw out garbage collected values first
-		SoftValue<V, K> raw = map.remove(key);
-		return raw != null ? raw.get() : null;
+		return cache.remove(key);
 	}
 
 	public void clear() {
-		strongReferencesLock.lock();
-		try {
-			strongReferences.clear();
-		} finally {
-			strongReferencesLock.unlock();
+		for (int i = 0; i < strongReferences.length(); i++) {
+			strongReferences.set(i, null);
 		}
-		processQueue(); // throw out garbage collected values
-		map.clear();
+		cache.clear();
 	}
 
 	public int size() {
-		processQueue(); // throw out garbage collected values first
-		return map.size();
-	}
-
-	@SuppressWarnings("unchecked")
-	public Set<Entry<K, V>> entrySet() {
-		processQueue(); // throw out garbage collected values first
-		Collection<K> keys = map.keySet();
-		if (keys.isEmpty()) {
-			// noinspection unchecked
-			return Collections.EMPTY_SET;
-		}
-
-		Map<K, V> kvPairs = new HashMap<K, V>(keys.size());
-		for (K key : keys) {
-			V v = get(key);
-			if (v != null) {
-				kvPairs.put(key, v);
-			}
-		}
-		return kvPairs.entrySet();
+		return cache.size();
 	}
 
 	/**
-	 * We define our own subclass of SoftReference which contains not only the
-	 * value but also the key to make it easier to find the entry in the HashMap
-	 * after it's been garbage collected.
+	 * Returns a snapshot of the entries whose values have not been reclaimed.
 	 */
-	private static class SoftValue<V, K> extends SoftReference<V> {
-
-		private final K key;
-
-		/**
-		 * Constructs a new instance, wrapping the value, key, and queue, as
-		 * required by the superclass.
-		 * 
-		 * @param value the map value
-		 * @param key the map key
-		 * @param queue the soft reference queue to poll to determine if the
-		 *            entry had been reaped by the GC.
-		 */
-		private SoftValue(V value, K key, ReferenceQueue<? super V> queue) {
-			super(value, queue);
-			this.key = key;
-		}
-
+	public Set<Entry<K, V>> entrySet() {
+		return cache.snapshot().entrySet();
 	}
-	
-	public static void main(String[] args) throws InterruptedException {
-//		int size = 10000000;
-//		long s = System.currentTimeMillis();
-////		HashMap<String, Integer> map = new HashMap<String, Integer>(size);
-//		SoftHashMap<String, Integer> map = new SoftHashMap<String, Integer>(size);
-//		
-//		for (int i = 0; i < size; i++) {
-//			map.put(i+"", i);
-//		}
-//		System.out.println(System.currentTimeMillis() - s);
-//		
-//		System.gc();
-//		Thread.sleep(5000L);
-//		System.out.println(map.get("1"));
-		
-		
 
-			List<WeakHashMap<byte[][], byte[][]>> maps = new ArrayList<WeakHashMap<byte[][], byte[][]>>();
-
-			for (int i = 0; i < 1000; i++) {
-				WeakHashMap<byte[][], byte[][]> d = new WeakHashMap<byte[][], byte[][]>();
-				d.put(new byte[500][500], new byte[500][500]);
-				for (int j = 0; j < 100; j++) {
-					maps.add(d);
-				}
-				
-				System.gc();
-				System.err.println(i);
-
-				for (int j = 0; j < i; j++) {
-					int size = maps.get(j).size();
-					System.err.println(j+  " size" + size);
-//					if(size == 0) {
-//						System.exit(1);
-//					}
-				}
-			}
-	}
-	
 }
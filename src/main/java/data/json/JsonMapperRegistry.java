@@ -0,0 +1,219 @@
+package data.json;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import lang.string.StringTool;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * json转换器注册表
+ * <p>
+ * 按名称缓存预先配置好的json转换器, 并按目标类型缓存其ObjectReader/ObjectWriter,
+ * 使Jackson内部的序列化器/反序列化器缓存能在多次调用间复用。线程安全。
+ * 内置的几个转换器(见本类的常量)在第一次使用时创建。
+ * </p>
+ * <p>
+ * 注意: 转换器注册后不应再修改其配置, 否则已缓存的ObjectReader/ObjectWriter将与转换器的配置不一致。
+ * </p>
+ */
+public class JsonMapperRegistry {
+
+    /**
+     * 默认的json转换器
+     */
+    public static final String DEFAULT = "default";
+    /**
+     * 只输出非Null且非Empty的属性的json转换器
+     */
+    public static final String NON_EMPTY = "nonEmpty";
+    /**
+     * 只输出初始值被改变的属性的json转换器
+     */
+    public static final String NON_DEFAULT = "nonDefault";
+    /**
+     * 支持Jaxb的Annotation的json转换器
+     */
+    public static final String JAXB = "jaxb";
+    /**
+     * 使用Enum的toString方法来读写Enum的json转换器
+     */
+    public static final String ENUM_USE_TO_STRING = "enumUseToString";
+
+    private static final ConcurrentMap<String, MapperHolder> holders = new ConcurrentHashMap<String, MapperHolder>();
+
+    private JsonMapperRegistry() {
+    }
+
+    /**
+     * 注册json转换器，同名的转换器及其缓存将被替换
+     *
+     * @param name   名称，不能为空
+     * @param mapper json转换器，不能为null，注册后不应再修改其配置
+     * @throws IllegalArgumentException 如果任意参数为空
+     */
+    public static void register(String name, ObjectMapper mapper) {
+        if (StringTool.isBlank(name)) {
+            throw new IllegalArgumentException("参数name不能为空!");
+        }
+        if (mapper == null) {
+            throw new IllegalArgumentException("参数mapper不能为null!");
+        }
+        holders.put(name, new MapperHolder(mapper));
+    }
+
+    /**
+     * 取得指定名称的json转换器的副本
+     * 注册的转换器是共享的，不直接暴露；副本可以自由修改配置而不影响其他使用者，
+     * 但每个副本都要重新构建序列化器/反序列化器缓存，频繁读写请使用{@link #reader}/{@link #writer}
+     *
+     * @param name 名称
+     * @return json转换器的副本
+     * @throws IllegalArgumentException 如果该名称未注册
+     */
+    public static ObjectMapper getMapper(String name) {
+        return getHolder(name).mapper.copy();
+    }
+
+    /**
+     * 取得默认的json转换器的副本
+     *
+     * @return 默认的json转换器的副本
+     */
+    public static ObjectMapper getDefaultMapper() {
+        return getMapper(DEFAULT);
+    }
+
+    /**
+     * 取得指定名称的json转换器针对指定类型的ObjectReader(已缓存)
+     *
+     * @param name  转换器名称
+     * @param clazz 目标类型
+     * @return ObjectReader
+     * @throws IllegalArgumentException 如果该名称未注册
+     */
+    public static ObjectReader reader(String name, Class<?> clazz) {
+        MapperHolder holder = getHolder(name);
+        ObjectReader reader = holder.readers.get(clazz);
+        if (reader == null) {
+            reader = holder.mapper.readerFor(clazz);
+            ObjectReader existing = holder.readers.putIfAbsent(clazz, reader);
+            if (existing != null) {
+                reader = existing;
+            }
+        }
+        return reader;
+    }
+
+    /**
+     * 取得指定名称的json转换器针对指定类型的ObjectReader(已缓存)
+     *
+     * @param name     转换器名称
+     * @param javaType 目标类型，可通过JsonTool.createCollectionType方法创建
+     * @return ObjectReader
+     * @throws IllegalArgumentException 如果该名称未注册
+     */
+    public static ObjectReader reader(String name, JavaType javaType) {
+        MapperHolder holder = getHolder(name);
+        ObjectReader reader = holder.readers.get(javaType);
+        if (reader == null) {
+            reader = holder.mapper.readerFor(javaType);
+            ObjectReader existing = holder.readers.putIfAbsent(javaType, reader);
+            if (existing != null) {
+                reader = existing;
+            }
+        }
+        return reader;
+    }
+
+    /**
+     * 取得指定名称的json转换器的ObjectWriter(按对象的运行时类型序列化)
+     *
+     * @param name 转换器名称
+     * @return ObjectWriter
+     * @throws IllegalArgumentException 如果该名称未注册
+     */
+    public static ObjectWriter writer(String name) {
+        return getHolder(name).writer;
+    }
+
+    /**
+     * 取得指定名称的json转换器针对指定类型的ObjectWriter(已缓存)
+     *
+     * @param name     转换器名称
+     * @param javaType 序列化时使用的声明类型
+     * @return ObjectWriter
+     * @throws IllegalArgumentException 如果该名称未注册
+     */
+    public static ObjectWriter writer(String name, JavaType javaType) {
+        MapperHolder holder = getHolder(name);
+        ObjectWriter writer = holder.writers.get(javaType);
+        if (writer == null) {
+            writer = holder.mapper.writerFor(javaType);
+            ObjectWriter existing = holder.writers.putIfAbsent(javaType, writer);
+            if (existing != null) {
+                writer = existing;
+            }
+        }
+        return writer;
+    }
+
+    private static MapperHolder getHolder(String name) {
+        MapperHolder holder = name == null ? null : holders.get(name);
+        if (holder == null) {
+            ObjectMapper mapper = createBuiltinMapper(name);
+            if (mapper == null) {
+                throw new IllegalArgumentException("未注册名称为[" + name + "]的json转换器!");
+            }
+            holder = new MapperHolder(mapper);
+            MapperHolder existing = holders.putIfAbsent(name, holder);
+            if (existing != null) {
+                holder = existing;
+            }
+        }
+        return holder;
+    }
+
+    private static ObjectMapper createBuiltinMapper(String name) {
+        if (DEFAULT.equals(name)) {
+            return new ObjectMapper();
+        }
+        if (NON_EMPTY.equals(name)) {
+            return JsonTool.createNonEmptyMapper();
+        }
+        if (NON_DEFAULT.equals(name)) {
+            return JsonTool.createNonDefaultMapper();
+        }
+        if (JAXB.equals(name)) {
+            ObjectMapper mapper = new ObjectMapper();
+            JsonTool.enableJaxbAnnotation(mapper);
+            return mapper;
+        }
+        if (ENUM_USE_TO_STRING.equals(name)) {
+            ObjectMapper mapper = new ObjectMapper();
+            JsonTool.enableEnumUseToString(mapper);
+            return mapper;
+        }
+        return null;
+    }
+
+    /**
+     * 转换器及其ObjectReader/ObjectWriter缓存
+     */
+    private static class MapperHolder {
+
+        private final ObjectMapper mapper;
+        private final ObjectWriter writer;
+        private final ConcurrentMap<Object, ObjectReader> readers = new ConcurrentHashMap<Object, ObjectReader>();
+        private final ConcurrentMap<JavaType, ObjectWriter> writers = new ConcurrentHashMap<JavaType, ObjectWriter>();
+
+        private MapperHolder(ObjectMapper mapper) {
+            this.mapper = mapper;
+            this.writer = mapper.writer();
+        }
+    }
+
+}
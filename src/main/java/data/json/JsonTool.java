@@ -1,13 +1,21 @@
 package data.json;
 
 import com.fasterxml.jackson.annotation.JsonInclude.Include;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.JsonParser.Feature;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.JavaType;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.type.TypeFactory;
 import com.fasterxml.jackson.databind.util.JSONPObject;
 import com.fasterxml.jackson.module.jaxb.JaxbAnnotationModule;
+import exception.SystemException;
+import io.FileTool;
+import io.IoTool;
 import lang.string.StringTool;
 import log.Log;
 import log.LogFactory;
@@ -15,6 +23,9 @@ import org.apache.commons.lang3.StringUtils;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Iterator;
 
 /**
  * json工具类
@@ -60,17 +71,17 @@ public class JsonTool {
      *
      * @param json   json串, 为null或空将返回null, 为"[]", 返回空集合
      * @param clazz  Class
-     * @param mapper json转换器，为null时该方法内部将新建一个默认的转换器
+     * @param mapper json转换器，为null时使用共享的默认转换器
      * @return Class的实例，出错时返回null
      */
     public static <T> T fromJson(String json, Class<T> clazz, ObjectMapper mapper) {
         if (StringTool.isBlank(json)) {
             return null;
         }
-        if (mapper == null) {
-            mapper = createDefaultMapper();
-        }
         try {
+            if (mapper == null) {
+                return JsonMapperRegistry.reader(JsonMapperRegistry.DEFAULT, clazz).readValue(json);
+            }
             return mapper.readValue(json, clazz);
         } catch (Exception e) {
             logger.error(e, "json解析为对象出错！json: " + json);
@@ -84,7 +95,7 @@ public class JsonTool {
      *
      * @param jsonString 要反序列化的json串
      * @param javaType   java类型，通过createCollectionType方法创建
-     * @param mapper     json转换器，为null时该方法内部将新建一个默认的转换器
+     * @param mapper     json转换器，为null时使用共享的默认转换器
      * @return 反序列化后的对象
      * @see #createCollectionType(ObjectMapper, Class, Class...)
      */
@@ -92,11 +103,10 @@ public class JsonTool {
         if (StringUtils.isEmpty(jsonString)) {
             return null;
         }
-        if (mapper == null) {
-            mapper = createDefaultMapper();
-        }
-
         try {
+            if (mapper == null) {
+                return JsonMapperRegistry.reader(JsonMapperRegistry.DEFAULT, javaType).readValue(jsonString);
+            }
             return mapper.readValue(jsonString, javaType);
         } catch (IOException e) {
             logger.error(e, "反序列化json串出错:" + jsonString);
@@ -122,16 +132,15 @@ public class JsonTool {
      * ArrayList<MyBean>, 则调用createCollectionType(mapper, ArrayList.class,MyBean.class)
      * HashMap<String,MyBean>, 则调用(mapper, HashMap.class,String.class, MyBean.class)
      *
-     * @param mapper          json转换器，为null时该方法内部将新建一个默认的转换器
+     * @param mapper          json转换器，为null时使用共享的默认转换器
      * @param collectionClass 容器类
      * @param elementClasses  容器元素类型
      * @return 带有泛型信息的容器类型
      */
     public static JavaType createCollectionType(ObjectMapper mapper, Class<?> collectionClass, Class<?>... elementClasses) {
-        if (mapper == null) {
-            mapper = createDefaultMapper();
-        }
-        return mapper.getTypeFactory().constructParametricType(collectionClass, elementClasses);
+        TypeFactory typeFactory = mapper == null
+                ? JsonMapperRegistry.writer(JsonMapperRegistry.DEFAULT).getTypeFactory() : mapper.getTypeFactory();
+        return typeFactory.constructParametricType(collectionClass, elementClasses);
     }
 
     /**
@@ -164,14 +173,14 @@ public class JsonTool {
      *
      * @param jsonFile json文件
      * @param clazz    Class
-     * @param mapper   json转换器，为null时该方法内部将新建一个默认的转换器
+     * @param mapper   json转换器，为null时使用共享的默认转换器
      * @return Class的实例，出错时返回null
      */
     public static <T> T fromJson(File jsonFile, Class<T> clazz, ObjectMapper mapper) {
-        if (mapper == null) {
-            mapper = createDefaultMapper();
-        }
         try {
+            if (mapper == null) {
+                return JsonMapperRegistry.reader(JsonMapperRegistry.DEFAULT, clazz).readValue(jsonFile);
+            }
             return mapper.readValue(jsonFile, clazz);
         } catch (Exception e) {
             logger.error(e, "json解析为对象出错！");
@@ -184,14 +193,14 @@ public class JsonTool {
      *
      * @param object 要序列化的对象，可以是POJO，也可以是Collection或数组，
      *               如果对象为Null, 返回"null"；如果集合为空集合, 返回"[]"
-     * @param mapper json转换器，为null时该方法内部将新建一个默认的转换器
+     * @param mapper json转换器，为null时使用共享的默认转换器
      * @return 序列化后的json串
      */
     public static String toJson(Object object, ObjectMapper mapper) {
-        if (mapper == null) {
-            mapper = createDefaultMapper();
-        }
         try {
+            if (mapper == null) {
+                return JsonMapperRegistry.writer(JsonMapperRegistry.DEFAULT).writeValueAsString(object);
+            }
             return mapper.writeValueAsString(object);
         } catch (IOException e) {
             logger.error(e, "序列化对象为json时出错:" + object);
@@ -251,16 +260,16 @@ public class JsonTool {
      *
      * @param jsonString json串
      * @param object     待更新的bean
-     * @param mapper     json转换器，为null时该方法内部将新建一个默认的转换器
+     * @param mapper     json转换器，为null时使用共享的默认转换器
      * @return 更新后的bean，失败时返回null
      */
     @SuppressWarnings("unchecked")
     public static <T> T updateBean(String jsonString, T object, ObjectMapper mapper) {
-        if (mapper == null) {
-            mapper = createDefaultMapper();
-        }
         try {
-            return (T) mapper.readerForUpdating(object).readValue(jsonString);
+            ObjectReader reader = mapper == null
+                    ? JsonMapperRegistry.reader(JsonMapperRegistry.DEFAULT, object.getClass()).withValueToUpdate(object)
+                    : mapper.readerForUpdating(object);
+            return (T) reader.readValue(jsonString);
         } catch (Exception e) {
             logger.error(e, "将json串:{0}更新到对象:{1}时出错.", jsonString, object);
         }
@@ -328,6 +337,232 @@ public class JsonTool {
         }
     }
 
+    // ----------------------------------------------------------------------------
+    // 流式读写，适用于元素很多的大集合，每次只在内存中保留一个元素
+    // ----------------------------------------------------------------------------
+
+    /**
+     * 流式读取输入流中的json数组，逐个返回数组的元素
+     * 迭代结束或调用迭代器的close方法时输入流将被关闭
+     *
+     * @param in    输入流，内容的根元素必须为json数组
+     * @param clazz 元素的类型
+     * @return 元素的迭代器
+     * @throws SystemException 如果根元素不是json数组或读取出错
+     */
+    public static <T> JsonValueIterator<T> readArray(InputStream in, Class<T> clazz) {
+        return readArray(in, clazz, null);
+    }
+
+    /**
+     * 流式读取输入流中的json数组，逐个返回数组的元素
+     * 迭代结束或调用迭代器的close方法时输入流将被关闭
+     *
+     * @param in     输入流，内容的根元素必须为json数组
+     * @param clazz  元素的类型
+     * @param mapper json转换器，为null时使用共享的默认转换器
+     * @return 元素的迭代器
+     * @throws SystemException 如果根元素不是json数组或读取出错
+     */
+    public static <T> JsonValueIterator<T> readArray(InputStream in, Class<T> clazz, ObjectMapper mapper) {
+        return createValueIterator(in, clazz, mapper, true);
+    }
+
+    /**
+     * 流式读取json文件中的json数组，逐个返回数组的元素
+     * 迭代结束或调用迭代器的close方法时文件将被关闭
+     *
+     * @param jsonFile json文件，内容的根元素必须为json数组
+     * @param clazz    元素的类型
+     * @return 元素的迭代器
+     * @throws SystemException 如果文件不能打开、根元素不是json数组或读取出错
+     */
+    public static <T> JsonValueIterator<T> readArray(File jsonFile, Class<T> clazz) {
+        return readArray(FileTool.openInputStream(jsonFile), clazz, null);
+    }
+
+    /**
+     * 流式读取NDJSON(每行一个json值)格式的输入流，逐行返回解析后的对象
+     * 迭代结束或调用迭代器的close方法时输入流将被关闭
+     *
+     * @param in    输入流
+     * @param clazz 每行的json值对应的类型
+     * @return 对象的迭代器
+     * @throws SystemException 如果读取出错
+     */
+    public static <T> JsonValueIterator<T> readNdJson(InputStream in, Class<T> clazz) {
+        return readNdJson(in, clazz, null);
+    }
+
+    /**
+     * 流式读取NDJSON(每行一个json值)格式的输入流，逐行返回解析后的对象
+     * 迭代结束或调用迭代器的close方法时输入流将被关闭
+     *
+     * @param in     输入流
+     * @param clazz  每行的json值对应的类型
+     * @param mapper json转换器，为null时使用共享的默认转换器
+     * @return 对象的迭代器
+     * @throws SystemException 如果读取出错
+     */
+    public static <T> JsonValueIterator<T> readNdJson(InputStream in, Class<T> clazz, ObjectMapper mapper) {
+        return createValueIterator(in, clazz, mapper, false);
+    }
+
+    /**
+     * 流式读取NDJSON(每行一个json值)格式的文件，逐行返回解析后的对象
+     * 迭代结束或调用迭代器的close方法时文件将被关闭
+     *
+     * @param jsonFile NDJSON文件
+     * @param clazz    每行的json值对应的类型
+     * @return 对象的迭代器
+     * @throws SystemException 如果文件不能打开或读取出错
+     */
+    public static <T> JsonValueIterator<T> readNdJson(File jsonFile, Class<T> clazz) {
+        return readNdJson(FileTool.openInputStream(jsonFile), clazz, null);
+    }
+
+    /**
+     * 将迭代器的元素逐个序列化，以json数组的形式写入输出流
+     * 输出流不会被关闭
+     *
+     * @param out      输出流
+     * @param iterator 元素迭代器
+     * @return 写入的元素个数
+     * @throws SystemException 如果写入出错
+     */
+    public static long writeArray(OutputStream out, Iterator<?> iterator) {
+        return writeArray(out, iterator, null);
+    }
+
+    /**
+     * 将迭代器的元素逐个序列化，以json数组的形式写入输出流
+     * 输出流不会被关闭
+     *
+     * @param out      输出流
+     * @param iterator 元素迭代器
+     * @param mapper   json转换器，为null时使用共享的默认转换器
+     * @return 写入的元素个数
+     * @throws SystemException 如果写入出错
+     */
+    public static long writeArray(OutputStream out, Iterator<?> iterator, ObjectMapper mapper) {
+        return writeValues(out, iterator, mapper, true);
+    }
+
+    /**
+     * 将迭代器的元素逐个序列化，以json数组的形式写入文件，文件存在将被覆盖
+     *
+     * @param jsonFile 目标文件
+     * @param iterator 元素迭代器
+     * @return 写入的元素个数
+     * @throws SystemException 如果文件不能打开或写入出错
+     */
+    public static long writeArray(File jsonFile, Iterator<?> iterator) {
+        OutputStream out = FileTool.openOutputStream(jsonFile);
+        try {
+            return writeArray(out, iterator, null);
+        } finally {
+            IoTool.closeQuietly(out);
+        }
+    }
+
+    /**
+     * 将迭代器的元素逐个序列化，以NDJSON(每行一个json值)的形式写入输出流
+     * 输出流不会被关闭
+     *
+     * @param out      输出流
+     * @param iterator 元素迭代器
+     * @return 写入的元素个数
+     * @throws SystemException 如果写入出错
+     */
+    public static long writeNdJson(OutputStream out, Iterator<?> iterator) {
+        return writeNdJson(out, iterator, null);
+    }
+
+    /**
+     * 将迭代器的元素逐个序列化，以NDJSON(每行一个json值)的形式写入输出流
+     * 输出流不会被关闭
+     *
+     * @param out      输出流
+     * @param iterator 元素迭代器
+     * @param mapper   json转换器，为null时使用共享的默认转换器
+     * @return 写入的元素个数
+     * @throws SystemException 如果写入出错
+     */
+    public static long writeNdJson(OutputStream out, Iterator<?> iterator, ObjectMapper mapper) {
+        return writeValues(out, iterator, mapper, false);
+    }
+
+    /**
+     * 将迭代器的元素逐个序列化，以NDJSON(每行一个json值)的形式写入文件，文件存在将被覆盖
+     *
+     * @param jsonFile 目标文件
+     * @param iterator 元素迭代器
+     * @return 写入的元素个数
+     * @throws SystemException 如果文件不能打开或写入出错
+     */
+    public static long writeNdJson(File jsonFile, Iterator<?> iterator) {
+        OutputStream out = FileTool.openOutputStream(jsonFile);
+        try {
+            return writeNdJson(out, iterator, null);
+        } finally {
+            IoTool.closeQuietly(out);
+        }
+    }
+
+    private static <T> JsonValueIterator<T> createValueIterator(InputStream in, Class<T> clazz, ObjectMapper mapper,
+                                                                boolean array) {
+        if (in == null) {
+            throw new IllegalArgumentException("参数in不能为null!");
+        }
+        ObjectReader reader;
+        if (mapper == null) {
+            reader = JsonMapperRegistry.reader(JsonMapperRegistry.DEFAULT, clazz);
+        } else {
+            reader = mapper.readerFor(clazz);
+        }
+        try {
+            return new JsonValueIterator<T>(reader.getFactory().createParser(in), reader, array);
+        } catch (IOException e) {
+            IoTool.closeQuietly(in);
+            throw new SystemException(e, "创建json解析器出错！");
+        }
+    }
+
+    private static long writeValues(OutputStream out, Iterator<?> iterator, ObjectMapper mapper, boolean array) {
+        if (out == null) {
+            throw new IllegalArgumentException("参数out不能为null!");
+        }
+        ObjectWriter writer = mapper == null ? JsonMapperRegistry.writer(JsonMapperRegistry.DEFAULT) : mapper.writer();
+        // 避免每写一个元素就刷新一次输出流
+        writer = writer.without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        long count = 0;
+        JsonGenerator generator = null;
+        try {
+            generator = writer.getFactory().createGenerator(out, JsonEncoding.UTF8);
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.setRootValueSeparator(null);
+            if (array) {
+                generator.writeStartArray();
+            }
+            while (iterator.hasNext()) {
+                writer.writeValue(generator, iterator.next());
+                if (!array) {
+                    generator.writeRaw('\n');
+                }
+                count++;
+            }
+            if (array) {
+                generator.writeEndArray();
+            }
+            generator.close(); // 正常结束时关闭以刷新缓冲区，出错需要报告
+        } catch (IOException e) {
+            throw new SystemException(e, "流式写入json出错！已写入元素个数：{0}", count);
+        } finally {
+            IoTool.closeQuietly(generator); // 出错时释放生成器的缓冲区，不会关闭输出流
+        }
+        return count;
+    }
+
     private static ObjectMapper createDefaultMapper() {
         return new ObjectMapper();
     }
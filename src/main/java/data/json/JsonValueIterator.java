@@ -0,0 +1,111 @@
+package data.json;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectReader;
+import exception.SystemException;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * json值的流式迭代器
+ * <p>
+ * 逐个解析json数组的元素(数组模式)或NDJSON中每行的json值(NDJSON模式)，
+ * 每次只在内存中保留一个元素。迭代结束、解析出错或调用close方法时将关闭底层的输入流。
+ * 非线程安全。
+ * </p>
+ *
+ * @param <T> 元素类型
+ */
+public class JsonValueIterator<T> implements Iterator<T>, Closeable {
+
+    private final JsonParser parser;
+    private final ObjectReader reader;
+    private final boolean array; // true: 数组模式，false: NDJSON模式
+    private JsonToken token; // 已读取但未消费的当前元素的起始标记
+    private boolean closed;
+
+    /**
+     * 构造器
+     *
+     * @param parser json解析器
+     * @param reader 元素类型对应的ObjectReader
+     * @param array  true: 迭代根元素json数组的元素, false: 迭代根级别的json值序列(NDJSON)
+     * @throws SystemException 如果数组模式下根元素不是json数组，或出现io错误
+     */
+    JsonValueIterator(JsonParser parser, ObjectReader reader, boolean array) {
+        this.parser = parser;
+        this.reader = reader;
+        this.array = array;
+        if (array) {
+            try {
+                JsonToken first = parser.nextToken();
+                if (first != JsonToken.START_ARRAY) {
+                    throw new IllegalArgumentException("json的根元素不是数组：" + first);
+                }
+            } catch (Exception e) {
+                close();
+                throw new SystemException(e, "初始化json数组迭代器出错！");
+            }
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (closed) {
+            return false;
+        }
+        if (token == null) {
+            try {
+                token = parser.nextToken();
+            } catch (IOException e) {
+                close();
+                throw new SystemException(e, "读取json出错！");
+            }
+            if (token == null || (array && token == JsonToken.END_ARRAY)) {
+                close();
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        try {
+            T value = reader.readValue(parser);
+            token = null;
+            return value;
+        } catch (IOException e) {
+            close();
+            throw new SystemException(e, "解析json元素出错！");
+        }
+    }
+
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * 关闭迭代器及底层的输入流，可重复调用
+     */
+    @Override
+    public void close() {
+        if (!closed) {
+            closed = true;
+            try {
+                parser.close();
+            } catch (IOException e) {
+                JsonTool.logger.error(e, "关闭json解析器出错！");
+            }
+        }
+    }
+
+}
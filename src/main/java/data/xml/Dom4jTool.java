@@ -1,25 +1,37 @@
 package data.xml;
 
+import collections.ConcurrentCache;
+import exception.SystemException;
 import lang.string.StringTool;
 import log.Log;
 import log.LogFactory;
-import org.dom4j.Document;
-import org.dom4j.DocumentException;
-import org.dom4j.DocumentHelper;
-import org.dom4j.Element;
+import org.dom4j.*;
 import org.dom4j.io.OutputFormat;
 import org.dom4j.io.SAXReader;
 import org.dom4j.io.XMLWriter;
+import support.ICallback;
 
 import java.io.*;
+import java.util.*;
 
 /**
  * DOM4J操作工具类
+ * <p>
+ * 对于很大的xml文档，可以使用{@link #processXml(InputStream, Map)}以事件驱动的方式处理，
+ * 只有匹配路径的子树会被构建并交给回调，处理完后即被丢弃，不会构建整个Document。
+ * </p>
  */
 public class Dom4jTool {
 
     protected static final Log logger = LogFactory.getLog(Dom4jTool.class);
 
+    private static final int XPATH_CACHE_SIZE = 1024;
+
+    // 全局命名空间，写时复制，发布后不再修改；版本号是缓存key的一部分，注册新的命名空间后旧版本的条目不再命中
+    private static volatile Namespaces namespaces = new Namespaces(Collections.<String, String>emptyMap(), 0);
+    // 编译好的XPath缓存，有界以防止拼接生成的表达式无限增长
+    private static final ConcurrentCache<String, XPath> xpathCache = new ConcurrentCache<String, XPath>(XPATH_CACHE_SIZE);
+
     private Dom4jTool() {
     }
 
@@ -72,6 +84,112 @@ public class Dom4jTool {
         return document;
     }
 
+    /**
+     * 以流的方式处理xml，每当匹配路径的元素结束时将该元素从文档中分离后交给回调，
+     * 回调返回后该元素即可被回收，因此内存占用只与单个匹配元素的大小有关。读完后输入流将被关闭
+     *
+     * @param in      输入流
+     * @param path    元素的绝对路径，如"/feed/item"
+     * @param handler 元素回调，参数为已分离的元素，返回值被忽略
+     * @throws SystemException 如果解析出错，回调抛出的运行时异常将原样抛出
+     */
+    public static void processXml(InputStream in, String path, ICallback<Element, ?> handler) {
+        processXml(in, Collections.singletonMap(path, handler));
+    }
+
+    /**
+     * 以流的方式处理xml，可以为多个路径分别注册回调，读完后输入流将被关闭
+     *
+     * @param in       输入流
+     * @param handlers Map<元素的绝对路径, 元素回调>
+     * @throws SystemException 如果解析出错，回调抛出的运行时异常将原样抛出
+     */
+    public static void processXml(InputStream in, Map<String, ? extends ICallback<Element, ?>> handlers) {
+        SAXReader saxReader = new SAXReader();
+        List<PruningHandler> pruningHandlers = new ArrayList<PruningHandler>(handlers.size());
+        for (Map.Entry<String, ? extends ICallback<Element, ?>> entry : handlers.entrySet()) {
+            PruningHandler pruningHandler = new PruningHandler(entry.getValue());
+            saxReader.addHandler(entry.getKey(), pruningHandler);
+            pruningHandlers.add(pruningHandler);
+        }
+        try {
+            saxReader.read(in);
+        } catch (DocumentException e) {
+            rethrowCallbackFailure(pruningHandlers); // 解析器可能将回调的异常包装为SAXException，再被包装为DocumentException
+            throw new SystemException(e, "流式处理xml失败：{0}", e.getMessage());
+        } catch (RuntimeException e) {
+            rethrowCallbackFailure(pruningHandlers);
+            throw e;
+        } finally {
+            close(in);
+        }
+    }
+
+    /**
+     * 以流的方式处理指定路径的xml文件
+     *
+     * @param file     xml文件
+     * @param handlers Map<元素的绝对路径, 元素回调>
+     * @throws SystemException 如果文件不存在或解析出错，回调抛出的运行时异常将原样抛出
+     */
+    public static void processXml(File file, Map<String, ? extends ICallback<Element, ?>> handlers) {
+        try {
+            processXml(new BufferedInputStream(new FileInputStream(file)), handlers);
+        } catch (FileNotFoundException e) {
+            throw new SystemException(e, "xml文件[{0}]不存在！", file);
+        }
+    }
+
+    private static void rethrowCallbackFailure(List<PruningHandler> pruningHandlers) {
+        for (PruningHandler pruningHandler : pruningHandlers) {
+            if (pruningHandler.failure != null) {
+                throw pruningHandler.failure;
+            }
+        }
+    }
+
+    /**
+     * 将匹配的元素从文档树中分离后交给回调的ElementHandler，使已处理的子树可以被回收
+     * 回调抛出的运行时异常会被记录下来，以便解析中止后原样抛出
+     */
+    private static class PruningHandler implements ElementHandler {
+
+        private final ICallback<Element, ?> callback;
+        private RuntimeException failure; // 回调抛出的异常，解析在同一线程中进行
+
+        private PruningHandler(ICallback<Element, ?> callback) {
+            this.callback = callback;
+        }
+
+        @Override
+        public void onStart(ElementPath elementPath) {
+        }
+
+        @Override
+        public void onEnd(ElementPath elementPath) {
+            Element element = elementPath.getCurrent();
+            Element parent = element.getParent();
+            element.detach();
+            if (parent != null) {
+                // 移除元素之间的空白文本，避免父元素中的内容随元素个数增长
+                List<?> content = parent.content();
+                int last = content.size() - 1;
+                if (last >= 0 && content.get(last) instanceof Text
+                        && StringTool.isBlank(((Text) content.get(last)).getText())) {
+                    content.remove(last);
+                }
+            }
+            try {
+                callback.execute(element);
+            } catch (RuntimeException e) {
+                failure = e;
+                throw e; // 中止解析
+            } finally {
+                element.detach();
+            }
+        }
+    }
+
     /**
      * 将Document对象保存为一个xml文件到本地,默认UTF-8编码，Xml格式为压缩格式
      *
@@ -270,6 +388,204 @@ public class Dom4jTool {
         }
     }
 
+    /**
+     * 获得节点的属性值，并转为指定的类型，为空返回defaultValue指定的默认值。
+     * String、Integer、Boolean分别与{@link #getAttributeValue}、{@link #getIntegerAttribute}、
+     * {@link #getBooleanAttribute}的规则相同，Long和Double按与Integer相同的规则转换
+     *
+     * @param node          节点，为null将返回null
+     * @param attributeName 属性名 为空将返回null
+     * @param type          属性值的类型，支持String、Integer、Long、Double、Boolean
+     * @param defaultValue  默认值，可以为null
+     * @return 指定属性名的值，node或attributeName为空，或属性值不能转换为指定类型都将返回null
+     * @throws IllegalArgumentException 如果不支持指定的类型
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> T getAttribute(Element node, String attributeName, Class<T> type, T defaultValue) {
+        if (type == String.class) {
+            return (T) getAttributeValue(node, attributeName, (String) defaultValue);
+        }
+        if (type != Integer.class && type != Long.class && type != Double.class && type != Boolean.class) {
+            throw new IllegalArgumentException("不支持的属性值类型：" + type);
+        }
+        if (node == null) {
+            logger.error("调用Dom4jTool.getAttribute方法时传入的node参数为null！");
+            return null;
+        }
+        if (StringTool.isBlank(attributeName)) {
+            logger.error("调用Dom4jTool.getAttribute方法时传入的attributeName参数为空！");
+            return null;
+        }
+        return convertValue(node.attributeValue(attributeName), type, defaultValue,
+                "[" + node.getPath() + "]节点的[" + attributeName + "]属性值");
+    }
+
+    /**
+     * 按属性值的规则转换字符串：为空返回默认值；布尔值必须为false或true；不能转换时返回null
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> T convertValue(String strValue, Class<T> type, T defaultValue, String description) {
+        if (StringTool.isBlank(strValue)) {
+            return defaultValue;
+        }
+        if (type == String.class) {
+            return (T) strValue;
+        }
+        if (type == Boolean.class) {
+            if (strValue.equals("false")) {
+                return (T) Boolean.FALSE;
+            } else if (strValue.equals("true")) {
+                return (T) Boolean.TRUE;
+            }
+            logger.error("XML中的" + description + "必须为false或者true.");
+            return null;
+        }
+        try {
+            if (type == Integer.class) {
+                return (T) Integer.valueOf(strValue);
+            }
+            if (type == Long.class) {
+                return (T) Long.valueOf(strValue);
+            }
+            if (type == Double.class) {
+                return (T) Double.valueOf(strValue);
+            }
+        } catch (NumberFormatException e) {
+            logger.error("XML中的" + description + "不是" + type.getSimpleName() + "类型.");
+            return null;
+        }
+        throw new IllegalArgumentException("不支持的值类型：" + type);
+    }
+
+    /**
+     * 注册全局的命名空间前缀，之后编译的XPath表达式都可以使用该前缀。之前编译的XPath不受影响
+     *
+     * @param prefix 前缀
+     * @param uri    命名空间URI
+     */
+    public static synchronized void registerNamespace(String prefix, String uri) {
+        Map<String, String> updated = new TreeMap<String, String>(namespaces.uris);
+        updated.put(prefix, uri);
+        namespaces = new Namespaces(Collections.unmodifiableMap(updated), namespaces.version + 1);
+    }
+
+    /**
+     * 取得编译好的XPath表达式，使用全局注册的命名空间。编译结果按表达式缓存，可以在多线程中共享
+     * <p>
+     * 表达式中的前缀只按注册的命名空间解析，不会使用文档中声明的前缀
+     * (否则dom4j会把第一次查询的文档的命名空间绑定到共享的XPath上)。
+     * </p>
+     *
+     * @param expression XPath表达式
+     * @return 编译好的XPath
+     * @throws SystemException 如果表达式不合法
+     */
+    public static XPath compileXPath(String expression) {
+        return compileXPath(expression, null);
+    }
+
+    /**
+     * 取得编译好的XPath表达式。编译结果按表达式和命名空间缓存，可以在多线程中共享。
+     * 表达式中的前缀只按传入的和全局注册的命名空间解析，不会使用文档中声明的前缀
+     *
+     * @param expression    XPath表达式
+     * @param namespaceURIs Map<前缀, 命名空间URI>，与全局注册的命名空间合并，可以为null
+     * @return 编译好的XPath
+     * @throws SystemException 如果表达式不合法
+     */
+    public static XPath compileXPath(final String expression, Map<String, String> namespaceURIs) {
+        Namespaces global = namespaces; // 只读取一次，命名空间和版本号保持一致
+        final Map<String, String> merged;
+        String key;
+        if (namespaceURIs == null || namespaceURIs.isEmpty()) {
+            merged = global.uris;
+            key = global.version + "\u0000" + expression;
+        } else {
+            merged = new TreeMap<String, String>(global.uris);
+            merged.putAll(namespaceURIs);
+            key = global.version + "\u0000" + expression + '\u0000' + merged;
+        }
+        return xpathCache.get(key, new ICallback<String, XPath>() {
+            @Override
+            public XPath execute(String key) {
+                XPath xpath = DocumentHelper.createXPath(expression);
+                // 即使没有命名空间也要设置，否则dom4j在第一次查询时用该文档创建命名空间上下文并一直保留在共享的XPath中
+                xpath.setNamespaceURIs(merged);
+                return xpath;
+            }
+        });
+    }
+
+    /**
+     * 使用缓存的XPath查询节点
+     *
+     * @param context    上下文节点(Document或Element)
+     * @param expression XPath表达式
+     * @return 匹配的节点列表
+     */
+    @SuppressWarnings("unchecked")
+    public static List<Node> selectNodes(Node context, String expression) {
+        return compileXPath(expression).selectNodes(context);
+    }
+
+    /**
+     * 使用缓存的XPath查询单个节点
+     *
+     * @param context    上下文节点(Document或Element)
+     * @param expression XPath表达式
+     * @return 第一个匹配的节点，没有时返回null
+     */
+    public static Node selectSingleNode(Node context, String expression) {
+        return compileXPath(expression).selectSingleNode(context);
+    }
+
+    /**
+     * 对同一个上下文节点批量执行多个XPath查询，表达式只在第一次使用时编译
+     *
+     * @param context     上下文节点(Document或Element)
+     * @param expressions XPath表达式
+     * @return Map<XPath表达式, 匹配的节点列表>，顺序与参数一致
+     */
+    public static Map<String, List<Node>> selectNodes(Node context, String... expressions) {
+        Map<String, List<Node>> result = new LinkedHashMap<String, List<Node>>(expressions.length * 4 / 3 + 1);
+        for (String expression : expressions) {
+            result.put(expression, selectNodes(context, expression));
+        }
+        return result;
+    }
+
+    /**
+     * 查询第一个匹配节点的文本值(属性为属性值，元素为文本内容)，并按属性值的转换规则转为指定的类型，
+     * 即与{@link #getIntegerAttribute}、{@link #getBooleanAttribute}的规则相同
+     *
+     * @param context      上下文节点(Document或Element)
+     * @param expression   XPath表达式
+     * @param type         值的类型，支持String、Integer、Long、Double、Boolean
+     * @param defaultValue 默认值，没有匹配的节点或值为空时返回
+     * @return 转换后的值，不能转换时返回null
+     * @throws IllegalArgumentException 如果不支持指定的类型
+     */
+    public static <T> T getValue(Node context, String expression, Class<T> type, T defaultValue) {
+        Node node = selectSingleNode(context, expression);
+        return convertValue(node == null ? null : node.getText(), type, defaultValue, "[" + expression + "]");
+    }
+
+    /**
+     * 对同一个上下文节点批量查询多个值，转换规则同{@link #getValue}
+     *
+     * @param context     上下文节点(Document或Element)
+     * @param type        值的类型
+     * @param expressions XPath表达式
+     * @return Map<XPath表达式, 转换后的值(没有匹配的节点时为null)>，顺序与参数一致
+     */
+    public static <T> Map<String, T> getValues(Node context, Class<T> type, String... expressions) {
+        Map<String, T> result = new LinkedHashMap<String, T>(expressions.length * 4 / 3 + 1);
+        for (String expression : expressions) {
+            result.put(expression, getValue(context, expression, type, null));
+        }
+        return result;
+    }
+
     /**
      * 将xml文档转化成xml字符串(默认UTF-8)
      *
@@ -353,4 +669,18 @@ public class Dom4jTool {
         }
     }
 
+    /**
+     * 全局命名空间及其版本号
+     */
+    private static class Namespaces {
+
+        private final Map<String, String> uris; // Map<前缀, 命名空间URI>
+        private final int version;
+
+        private Namespaces(Map<String, String> uris, int version) {
+            this.uris = uris;
+            this.version = version;
+        }
+    }
+
 }
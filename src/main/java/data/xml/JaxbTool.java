@@ -1,15 +1,23 @@
 package data.xml;
 
 import exception.SystemException;
+import io.IoTool;
 import lang.ClassTool;
 import org.apache.commons.lang3.StringUtils;
 
 import javax.xml.bind.*;
 import javax.xml.bind.annotation.XmlAnyElement;
 import javax.xml.namespace.QName;
-import java.io.StringReader;
-import java.io.StringWriter;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+import java.io.*;
 import java.util.Collection;
+import java.util.Iterator;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 
@@ -17,10 +25,24 @@ import java.util.concurrent.ConcurrentMap;
  * jaxb操作的工具类
  * JAXB = Java Architecture for XML Binding
  * 使用Jaxb2.0实现XML和Java的相互转化, OXM(Object XML Mapping), JAXB2在底层是用StAX(JSR 173)来处理XML文档的
+ * Marshaller/Unmarshaller线程不安全且创建代价较高，本类按(类, 编码)池化，每次使用时借出，用完归还。
  */
 public class JaxbTool {
 
+    private static final int MAX_POOLED = Math.max(4, Runtime.getRuntime().availableProcessors() * 2); // 每个池的最大空闲实例数
+
     private static final ConcurrentMap<Class<?>, JAXBContext> jaxbContexts = new ConcurrentHashMap<Class<?>, JAXBContext>();
+    private static final ConcurrentMap<PoolKey, BlockingQueue<Marshaller>> marshallerPools = new ConcurrentHashMap<PoolKey, BlockingQueue<Marshaller>>();
+    private static final ConcurrentMap<Class<?>, BlockingQueue<Unmarshaller>> unmarshallerPools = new ConcurrentHashMap<Class<?>, BlockingQueue<Unmarshaller>>();
+
+    // StAX工厂配置完成后是线程安全的
+    private static final XMLInputFactory inputFactory = XMLInputFactory.newInstance();
+    private static final XMLOutputFactory outputFactory = XMLOutputFactory.newInstance();
+
+    static {
+        inputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+        inputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
+    }
 
     private JaxbTool() {
     }
@@ -57,12 +79,46 @@ public class JaxbTool {
      * @return 序列化后的xml字符串
      */
     public static String toXml(Object root, Class<?> clazz, String encoding) {
+        StringWriter writer = new StringWriter();
+        toXml(root, clazz, encoding, writer);
+        return writer.toString();
+    }
+
+    /**
+     * 序列化，按指定编码将bean直接写到输出流，不生成中间字符串，不关闭输出流
+     *
+     * @param root     待序列化的根对象
+     * @param encoding 编码名称，为null时使用UTF-8
+     * @param out      输出流
+     */
+    public static void toXml(Object root, String encoding, OutputStream out) {
+        Class<?> clazz = ClassTool.getUserClass(root);
+        Marshaller marshaller = borrowMarshaller(clazz, encoding);
         try {
-            StringWriter writer = new StringWriter();
-            createMarshaller(clazz, encoding).marshal(root, writer);
-            return writer.toString();
+            marshaller.marshal(root, out);
+        } catch (JAXBException e) {
+            throw new SystemException(e);
+        } finally {
+            returnMarshaller(clazz, encoding, marshaller);
+        }
+    }
+
+    /**
+     * 序列化，将bean直接写到Writer，不生成中间字符串，不关闭Writer
+     *
+     * @param root     待序列化的根对象
+     * @param clazz    类
+     * @param encoding xml声明中的编码名称，可为null
+     * @param writer   输出目标
+     */
+    public static void toXml(Object root, Class<?> clazz, String encoding, Writer writer) {
+        Marshaller marshaller = borrowMarshaller(clazz, encoding);
+        try {
+            marshaller.marshal(root, writer);
         } catch (JAXBException e) {
             throw new SystemException(e);
+        } finally {
+            returnMarshaller(clazz, encoding, marshaller);
         }
     }
 
@@ -96,7 +152,12 @@ public class JaxbTool {
                     CollectionWrapper.class, wrapper);
 
             StringWriter writer = new StringWriter();
-            createMarshaller(clazz, encoding).marshal(wrapperElement, writer);
+            Marshaller marshaller = borrowMarshaller(clazz, encoding);
+            try {
+                marshaller.marshal(wrapperElement, writer);
+            } finally {
+                returnMarshaller(clazz, encoding, marshaller);
+            }
 
             return writer.toString();
         } catch (JAXBException e) {
@@ -104,6 +165,97 @@ public class JaxbTool {
         }
     }
 
+    /**
+     * 流式序列化，将迭代器中的元素逐个写为根元素的子元素，直接输出到输出流，不关闭输出流。
+     * 与{@link #toXml(Collection, String, Class, String)}不同，不需要把整个集合和xml放在内存中。
+     *
+     * @param elements 元素迭代器
+     * @param rootName 根的名称
+     * @param clazz    元素的类
+     * @param encoding 编码名称，为null时使用UTF-8
+     * @param out      输出流
+     */
+    public static void toXml(Iterator<?> elements, String rootName, Class<?> clazz, String encoding, OutputStream out) {
+        String enc = StringUtils.isBlank(encoding) ? "UTF-8" : encoding;
+        try {
+            XMLStreamWriter writer = outputFactory.createXMLStreamWriter(out, enc);
+            writer.writeStartDocument(enc, "1.0");
+            writer.writeStartElement(rootName);
+            writeElements(elements, clazz, writer);
+            writer.writeEndElement();
+            writer.writeEndDocument();
+            writer.flush();
+            writer.close(); // 不会关闭底层的输出流
+        } catch (XMLStreamException e) {
+            throw new SystemException(e);
+        }
+    }
+
+    /**
+     * 将迭代器中的元素逐个作为片段写到StAX写出器的当前位置，调用者负责写出外层元素。
+     * 没有标注XmlRootElement的元素以类的简单名称(首字母小写)作为元素名。
+     *
+     * @param elements 元素迭代器
+     * @param clazz    元素的类
+     * @param writer   StAX写出器
+     */
+    public static void writeElements(Iterator<?> elements, Class<?> clazz, XMLStreamWriter writer) {
+        Marshaller marshaller = borrowMarshaller(clazz, null);
+        try {
+            marshaller.setProperty(Marshaller.JAXB_FRAGMENT, Boolean.TRUE);
+            JAXBIntrospector introspector = getJaxbContext(clazz).createJAXBIntrospector();
+            QName defaultName = new QName(StringUtils.uncapitalize(clazz.getSimpleName()));
+            while (elements.hasNext()) {
+                Object element = elements.next();
+                if (!introspector.isElement(element)) {
+                    element = newElement(defaultName, clazz, element);
+                }
+                marshaller.marshal(element, writer);
+            }
+        } catch (JAXBException e) {
+            throw new SystemException(e);
+        } finally {
+            try {
+                marshaller.setProperty(Marshaller.JAXB_FRAGMENT, Boolean.FALSE);
+                returnMarshaller(clazz, null, marshaller);
+            } catch (JAXBException e) {
+                // 无法恢复属性，不再归还到池中
+            }
+        }
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static JAXBElement<?> newElement(QName name, Class<?> clazz, Object value) {
+        return new JAXBElement(name, clazz, value);
+    }
+
+    /**
+     * 流式反序列化，将根元素的每个直接子元素逐个转为指定类的实例。
+     * 迭代结束或出错时自动关闭输入流，提前结束迭代时应调用返回的迭代器的close方法。
+     *
+     * @param in    xml输入流
+     * @param clazz 元素的类型
+     * @return 元素迭代器
+     */
+    public static <T> XmlElementIterator<T> iterateXml(InputStream in, Class<T> clazz) {
+        Unmarshaller unmarshaller;
+        try {
+            unmarshaller = borrowUnmarshaller(clazz); // 先借出，创建失败时还没有需要释放的读取器
+        } catch (RuntimeException e) {
+            IoTool.closeQuietly(in);
+            throw e;
+        }
+        XMLStreamReader reader;
+        try {
+            reader = inputFactory.createXMLStreamReader(in);
+        } catch (XMLStreamException e) {
+            IoTool.closeQuietly(in);
+            returnUnmarshaller(clazz, unmarshaller);
+            throw new SystemException(e);
+        }
+        return new XmlElementIterator<T>(reader, in, clazz, unmarshaller);
+    }
+
     /**
      * 反序列化，将xml转为指定类的实例
      *
@@ -111,13 +263,65 @@ public class JaxbTool {
      * @param clazz 实例的类型
      * @return 指定类的实例
      */
-    @SuppressWarnings("unchecked")
     public static <T> T fromXml(String xml, Class<T> clazz) {
+        return fromXml(new StringReader(xml), clazz);
+    }
+
+    /**
+     * 反序列化，直接从Reader读取xml并转为指定类的实例，不关闭Reader
+     *
+     * @param reader xml输入
+     * @param clazz  实例的类型
+     * @return 指定类的实例
+     */
+    public static <T> T fromXml(Reader reader, Class<T> clazz) {
+        try {
+            return unmarshal(inputFactory.createXMLStreamReader(reader), clazz);
+        } catch (XMLStreamException e) {
+            throw new SystemException(e);
+        }
+    }
+
+    /**
+     * 反序列化，直接从输入流读取xml并转为指定类的实例，编码由xml声明决定，不关闭输入流
+     *
+     * @param in    xml输入流
+     * @param clazz 实例的类型
+     * @return 指定类的实例
+     */
+    public static <T> T fromXml(InputStream in, Class<T> clazz) {
         try {
-            StringReader reader = new StringReader(xml);
-            return (T) createUnmarshaller(clazz).unmarshal(reader);
+            return unmarshal(inputFactory.createXMLStreamReader(in), clazz);
+        } catch (XMLStreamException e) {
+            throw new SystemException(e);
+        }
+    }
+
+    /**
+     * 借出Unmarshaller从StAX读取器反序列化，结束后关闭读取器(不关闭底层输入)
+     * 统一走StAX而不是Unmarshaller自带的SAX解析，既沿用inputFactory关闭DTD和外部实体的配置，
+     * 也不受classpath上不支持secure-processing特性的旧版SAX实现(如xercesImpl 2.4)影响。
+     *
+     * @param reader StAX读取器
+     * @param clazz  实例的类型
+     * @return 指定类的实例
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> T unmarshal(XMLStreamReader reader, Class<T> clazz) {
+        Unmarshaller unmarshaller;
+        try {
+            unmarshaller = borrowUnmarshaller(clazz);
+        } catch (RuntimeException e) {
+            closeQuietly(reader);
+            throw e;
+        }
+        try {
+            return (T) unmarshaller.unmarshal(reader);
         } catch (JAXBException e) {
             throw new SystemException(e);
+        } finally {
+            closeQuietly(reader);
+            returnUnmarshaller(clazz, unmarshaller);
         }
     }
 
@@ -161,13 +365,67 @@ public class JaxbTool {
         }
     }
 
+    /**
+     * 从池中借出Marshaller，池为空时新建，用完必须调用{@link #returnMarshaller}归还
+     */
+    private static Marshaller borrowMarshaller(Class<?> clazz, String encoding) {
+        BlockingQueue<Marshaller> pool = marshallerPools.get(new PoolKey(clazz, encoding));
+        Marshaller marshaller = pool == null ? null : pool.poll();
+        return marshaller == null ? createMarshaller(clazz, encoding) : marshaller;
+    }
+
+    private static void returnMarshaller(Class<?> clazz, String encoding, Marshaller marshaller) {
+        PoolKey key = new PoolKey(clazz, encoding);
+        BlockingQueue<Marshaller> pool = marshallerPools.get(key);
+        if (pool == null) {
+            pool = new ArrayBlockingQueue<Marshaller>(MAX_POOLED);
+            BlockingQueue<Marshaller> existing = marshallerPools.putIfAbsent(key, pool);
+            if (existing != null) {
+                pool = existing;
+            }
+        }
+        pool.offer(marshaller); // 池满时丢弃
+    }
+
+    /**
+     * 从池中借出Unmarshaller，池为空时新建，用完必须调用{@link #returnUnmarshaller}归还
+     */
+    private static Unmarshaller borrowUnmarshaller(Class<?> clazz) {
+        BlockingQueue<Unmarshaller> pool = unmarshallerPools.get(clazz);
+        Unmarshaller unmarshaller = pool == null ? null : pool.poll();
+        return unmarshaller == null ? createUnmarshaller(clazz) : unmarshaller;
+    }
+
+    static void returnUnmarshaller(Class<?> clazz, Unmarshaller unmarshaller) {
+        BlockingQueue<Unmarshaller> pool = unmarshallerPools.get(clazz);
+        if (pool == null) {
+            pool = new ArrayBlockingQueue<Unmarshaller>(MAX_POOLED);
+            BlockingQueue<Unmarshaller> existing = unmarshallerPools.putIfAbsent(clazz, pool);
+            if (existing != null) {
+                pool = existing;
+            }
+        }
+        pool.offer(unmarshaller); // 池满时丢弃
+    }
+
+    private static void closeQuietly(XMLStreamReader reader) {
+        try {
+            reader.close(); // 不会关闭底层的输入
+        } catch (XMLStreamException e) {
+            // 忽略
+        }
+    }
+
     protected static JAXBContext getJaxbContext(Class<?> clazz) {
         // Assert.notNull(clazz, "'clazz' must not be null");
         JAXBContext jaxbContext = jaxbContexts.get(clazz);
         if (jaxbContext == null) {
             try {
                 jaxbContext = JAXBContext.newInstance(clazz, CollectionWrapper.class);
-                jaxbContexts.putIfAbsent(clazz, jaxbContext);
+                JAXBContext existing = jaxbContexts.putIfAbsent(clazz, jaxbContext);
+                if (existing != null) {
+                    jaxbContext = existing;
+                }
             } catch (JAXBException ex) {
                 throw new SystemException(ex, "不能为类 [{0}]创建JAXBContext: {1}", clazz, ex.getMessage());
             }
@@ -175,6 +433,34 @@ public class JaxbTool {
         return jaxbContext;
     }
 
+    /**
+     * Marshaller池的key
+     */
+    private static class PoolKey {
+
+        private final Class<?> clazz;
+        private final String encoding;
+
+        private PoolKey(Class<?> clazz, String encoding) {
+            this.clazz = clazz;
+            this.encoding = StringUtils.isBlank(encoding) ? "" : encoding;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof PoolKey)) {
+                return false;
+            }
+            PoolKey other = (PoolKey) obj;
+            return clazz == other.clazz && encoding.equals(other.encoding);
+        }
+
+        @Override
+        public int hashCode() {
+            return clazz.hashCode() * 31 + encoding.hashCode();
+        }
+    }
+
     /**
      * 封装Root Element 是 Collection的情况.
      */
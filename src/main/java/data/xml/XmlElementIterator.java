@@ -0,0 +1,116 @@
+package data.xml;
+
+import exception.SystemException;
+import io.IoTool;
+
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Unmarshaller;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.Closeable;
+import java.io.InputStream;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * xml子元素的流式迭代器
+ * <p>
+ * 基于StAX逐个将根元素的直接子元素作为片段反序列化为指定类型的实例，每次只在内存中保留一个元素。
+ * 迭代结束、解析出错或调用close方法时将关闭底层的输入流并归还Unmarshaller。
+ * 非线程安全。
+ * </p>
+ *
+ * @param <T> 元素类型
+ */
+public class XmlElementIterator<T> implements Iterator<T>, Closeable {
+
+    private final XMLStreamReader reader;
+    private final InputStream in;
+    private final Class<T> clazz;
+    private Unmarshaller unmarshaller;
+    private boolean closed;
+
+    /**
+     * 构造器
+     *
+     * @param reader       已定位在文档开始处的StAX读取器
+     * @param in           读取器底层的输入流，关闭时一并关闭，可为null
+     * @param clazz        元素类型
+     * @param unmarshaller 从JaxbTool的池中借出的Unmarshaller，关闭时归还
+     * @throws SystemException 如果xml没有根元素或解析出错
+     */
+    XmlElementIterator(XMLStreamReader reader, InputStream in, Class<T> clazz, Unmarshaller unmarshaller) {
+        this.reader = reader;
+        this.in = in;
+        this.clazz = clazz;
+        this.unmarshaller = unmarshaller;
+        try {
+            reader.nextTag(); // 根元素
+            reader.next(); // 进入根元素内部
+        } catch (Exception e) {
+            close();
+            throw new SystemException(e, "初始化xml元素迭代器出错！");
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (closed) {
+            return false;
+        }
+        try {
+            int event = reader.getEventType();
+            while (event != XMLStreamConstants.START_ELEMENT) {
+                if (event == XMLStreamConstants.END_ELEMENT || event == XMLStreamConstants.END_DOCUMENT
+                        || !reader.hasNext()) {
+                    close(); // 根元素结束
+                    return false;
+                }
+                event = reader.next();
+            }
+            return true;
+        } catch (XMLStreamException e) {
+            close();
+            throw new SystemException(e, "读取xml出错！");
+        }
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        try {
+            // 反序列化后读取器停在该子元素结束标记之后的位置
+            return unmarshaller.unmarshal(reader, clazz).getValue();
+        } catch (JAXBException e) {
+            close();
+            throw new SystemException(e, "反序列化xml元素出错！");
+        }
+    }
+
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            reader.close();
+        } catch (XMLStreamException e) {
+            // 忽略
+        }
+        IoTool.closeQuietly(in);
+        if (unmarshaller != null) {
+            JaxbTool.returnUnmarshaller(clazz, unmarshaller);
+            unmarshaller = null;
+        }
+    }
+
+}
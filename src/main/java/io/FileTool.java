@@ -13,6 +13,7 @@ import java.util.Collection;
 import java.util.Date;
 import java.util.Iterator;
 import java.util.List;
+import java.util.zip.CRC32;
 import java.util.zip.Checksum;
 
 /**
@@ -337,8 +338,12 @@ public class FileTool {
      * @return true：如果它们的内容都相同或两个文件都不存在，否则返回false
      * @throws SystemException 该异常是对下面几种异常的可能包装, 要得知真正的异常请获取该异常的cause: <br>
      *                         IOException 出现io错误
+     * @see NioFileTool#contentEquals(File, File) 不小于NioFileTool.CHANNEL_THRESHOLD的文件使用NIO比较
      */
     public static Boolean contentEquals(File file1, File file2) {
+        if (file1.length() >= NioFileTool.CHANNEL_THRESHOLD) {
+            return NioFileTool.contentEquals(file1, file2);
+        }
         try {
             return FileUtils.contentEquals(file1, file2);
         } catch (Exception e) {
@@ -517,8 +522,12 @@ public class FileTool {
      * @throws SystemException 该异常是对下面几种异常的可能包装, 要得知真正的异常请获取该异常的cause: <br>
      *                         NullPointerException 如果任意参数为null
      *                         IOException 如果拷贝时出现io错误
+     * @see NioFileTool#copyFile(File, OutputStream) 不小于NioFileTool.MAPPED_THRESHOLD的文件使用transferTo拷贝
      */
     public static Long copyFile(File input, OutputStream output) {
+        if (input.length() >= NioFileTool.MAPPED_THRESHOLD) {
+            return NioFileTool.copyFile(input, output);
+        }
         try {
             return FileUtils.copyFile(input, output);
         } catch (Exception e) {
@@ -893,8 +902,12 @@ public class FileTool {
      * @return 文件内容的字节数组, 不会为 {@code null}
      * @throws SystemException 该异常是对下面几种异常的可能包装, 要得知真正的异常请获取该异常的cause: <br>
      *                         IOException 如果发生io错误
+     * @see NioFileTool#readFileToByteArray(File) 不小于NioFileTool.CHANNEL_THRESHOLD的文件使用NIO读取
      */
     public static byte[] readFileToByteArray(File file) {
+        if (file.length() >= NioFileTool.CHANNEL_THRESHOLD) {
+            return NioFileTool.readFileToByteArray(file);
+        }
         try {
             return FileUtils.readFileToByteArray(file);
         } catch (Exception e) {
@@ -1609,7 +1622,7 @@ public class FileTool {
      */
     public static Long checksumCRC32(File file) {
         try {
-            return FileUtils.checksumCRC32(file);
+            return checksum(file, new CRC32()).getValue();
         } catch (Exception e) {
             throw new SystemException(e);
         }
@@ -1629,8 +1642,12 @@ public class FileTool {
      *                         NullPointerException 如果任意参数为 {@code null} <br>
      *                         IllegalArgumentException 如果指定的文件是一个目录 <br>
      *                         IOException 读取文件时发生io异常
+     * @see NioFileTool#checksum(File, Checksum) 不小于NioFileTool.MAPPED_THRESHOLD的文件使用内存映射读取
      */
     public static Checksum checksum(File file, Checksum checksum) {
+        if (file.length() >= NioFileTool.MAPPED_THRESHOLD) {
+            return NioFileTool.checksum(file, checksum);
+        }
         try {
             return FileUtils.checksum(file, checksum);
         } catch (Exception e) {
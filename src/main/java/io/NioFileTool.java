@@ -0,0 +1,294 @@
+package io;
+
+import exception.SystemException;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.Checksum;
+
+/**
+ * 基于NIO的文件工具类
+ * <p>
+ * 使用FileChannel.transferTo拷贝、MappedByteBuffer读取/比较/计算校验和。
+ * 超过{@link #MAP_CHUNK_SIZE}的文件按块映射，因此也支持超过2GB的文件；
+ * 中等大小的文件使用池化的直接缓冲区通过FileChannel读取，避免映射的建立开销。
+ * {@link FileTool}中对应的方法会按文件大小自动在流和本类的实现之间选择，一般不需要直接调用本类。
+ * </p>
+ */
+public class NioFileTool {
+
+    /**
+     * 小于该大小(64KB)的文件使用流的方式处理
+     */
+    public static final long CHANNEL_THRESHOLD = 64 * 1024;
+
+    /**
+     * 不小于该大小(8MB)的文件使用内存映射的方式处理
+     */
+    public static final long MAPPED_THRESHOLD = 8 * 1024 * 1024;
+
+    /**
+     * 每次映射的最大字节数(256MB)
+     */
+    public static final long MAP_CHUNK_SIZE = 256 * 1024 * 1024;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int POOL_SIZE = 16;
+
+    // 直接缓冲区池，直接缓冲区的分配和回收代价较高，因此复用
+    private static final BlockingQueue<ByteBuffer> bufferPool = new ArrayBlockingQueue<ByteBuffer>(POOL_SIZE);
+
+    private NioFileTool() {
+    }
+
+    /**
+     * 读取文件内容到字节数组，大文件按块映射读取
+     *
+     * @param file 要读取的文件, 不能为 {@code null}
+     * @return 文件内容的字节数组
+     * @throws SystemException 该异常是对下面几种异常的可能包装, 要得知真正的异常请获取该异常的cause: <br>
+     *                         IllegalArgumentException 如果文件大于2GB <br>
+     *                         IOException 如果发生io错误
+     */
+    public static byte[] readFileToByteArray(File file) {
+        FileInputStream in = null;
+        try {
+            in = openInputStream(file);
+            FileChannel channel = in.getChannel();
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("文件大于2GB，无法读取到字节数组: " + file);
+            }
+            byte[] bytes = new byte[(int) size];
+            if (size >= MAPPED_THRESHOLD) {
+                for (long position = 0; position < size; position += MAP_CHUNK_SIZE) {
+                    long length = Math.min(MAP_CHUNK_SIZE, size - position);
+                    channel.map(FileChannel.MapMode.READ_ONLY, position, length).get(bytes, (int) position, (int) length);
+                }
+            } else {
+                ByteBuffer buffer = ByteBuffer.wrap(bytes);
+                while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                    // 读满为止
+                }
+                if (buffer.hasRemaining()) {
+                    throw new IOException("读取文件时文件被截断: " + file);
+                }
+            }
+            return bytes;
+        } catch (Exception e) {
+            throw new SystemException(e);
+        } finally {
+            IoTool.closeQuietly(in);
+        }
+    }
+
+    /**
+     * 使用FileChannel.transferTo拷贝文件内容到输出流，输出流为文件输出流时由操作系统直接在文件间传输
+     * 输出流不会被关闭
+     *
+     * @param input  要读取数据的文件对象
+     * @param output 要写入的 <code>OutputStream</code>
+     * @return 拷贝的字节数
+     * @throws SystemException 该异常是对下面几种异常的可能包装, 要得知真正的异常请获取该异常的cause: <br>
+     *                         IOException 如果拷贝时出现io错误
+     */
+    public static long copyFile(File input, OutputStream output) {
+        FileInputStream in = null;
+        try {
+            in = openInputStream(input);
+            FileChannel source = in.getChannel();
+            WritableByteChannel target = output instanceof FileOutputStream
+                    ? ((FileOutputStream) output).getChannel() : Channels.newChannel(output);
+            if (!(output instanceof FileOutputStream)) {
+                output.flush();
+            }
+            long size = source.size();
+            long position = 0;
+            while (position < size) {
+                long transferred = source.transferTo(position, Math.min(MAP_CHUNK_SIZE, size - position), target);
+                if (transferred <= 0) {
+                    break;
+                }
+                position += transferred;
+            }
+            return position;
+        } catch (Exception e) {
+            throw new SystemException(e);
+        } finally {
+            IoTool.closeQuietly(in);
+        }
+    }
+
+    /**
+     * 使用指定的校验和对象计算文件的校验和，大文件按块映射读取
+     *
+     * @param file     要计算校验和的文件, 不能为 {@code null}
+     * @param checksum 使用的校验和对象, 不能为 {@code null}
+     * @return 指定的校验和对象，已经由文件的内容更新过
+     * @throws SystemException 该异常是对下面几种异常的可能包装, 要得知真正的异常请获取该异常的cause: <br>
+     *                         IllegalArgumentException 如果指定的文件是一个目录 <br>
+     *                         IOException 读取文件时发生io异常
+     */
+    public static Checksum checksum(File file, Checksum checksum) {
+        if (file.isDirectory()) {
+            throw new SystemException(new IllegalArgumentException("目录不能计算校验和: " + file));
+        }
+        FileInputStream in = null;
+        try {
+            in = openInputStream(file);
+            FileChannel channel = in.getChannel();
+            long size = channel.size();
+            byte[] chunk = new byte[BUFFER_SIZE];
+            for (long position = 0; position < size; position += MAP_CHUNK_SIZE) {
+                MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, position,
+                        Math.min(MAP_CHUNK_SIZE, size - position));
+                while (mapped.hasRemaining()) {
+                    int length = Math.min(chunk.length, mapped.remaining());
+                    mapped.get(chunk, 0, length);
+                    checksum.update(chunk, 0, length);
+                }
+            }
+            return checksum;
+        } catch (Exception e) {
+            throw new SystemException(e);
+        } finally {
+            IoTool.closeQuietly(in);
+        }
+    }
+
+    /**
+     * 比较两个文件的内容是否相等，先比较长度和是否为同一文件，
+     * 大文件按块映射比较，其余使用池化的直接缓冲区分块读取比较
+     *
+     * @param file1 第一个文件
+     * @param file2 第二个文件
+     * @return true：如果它们的内容都相同或两个文件都不存在，否则返回false
+     * @throws SystemException 该异常是对下面几种异常的可能包装, 要得知真正的异常请获取该异常的cause: <br>
+     *                         IOException 如果发生io错误
+     */
+    public static boolean contentEquals(File file1, File file2) {
+        try {
+            boolean file1Exists = file1.exists();
+            if (file1Exists != file2.exists()) {
+                return false;
+            }
+            if (!file1Exists) {
+                return true;
+            }
+            if (file1.isDirectory() || file2.isDirectory()) {
+                throw new IOException("不能比较目录的内容");
+            }
+            if (file1.length() != file2.length()) {
+                return false;
+            }
+            if (file1.getCanonicalFile().equals(file2.getCanonicalFile())) {
+                return true;
+            }
+        } catch (IOException e) {
+            throw new SystemException(e);
+        }
+
+        FileInputStream in1 = null;
+        FileInputStream in2 = null;
+        try {
+            in1 = new FileInputStream(file1);
+            in2 = new FileInputStream(file2);
+            FileChannel channel1 = in1.getChannel();
+            FileChannel channel2 = in2.getChannel();
+            long size = channel1.size();
+            if (size != channel2.size()) {
+                return false;
+            }
+            if (size >= MAPPED_THRESHOLD) {
+                for (long position = 0; position < size; position += MAP_CHUNK_SIZE) {
+                    long length = Math.min(MAP_CHUNK_SIZE, size - position);
+                    if (!channel1.map(FileChannel.MapMode.READ_ONLY, position, length)
+                            .equals(channel2.map(FileChannel.MapMode.READ_ONLY, position, length))) {
+                        return false;
+                    }
+                }
+                return true;
+            }
+            return channelContentEquals(channel1, channel2);
+        } catch (Exception e) {
+            throw new SystemException(e);
+        } finally {
+            IoTool.closeQuietly(in1);
+            IoTool.closeQuietly(in2);
+        }
+    }
+
+    private static boolean channelContentEquals(FileChannel channel1, FileChannel channel2) throws IOException {
+        ByteBuffer buffer1 = acquireBuffer();
+        ByteBuffer buffer2 = acquireBuffer();
+        try {
+            while (true) {
+                int read1 = fill(channel1, buffer1);
+                int read2 = fill(channel2, buffer2);
+                if (read1 != read2 || !buffer1.equals(buffer2)) {
+                    return false;
+                }
+                if (read1 < BUFFER_SIZE) {
+                    return true;
+                }
+            }
+        } finally {
+            releaseBuffer(buffer1);
+            releaseBuffer(buffer2);
+        }
+    }
+
+    /**
+     * 从通道读满缓冲区(或读到文件末尾)，并将缓冲区翻转为可读状态
+     *
+     * @return 读到的字节数
+     */
+    private static int fill(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.clear();
+        while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+            // 读满为止
+        }
+        buffer.flip();
+        return buffer.remaining();
+    }
+
+    /**
+     * 从池中取得一个直接缓冲区，池为空时新分配
+     */
+    static ByteBuffer acquireBuffer() {
+        ByteBuffer buffer = bufferPool.poll();
+        if (buffer == null) {
+            buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        }
+        buffer.clear();
+        return buffer;
+    }
+
+    /**
+     * 将直接缓冲区归还到池中，池已满时丢弃
+     */
+    static void releaseBuffer(ByteBuffer buffer) {
+        bufferPool.offer(buffer);
+    }
+
+    private static FileInputStream openInputStream(File file) throws IOException {
+        if (file.exists()) {
+            if (file.isDirectory()) {
+                throw new IOException("文件[" + file + "]是一个目录");
+            }
+            if (!file.canRead()) {
+                throw new IOException("文件[" + file + "]不可读");
+            }
+        } else {
+            throw new FileNotFoundException("文件[" + file + "]不存在");
+        }
+        return new FileInputStream(file);
+    }
+
+}
@@ -5,12 +5,14 @@ import lang.string.StringTool;
 import log.Log;
 import log.LogFactory;
 import math.NumberTool;
-import org.apache.commons.collections.FastHashMap;
 import org.apache.commons.lang3.time.DateUtils;
+import org.apache.commons.lang3.time.FastDateFormat;
 
-import java.text.DateFormat;
-import java.text.SimpleDateFormat;
+import java.io.IOException;
+import java.text.ParsePosition;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * 日期操作工具类
@@ -111,39 +113,26 @@ public class DateTool {
      */
     public static final String FMT_CN_MINUTE = "HH时mm分";
 
-    // 用于缓存SimpleDateFormat，以便快速索引
-    private static final FastHashMap datePartenMap = new FastHashMap();
-    // 用于解决SimpleDateFormat的线程安全问题
-    private static final ThreadLocal<FastHashMap> threadLocal = new ThreadLocal<FastHashMap>() {
-        protected synchronized FastHashMap initialValue() {
-            return (FastHashMap) datePartenMap.clone();
+    // 预编译的日期格式缓存，FastDateFormat不可变且线程安全
+    private static final ConcurrentMap<String, FastDateFormat> formatMap = new ConcurrentHashMap<String, FastDateFormat>();
+    // 日期串的"形状"(数字替换为#)到日期格式的映射，用于一次扫描识别日期格式
+    private static final ConcurrentMap<String, String> shapeMap = new ConcurrentHashMap<String, String>();
+    // formatTo方法使用的线程内缓冲区，避免每次格式化都分配
+    private static final ThreadLocal<StringBuffer> formatBuffer = new ThreadLocal<StringBuffer>() {
+        protected StringBuffer initialValue() {
+            return new StringBuffer(32);
         }
     };
+    private static final char SHAPE_DIGIT = '#';
     protected static final Log logger = LogFactory.getLog(DateTool.class);
 
     static {
-        Set<String> fmtSet = new HashSet<String>();
-        fmtSet.add(UNFMT_yyyyMM);
-        fmtSet.add(UNFMT_yyyyMMdd);
-        fmtSet.add(UNFMT_yyyyMMddHHmmss);
-        fmtSet.add(UNFMT_yyyyMMddHHmmssSSS);
-        fmtSet.add(UNFMT_HHmmss);
-        fmtSet.add(UNFMT_HHmm);
-        fmtSet.add(FMT_HYPHEN_MONTH);
-        fmtSet.add(FMT_HYPHEN_DAY);
-        fmtSet.add(FMT_HYPHEN_DAY_CLN_MINUTE);
-        fmtSet.add(FMT_HYPHEN_DAY_CLN_SECOND);
-        fmtSet.add(FMT_CN_MONTH);
-        fmtSet.add(FMT_CN_DAY);
-        fmtSet.add(FMT_CN_DAY_CN_MINUTE);
-        fmtSet.add(FMT_CN_DAY_CN_SECOND);
-        fmtSet.add(FMT_CLN_SECOND);
-        fmtSet.add(FMT_CLN_MINUTE);
-        fmtSet.add(FMT_CN_SECOND);
-        fmtSet.add(FMT_CN_MINUTE);
-
-        datePartenMap.setFast(true);
-        for (String fmt : fmtSet) {
+        // 顺序决定形状冲突时的优先级，如yyyyMM优先于HHmmss
+        String[] fmts = {UNFMT_yyyyMMddHHmmssSSS, UNFMT_yyyyMMddHHmmss, UNFMT_yyyyMMdd, UNFMT_yyyyMM, UNFMT_HHmmss,
+                UNFMT_HHmm, FMT_HYPHEN_DAY_CLN_SECOND, FMT_HYPHEN_DAY_CLN_MINUTE, FMT_HYPHEN_DAY, FMT_HYPHEN_MONTH,
+                FMT_CN_DAY_CN_SECOND, FMT_CN_DAY_CN_MINUTE, FMT_CN_DAY, FMT_CN_MONTH, FMT_CLN_SECOND, FMT_CLN_MINUTE,
+                FMT_CN_SECOND, FMT_CN_MINUTE};
+        for (String fmt : fmts) {
             addDateFormat(fmt);
         }
     }
@@ -153,13 +142,85 @@ public class DateTool {
 
     /**
      * 添加非默认的日期格式到缓存
-     * 提高解析效率并获得线程安全。如果不将非默认的日期格式添加到缓存，在每次调用解析方法时将新建一个SimpleDateFormat，
-     * 这样在进行批量解析时效率分比较低，开销也较大，但还是线程安全的。
+     * 日期格式只编译一次，之后的解析和格式化都直接使用编译好的线程安全的格式。
+     * 未添加到缓存的格式在第一次使用时也会被编译并缓存，但不参与{@link #detectPattern(String)}的格式识别。
      *
      * @param fmt 日期格式
      */
     public static void addDateFormat(String fmt) {
-        datePartenMap.put(fmt, new SimpleDateFormat(fmt));
+        getFormat(fmt);
+        String shape = toPatternShape(fmt);
+        if (shape != null) {
+            shapeMap.putIfAbsent(shape, fmt);
+        }
+    }
+
+    /**
+     * 一次扫描识别日期串的格式
+     * 将日期串中的每个数字视为#得到其"形状"，如"2010-08-23"为"####-##-##"，再与所有已添加的日期格式的形状比较。
+     * 只能识别全部由数字域组成且各域按格式补齐位数的日期串，多个格式形状相同时取先添加的。
+     *
+     * @param dateStr 日期串
+     * @return 日期格式，识别不出时返回null
+     */
+    public static String detectPattern(String dateStr) {
+        if (StringTool.isBlank(dateStr)) {
+            return null;
+        }
+        int length = dateStr.length();
+        char[] shape = new char[length];
+        for (int i = 0; i < length; i++) {
+            char c = dateStr.charAt(i);
+            shape[i] = c >= '0' && c <= '9' ? SHAPE_DIGIT : c;
+        }
+        return shapeMap.get(new String(shape));
+    }
+
+    /**
+     * 自动识别格式并解析日期串，见{@link #detectPattern(String)}
+     *
+     * @param dateStr 日期串
+     * @return 日期对象，日期串为空时返回null
+     * @throws SystemException 如果识别不出格式或解析出错
+     */
+    public static Date parseDateAuto(String dateStr) {
+        if (StringTool.isBlank(dateStr)) {
+            return null;
+        }
+        String fmt = detectPattern(dateStr);
+        if (fmt == null) {
+            throw new SystemException("无法识别日期[{0}]的格式！", dateStr);
+        }
+        return parseDate(dateStr, fmt);
+    }
+
+    /**
+     * 计算日期格式的形状：数字域的每个字母替换为#，引号中的文字原样保留
+     *
+     * @return 形状，格式中含有非数字域(如MMM、E、a、z)时返回null
+     */
+    private static String toPatternShape(String fmt) {
+        StringBuilder shape = new StringBuilder(fmt.length());
+        boolean quoted = false;
+        for (int i = 0; i < fmt.length(); i++) {
+            char c = fmt.charAt(i);
+            if (c == '\'') {
+                if (i + 1 < fmt.length() && fmt.charAt(i + 1) == '\'') {
+                    shape.append(c);
+                    i++;
+                } else {
+                    quoted = !quoted;
+                }
+            } else if (quoted || !(c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z')) {
+                shape.append(c);
+            } else if ("yMdHhKkmsSDFwWu".indexOf(c) >= 0
+                    && !(c == 'M' && i + 2 < fmt.length() && fmt.charAt(i + 1) == 'M' && fmt.charAt(i + 2) == 'M')) {
+                shape.append(SHAPE_DIGIT);
+            } else {
+                return null;
+            }
+        }
+        return shape.toString();
     }
 
     /**
@@ -180,6 +241,36 @@ public class DateTool {
         }
     }
 
+    /**
+     * 根据指定的格式对日期进行格式化，结果追加到指定的Appendable，不创建中间字符串
+     *
+     * @param date 日期对象，为null时不追加任何内容
+     * @param fmt  格式化串(使用本类的以"UNFMT_"或"FMT_"打头的常量)
+     * @param out  输出目标
+     * @param <A>  输出目标的类型
+     * @return 输出目标
+     * @throws SystemException 如果追加时出现IO错误
+     */
+    public static <A extends Appendable> A formatTo(Date date, String fmt, A out) {
+        if (date == null) {
+            return out;
+        }
+        FastDateFormat format = getFormat(fmt);
+        if (out instanceof StringBuffer) {
+            format.format(date, (StringBuffer) out);
+            return out;
+        }
+        StringBuffer buffer = formatBuffer.get();
+        buffer.setLength(0);
+        format.format(date, buffer);
+        try {
+            out.append(buffer);
+        } catch (IOException e) {
+            throw new SystemException(e);
+        }
+        return out;
+    }
+
 
     /**
      * 根据指定的格式对日期进行格式化
@@ -211,10 +302,14 @@ public class DateTool {
         return getFormat(outFmt).format(date);
     }
 
-    private static DateFormat getFormat(String fmt) {
-        DateFormat dateFormat = (DateFormat) threadLocal.get().get(fmt);
+    private static FastDateFormat getFormat(String fmt) {
+        FastDateFormat dateFormat = formatMap.get(fmt);
         if (dateFormat == null) {
-            dateFormat = new SimpleDateFormat(fmt);
+            dateFormat = FastDateFormat.getInstance(fmt);
+            FastDateFormat existing = formatMap.putIfAbsent(fmt, dateFormat);
+            if (existing != null) {
+                dateFormat = existing;
+            }
         }
         return dateFormat;
     }
@@ -419,7 +514,8 @@ public class DateTool {
 
     /**
      * 用各种不同的解析模板解析代表日期的字符串(宽松)
-     * 解析过程将按顺序尝试每一个解析模板。如果能够解析整个字符串，解析过程将成功终止于当前解析模板。 解析器将宽松地对待日期的解析。
+     * 如果能通过{@link #detectPattern(String)}识别出日期串的格式且该格式在解析模板中，直接用该格式解析；
+     * 否则按顺序尝试每一个解析模板。如果能够解析整个字符串，解析过程将成功终止于当前解析模板。 解析器将宽松地对待日期的解析。
      *
      * @param str           要解析的日期字符串, 不能为null
      * @param parsePatterns 要使用的日期模板数组, 见SimpleDateFormat类, 不能为null
@@ -428,6 +524,13 @@ public class DateTool {
      */
     public static Date parseDate(String str, String... parsePatterns) {
         try {
+            String detected = detectPattern(str);
+            if (detected != null && parsePatterns != null && ArrayTool.contains(parsePatterns, detected)) {
+                Date date = getFormat(detected).parse(str, new ParsePosition(0));
+                if (date != null) {
+                    return date;
+                }
+            }
             return DateUtils.parseDate(str, parsePatterns);
         } catch (Exception e) {
             logger.error(e, e.getMessage());
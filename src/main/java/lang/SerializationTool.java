@@ -1,5 +1,7 @@
 package lang;
 
+import lang.serialize.BinarySerializer;
+import lang.serialize.Serializer;
 import org.apache.commons.lang3.SerializationException;
 
 import java.io.InputStream;
@@ -8,12 +10,41 @@ import java.io.Serializable;
 
 /**
  * 序列化工具类
+ * <p>
+ * clone/serialize/deserialize使用JDK标准序列化；
+ * 不需要与JDK序列化格式兼容的场景(深度克隆、缓存、同版本进程间传输)可以使用{@link #getSerializer()}，
+ * 默认为更快更紧凑的{@link BinarySerializer}，可通过{@link #setSerializer(Serializer)}替换。
+ * </p>
  */
 public class SerializationTool {
 
+    private static volatile Serializer serializer = new BinarySerializer();
+
     private SerializationTool() {
     }
 
+    /**
+     * 取得全局的序列化器
+     *
+     * @return 序列化器，默认为{@link BinarySerializer}
+     */
+    public static Serializer getSerializer() {
+        return serializer;
+    }
+
+    /**
+     * 替换全局的序列化器
+     *
+     * @param serializer 序列化器，不能为null
+     * @throws IllegalArgumentException 如果serializer为null
+     */
+    public static void setSerializer(Serializer serializer) {
+        if (serializer == null) {
+            throw new IllegalArgumentException("serializer不能为null!");
+        }
+        SerializationTool.serializer = serializer;
+    }
+
     // ----------------------------------------------------------------------------
     // 封装org.apache.commons.lang3.SerializationUtils
     // ----------------------------------------------------------------------------
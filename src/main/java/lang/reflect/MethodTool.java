@@ -1,7 +1,6 @@
 package lang.reflect;
 
 import exception.SystemException;
-import org.apache.commons.lang3.StringUtils;
 
 import java.beans.BeanInfo;
 import java.beans.Introspector;
@@ -18,9 +17,6 @@ public class MethodTool {
     private MethodTool() {
     }
 
-    private static final String SETTER_PREFIX = "set";
-    private static final String GETTER_PREFIX = "get";
-
     /**
      * 取得所有可读的方法
      *
@@ -45,6 +41,7 @@ public class MethodTool {
     /**
      * 调用指定属性的getter方法 <br>
      * 支持多级，如：对象名.对象名.属性
+     * 编译后的属性路径及解析出的方法将被缓存，参见{@link PropertyPath}
      *
      * @param obj          调用的对象
      * @param propertyName 属性名
@@ -55,34 +52,24 @@ public class MethodTool {
      *                         IllegalAccessException 如果请求的方法不能通过反射访问
      */
     public static Object invokeGetter(Object obj, String propertyName) {
-        Object object = obj;
-        for (String name : StringUtils.split(propertyName, ".")) {
-            String getterMethodName = GETTER_PREFIX + StringUtils.capitalize(name);
-            object = invokeExactMethod(object, getterMethodName);
-        }
-        return object;
+        return PropertyPath.compile(propertyName).get(obj);
     }
 
     /**
      * 调用指定属性的setter方法 <br>
      * 支持多级，如：对象名.对象名.属性
+     * 编译后的属性路径及解析出的方法将被缓存，参见{@link PropertyPath}
      *
      * @param obj          调用的对象
      * @param propertyName 属性名
      * @param value        setter方法的参数值
+     * @throws SystemException 该异常是对下面几种异常的可能包装, 要得知真正的异常请获取该异常的cause: <br>
+     *                         NoSuchMethodException 如果找不到指定的可访问的方法 <br>
+     *                         InvocationTargetException 对被调用方法的包装异常 <br>
+     *                         IllegalAccessException 如果请求的方法不能通过反射访问
      */
     public static void invokeSetter(Object obj, String propertyName, Object value) {
-        Object object = obj;
-        String[] names = StringUtils.split(propertyName, ".");
-        for (int i = 0; i < names.length; i++) {
-            if (i < names.length - 1) {
-                String getterMethodName = GETTER_PREFIX + StringUtils.capitalize(names[i]);
-                object = invokeExactMethod(object, getterMethodName);
-            } else {
-                String setterMethodName = SETTER_PREFIX + StringUtils.capitalize(names[i]);
-                invokeMethod(object, setterMethodName, new Object[]{value});
-            }
-        }
+        PropertyPath.compile(propertyName).set(obj, value);
     }
 
     // ----------------------------------------------------------------------------
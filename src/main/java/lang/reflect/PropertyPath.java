@@ -0,0 +1,297 @@
+package lang.reflect;
+
+import exception.SystemException;
+import lang.string.StringTool;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.reflect.MethodUtils;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 编译后的属性路径
+ * <p>
+ * 将"对象名.对象名.属性"形式的属性路径只解析一次, 并按对象的运行时类缓存每一级的getter/setter方法
+ * (每一级最多内联缓存4个类, 超出后使用Map缓存), 之后的get/set调用不再拼接方法名和查找方法。
+ * 路径中某一级的对象为Map时, 按该级的名称作为key存取。
+ * 实例是不可变的(方法缓存除外)，线程安全，通过{@link #compile(String)}获取，内部已缓存。
+ * </p>
+ */
+public class PropertyPath {
+
+    private static final String SETTER_PREFIX = "set";
+    private static final String GETTER_PREFIX = "get";
+    private static final String BOOLEAN_GETTER_PREFIX = "is";
+    private static final int MAX_INLINE_ENTRIES = 4; // 每一级内联缓存的类的个数
+    private static final int MAX_CACHED_PATHS = 1024; // 缓存的路径的最大个数
+
+    private static final ConcurrentMap<String, PropertyPath> paths = new ConcurrentHashMap<String, PropertyPath>();
+
+    private final String path;
+    private final Segment[] segments;
+
+    private PropertyPath(String path) {
+        this.path = path;
+        String[] names = StringUtils.split(path, ".");
+        if (names.length == 0) {
+            throw new IllegalArgumentException("属性路径不能为空!");
+        }
+        this.segments = new Segment[names.length];
+        for (int i = 0; i < names.length; i++) {
+            segments[i] = new Segment(names[i]);
+        }
+    }
+
+    /**
+     * 编译属性路径
+     *
+     * @param path 属性路径，支持多级，如：对象名.对象名.属性
+     * @return 编译后的属性路径
+     * @throws IllegalArgumentException 如果路径为空
+     */
+    public static PropertyPath compile(String path) {
+        if (StringTool.isBlank(path)) {
+            throw new IllegalArgumentException("属性路径不能为空!");
+        }
+        PropertyPath propertyPath = paths.get(path);
+        if (propertyPath == null) {
+            propertyPath = new PropertyPath(path);
+            if (paths.size() < MAX_CACHED_PATHS) {
+                PropertyPath existing = paths.putIfAbsent(path, propertyPath);
+                if (existing != null) {
+                    propertyPath = existing;
+                }
+            }
+        }
+        return propertyPath;
+    }
+
+    /**
+     * 是否为本类支持的简单属性路径(只由"."分隔的属性名组成，不含索引[]或映射()语法)
+     *
+     * @param path 属性路径
+     * @return true: 是简单属性路径
+     */
+    public static boolean isSimplePath(String path) {
+        return StringTool.isNotBlank(path) && StringUtils.containsNone(path, "[]()");
+    }
+
+    /**
+     * 取得指定对象上该路径对应的属性值
+     *
+     * @param bean 对象
+     * @return 属性值
+     * @throws SystemException 该异常是对下面几种异常的可能包装, 要得知真正的异常请获取该异常的cause: <br>
+     *                         NoSuchMethodException 如果找不到指定的可访问的方法 <br>
+     *                         InvocationTargetException 对被调用方法的包装异常 <br>
+     *                         IllegalAccessException 如果请求的方法不能通过反射访问
+     */
+    public Object get(Object bean) {
+        return walk(bean, segments.length);
+    }
+
+    /**
+     * 设置指定对象上该路径对应的属性值
+     *
+     * @param bean  对象
+     * @param value 属性值
+     * @throws SystemException 该异常是对下面几种异常的可能包装, 要得知真正的异常请获取该异常的cause: <br>
+     *                         NoSuchMethodException 如果找不到指定的可访问的方法 <br>
+     *                         InvocationTargetException 对被调用方法的包装异常 <br>
+     *                         IllegalAccessException 如果请求的方法不能通过反射访问
+     */
+    public void set(Object bean, Object value) {
+        Object target = walk(bean, segments.length - 1);
+        Segment last = segments[segments.length - 1];
+        checkNotNull(target, segments.length - 1);
+        try {
+            last.set(target, value);
+        } catch (Exception e) {
+            throw new SystemException(e);
+        }
+    }
+
+    /**
+     * 取得属性路径
+     *
+     * @return 属性路径
+     */
+    public String getPath() {
+        return path;
+    }
+
+    @Override
+    public String toString() {
+        return path;
+    }
+
+    private Object walk(Object bean, int depth) {
+        Object current = bean;
+        try {
+            for (int i = 0; i < depth; i++) {
+                checkNotNull(current, i);
+                current = segments[i].get(current);
+            }
+        } catch (SystemException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new SystemException(e);
+        }
+        return current;
+    }
+
+    private void checkNotNull(Object current, int index) {
+        if (current == null) {
+            String owner = index == 0 ? "bean" : segments[index - 1].name;
+            throw new SystemException("属性路径[{0}]中的[{1}]为null!", path, owner);
+        }
+    }
+
+    /**
+     * 属性路径中的一级
+     */
+    private static class Segment {
+
+        private final String name;
+        private final String setterName;
+        private final MethodCache getters;
+        private final MethodCache setters;
+
+        private Segment(final String name) {
+            this.name = name;
+            final String capitalized = StringUtils.capitalize(name);
+            this.setterName = SETTER_PREFIX + capitalized;
+            this.getters = new MethodCache() {
+                @Override
+                protected Method resolve(Class<?> clazz) throws NoSuchMethodException {
+                    return resolveGetter(clazz, capitalized);
+                }
+            };
+            this.setters = new MethodCache() {
+                @Override
+                protected Method resolve(Class<?> clazz) throws NoSuchMethodException {
+                    return resolveSetter(clazz, setterName);
+                }
+            };
+        }
+
+        @SuppressWarnings("rawtypes")
+        private Object get(Object target) throws Exception {
+            if (target instanceof Map) {
+                return ((Map) target).get(name);
+            }
+            return getters.lookup(target.getClass()).invoke(target);
+        }
+
+        @SuppressWarnings({"rawtypes", "unchecked"})
+        private void set(Object target, Object value) throws Exception {
+            if (target instanceof Map) {
+                ((Map) target).put(name, value);
+                return;
+            }
+            Method setter = setters.lookup(target.getClass());
+            if (setter == null) {
+                // setter有重载, 按参数值的类型匹配
+                MethodUtils.invokeMethod(target, setterName, new Object[]{value});
+            } else {
+                setter.invoke(target, value);
+            }
+        }
+
+        private static Method resolveGetter(Class<?> clazz, String capitalized) throws NoSuchMethodException {
+            Method getter = MethodUtils.getAccessibleMethod(clazz, GETTER_PREFIX + capitalized);
+            if (getter == null) {
+                Method isGetter = MethodUtils.getAccessibleMethod(clazz, BOOLEAN_GETTER_PREFIX + capitalized);
+                if (isGetter != null && (isGetter.getReturnType() == boolean.class
+                        || isGetter.getReturnType() == Boolean.class)) {
+                    getter = isGetter;
+                }
+            }
+            if (getter == null) {
+                throw new NoSuchMethodException("No such accessible method: " + GETTER_PREFIX + capitalized
+                        + "() on class: " + clazz.getName());
+            }
+            return getter;
+        }
+
+        /**
+         * @return 唯一的setter方法，如果有多个重载的setter方法则返回null
+         */
+        private static Method resolveSetter(Class<?> clazz, String setterName) throws NoSuchMethodException {
+            List<Method> candidates = new ArrayList<Method>(1);
+            for (Method method : clazz.getMethods()) {
+                if (method.getName().equals(setterName) && method.getParameterTypes().length == 1) {
+                    candidates.add(method);
+                }
+            }
+            if (candidates.size() > 1) {
+                return null;
+            }
+            Method setter = candidates.isEmpty() ? null : MethodUtils.getAccessibleMethod(candidates.get(0));
+            if (setter == null) {
+                throw new NoSuchMethodException("No such accessible method: " + setterName + "() on class: "
+                        + clazz.getName());
+            }
+            return setter;
+        }
+    }
+
+    /**
+     * 按类缓存方法的多态内联缓存
+     * 命中时无锁, 未命中时解析方法并加锁追加到内联数组, 内联数组满后放入Map
+     */
+    private static abstract class MethodCache {
+
+        private volatile Entry[] entries = new Entry[0];
+        private final ConcurrentMap<Class<?>, Entry> overflow = new ConcurrentHashMap<Class<?>, Entry>();
+
+        private Method lookup(Class<?> clazz) throws NoSuchMethodException {
+            Entry[] current = entries;
+            for (Entry entry : current) {
+                if (entry.clazz == clazz) {
+                    return entry.method;
+                }
+            }
+            Entry entry = overflow.get(clazz);
+            if (entry != null) {
+                return entry.method;
+            }
+            entry = new Entry(clazz, resolve(clazz));
+            synchronized (this) {
+                current = entries;
+                if (current.length < MAX_INLINE_ENTRIES) {
+                    for (Entry e : current) {
+                        if (e.clazz == clazz) {
+                            return e.method;
+                        }
+                    }
+                    Entry[] newEntries = new Entry[current.length + 1];
+                    System.arraycopy(current, 0, newEntries, 0, current.length);
+                    newEntries[current.length] = entry;
+                    entries = newEntries;
+                } else {
+                    overflow.putIfAbsent(clazz, entry);
+                }
+            }
+            return entry.method;
+        }
+
+        protected abstract Method resolve(Class<?> clazz) throws NoSuchMethodException;
+    }
+
+    private static class Entry {
+
+        private final Class<?> clazz;
+        private final Method method;
+
+        private Entry(Class<?> clazz, Method method) {
+            this.clazz = clazz;
+            this.method = method;
+        }
+    }
+
+}
@@ -0,0 +1,127 @@
+package lang.serialize;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * {@link BinarySerializer}使用的输入缓冲区，同时保存一次反序列化过程中的引用表和类名表。
+ * 非线程安全。
+ */
+class BinaryInput {
+
+    private final byte[] buffer;
+    private final int limit;
+    private int position;
+
+    final List<Object> references = new ArrayList<Object>();
+    final List<Class<?>> classes = new ArrayList<Class<?>>();
+    boolean trackReferences; // 由数据头决定，与反序列化端的配置无关
+
+    BinaryInput(byte[] buffer, int offset, int length) {
+        this.buffer = buffer;
+        this.position = offset;
+        this.limit = offset + length;
+    }
+
+    private void require(int length) {
+        if (limit - position < length) {
+            throw new IllegalStateException("数据不完整，需要" + length + "个字节，剩余" + (limit - position) + "个字节");
+        }
+    }
+
+    boolean hasRemaining() {
+        return position < limit;
+    }
+
+    /**
+     * 读取长度或元素个数。每个字节、字符或元素至少占一个字节，大于剩余字节数的长度只能来自损坏或伪造的数据，
+     * 在按其分配内存之前拒绝
+     */
+    int readLength() {
+        int length = readVarInt();
+        if (length < 0 || length > limit - position) {
+            throw new IllegalStateException("长度错误: " + length + "，剩余" + (limit - position) + "个字节");
+        }
+        return length;
+    }
+
+    byte readByte() {
+        require(1);
+        return buffer[position++];
+    }
+
+    void readBytes(byte[] bytes, int offset, int length) {
+        require(length);
+        System.arraycopy(buffer, position, bytes, offset, length);
+        position += length;
+    }
+
+    int readVarInt() {
+        int result = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            byte b = readByte();
+            result |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return result;
+            }
+        }
+        throw new IllegalStateException("变长整数格式错误");
+    }
+
+    long readVarLong() {
+        long result = 0;
+        for (int shift = 0; shift < 70; shift += 7) {
+            byte b = readByte();
+            result |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return result;
+            }
+        }
+        throw new IllegalStateException("变长整数格式错误");
+    }
+
+    int readInt() {
+        int value = readVarInt();
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    long readLong() {
+        long value = readVarLong();
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    float readFloat() {
+        return Float.intBitsToFloat(readFixedInt());
+    }
+
+    double readDouble() {
+        long high = readFixedInt();
+        long low = readFixedInt() & 0xFFFFFFFFL;
+        return Double.longBitsToDouble((high << 32) | low);
+    }
+
+    private int readFixedInt() {
+        require(4);
+        int value = ((buffer[position] & 0xFF) << 24) | ((buffer[position + 1] & 0xFF) << 16)
+                | ((buffer[position + 2] & 0xFF) << 8) | (buffer[position + 3] & 0xFF);
+        position += 4;
+        return value;
+    }
+
+    String readString() {
+        int length = readLength();
+        char[] chars = new char[length];
+        for (int i = 0; i < length; i++) {
+            require(1);
+            byte b = buffer[position];
+            if (b >= 0) { // 单字节字符
+                chars[i] = (char) b;
+                position++;
+            } else {
+                chars[i] = (char) readVarInt();
+            }
+        }
+        return new String(chars);
+    }
+
+}
@@ -0,0 +1,144 @@
+package lang.serialize;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * {@link BinarySerializer}使用的可增长输出缓冲区，同时保存一次序列化过程中的引用表和类名表。
+ * 由序列化器池化复用，非线程安全。
+ */
+class BinaryOutput {
+
+    private byte[] buffer;
+    private int position;
+
+    final Map<Object, Integer> references = new IdentityHashMap<Object, Integer>();
+    final Map<Class<?>, Integer> classes = new HashMap<Class<?>, Integer>();
+    boolean trackReferences; // 写入数据头时确定，整个序列化过程不变
+
+    BinaryOutput(int capacity) {
+        buffer = new byte[capacity];
+    }
+
+    /**
+     * 清空内容，以便复用
+     */
+    void reset() {
+        position = 0;
+        references.clear();
+        classes.clear();
+    }
+
+    int size() {
+        return position;
+    }
+
+    int capacity() {
+        return buffer.length;
+    }
+
+    byte[] buffer() {
+        return buffer;
+    }
+
+    byte[] toByteArray() {
+        return Arrays.copyOf(buffer, position);
+    }
+
+    void writeTo(OutputStream out) throws IOException {
+        out.write(buffer, 0, position);
+    }
+
+    private void ensureCapacity(int length) {
+        int required = position + length;
+        if (required > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(required, buffer.length << 1));
+        }
+    }
+
+    void writeByte(int value) {
+        ensureCapacity(1);
+        buffer[position++] = (byte) value;
+    }
+
+    void writeBytes(byte[] bytes, int offset, int length) {
+        ensureCapacity(length);
+        System.arraycopy(bytes, offset, buffer, position, length);
+        position += length;
+    }
+
+    /**
+     * 写无符号变长整数，每个字节7位，小的值占用的字节少
+     */
+    void writeVarInt(int value) {
+        ensureCapacity(5);
+        while ((value & ~0x7F) != 0) {
+            buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buffer[position++] = (byte) value;
+    }
+
+    void writeVarLong(long value) {
+        ensureCapacity(10);
+        while ((value & ~0x7FL) != 0) {
+            buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buffer[position++] = (byte) value;
+    }
+
+    /**
+     * 写有符号整数，使用ZigZag编码使绝对值小的负数也只占用少量字节
+     */
+    void writeInt(int value) {
+        writeVarInt((value << 1) ^ (value >> 31));
+    }
+
+    void writeLong(long value) {
+        writeVarLong((value << 1) ^ (value >> 63));
+    }
+
+    void writeFloat(float value) {
+        writeFixedInt(Float.floatToIntBits(value));
+    }
+
+    void writeDouble(double value) {
+        long bits = Double.doubleToLongBits(value);
+        writeFixedInt((int) (bits >>> 32));
+        writeFixedInt((int) bits);
+    }
+
+    private void writeFixedInt(int value) {
+        ensureCapacity(4);
+        buffer[position++] = (byte) (value >>> 24);
+        buffer[position++] = (byte) (value >>> 16);
+        buffer[position++] = (byte) (value >>> 8);
+        buffer[position++] = (byte) value;
+    }
+
+    /**
+     * 写字符串：字符数 + 每个字符的变长编码，ASCII字符只占一个字节
+     */
+    void writeString(String value) {
+        int length = value.length();
+        writeVarInt(length);
+        ensureCapacity(length);
+        int i = 0;
+        for (; i < length; i++) { // ASCII快速路径
+            char c = value.charAt(i);
+            if (c >= 0x80) {
+                break;
+            }
+            buffer[position++] = (byte) c;
+        }
+        for (; i < length; i++) {
+            writeVarInt(value.charAt(i));
+        }
+    }
+
+}
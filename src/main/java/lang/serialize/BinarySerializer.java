@@ -0,0 +1,878 @@
+package lang.serialize;
+
+import exception.SystemException;
+import lang.SerializationTool;
+
+import java.io.*;
+import java.lang.reflect.Array;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.sql.Timestamp;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 紧凑的二进制序列化器
+ * <p>
+ * 与JDK序列化相比，不需要实现{@link java.io.Serializable}接口，输出更小、速度更快:
+ * <ul>
+ * <li>整数使用变长编码，字符串中的ASCII字符只占一个字节</li>
+ * <li>每个类只解析一次，按字段类型生成专门的读写器，见{@link ClassCodec}</li>
+ * <li>类可以预先注册为整数id，注册的类不再写出类名；未注册的类在同一次序列化中只写一次类名</li>
+ * <li>引用跟踪可以关闭，关闭后不再维护对象的identity表，速度更快，但对象图中不能有循环引用，共享的对象会被复制</li>
+ * <li>输出缓冲区池化复用</li>
+ * </ul>
+ * JDK中的集合与Map按元素序列化，带比较器的集合与Map(有序集合、优先级队列等)、按访问顺序排列的LinkedHashMap、
+ * 其他JDK中的类、以及自定义了JDK序列化行为(writeObject/readResolve等)的类内嵌使用JDK序列化。输出格式不包含字段信息，序列化和反序列化两端的类定义及注册顺序必须一致，
+ * 因此适合深度克隆、缓存和同版本进程间传输，不适合长期存储。
+ * </p>
+ * <p>
+ * 配置(注册类等)应在使用前完成，之后的序列化和反序列化是线程安全的。
+ * </p>
+ * <p>
+ * 反序列化会按流中的类名加载类、不经构造器创建实例并填充字段，对不可信的输入(如来自其他进程的数据)
+ * 必须开启{@link #setRegistrationRequired(boolean) 注册模式}: 此时流中只能出现已注册的类(及其数组)，
+ * 内嵌的JDK序列化数据也只能包含已注册的类，否则抛出SystemException。
+ * 流中的长度和元素个数在分配内存前按剩余的字节数校验，从输入流读取时数据长度受{@link #setMaxStreamLength(int)}限制。
+ * </p>
+ */
+public class BinarySerializer implements Serializer {
+
+    private static final int VERSION = 1;
+    private static final int FLAG_REFERENCES = 1;
+
+    // 类型标记
+    private static final byte NULL = 0;
+    private static final byte REFERENCE = 1;
+    private static final byte TRUE = 2;
+    private static final byte FALSE = 3;
+    private static final byte BYTE = 4;
+    private static final byte SHORT = 5;
+    private static final byte INT = 6;
+    private static final byte LONG = 7;
+    private static final byte FLOAT = 8;
+    private static final byte DOUBLE = 9;
+    private static final byte CHAR = 10;
+    private static final byte STRING = 11;
+    private static final byte ENUM = 12;
+    private static final byte BIG_INTEGER = 13;
+    private static final byte BIG_DECIMAL = 14;
+    private static final byte DATE = 15;
+    private static final byte TIMESTAMP = 16;
+    private static final byte CLASS = 17;
+    private static final byte UUID = 18;
+    private static final byte ARRAY = 19;
+    private static final byte COLLECTION = 20;
+    private static final byte MAP = 21;
+    private static final byte OBJECT = 22;
+    private static final byte JAVA = 23;
+
+    // 类描述: 0-新类名，1-本次序列化中已出现过的类，其他-注册的类id+2
+    private static final int CLASS_NAME = 0;
+    private static final int CLASS_INDEX = 1;
+    private static final int CLASS_ID_OFFSET = 2;
+
+    /**
+     * 内置的注册类，占用id 0~63，用户注册的类id从64开始
+     */
+    private static final Class<?>[] BUILTIN_CLASSES = {
+            int.class, long.class, boolean.class, double.class, float.class, short.class, byte.class, char.class,
+            Object.class, String.class, Integer.class, Long.class, Boolean.class, Double.class, Float.class,
+            Short.class, Byte.class, Character.class, BigDecimal.class, BigInteger.class, Date.class,
+            java.sql.Date.class, java.sql.Time.class, Timestamp.class,
+            ArrayList.class, LinkedList.class, HashSet.class, LinkedHashSet.class, TreeSet.class,
+            HashMap.class, LinkedHashMap.class, TreeMap.class, ConcurrentHashMap.class, ArrayDeque.class,
+            Object[].class, String[].class
+    };
+    private static final int USER_ID_BASE = 64;
+
+    private static final Map<String, Class<?>> PRIMITIVES = new HashMap<String, Class<?>>();
+
+    static {
+        for (Class<?> c : new Class<?>[]{int.class, long.class, boolean.class, double.class, float.class,
+                short.class, byte.class, char.class, void.class}) {
+            PRIMITIVES.put(c.getName(), c);
+        }
+    }
+
+    private static final int POOL_SIZE = 16;
+    private static final int INITIAL_BUFFER_SIZE = 256;
+    private static final int MAX_POOLED_BUFFER_SIZE = 1024 * 1024; // 大于1MB的缓冲区不放回池中
+    private static final int STREAM_READ_CHUNK = 8192;
+
+    private final ConcurrentMap<Class<?>, Integer> classIds = new ConcurrentHashMap<Class<?>, Integer>();
+    private final ConcurrentMap<Integer, Class<?>> idClasses = new ConcurrentHashMap<Integer, Class<?>>();
+    private final ConcurrentMap<String, Class<?>> resolvedClasses = new ConcurrentHashMap<String, Class<?>>();
+    private final ConcurrentMap<String, Class<?>> registeredNames = new ConcurrentHashMap<String, Class<?>>(); // 注册模式下按类名放行
+    private final BlockingQueue<BinaryOutput> outputPool = new ArrayBlockingQueue<BinaryOutput>(POOL_SIZE);
+    private int nextUserId;
+    private volatile boolean referenceTracking = true;
+    private volatile boolean registrationRequired;
+    private volatile ClassLoader classLoader;
+    private volatile int maxStreamLength = 64 * 1024 * 1024;
+
+    /**
+     * 构造器，开启引用跟踪，不要求注册类
+     */
+    public BinarySerializer() {
+        for (int i = 0; i < BUILTIN_CLASSES.length; i++) {
+            classIds.put(BUILTIN_CLASSES[i], i);
+            idClasses.put(i, BUILTIN_CLASSES[i]);
+            registeredNames.put(BUILTIN_CLASSES[i].getName(), BUILTIN_CLASSES[i]);
+        }
+    }
+
+    /**
+     * 按顺序注册类，id由注册顺序决定，序列化和反序列化两端必须以相同的顺序注册
+     *
+     * @param type 类
+     * @return 当前序列化器
+     */
+    public synchronized BinarySerializer register(Class<?> type) {
+        if (classIds.containsKey(type)) {
+            return this;
+        }
+        while (idClasses.containsKey(USER_ID_BASE + nextUserId)) {
+            nextUserId++;
+        }
+        return register(type, nextUserId++);
+    }
+
+    /**
+     * 以指定的id注册类，注册的类序列化时只写出id，不写类名
+     *
+     * @param type 类
+     * @param id   id，不能小于0
+     * @return 当前序列化器
+     * @throws IllegalArgumentException 如果id小于0，或类、id已注册
+     */
+    public synchronized BinarySerializer register(Class<?> type, int id) {
+        if (id < 0) {
+            throw new IllegalArgumentException("id不能小于0: " + id);
+        }
+        int wireId = USER_ID_BASE + id;
+        Integer registeredId = classIds.get(type);
+        if (registeredId != null && registeredId != wireId) {
+            throw new IllegalArgumentException("类[" + type.getName() + "]已注册为其他id!");
+        }
+        Class<?> registered = idClasses.get(wireId);
+        if (registered != null && registered != type) {
+            throw new IllegalArgumentException("id[" + id + "]已被类[" + registered.getName() + "]使用!");
+        }
+        classIds.put(type, wireId);
+        registeredNames.put(type.getName(), type);
+        idClasses.put(wireId, type);
+        return this;
+    }
+
+    public boolean isReferenceTracking() {
+        return referenceTracking;
+    }
+
+    /**
+     * 设置是否开启引用跟踪，默认开启
+     *
+     * @param referenceTracking true: 保持对象图中共享引用和循环引用的结构; false: 更快，但对象图中不能有循环引用
+     */
+    public void setReferenceTracking(boolean referenceTracking) {
+        this.referenceTracking = referenceTracking;
+    }
+
+    public boolean isRegistrationRequired() {
+        return registrationRequired;
+    }
+
+    /**
+     * 设置是否只允许序列化和反序列化已注册的类(内置的常用JDK类除外)，默认不要求。反序列化不可信的输入时必须开启
+     *
+     * @param registrationRequired true: 序列化未注册的类、或反序列化时遇到未注册的类都抛出异常
+     */
+    public void setRegistrationRequired(boolean registrationRequired) {
+        this.registrationRequired = registrationRequired;
+    }
+
+    public int getMaxStreamLength() {
+        return maxStreamLength;
+    }
+
+    /**
+     * 设置从输入流反序列化时单个对象数据的最大字节数，默认64MB。超过时抛出SystemException，不再按流中的长度分配内存
+     *
+     * @param maxStreamLength 最大字节数
+     * @throws IllegalArgumentException 如果小于1
+     */
+    public void setMaxStreamLength(int maxStreamLength) {
+        if (maxStreamLength < 1) {
+            throw new IllegalArgumentException("最大字节数必须大于0: " + maxStreamLength);
+        }
+        this.maxStreamLength = maxStreamLength;
+    }
+
+    public ClassLoader getClassLoader() {
+        return classLoader;
+    }
+
+    /**
+     * 设置反序列化时加载类使用的类加载器，默认使用线程上下文类加载器。
+     * 设置后按类名缓存加载的类
+     *
+     * @param classLoader 类加载器
+     */
+    public void setClassLoader(ClassLoader classLoader) {
+        this.classLoader = classLoader;
+        resolvedClasses.clear();
+    }
+
+    @Override
+    public byte[] serialize(Object obj) {
+        BinaryOutput out = write(obj);
+        try {
+            return out.toByteArray();
+        } finally {
+            release(out);
+        }
+    }
+
+    /**
+     * 将对象序列化到输出流，先写出变长编码的长度，再写出内容，因此同一个流中可以连续写入多个对象
+     */
+    @Override
+    public void serialize(Object obj, OutputStream outputStream) {
+        BinaryOutput out = write(obj);
+        try {
+            int length = out.size();
+            while ((length & ~0x7F) != 0) {
+                outputStream.write((length & 0x7F) | 0x80);
+                length >>>= 7;
+            }
+            outputStream.write(length);
+            out.writeTo(outputStream);
+        } catch (IOException e) {
+            throw new SystemException(e, "写出序列化数据出错！");
+        } finally {
+            release(out);
+        }
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) {
+        return read(bytes, 0, bytes.length);
+    }
+
+    @Override
+    public Object deserialize(InputStream in) {
+        try {
+            long length = 0;
+            for (int shift = 0; ; shift += 7) {
+                int b = in.read();
+                if (b < 0) {
+                    throw new EOFException("读取长度时到达流的末尾");
+                }
+                if (shift > 28) {
+                    throw new SystemException("数据长度格式错误！");
+                }
+                length |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    break;
+                }
+            }
+            if (length > maxStreamLength) {
+                throw new SystemException("数据长度{0}超过上限{1}！", length, maxStreamLength);
+            }
+            // 按实际读到的数据逐步扩大缓冲区，不预先按流中声明的长度分配
+            byte[] bytes = new byte[(int) Math.min(length, STREAM_READ_CHUNK)];
+            int offset = 0;
+            while (offset < length) {
+                if (offset == bytes.length) {
+                    bytes = Arrays.copyOf(bytes, (int) Math.min(length, (long) bytes.length * 2));
+                }
+                int count = in.read(bytes, offset, bytes.length - offset);
+                if (count < 0) {
+                    throw new EOFException("数据不完整，期望" + length + "个字节，实际" + offset + "个字节");
+                }
+                offset += count;
+            }
+            return read(bytes, 0, offset);
+        } catch (IOException e) {
+            throw new SystemException(e, "读取序列化数据出错！");
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T copy(T obj) {
+        BinaryOutput out = write(obj);
+        try {
+            return (T) read(out.buffer(), 0, out.size()); // 直接读取池中的缓冲区，不复制字节
+        } finally {
+            release(out);
+        }
+    }
+
+    private BinaryOutput write(Object obj) {
+        BinaryOutput out = outputPool.poll();
+        if (out == null) {
+            out = new BinaryOutput(INITIAL_BUFFER_SIZE);
+        }
+        boolean tracking = referenceTracking;
+        out.trackReferences = tracking;
+        try {
+            out.writeByte(VERSION << 4 | (tracking ? FLAG_REFERENCES : 0));
+            writeObject(out, obj);
+            return out;
+        } catch (StackOverflowError e) {
+            release(out);
+            throw new SystemException(e, "对象图嵌套过深{0}！", tracking ? "" : "或存在循环引用(引用跟踪已关闭)");
+        } catch (IllegalAccessException e) {
+            release(out);
+            throw new SystemException(e, "序列化对象出错！");
+        } catch (RuntimeException e) {
+            release(out);
+            throw e;
+        }
+    }
+
+    private void release(BinaryOutput out) {
+        if (out.capacity() <= MAX_POOLED_BUFFER_SIZE) {
+            out.reset();
+            outputPool.offer(out);
+        }
+    }
+
+    private Object read(byte[] bytes, int offset, int length) {
+        BinaryInput in = new BinaryInput(bytes, offset, length);
+        try {
+            int header = in.readByte();
+            if (header >>> 4 != VERSION) {
+                throw new SystemException("不支持的序列化数据版本: {0}", header >>> 4);
+            }
+            in.trackReferences = (header & FLAG_REFERENCES) != 0;
+            return readObject(in);
+        } catch (SystemException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new SystemException(e, "反序列化对象出错！");
+        }
+    }
+
+    // ----------------------------------------------------------------------------
+    // 写
+    // ----------------------------------------------------------------------------
+
+    void writeObject(BinaryOutput out, Object obj) throws IllegalAccessException {
+        if (obj == null) {
+            out.writeByte(NULL);
+            return;
+        }
+        Class<?> type = obj.getClass();
+        if (type == String.class) {
+            out.writeByte(STRING);
+            out.writeString((String) obj);
+        } else if (type == Integer.class) {
+            out.writeByte(INT);
+            out.writeInt((Integer) obj);
+        } else if (type == Long.class) {
+            out.writeByte(LONG);
+            out.writeLong((Long) obj);
+        } else if (type == Boolean.class) {
+            out.writeByte((Boolean) obj ? TRUE : FALSE);
+        } else if (type == Double.class) {
+            out.writeByte(DOUBLE);
+            out.writeDouble((Double) obj);
+        } else if (type == Float.class) {
+            out.writeByte(FLOAT);
+            out.writeFloat((Float) obj);
+        } else if (type == Short.class) {
+            out.writeByte(SHORT);
+            out.writeInt((Short) obj);
+        } else if (type == Byte.class) {
+            out.writeByte(BYTE);
+            out.writeByte((Byte) obj);
+        } else if (type == Character.class) {
+            out.writeByte(CHAR);
+            out.writeVarInt((Character) obj);
+        } else if (type == BigDecimal.class) {
+            BigDecimal decimal = (BigDecimal) obj;
+            out.writeByte(BIG_DECIMAL);
+            out.writeInt(decimal.scale());
+            writeByteArray(out, decimal.unscaledValue().toByteArray());
+        } else if (type == BigInteger.class) {
+            out.writeByte(BIG_INTEGER);
+            writeByteArray(out, ((BigInteger) obj).toByteArray());
+        } else if (type == Date.class || type == java.sql.Date.class || type == java.sql.Time.class) {
+            out.writeByte(DATE);
+            writeClass(out, type);
+            out.writeLong(((Date) obj).getTime());
+        } else if (type == Timestamp.class) {
+            out.writeByte(TIMESTAMP);
+            out.writeLong(((Timestamp) obj).getTime());
+            out.writeVarInt(((Timestamp) obj).getNanos());
+        } else if (type == java.util.UUID.class) {
+            out.writeByte(UUID);
+            out.writeLong(((java.util.UUID) obj).getMostSignificantBits());
+            out.writeLong(((java.util.UUID) obj).getLeastSignificantBits());
+        } else if (obj instanceof Class) {
+            out.writeByte(CLASS);
+            writeClass(out, (Class<?>) obj);
+        } else if (obj instanceof Enum) {
+            out.writeByte(ENUM);
+            writeClass(out, ((Enum<?>) obj).getDeclaringClass());
+            out.writeVarInt(((Enum<?>) obj).ordinal());
+        } else if (!writeReference(out, obj)) {
+            if (type.isArray()) {
+                writeArray(out, obj, type.getComponentType());
+            } else {
+                writeComposite(out, obj, type);
+            }
+        }
+    }
+
+    /**
+     * 开启引用跟踪时，已写过的对象只写出引用序号
+     *
+     * @return true: 已写出引用
+     */
+    private boolean writeReference(BinaryOutput out, Object obj) {
+        if (!out.trackReferences) { // 与数据头一致，不读取可能被并发修改的配置
+            return false;
+        }
+        Integer index = out.references.get(obj);
+        if (index != null) {
+            out.writeByte(REFERENCE);
+            out.writeVarInt(index);
+            return true;
+        }
+        out.references.put(obj, out.references.size());
+        return false;
+    }
+
+    private void writeComposite(BinaryOutput out, Object obj, Class<?> type) throws IllegalAccessException {
+        ClassCodec codec = codecFor(type);
+        switch (codec.kind) {
+            case COLLECTION:
+                if (ClassCodec.hasConstructionState(obj)) {
+                    writeJava(out, obj); // 比较器可能不是可序列化的普通对象
+                    return;
+                }
+                Collection<?> collection = (Collection<?>) obj;
+                out.writeByte(COLLECTION);
+                writeClass(out, type);
+                out.writeVarInt(collection.size());
+                for (Object element : collection) {
+                    writeObject(out, element);
+                }
+                return;
+            case MAP:
+                if (ClassCodec.hasConstructionState(obj)) { // 带比较器，或按访问顺序排列的LinkedHashMap
+                    writeJava(out, obj);
+                    return;
+                }
+                Map<?, ?> map = (Map<?, ?>) obj;
+                out.writeByte(MAP);
+                writeClass(out, type);
+                out.writeVarInt(map.size());
+                for (Map.Entry<?, ?> entry : map.entrySet()) {
+                    writeObject(out, entry.getKey());
+                    writeObject(out, entry.getValue());
+                }
+                return;
+            case OBJECT:
+                out.writeByte(OBJECT);
+                writeClass(out, type);
+                codec.writeFields(this, out, obj);
+                return;
+            case JAVA:
+                writeJava(out, obj);
+                return;
+            default:
+                throw new SystemException("类[{0}]不支持序列化！", type.getName());
+        }
+    }
+
+    private void writeJava(BinaryOutput out, Object obj) {
+        if (!(obj instanceof java.io.Serializable)) {
+            throw new SystemException("类[{0}]不支持序列化！", obj.getClass().getName());
+        }
+        if (registrationRequired && !classIds.containsKey(obj.getClass())) {
+            throw new SystemException("类[{0}]未注册！", obj.getClass().getName());
+        }
+        out.writeByte(JAVA);
+        writeByteArray(out, SerializationTool.serialize((java.io.Serializable) obj));
+    }
+
+    private void writeArray(BinaryOutput out, Object array, Class<?> componentType) throws IllegalAccessException {
+        out.writeByte(ARRAY);
+        writeClass(out, componentType);
+        int length = Array.getLength(array);
+        out.writeVarInt(length);
+        if (!componentType.isPrimitive()) {
+            Object[] objects = (Object[]) array;
+            for (Object element : objects) {
+                writeObject(out, element);
+            }
+        } else if (componentType == byte.class) {
+            out.writeBytes((byte[]) array, 0, length);
+        } else if (componentType == int.class) {
+            for (int value : (int[]) array) {
+                out.writeInt(value);
+            }
+        } else if (componentType == long.class) {
+            for (long value : (long[]) array) {
+                out.writeLong(value);
+            }
+        } else if (componentType == double.class) {
+            for (double value : (double[]) array) {
+                out.writeDouble(value);
+            }
+        } else if (componentType == float.class) {
+            for (float value : (float[]) array) {
+                out.writeFloat(value);
+            }
+        } else if (componentType == char.class) {
+            for (char value : (char[]) array) {
+                out.writeVarInt(value);
+            }
+        } else if (componentType == short.class) {
+            for (short value : (short[]) array) {
+                out.writeInt(value);
+            }
+        } else { // boolean
+            for (boolean value : (boolean[]) array) {
+                out.writeByte(value ? 1 : 0);
+            }
+        }
+    }
+
+    private void writeByteArray(BinaryOutput out, byte[] bytes) {
+        out.writeVarInt(bytes.length);
+        out.writeBytes(bytes, 0, bytes.length);
+    }
+
+    private void writeClass(BinaryOutput out, Class<?> type) {
+        Integer id = classIds.get(type);
+        if (id != null) {
+            out.writeVarInt(id + CLASS_ID_OFFSET);
+            return;
+        }
+        Integer index = out.classes.get(type);
+        if (index != null) {
+            out.writeVarInt(CLASS_INDEX);
+            out.writeVarInt(index);
+            return;
+        }
+        if (registrationRequired && !type.isArray()) {
+            throw new SystemException("类[{0}]未注册！", type.getName());
+        }
+        out.writeVarInt(CLASS_NAME);
+        out.writeString(type.getName());
+        out.classes.put(type, out.classes.size());
+    }
+
+    // ----------------------------------------------------------------------------
+    // 读
+    // ----------------------------------------------------------------------------
+
+    Object readObject(BinaryInput in) throws IllegalAccessException {
+        byte tag = in.readByte();
+        switch (tag) {
+            case NULL:
+                return null;
+            case REFERENCE:
+                return in.references.get(in.readVarInt());
+            case TRUE:
+                return Boolean.TRUE;
+            case FALSE:
+                return Boolean.FALSE;
+            case BYTE:
+                return in.readByte();
+            case SHORT:
+                return (short) in.readInt();
+            case INT:
+                return in.readInt();
+            case LONG:
+                return in.readLong();
+            case FLOAT:
+                return in.readFloat();
+            case DOUBLE:
+                return in.readDouble();
+            case CHAR:
+                return (char) in.readVarInt();
+            case STRING:
+                return in.readString();
+            case ENUM:
+                return codecFor(readClass(in)).enumConstant(in.readVarInt());
+            case BIG_INTEGER:
+                return new BigInteger(readByteArray(in));
+            case BIG_DECIMAL:
+                int scale = in.readInt();
+                return new BigDecimal(new BigInteger(readByteArray(in)), scale);
+            case DATE:
+                Class<?> dateType = readClass(in);
+                long time = in.readLong();
+                if (dateType == java.sql.Date.class) {
+                    return new java.sql.Date(time);
+                }
+                return dateType == java.sql.Time.class ? new java.sql.Time(time) : new Date(time);
+            case TIMESTAMP:
+                Timestamp timestamp = new Timestamp(in.readLong());
+                timestamp.setNanos(in.readVarInt());
+                return timestamp;
+            case CLASS:
+                return readClass(in);
+            case UUID:
+                return new java.util.UUID(in.readLong(), in.readLong());
+            case ARRAY:
+                return readArray(in);
+            case COLLECTION:
+                return readCollection(in);
+            case MAP:
+                return readMap(in);
+            case OBJECT:
+                ClassCodec codec = codecFor(readClass(in));
+                Object obj = codec.newInstance();
+                addReference(in, obj);
+                codec.readFields(this, in, obj);
+                return obj;
+            case JAVA:
+                byte[] bytes = readByteArray(in);
+                Object deserialized = registrationRequired ? deserializeRegistered(bytes)
+                        : SerializationTool.deserialize(bytes);
+                addReference(in, deserialized);
+                return deserialized;
+            default:
+                throw new SystemException("未知的类型标记: {0}", tag);
+        }
+    }
+
+    private void addReference(BinaryInput in, Object obj) {
+        if (in.trackReferences) {
+            in.references.add(obj);
+        }
+    }
+
+    private Object readCollection(BinaryInput in) throws IllegalAccessException {
+        ClassCodec codec = codecFor(readClass(in));
+        int size = in.readLength();
+        Collection<Object> collection = codec.newCollection(size);
+        int index = reserveReference(in, collection);
+        for (int i = 0; i < size; i++) {
+            collection.add(readObject(in));
+        }
+        return completeReference(in, index, codec, collection);
+    }
+
+    private Object readMap(BinaryInput in) throws IllegalAccessException {
+        ClassCodec codec = codecFor(readClass(in));
+        int size = in.readLength();
+        Map<Object, Object> map = codec.newMap(size);
+        int index = reserveReference(in, map);
+        for (int i = 0; i < size; i++) {
+            Object key = readObject(in);
+            map.put(key, readObject(in));
+        }
+        return completeReference(in, index, codec, map);
+    }
+
+    /**
+     * 先占用引用序号，包装集合在元素读完后才能创建，其元素中对该集合自身的引用将指向内部的可修改集合
+     */
+    private int reserveReference(BinaryInput in, Object obj) {
+        if (!in.trackReferences) {
+            return -1;
+        }
+        in.references.add(obj);
+        return in.references.size() - 1;
+    }
+
+    private Object completeReference(BinaryInput in, int index, ClassCodec codec, Object filled) {
+        if (!codec.wrapped) {
+            return filled;
+        }
+        Object wrapped = codec.wrap(filled);
+        if (index >= 0) {
+            in.references.set(index, wrapped);
+        }
+        return wrapped;
+    }
+
+    private Object readArray(BinaryInput in) throws IllegalAccessException {
+        Class<?> componentType = readClass(in);
+        int length = in.readLength();
+        Object array = Array.newInstance(componentType, length);
+        addReference(in, array);
+        if (!componentType.isPrimitive()) {
+            Object[] objects = (Object[]) array;
+            for (int i = 0; i < length; i++) {
+                objects[i] = readObject(in);
+            }
+        } else if (componentType == byte.class) {
+            in.readBytes((byte[]) array, 0, length);
+        } else if (componentType == int.class) {
+            int[] values = (int[]) array;
+            for (int i = 0; i < length; i++) {
+                values[i] = in.readInt();
+            }
+        } else if (componentType == long.class) {
+            long[] values = (long[]) array;
+            for (int i = 0; i < length; i++) {
+                values[i] = in.readLong();
+            }
+        } else if (componentType == double.class) {
+            double[] values = (double[]) array;
+            for (int i = 0; i < length; i++) {
+                values[i] = in.readDouble();
+            }
+        } else if (componentType == float.class) {
+            float[] values = (float[]) array;
+            for (int i = 0; i < length; i++) {
+                values[i] = in.readFloat();
+            }
+        } else if (componentType == char.class) {
+            char[] values = (char[]) array;
+            for (int i = 0; i < length; i++) {
+                values[i] = (char) in.readVarInt();
+            }
+        } else if (componentType == short.class) {
+            short[] values = (short[]) array;
+            for (int i = 0; i < length; i++) {
+                values[i] = (short) in.readInt();
+            }
+        } else {
+            boolean[] values = (boolean[]) array;
+            for (int i = 0; i < length; i++) {
+                values[i] = in.readByte() != 0;
+            }
+        }
+        return array;
+    }
+
+    private byte[] readByteArray(BinaryInput in) {
+        byte[] bytes = new byte[in.readLength()];
+        in.readBytes(bytes, 0, bytes.length);
+        return bytes;
+    }
+
+    private Class<?> readClass(BinaryInput in) {
+        int value = in.readVarInt();
+        if (value == CLASS_INDEX) {
+            return in.classes.get(in.readVarInt());
+        }
+        if (value != CLASS_NAME) {
+            Class<?> type = idClasses.get(value - CLASS_ID_OFFSET);
+            if (type == null) {
+                throw new SystemException("未注册的类id: {0}", value - CLASS_ID_OFFSET - USER_ID_BASE);
+            }
+            return type;
+        }
+        String name = in.readString();
+        if (registrationRequired && !name.startsWith("[")) { // 写入时只有数组类型可以不注册
+            throw new SystemException("类[{0}]未注册，拒绝反序列化！", name);
+        }
+        Class<?> type = resolveClass(name);
+        if (registrationRequired && !isRegistered(type)) {
+            throw new SystemException("类[{0}]未注册，拒绝反序列化！", name);
+        }
+        in.classes.add(type);
+        return type;
+    }
+
+    /**
+     * 是否为已注册的类、基本类型，或元素为这些类型的数组
+     */
+    private boolean isRegistered(Class<?> type) {
+        while (type.isArray()) {
+            type = type.getComponentType();
+        }
+        return type.isPrimitive() || classIds.containsKey(type);
+    }
+
+    /**
+     * 注册模式下反序列化内嵌的JDK序列化数据，只允许已注册的类(及其父类)
+     */
+    private Object deserializeRegistered(byte[] bytes) {
+        ObjectInputStream in = null;
+        try {
+            in = new RegisteredObjectInputStream(new ByteArrayInputStream(bytes));
+            return in.readObject();
+        } catch (ClassNotFoundException e) {
+            throw new SystemException(e, "JDK反序列化出错！");
+        } catch (IOException e) {
+            throw new SystemException(e, "JDK反序列化出错！");
+        } finally {
+            if (in != null) {
+                try {
+                    in.close();
+                } catch (IOException e) {
+                    // 内存流，忽略
+                }
+            }
+        }
+    }
+
+    private Class<?> resolveClass(String name) {
+        Class<?> type = PRIMITIVES.get(name);
+        if (type != null) {
+            return type;
+        }
+        try {
+            ClassLoader loader = classLoader;
+            if (loader != null) {
+                type = resolvedClasses.get(name);
+                if (type == null) {
+                    type = Class.forName(name, false, loader);
+                    resolvedClasses.put(name, type);
+                }
+                return type;
+            }
+            loader = Thread.currentThread().getContextClassLoader();
+            return Class.forName(name, false, loader != null ? loader : BinarySerializer.class.getClassLoader());
+        } catch (ClassNotFoundException e) {
+            throw new SystemException(e, "找不到类[{0}]！", name);
+        }
+    }
+
+    private static ClassCodec codecFor(Class<?> type) {
+        return ClassCodec.forClass(type);
+    }
+
+    /**
+     * 只解析已注册的类的对象输入流。父类的描述在子类之后解析，因此已放行的类的父类也放行
+     */
+    private class RegisteredObjectInputStream extends ObjectInputStream {
+
+        private final Map<String, Class<?>> allowedSuperclasses = new HashMap<String, Class<?>>();
+
+        private RegisteredObjectInputStream(InputStream in) throws IOException {
+            super(in);
+        }
+
+        @Override
+        protected Class<?> resolveClass(ObjectStreamClass desc) throws IOException, ClassNotFoundException {
+            String name = desc.getName();
+            Class<?> type = PRIMITIVES.get(name); // 先按类名查找，未放行的类不会被加载
+            if (type == null) {
+                type = registeredNames.get(name);
+            }
+            if (type == null) {
+                type = allowedSuperclasses.get(name);
+            }
+            if (type == null && name.startsWith("[")) {
+                type = BinarySerializer.this.resolveClass(name);
+                if (!isRegistered(type)) {
+                    type = null;
+                }
+            }
+            if (type == null) {
+                throw new InvalidClassException(name, "未注册，拒绝反序列化");
+            }
+            for (Class<?> c = type.getSuperclass(); c != null; c = c.getSuperclass()) {
+                allowedSuperclasses.put(c.getName(), c);
+            }
+            return type;
+        }
+    }
+
+}
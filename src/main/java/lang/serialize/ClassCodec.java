@@ -0,0 +1,504 @@
+package lang.serialize;
+
+import exception.SystemException;
+
+import java.io.Externalizable;
+import java.io.Serializable;
+import java.lang.reflect.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.PriorityBlockingQueue;
+
+/**
+ * 一个类的序列化元数据，每个类只解析一次，{@link BinarySerializer}和{@link DeepCloner}共用
+ * <p>
+ * 对于普通的类，预先收集类层次中所有非static、非transient的字段并按(声明类由父到子, 字段名)排序，
+ * 每个字段按其类型生成专门的读写器，基本类型字段不经过装箱直接读写。
+ * 没有无参构造器的类通过sun.misc.Unsafe创建实例(不调用构造器，与JDK反序列化的行为一致)。
+ * </p>
+ */
+class ClassCodec {
+
+    /**
+     * 类的序列化方式
+     */
+    enum Kind {
+        ENUM, // 按序号
+        COLLECTION, // JDK中有公共无参构造器的Collection，逐个写元素
+        MAP, // JDK中有公共无参构造器的Map，逐个写键值
+        OBJECT, // 逐个写字段
+        JAVA, // 使用JDK序列化
+        UNSUPPORTED
+    }
+
+    // Arrays/Collections中常用的包装集合，没有公共构造器，反序列化时先读到普通集合再包装
+    private static final int NOT_WRAPPED = 0;
+    private static final int ARRAYS_AS_LIST = 1;
+    private static final int UNMODIFIABLE_LIST = 2;
+    private static final int UNMODIFIABLE_SET = 3;
+    private static final int UNMODIFIABLE_COLLECTION = 4;
+    private static final int UNMODIFIABLE_MAP = 5;
+    private static final int SINGLETON_LIST = 6;
+    private static final int SINGLETON_SET = 7;
+    private static final int SINGLETON_MAP = 8;
+    private static final int EMPTY_LIST = 9;
+    private static final int EMPTY_SET = 10;
+    private static final int EMPTY_MAP = 11;
+    private static final Map<Class<?>, Integer> WRAPPERS = new HashMap<Class<?>, Integer>();
+
+    private static final Object unsafe;
+    private static final Method allocateInstance;
+    private static final Method getBoolean; // Unsafe.getBoolean(Object, long)
+    private static final long accessOrderOffset; // LinkedHashMap.accessOrder字段的偏移量，不可用时为-1
+
+    static {
+        WRAPPERS.put(Arrays.asList().getClass(), ARRAYS_AS_LIST);
+        WRAPPERS.put(Collections.unmodifiableList(new ArrayList<Object>()).getClass(), UNMODIFIABLE_LIST);
+        WRAPPERS.put(Collections.unmodifiableList(new LinkedList<Object>()).getClass(), UNMODIFIABLE_LIST);
+        WRAPPERS.put(Collections.unmodifiableSet(new HashSet<Object>()).getClass(), UNMODIFIABLE_SET);
+        WRAPPERS.put(Collections.unmodifiableCollection(new ArrayList<Object>()).getClass(), UNMODIFIABLE_COLLECTION);
+        WRAPPERS.put(Collections.unmodifiableMap(new HashMap<Object, Object>()).getClass(), UNMODIFIABLE_MAP);
+        WRAPPERS.put(Collections.singletonList(null).getClass(), SINGLETON_LIST);
+        WRAPPERS.put(Collections.singleton(null).getClass(), SINGLETON_SET);
+        WRAPPERS.put(Collections.singletonMap(null, null).getClass(), SINGLETON_MAP);
+        WRAPPERS.put(Collections.emptyList().getClass(), EMPTY_LIST);
+        WRAPPERS.put(Collections.emptySet().getClass(), EMPTY_SET);
+        WRAPPERS.put(Collections.emptyMap().getClass(), EMPTY_MAP);
+    }
+
+    static {
+        Object theUnsafe = null;
+        Method allocate = null;
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Field field = unsafeClass.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            theUnsafe = field.get(null);
+            allocate = unsafeClass.getMethod("allocateInstance", Class.class);
+        } catch (Throwable e) {
+            // 不可用时只支持有无参构造器的类
+        }
+        unsafe = theUnsafe;
+        allocateInstance = allocate;
+
+        Method getBooleanMethod = null;
+        long offset = -1;
+        try { // 不通过setAccessible读取，java.util未开放反射访问时也可用
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Field accessOrder = LinkedHashMap.class.getDeclaredField("accessOrder");
+            offset = (Long) unsafeClass.getMethod("objectFieldOffset", Field.class).invoke(theUnsafe, accessOrder);
+            getBooleanMethod = unsafeClass.getMethod("getBoolean", Object.class, long.class);
+        } catch (Throwable e) {
+            offset = -1;
+        }
+        getBoolean = getBooleanMethod;
+        accessOrderOffset = offset;
+    }
+
+    private static final ConcurrentMap<Class<?>, ClassCodec> codecs = new ConcurrentHashMap<Class<?>, ClassCodec>();
+
+    final Class<?> type;
+    final Kind kind;
+    final boolean wrapped; // Arrays/Collections中的包装集合
+    private final int wrapper;
+    private final Constructor<?> constructor;
+    private final FieldCodec[] fields;
+    private final Object[] enumConstants;
+
+    ClassCodec(Class<?> type) {
+        this.type = type;
+        Integer wrapperType = WRAPPERS.get(type);
+        this.wrapper = wrapperType == null ? NOT_WRAPPED : wrapperType;
+        this.wrapped = wrapper != NOT_WRAPPED;
+        this.kind = wrapped ? (Map.class.isAssignableFrom(type) ? Kind.MAP : Kind.COLLECTION) : kindOf(type);
+        this.enumConstants = kind == Kind.ENUM ? type.getEnumConstants() : null;
+        this.fields = kind == Kind.OBJECT ? compileFields(type) : null;
+        Constructor<?> noArg = null;
+        if (!wrapped && (kind == Kind.COLLECTION || kind == Kind.MAP || kind == Kind.OBJECT)) {
+            try {
+                noArg = type.getDeclaredConstructor();
+                noArg.setAccessible(true);
+            } catch (NoSuchMethodException e) {
+                if (kind != Kind.OBJECT || allocateInstance == null) {
+                    throw new SystemException(e, "类[{0}]没有无参构造器，无法创建实例！", type.getName());
+                }
+            }
+        }
+        this.constructor = noArg;
+    }
+
+    /**
+     * 取得类的元数据，每个类只解析一次
+     */
+    static ClassCodec forClass(Class<?> type) {
+        ClassCodec codec = codecs.get(type);
+        if (codec == null) {
+            codec = new ClassCodec(type);
+            ClassCodec existing = codecs.putIfAbsent(type, codec);
+            if (existing != null) {
+                codec = existing;
+            }
+        }
+        return codec;
+    }
+
+    private static Kind kindOf(Class<?> type) {
+        if (type.isEnum()) {
+            return Kind.ENUM;
+        }
+        boolean serializable = Serializable.class.isAssignableFrom(type);
+        if (isJdkClass(type)) {
+            if (Modifier.isPublic(type.getModifiers()) && hasPublicNoArgConstructor(type)) {
+                if (Collection.class.isAssignableFrom(type)) {
+                    return Kind.COLLECTION;
+                }
+                if (Map.class.isAssignableFrom(type)) {
+                    return Kind.MAP;
+                }
+            }
+            return serializable ? Kind.JAVA : Kind.UNSUPPORTED;
+        }
+        if (serializable && hasCustomSerialization(type)) {
+            return Kind.JAVA;
+        }
+        Class<?> superclass = type.getSuperclass();
+        while (superclass != null && !isJdkClass(superclass)) {
+            superclass = superclass.getSuperclass();
+        }
+        if (superclass != null && superclass != Object.class) { // 继承了JDK中的类，其状态无法通过字段访问
+            return serializable ? Kind.JAVA : Kind.UNSUPPORTED;
+        }
+        return Kind.OBJECT;
+    }
+
+    static boolean isJdkClass(Class<?> type) {
+        String name = type.getName();
+        return name.startsWith("java.") || name.startsWith("javax.") || name.startsWith("sun.")
+                || name.startsWith("com.sun.") || name.startsWith("jdk.");
+    }
+
+    /**
+     * 集合或Map的比较器(有序集合、有序Map、优先级队列)
+     *
+     * @return 比较器，按自然顺序或不是这些类型时返回null
+     */
+    static Comparator<?> comparatorOf(Object obj) {
+        if (obj instanceof SortedSet) {
+            return ((SortedSet<?>) obj).comparator();
+        }
+        if (obj instanceof SortedMap) {
+            return ((SortedMap<?, ?>) obj).comparator();
+        }
+        if (obj instanceof PriorityQueue) {
+            return ((PriorityQueue<?>) obj).comparator();
+        }
+        if (obj instanceof PriorityBlockingQueue) {
+            return ((PriorityBlockingQueue<?>) obj).comparator();
+        }
+        return null;
+    }
+
+    /**
+     * LinkedHashMap是否按访问顺序排列(LRU)
+     *
+     * @return true/false，无法读取时返回null
+     */
+    static Boolean accessOrderOf(LinkedHashMap<?, ?> map) {
+        if (accessOrderOffset < 0) {
+            return null;
+        }
+        try {
+            return (Boolean) getBoolean.invoke(unsafe, map, accessOrderOffset);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    /**
+     * 集合或Map是否有不能通过无参构造器和逐个添加元素重建的构造参数(比较器、访问顺序)
+     */
+    static boolean hasConstructionState(Object obj) {
+        if (comparatorOf(obj) != null) {
+            return true;
+        }
+        return obj instanceof LinkedHashMap && !Boolean.FALSE.equals(accessOrderOf((LinkedHashMap<?, ?>) obj));
+    }
+
+    private static boolean hasPublicNoArgConstructor(Class<?> type) {
+        try {
+            type.getConstructor();
+            return true;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    /**
+     * 是否自定义了JDK序列化的行为，这样的类只能使用JDK序列化才能保证语义
+     */
+    private static boolean hasCustomSerialization(Class<?> type) {
+        if (Externalizable.class.isAssignableFrom(type)) {
+            return true;
+        }
+        for (Class<?> c = type; c != null && !isJdkClass(c); c = c.getSuperclass()) {
+            for (Method method : c.getDeclaredMethods()) {
+                String name = method.getName();
+                if ("writeObject".equals(name) || "readObject".equals(name) || "writeReplace".equals(name)
+                        || "readResolve".equals(name)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static FieldCodec[] compileFields(Class<?> type) {
+        LinkedList<Class<?>> hierarchy = new LinkedList<Class<?>>();
+        for (Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass()) {
+            hierarchy.addFirst(c);
+        }
+        List<FieldCodec> codecs = new ArrayList<FieldCodec>();
+        for (Class<?> c : hierarchy) {
+            Field[] declared = c.getDeclaredFields();
+            Arrays.sort(declared, new Comparator<Field>() {
+                @Override
+                public int compare(Field f1, Field f2) {
+                    return f1.getName().compareTo(f2.getName());
+                }
+            });
+            for (Field field : declared) {
+                int modifiers = field.getModifiers();
+                if (Modifier.isStatic(modifiers) || Modifier.isTransient(modifiers)) {
+                    continue;
+                }
+                field.setAccessible(true);
+                codecs.add(new FieldCodec(field));
+            }
+        }
+        return codecs.toArray(new FieldCodec[codecs.size()]);
+    }
+
+    Object enumConstant(int ordinal) {
+        return enumConstants[ordinal];
+    }
+
+    /**
+     * 创建用于装入元素的集合，包装集合先装入可修改的集合，全部装入后再调用{@link #wrap}
+     */
+    @SuppressWarnings("unchecked")
+    Collection<Object> newCollection(int size) {
+        if (type == ArrayList.class || wrapper == ARRAYS_AS_LIST || wrapper == UNMODIFIABLE_LIST
+                || wrapper == UNMODIFIABLE_COLLECTION || wrapper == SINGLETON_LIST || wrapper == EMPTY_LIST) {
+            return new ArrayList<Object>(size);
+        }
+        if (wrapped) {
+            return new LinkedHashSet<Object>(size * 4 / 3 + 1);
+        }
+        return (Collection<Object>) newInstance();
+    }
+
+    @SuppressWarnings("unchecked")
+    Map<Object, Object> newMap(int size) {
+        if (type == HashMap.class) {
+            return new HashMap<Object, Object>(size * 4 / 3 + 1);
+        }
+        if (wrapped) {
+            return new LinkedHashMap<Object, Object>(size * 4 / 3 + 1);
+        }
+        return (Map<Object, Object>) newInstance();
+    }
+
+    /**
+     * 将装入了全部元素的集合包装为本类的实例，不是包装集合时原样返回
+     */
+    @SuppressWarnings("unchecked")
+    Object wrap(Object filled) {
+        switch (wrapper) {
+            case ARRAYS_AS_LIST:
+                return Arrays.asList(((List<Object>) filled).toArray());
+            case UNMODIFIABLE_LIST:
+                return Collections.unmodifiableList((List<Object>) filled);
+            case UNMODIFIABLE_SET:
+                return Collections.unmodifiableSet((Set<Object>) filled);
+            case UNMODIFIABLE_COLLECTION:
+                return Collections.unmodifiableCollection((Collection<Object>) filled);
+            case UNMODIFIABLE_MAP:
+                return Collections.unmodifiableMap((Map<Object, Object>) filled);
+            case SINGLETON_LIST:
+                return Collections.singletonList(((List<Object>) filled).get(0));
+            case SINGLETON_SET:
+                return Collections.singleton(((Set<Object>) filled).iterator().next());
+            case SINGLETON_MAP:
+                Map.Entry<Object, Object> entry = ((Map<Object, Object>) filled).entrySet().iterator().next();
+                return Collections.singletonMap(entry.getKey(), entry.getValue());
+            case EMPTY_LIST:
+                return Collections.emptyList();
+            case EMPTY_SET:
+                return Collections.emptySet();
+            case EMPTY_MAP:
+                return Collections.emptyMap();
+            default:
+                return filled;
+        }
+    }
+
+    /**
+     * 创建实例，有无参构造器时调用构造器，否则不调用任何构造器
+     */
+    Object newInstance() {
+        try {
+            if (constructor != null) {
+                return constructor.newInstance();
+            }
+            return allocateInstance.invoke(unsafe, type);
+        } catch (Exception e) {
+            throw new SystemException(e, "创建类[{0}]的实例出错！", type.getName());
+        }
+    }
+
+    void writeFields(BinarySerializer serializer, BinaryOutput out, Object obj) throws IllegalAccessException {
+        for (FieldCodec field : fields) {
+            field.write(serializer, out, obj);
+        }
+    }
+
+    void readFields(BinarySerializer serializer, BinaryInput in, Object obj) throws IllegalAccessException {
+        for (FieldCodec field : fields) {
+            field.read(serializer, in, obj);
+        }
+    }
+
+    void copyFields(Object source, Object target, Map<Object, Object> copies) throws IllegalAccessException {
+        for (FieldCodec field : fields) {
+            field.copy(source, target, copies);
+        }
+    }
+
+    /**
+     * 一个字段的读写器，基本类型字段使用对应的getXxx/setXxx方法，避免装箱
+     */
+    private static class FieldCodec {
+
+        private final Field field;
+        private final char type; // 基本类型的描述符，引用类型为'L'
+
+        private FieldCodec(Field field) {
+            this.field = field;
+            Class<?> fieldType = field.getType();
+            if (fieldType == int.class) {
+                type = 'I';
+            } else if (fieldType == long.class) {
+                type = 'J';
+            } else if (fieldType == boolean.class) {
+                type = 'Z';
+            } else if (fieldType == double.class) {
+                type = 'D';
+            } else if (fieldType == float.class) {
+                type = 'F';
+            } else if (fieldType == short.class) {
+                type = 'S';
+            } else if (fieldType == byte.class) {
+                type = 'B';
+            } else if (fieldType == char.class) {
+                type = 'C';
+            } else {
+                type = 'L';
+            }
+        }
+
+        private void write(BinarySerializer serializer, BinaryOutput out, Object obj) throws IllegalAccessException {
+            switch (type) {
+                case 'I':
+                    out.writeInt(field.getInt(obj));
+                    break;
+                case 'J':
+                    out.writeLong(field.getLong(obj));
+                    break;
+                case 'Z':
+                    out.writeByte(field.getBoolean(obj) ? 1 : 0);
+                    break;
+                case 'D':
+                    out.writeDouble(field.getDouble(obj));
+                    break;
+                case 'F':
+                    out.writeFloat(field.getFloat(obj));
+                    break;
+                case 'S':
+                    out.writeInt(field.getShort(obj));
+                    break;
+                case 'B':
+                    out.writeByte(field.getByte(obj));
+                    break;
+                case 'C':
+                    out.writeVarInt(field.getChar(obj));
+                    break;
+                default:
+                    serializer.writeObject(out, field.get(obj));
+            }
+        }
+
+        private void copy(Object source, Object target, Map<Object, Object> copies) throws IllegalAccessException {
+            switch (type) {
+                case 'I':
+                    field.setInt(target, field.getInt(source));
+                    break;
+                case 'J':
+                    field.setLong(target, field.getLong(source));
+                    break;
+                case 'Z':
+                    field.setBoolean(target, field.getBoolean(source));
+                    break;
+                case 'D':
+                    field.setDouble(target, field.getDouble(source));
+                    break;
+                case 'F':
+                    field.setFloat(target, field.getFloat(source));
+                    break;
+                case 'S':
+                    field.setShort(target, field.getShort(source));
+                    break;
+                case 'B':
+                    field.setByte(target, field.getByte(source));
+                    break;
+                case 'C':
+                    field.setChar(target, field.getChar(source));
+                    break;
+                default:
+                    field.set(target, DeepCloner.copy(field.get(source), copies));
+            }
+        }
+
+        private void read(BinarySerializer serializer, BinaryInput in, Object obj) throws IllegalAccessException {
+            switch (type) {
+                case 'I':
+                    field.setInt(obj, in.readInt());
+                    break;
+                case 'J':
+                    field.setLong(obj, in.readLong());
+                    break;
+                case 'Z':
+                    field.setBoolean(obj, in.readByte() != 0);
+                    break;
+                case 'D':
+                    field.setDouble(obj, in.readDouble());
+                    break;
+                case 'F':
+                    field.setFloat(obj, in.readFloat());
+                    break;
+                case 'S':
+                    field.setShort(obj, (short) in.readInt());
+                    break;
+                case 'B':
+                    field.setByte(obj, in.readByte());
+                    break;
+                case 'C':
+                    field.setChar(obj, (char) in.readVarInt());
+                    break;
+                default:
+                    field.set(obj, serializer.readObject(in));
+            }
+        }
+    }
+
+}
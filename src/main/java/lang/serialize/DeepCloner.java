@@ -0,0 +1,240 @@
+package lang.serialize;
+
+import exception.SystemException;
+import lang.SerializationTool;
+
+import java.io.File;
+import java.io.Serializable;
+import java.lang.reflect.Array;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.net.URI;
+import java.net.URL;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.regex.Pattern;
+
+/**
+ * 对象图的深度复制
+ * <p>
+ * 不经过序列化，直接按字段复制对象，对象不需要实现{@link Serializable}接口，也不需要无参构造器。
+ * 每个类的字段只解析一次(与{@link BinarySerializer}共用{@link ClassCodec})，基本类型字段不经过装箱直接复制。
+ * 对象图中的共享引用和循环引用通过identity表保持原有的结构；
+ * 不可变类型(String、基本类型的包装类、BigDecimal、BigInteger、枚举等)直接共享，不复制。
+ * JDK中的集合与Map按元素复制并保留比较器和LinkedHashMap的访问顺序，Date按clone复制，
+ * 其他JDK中的类、以及自定义了JDK序列化行为的类仍使用JDK序列化复制。
+ * 用作锁或标记的Object实例复制为新的Object，不与原对象共享。
+ * 线程安全。
+ * </p>
+ */
+public class DeepCloner {
+
+    private static final Set<Class<?>> immutableTypes = Collections.newSetFromMap(
+            new ConcurrentHashMap<Class<?>, Boolean>());
+
+    static {
+        Collections.addAll(immutableTypes, String.class, Integer.class, Long.class, Boolean.class, Double.class,
+                Float.class, Short.class, Byte.class, Character.class, BigDecimal.class, BigInteger.class,
+                UUID.class, Locale.class, Currency.class, URI.class, URL.class, File.class, Pattern.class,
+                Class.class);
+    }
+
+    private DeepCloner() {
+    }
+
+    /**
+     * 注册不可变类型，不可变类型的对象在复制时直接共享
+     *
+     * @param type 不可变类型，注册的是确切的类型，不包括其子类
+     */
+    public static void registerImmutable(Class<?> type) {
+        immutableTypes.add(type);
+    }
+
+    /**
+     * 深度复制对象
+     *
+     * @param obj 要复制的对象，可以为null
+     * @param <T> 对象的类型
+     * @return 复制后的对象
+     * @throws SystemException 如果对象图中有不能复制的对象(非Serializable的JDK类，或继承自这样的类)
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> T clone(T obj) {
+        return (T) copy(obj, new IdentityHashMap<Object, Object>());
+    }
+
+    /**
+     * 复制对象，已复制过的对象直接返回其复制品
+     *
+     * @param obj    要复制的对象
+     * @param copies Map<原对象, 复制品>
+     * @return 复制品
+     */
+    static Object copy(Object obj, Map<Object, Object> copies) {
+        if (obj == null) {
+            return null;
+        }
+        Class<?> type = obj.getClass();
+        if (immutableTypes.contains(type) || obj instanceof Enum) {
+            return obj;
+        }
+        Object copy = copies.get(obj);
+        if (copy != null) {
+            return copy;
+        }
+        try {
+            if (type.isArray()) {
+                return copyArray(obj, type.getComponentType(), copies);
+            }
+            if (type == Object.class) { // 锁、标记等，对象图内的共享关系由identity表保持
+                copy = new Object();
+                copies.put(obj, copy);
+                return copy;
+            }
+            if (obj instanceof Date && ClassCodec.isJdkClass(type)) { // 包括java.sql中的子类，clone保留纳秒等全部状态
+                copy = ((Date) obj).clone();
+                copies.put(obj, copy);
+                return copy;
+            }
+            ClassCodec codec = ClassCodec.forClass(type);
+            switch (codec.kind) {
+                case ENUM:
+                    return obj;
+                case COLLECTION:
+                    Comparator<?> comparator = ClassCodec.comparatorOf(obj);
+                    if (comparator != null) {
+                        return copyOrdered((Collection<?>) obj, comparator, copies);
+                    }
+                    return copyCollection(codec, (Collection<?>) obj, copies);
+                case MAP:
+                    if (obj instanceof SortedMap && ((SortedMap<?, ?>) obj).comparator() != null) {
+                        return copySortedMap((SortedMap<?, ?>) obj, copies);
+                    }
+                    if (type == LinkedHashMap.class) {
+                        Boolean accessOrder = ClassCodec.accessOrderOf((LinkedHashMap<?, ?>) obj);
+                        if (accessOrder == null) { // 无法判断时保留原有的状态
+                            return copyBySerialization(obj, copies);
+                        }
+                        if (accessOrder) {
+                            Map<?, ?> lru = (Map<?, ?>) obj;
+                            return copyEntries(lru, new LinkedHashMap<Object, Object>(lru.size() * 4 / 3 + 1, 0.75f, true),
+                                    copies);
+                        }
+                    }
+                    return copyMap(codec, (Map<?, ?>) obj, copies);
+                case OBJECT:
+                    copy = codec.newInstance();
+                    copies.put(obj, copy);
+                    codec.copyFields(obj, copy, copies);
+                    return copy;
+                case JAVA:
+                    copy = SerializationTool.clone((Serializable) obj);
+                    copies.put(obj, copy);
+                    return copy;
+                default:
+                    throw new SystemException("类[{0}]不支持深度复制！", type.getName());
+            }
+        } catch (IllegalAccessException e) {
+            throw new SystemException(e, "复制类[{0}]的对象出错！", type.getName());
+        }
+    }
+
+    private static Object copyArray(Object array, Class<?> componentType, Map<Object, Object> copies) {
+        int length = Array.getLength(array);
+        Object copy = Array.newInstance(componentType, length);
+        copies.put(array, copy);
+        if (componentType.isPrimitive()) {
+            System.arraycopy(array, 0, copy, 0, length);
+        } else {
+            Object[] source = (Object[]) array;
+            Object[] target = (Object[]) copy;
+            for (int i = 0; i < length; i++) {
+                target[i] = copy(source[i], copies);
+            }
+        }
+        return copy;
+    }
+
+    private static Object copyCollection(ClassCodec codec, Collection<?> collection, Map<Object, Object> copies) {
+        Collection<Object> copy = codec.newCollection(collection.size());
+        copies.put(collection, copy); // 包装集合的元素中对其自身的引用将指向内部的可修改集合
+        for (Object element : collection) {
+            copy.add(copy(element, copies));
+        }
+        return wrap(codec, collection, copy, copies);
+    }
+
+    private static Object copyMap(ClassCodec codec, Map<?, ?> map, Map<Object, Object> copies) {
+        return wrap(codec, map, copyEntries(map, codec.newMap(map.size()), copies), copies);
+    }
+
+    /**
+     * 按原Map的迭代顺序复制键值，迭代不算访问，按访问顺序排列的LinkedHashMap复制后顺序不变
+     */
+    private static Map<Object, Object> copyEntries(Map<?, ?> map, Map<Object, Object> copy,
+                                                   Map<Object, Object> copies) {
+        copies.put(map, copy);
+        for (Map.Entry<?, ?> entry : map.entrySet()) {
+            copy.put(copy(entry.getKey(), copies), copy(entry.getValue(), copies));
+        }
+        return copy;
+    }
+
+    private static Object wrap(ClassCodec codec, Object original, Object filled, Map<Object, Object> copies) {
+        if (!codec.wrapped) {
+            return filled;
+        }
+        Object wrapped = codec.wrap(filled);
+        copies.put(original, wrapped);
+        return wrapped;
+    }
+
+    /**
+     * 带比较器的集合：TreeSet和优先级队列保留原比较器(共享)，其他类型使用JDK序列化
+     */
+    @SuppressWarnings("unchecked")
+    private static Object copyOrdered(Collection<?> collection, Comparator<?> comparator, Map<Object, Object> copies) {
+        Class<?> type = collection.getClass();
+        int capacity = Math.max(1, collection.size());
+        Collection<Object> copy;
+        if (type == TreeSet.class) {
+            copy = new TreeSet<Object>((Comparator<Object>) comparator);
+        } else if (type == PriorityQueue.class) {
+            copy = new PriorityQueue<Object>(capacity, (Comparator<Object>) comparator);
+        } else if (type == PriorityBlockingQueue.class) {
+            copy = new PriorityBlockingQueue<Object>(capacity, (Comparator<Object>) comparator);
+        } else {
+            return copyBySerialization(collection, copies);
+        }
+        copies.put(collection, copy);
+        for (Object element : collection) {
+            copy.add(copy(element, copies));
+        }
+        return copy;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Object copySortedMap(SortedMap<?, ?> map, Map<Object, Object> copies) {
+        if (map.getClass() != TreeMap.class) {
+            return copyBySerialization(map, copies);
+        }
+        TreeMap<Object, Object> copy = new TreeMap<Object, Object>((Comparator<Object>) map.comparator());
+        copies.put(map, copy);
+        for (Map.Entry<?, ?> entry : map.entrySet()) {
+            copy.put(copy(entry.getKey(), copies), copy(entry.getValue(), copies));
+        }
+        return copy;
+    }
+
+    private static Object copyBySerialization(Object obj, Map<Object, Object> copies) {
+        if (!(obj instanceof Serializable)) {
+            throw new SystemException("类[{0}]不支持深度复制！", obj.getClass().getName());
+        }
+        Object copy = SerializationTool.clone((Serializable) obj);
+        copies.put(obj, copy);
+        return copy;
+    }
+
+}
@@ -0,0 +1,57 @@
+package lang.serialize;
+
+import exception.SystemException;
+
+import java.io.*;
+
+/**
+ * 基于JDK标准序列化(ObjectOutputStream/ObjectInputStream)的序列化器
+ * <p>
+ * 所有对象都必须实现{@link Serializable}接口。输出格式与JDK序列化完全兼容，
+ * 适合需要与其他使用JDK序列化的系统交换数据的场景，否则应优先使用{@link BinarySerializer}。
+ * </p>
+ */
+public class JdkSerializer implements Serializer {
+
+    @Override
+    public byte[] serialize(Object obj) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(512);
+        serialize(obj, out);
+        return out.toByteArray();
+    }
+
+    @Override
+    public void serialize(Object obj, OutputStream out) {
+        if (obj != null && !(obj instanceof Serializable)) {
+            throw new SystemException("类[{0}]没有实现Serializable接口！", obj.getClass().getName());
+        }
+        try {
+            ObjectOutputStream oos = new ObjectOutputStream(out);
+            oos.writeObject(obj);
+            oos.flush();
+        } catch (IOException e) {
+            throw new SystemException(e, "序列化对象出错！");
+        }
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) {
+        return deserialize(new ByteArrayInputStream(bytes));
+    }
+
+    @Override
+    public Object deserialize(InputStream in) {
+        try {
+            return new ObjectInputStream(in).readObject();
+        } catch (Exception e) {
+            throw new SystemException(e, "反序列化对象出错！");
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T copy(T obj) {
+        return (T) deserialize(serialize(obj));
+    }
+
+}
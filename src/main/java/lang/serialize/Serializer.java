@@ -0,0 +1,66 @@
+package lang.serialize;
+
+import exception.SystemException;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * 序列化器
+ * <p>
+ * 可替换的序列化实现的统一接口，用于深度克隆、缓存和进程间传输等场景。
+ * 实现类必须是线程安全的。
+ * </p>
+ *
+ * @see BinarySerializer
+ * @see JdkSerializer
+ */
+public interface Serializer {
+
+    /**
+     * 将对象序列化为字节数组
+     *
+     * @param obj 要序列化的对象，可以为null
+     * @return 字节数组
+     * @throws SystemException 如果序列化失败
+     */
+    byte[] serialize(Object obj);
+
+    /**
+     * 将对象序列化到输出流，同一个输出流可以连续写入多个对象，不关闭输出流
+     *
+     * @param obj 要序列化的对象，可以为null
+     * @param out 输出流
+     * @throws SystemException 如果序列化失败
+     */
+    void serialize(Object obj, OutputStream out);
+
+    /**
+     * 从字节数组反序列化对象
+     *
+     * @param bytes 字节数组
+     * @return 反序列化后的对象
+     * @throws SystemException 如果反序列化失败
+     */
+    Object deserialize(byte[] bytes);
+
+    /**
+     * 从输入流反序列化一个由{@link #serialize(Object, OutputStream)}写入的对象，不关闭输入流
+     *
+     * @param in 输入流
+     * @return 反序列化后的对象
+     * @throws SystemException 如果反序列化失败
+     */
+    Object deserialize(InputStream in);
+
+    /**
+     * 通过序列化再反序列化深度复制对象
+     *
+     * @param obj 要复制的对象，可以为null
+     * @param <T> 对象的类型
+     * @return 复制后的对象
+     * @throws SystemException 如果序列化或反序列化失败
+     */
+    <T> T copy(T obj);
+
+}
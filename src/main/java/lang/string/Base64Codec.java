@@ -0,0 +1,468 @@
+package lang.string;
+
+import java.io.*;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * 查表实现的Base64编码解码
+ * <p>
+ * 可以编码到调用方提供的byte[]、char[]或ByteBuffer中，解码到调用方提供的byte[]中；
+ * 大数据(如附件)可以用{@link #wrap(OutputStream)}、{@link #wrap(InputStream)}边读写边编解码，不需要整体装入内存。
+ * </p>
+ * <p>
+ * 编码结果不分行。{@link #STANDARD}使用标准字母表并填充'='；{@link #URL_SAFE}使用'-'和'_'代替'+'和'/'，
+ * 不填充(见RFC 4648)，与commons-codec的encodeBase64URLSafeString一致。
+ * 解码时两种字母表均可识别，与commons-codec一样忽略非Base64字符(如换行)，遇到'='即结束。
+ * 线程安全。
+ * </p>
+ */
+public class Base64Codec {
+
+    /**
+     * 标准Base64，带填充
+     */
+    public static final Base64Codec STANDARD = new Base64Codec(
+            "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/", true);
+
+    /**
+     * URL安全的Base64，不填充
+     */
+    public static final Base64Codec URL_SAFE = new Base64Codec(
+            "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_", false);
+
+    private static final byte[] VALUES = new byte[128];
+    private static final int BUFFER_SIZE = 8192;
+
+    static {
+        Arrays.fill(VALUES, (byte) -1);
+        for (Base64Codec codec : new Base64Codec[]{STANDARD, URL_SAFE}) {
+            for (int i = 0; i < 64; i++) {
+                VALUES[codec.chars[i]] = (byte) i;
+            }
+        }
+    }
+
+    private final byte[] bytes;
+    private final char[] chars;
+    private final boolean padding;
+
+    private Base64Codec(String alphabet, boolean padding) {
+        this.bytes = alphabet.getBytes();
+        this.chars = alphabet.toCharArray();
+        this.padding = padding;
+    }
+
+    /**
+     * 计算编码后的长度
+     *
+     * @param len 源字节数
+     * @return 编码后的字符数
+     */
+    public int encodedLength(int len) {
+        if (padding) {
+            return (len + 2) / 3 * 4;
+        }
+        int remainder = len % 3;
+        return len / 3 * 4 + (remainder == 0 ? 0 : remainder + 1);
+    }
+
+    /**
+     * 编码为字符串
+     *
+     * @param src 字节数组，为null时返回null
+     * @return Base64字符串
+     */
+    public String encodeToString(byte[] src) {
+        if (src == null) {
+            return null;
+        }
+        char[] dst = new char[encodedLength(src.length)];
+        encode(src, 0, src.length, dst, 0);
+        return new String(dst);
+    }
+
+    /**
+     * 编码为ASCII字节写入字节数组中
+     *
+     * @param src    源字节数组
+     * @param off    源数组的起始位置
+     * @param len    要编码的字节数
+     * @param dst    目标字节数组，从dstOff开始至少要有{@link #encodedLength(int)}个位置
+     * @param dstOff 目标数组的起始位置
+     * @return 写入的字节数
+     */
+    public int encode(byte[] src, int off, int len, byte[] dst, int dstOff) {
+        int i = off;
+        int j = dstOff;
+        for (int end = off + len - len % 3; i < end; i += 3) {
+            int bits = (src[i] & 0xFF) << 16 | (src[i + 1] & 0xFF) << 8 | (src[i + 2] & 0xFF);
+            dst[j++] = bytes[bits >>> 18];
+            dst[j++] = bytes[(bits >>> 12) & 0x3F];
+            dst[j++] = bytes[(bits >>> 6) & 0x3F];
+            dst[j++] = bytes[bits & 0x3F];
+        }
+        int remainder = len % 3;
+        if (remainder > 0) {
+            int bits = (src[i] & 0xFF) << 10 | (remainder == 2 ? (src[i + 1] & 0xFF) << 2 : 0);
+            dst[j++] = bytes[bits >>> 12];
+            dst[j++] = bytes[(bits >>> 6) & 0x3F];
+            if (remainder == 2) {
+                dst[j++] = bytes[bits & 0x3F];
+            }
+            if (padding) {
+                dst[j++] = '=';
+                if (remainder == 1) {
+                    dst[j++] = '=';
+                }
+            }
+        }
+        return j - dstOff;
+    }
+
+    /**
+     * 编码到字符数组中
+     *
+     * @param src    源字节数组
+     * @param off    源数组的起始位置
+     * @param len    要编码的字节数
+     * @param dst    目标字符数组，从dstOff开始至少要有{@link #encodedLength(int)}个位置
+     * @param dstOff 目标数组的起始位置
+     * @return 写入的字符数
+     */
+    public int encode(byte[] src, int off, int len, char[] dst, int dstOff) {
+        int i = off;
+        int j = dstOff;
+        for (int end = off + len - len % 3; i < end; i += 3) {
+            int bits = (src[i] & 0xFF) << 16 | (src[i + 1] & 0xFF) << 8 | (src[i + 2] & 0xFF);
+            dst[j++] = chars[bits >>> 18];
+            dst[j++] = chars[(bits >>> 12) & 0x3F];
+            dst[j++] = chars[(bits >>> 6) & 0x3F];
+            dst[j++] = chars[bits & 0x3F];
+        }
+        int remainder = len % 3;
+        if (remainder > 0) {
+            int bits = (src[i] & 0xFF) << 10 | (remainder == 2 ? (src[i + 1] & 0xFF) << 2 : 0);
+            dst[j++] = chars[bits >>> 12];
+            dst[j++] = chars[(bits >>> 6) & 0x3F];
+            if (remainder == 2) {
+                dst[j++] = chars[bits & 0x3F];
+            }
+            if (padding) {
+                dst[j++] = '=';
+                if (remainder == 1) {
+                    dst[j++] = '=';
+                }
+            }
+        }
+        return j - dstOff;
+    }
+
+    /**
+     * 编码源缓冲区中剩余的全部字节，以ASCII字节写入目标缓冲区
+     *
+     * @param src 源缓冲区，编码后position移到limit
+     * @param dst 目标缓冲区，position前进写入的字节数
+     * @throws BufferOverflowException 如果目标缓冲区的剩余空间不足，此时两个缓冲区均不变
+     */
+    public void encode(ByteBuffer src, ByteBuffer dst) {
+        int len = src.remaining();
+        if (dst.remaining() < encodedLength(len)) {
+            throw new BufferOverflowException();
+        }
+        if (src.hasArray() && dst.hasArray()) {
+            int written = encode(src.array(), src.arrayOffset() + src.position(), len,
+                    dst.array(), dst.arrayOffset() + dst.position());
+            src.position(src.limit());
+            dst.position(dst.position() + written);
+            return;
+        }
+        byte[] in = new byte[Math.min(len, BUFFER_SIZE / 4 * 3)];
+        byte[] out = new byte[encodedLength(in.length)];
+        while (src.hasRemaining()) {
+            int count = Math.min(in.length, src.remaining()); // 除最后一块外都是3的倍数，中间不会出现填充
+            src.get(in, 0, count);
+            dst.put(out, 0, encode(in, 0, count, out, 0));
+        }
+    }
+
+    /**
+     * 解码Base64字符串
+     *
+     * @param src Base64字符串，为null时返回null
+     * @return 解码后的字节数组
+     */
+    public byte[] decode(CharSequence src) {
+        if (src == null) {
+            return null;
+        }
+        byte[] dst = new byte[maxDecodedLength(src.length())];
+        int count = decode(src, 0, src.length(), dst, 0);
+        return count == dst.length ? dst : Arrays.copyOf(dst, count);
+    }
+
+    /**
+     * 计算解码后长度的上限
+     *
+     * @param len Base64字符数
+     * @return 解码后的最大字节数
+     */
+    public int maxDecodedLength(int len) {
+        return (int) (((long) len * 3 + 3) / 4);
+    }
+
+    /**
+     * 解码到字节数组中
+     *
+     * @param src    Base64字符序列
+     * @param off    起始位置
+     * @param len    字符数
+     * @param dst    目标字节数组，从dstOff开始至少要有{@link #maxDecodedLength(int)}个位置
+     * @param dstOff 目标数组的起始位置
+     * @return 写入的字节数
+     */
+    public int decode(CharSequence src, int off, int len, byte[] dst, int dstOff) {
+        Decoder decoder = new Decoder();
+        int j = dstOff;
+        for (int i = off, end = off + len; i < end && !decoder.finished; i++) {
+            j = decoder.accept(src.charAt(i), dst, j);
+        }
+        return decoder.finish(dst, j) - dstOff;
+    }
+
+    /**
+     * 解码以ASCII字节表示的Base64到字节数组中
+     *
+     * @param src    Base64的ASCII字节数组
+     * @param off    起始位置
+     * @param len    字节数
+     * @param dst    目标字节数组，从dstOff开始至少要有{@link #maxDecodedLength(int)}个位置，可以与源数组相同(原地解码)
+     * @param dstOff 目标数组的起始位置
+     * @return 写入的字节数
+     */
+    public int decode(byte[] src, int off, int len, byte[] dst, int dstOff) {
+        Decoder decoder = new Decoder();
+        int j = dstOff;
+        for (int i = off, end = off + len; i < end && !decoder.finished; i++) {
+            j = decoder.accept(src[i] & 0xFF, dst, j);
+        }
+        return decoder.finish(dst, j) - dstOff;
+    }
+
+    /**
+     * 包装输出流，写入的数据编码后写到被包装的流中。关闭时写出最后不足3字节的部分(及填充)，并关闭被包装的流
+     *
+     * @param out 被包装的输出流
+     * @return 编码输出流，非线程安全
+     */
+    public OutputStream wrap(OutputStream out) {
+        return new EncodingOutputStream(out);
+    }
+
+    /**
+     * 包装输入流，读取时从被包装的流中读出Base64并解码
+     *
+     * @param in 被包装的输入流
+     * @return 解码输入流，非线程安全
+     */
+    public InputStream wrap(InputStream in) {
+        return new DecodingInputStream(in);
+    }
+
+    /**
+     * 增量解码器，保存不足4个字符时的中间状态
+     */
+    private static class Decoder {
+
+        private int bits;
+        private int count;
+        private boolean finished;
+
+        private int accept(int c, byte[] dst, int pos) {
+            if (c == '=') {
+                finished = true;
+                return pos;
+            }
+            int value = c < 128 ? VALUES[c] : -1;
+            if (value < 0) {
+                return pos;
+            }
+            bits = bits << 6 | value;
+            if (++count == 4) {
+                dst[pos++] = (byte) (bits >> 16);
+                dst[pos++] = (byte) (bits >> 8);
+                dst[pos++] = (byte) bits;
+                bits = 0;
+                count = 0;
+            }
+            return pos;
+        }
+
+        /**
+         * 输出剩余的2~3个字符表示的字节，只剩1个字符时不足一个字节，忽略之
+         */
+        private int finish(byte[] dst, int pos) {
+            if (count == 2) {
+                dst[pos++] = (byte) (bits >> 4);
+            } else if (count == 3) {
+                dst[pos++] = (byte) (bits >> 10);
+                dst[pos++] = (byte) (bits >> 2);
+            }
+            bits = 0;
+            count = 0;
+            return pos;
+        }
+    }
+
+    private class EncodingOutputStream extends FilterOutputStream {
+
+        private final byte[] pending = new byte[2]; // 不足3字节、尚未编码的部分
+        private int pendingCount;
+        private final byte[] buffer = new byte[BUFFER_SIZE];
+        private boolean closed;
+
+        private EncodingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (closed) {
+                throw new IOException("流已关闭");
+            }
+            while (pendingCount > 0 && len > 0) { // 先补齐上次剩余的部分
+                if (pendingCount == 2) {
+                    byte[] block = {pending[0], pending[1], b[off]};
+                    out.write(buffer, 0, encode(block, 0, 3, buffer, 0));
+                    pendingCount = 0;
+                } else {
+                    pending[pendingCount++] = b[off];
+                }
+                off++;
+                len--;
+            }
+            int chunk = BUFFER_SIZE / 4 * 3;
+            while (len >= 3) {
+                int count = Math.min(chunk, len - len % 3);
+                out.write(buffer, 0, encode(b, off, count, buffer, 0));
+                off += count;
+                len -= count;
+            }
+            for (int i = 0; i < len; i++) {
+                pending[pendingCount++] = b[off + i];
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try {
+                if (pendingCount > 0) {
+                    out.write(buffer, 0, encode(pending, 0, pendingCount, buffer, 0));
+                    pendingCount = 0;
+                }
+                out.flush();
+            } finally {
+                out.close();
+            }
+        }
+    }
+
+    private static class DecodingInputStream extends FilterInputStream {
+
+        private final Decoder decoder = new Decoder();
+        private final byte[] input = new byte[BUFFER_SIZE];
+        private final byte[] output = new byte[BUFFER_SIZE / 4 * 3 + 3];
+        private int position;
+        private int limit;
+        private boolean eof;
+
+        private DecodingInputStream(InputStream in) {
+            super(in);
+        }
+
+        /**
+         * 读取并解码下一块
+         *
+         * @return false: 已到结尾
+         */
+        private boolean fill() throws IOException {
+            while (position >= limit) {
+                if (eof) {
+                    return false;
+                }
+                position = 0;
+                limit = 0;
+                int count = decoder.finished ? -1 : in.read(input);
+                if (count < 0) {
+                    eof = true;
+                    limit = decoder.finish(output, 0);
+                } else {
+                    for (int i = 0; i < count && !decoder.finished; i++) {
+                        limit = decoder.accept(input[i] & 0xFF, output, limit);
+                    }
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public int read() throws IOException {
+            return fill() ? output[position++] & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            if (!fill()) {
+                return -1;
+            }
+            int count = Math.min(len, limit - position);
+            System.arraycopy(output, position, b, off, count);
+            position += count;
+            return count;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = 0;
+            while (skipped < n && fill()) {
+                int count = (int) Math.min(n - skipped, limit - position);
+                position += count;
+                skipped += count;
+            }
+            return skipped;
+        }
+
+        @Override
+        public int available() {
+            return limit - position;
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+
+        @Override
+        public void mark(int readlimit) {
+        }
+
+        @Override
+        public void reset() throws IOException {
+            throw new IOException("不支持mark/reset");
+        }
+    }
+
+}
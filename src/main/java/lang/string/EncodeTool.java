@@ -1,9 +1,6 @@
 package lang.string;
 
 import exception.SystemException;
-import org.apache.commons.codec.DecoderException;
-import org.apache.commons.codec.binary.Base64;
-import org.apache.commons.codec.binary.Hex;
 
 import java.io.UnsupportedEncodingException;
 import java.net.URLDecoder;
@@ -11,7 +8,7 @@ import java.net.URLEncoder;
 
 /**
  * 封装各种格式的编码解码工具类.
- * 1.Commons-Codec的 hex/base64 编码
+ * 1.hex/base64 编码(查表实现，见{@link HexCodec}、{@link Base64Codec}，结果与Commons-Codec一致)
  * 2.自制的base62 编码
  * 3.JDK提供的URLEncoder
  */
@@ -27,7 +24,18 @@ public class EncodeTool {
      * @return 编码后的字符串
      */
     public static String encodeHex(byte[] input) {
-        return Hex.encodeHexString(input);
+        return HexCodec.encodeToString(input);
+    }
+
+    /**
+     * Hex编码(小写)，追加到StringBuilder中，不创建中间数组和字符串
+     *
+     * @param sb    StringBuilder
+     * @param input 待Hex编码的字节数组
+     * @return 传入的StringBuilder
+     */
+    public static StringBuilder appendHex(StringBuilder sb, byte[] input) {
+        return HexCodec.appendHex(sb, input);
     }
 
     /**
@@ -37,31 +45,27 @@ public class EncodeTool {
      * @return 解码后的字节数组
      */
     public static byte[] decodeHex(String input) {
-        try {
-            return Hex.decodeHex(input.toCharArray());
-        } catch (DecoderException e) {
-            throw new SystemException(e);
-        }
+        return HexCodec.decode(input);
     }
 
     /**
      * Base64编码
      *
      * @param input 待Base64编码的字节数组
-     * @return 编码后的字符串
+     * @return 编码后的字符串，input为null时返回null
      */
     public static String encodeBase64(byte[] input) {
-        return Base64.encodeBase64String(input);
+        return Base64Codec.STANDARD.encodeToString(input);
     }
 
     /**
      * Base64编码, URL安全(将Base64中的URL非法字符'+'和'/'转为'-'和'_', 见RFC3548).
      *
      * @param input 待Base64编码的字节数组
-     * @return 编码后的字符串
+     * @return 编码后的字符串，input为null时返回null
      */
     public static String encodeUrlSafeBase64(byte[] input) {
-        return Base64.encodeBase64URLSafeString(input);
+        return Base64Codec.URL_SAFE.encodeToString(input);
     }
 
     /**
@@ -71,7 +75,7 @@ public class EncodeTool {
      * @return 解码后的字节数组
      */
     public static byte[] decodeBase64(String input) {
-        return Base64.decodeBase64(input);
+        return Base64Codec.STANDARD.decode(input);
     }
 
     /**
@@ -82,12 +86,27 @@ public class EncodeTool {
      */
     public static String encodeBase62(byte[] input) {
         char[] chars = new char[input.length];
-        for (int i = 0; i < input.length; i++) {
-            chars[i] = BASE62[((input[i] & 0xFF) % BASE62.length)];
-        }
+        encodeBase62(input, 0, input.length, chars, 0);
         return new String(chars);
     }
 
+    /**
+     * Base62编码到字符数组中，每个字节对应一个字符
+     *
+     * @param input  待Base62编码的字节数组
+     * @param off    起始位置
+     * @param len    字节数
+     * @param dst    目标字符数组，从dstOff开始至少要有len个位置
+     * @param dstOff 目标数组的起始位置
+     * @return 写入的字符数
+     */
+    public static int encodeBase62(byte[] input, int off, int len, char[] dst, int dstOff) {
+        for (int i = 0; i < len; i++) {
+            dst[dstOff + i] = BASE62[((input[off + i] & 0xFF) % BASE62.length)];
+        }
+        return len;
+    }
+
     /**
      * URL 编码, Encode默认为UTF-8.
      *
@@ -0,0 +1,230 @@
+package lang.string;
+
+import exception.SystemException;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * 查表实现的十六进制编码解码
+ * <p>
+ * 除了返回新字符串/数组的方法外，还可以编码到调用方提供的char[]、byte[]、ByteBuffer或StringBuilder中，
+ * 解码到调用方提供的byte[]中，用于大批量编码(如摘要)时避免每次分配新的数组和字符串。
+ * 解码时大小写均可，遇到非十六进制字符或长度为奇数时抛出SystemException。
+ * </p>
+ */
+public class HexCodec {
+
+    private static final char[] LOWER_DIGITS = "0123456789abcdef".toCharArray();
+    private static final char[] UPPER_DIGITS = "0123456789ABCDEF".toCharArray();
+    private static final byte[] LOWER_BYTES = "0123456789abcdef".getBytes();
+    private static final byte[] UPPER_BYTES = "0123456789ABCDEF".getBytes();
+    private static final byte[] VALUES = new byte[128];
+
+    static {
+        Arrays.fill(VALUES, (byte) -1);
+        for (int i = 0; i < 16; i++) {
+            VALUES[LOWER_DIGITS[i]] = (byte) i;
+            VALUES[UPPER_DIGITS[i]] = (byte) i;
+        }
+    }
+
+    private HexCodec() {
+    }
+
+    /**
+     * 编码为小写的十六进制字符串
+     *
+     * @param src 字节数组
+     * @return 十六进制字符串
+     */
+    public static String encodeToString(byte[] src) {
+        return encodeToString(src, false);
+    }
+
+    /**
+     * 编码为十六进制字符串
+     *
+     * @param src       字节数组
+     * @param upperCase 是否大写
+     * @return 十六进制字符串
+     */
+    public static String encodeToString(byte[] src, boolean upperCase) {
+        char[] chars = new char[src.length << 1];
+        encode(src, 0, src.length, chars, 0, upperCase);
+        return new String(chars);
+    }
+
+    /**
+     * 编码到字符数组中
+     *
+     * @param src       源字节数组
+     * @param off       源数组的起始位置
+     * @param len       要编码的字节数
+     * @param dst       目标字符数组，从dstOff开始至少要有len * 2个位置
+     * @param dstOff    目标数组的起始位置
+     * @param upperCase 是否大写
+     * @return 写入的字符数
+     */
+    public static int encode(byte[] src, int off, int len, char[] dst, int dstOff, boolean upperCase) {
+        char[] digits = upperCase ? UPPER_DIGITS : LOWER_DIGITS;
+        int j = dstOff;
+        for (int i = off, end = off + len; i < end; i++) {
+            int b = src[i];
+            dst[j++] = digits[(b >> 4) & 0x0F];
+            dst[j++] = digits[b & 0x0F];
+        }
+        return j - dstOff;
+    }
+
+    /**
+     * 编码为ASCII字节写入字节数组中
+     *
+     * @param src       源字节数组
+     * @param off       源数组的起始位置
+     * @param len       要编码的字节数
+     * @param dst       目标字节数组，从dstOff开始至少要有len * 2个位置
+     * @param dstOff    目标数组的起始位置
+     * @param upperCase 是否大写
+     * @return 写入的字节数
+     */
+    public static int encode(byte[] src, int off, int len, byte[] dst, int dstOff, boolean upperCase) {
+        byte[] digits = upperCase ? UPPER_BYTES : LOWER_BYTES;
+        int j = dstOff;
+        for (int i = off, end = off + len; i < end; i++) {
+            int b = src[i];
+            dst[j++] = digits[(b >> 4) & 0x0F];
+            dst[j++] = digits[b & 0x0F];
+        }
+        return j - dstOff;
+    }
+
+    /**
+     * 编码源缓冲区中剩余的全部字节，以ASCII字节写入目标缓冲区
+     *
+     * @param src       源缓冲区，编码后position移到limit
+     * @param dst       目标缓冲区，position前进写入的字节数
+     * @param upperCase 是否大写
+     * @throws BufferOverflowException 如果目标缓冲区的剩余空间不足，此时两个缓冲区均不变
+     */
+    public static void encode(ByteBuffer src, ByteBuffer dst, boolean upperCase) {
+        int len = src.remaining();
+        if (dst.remaining() < len << 1) {
+            throw new BufferOverflowException();
+        }
+        if (src.hasArray() && dst.hasArray()) {
+            int written = encode(src.array(), src.arrayOffset() + src.position(), len,
+                    dst.array(), dst.arrayOffset() + dst.position(), upperCase);
+            src.position(src.limit());
+            dst.position(dst.position() + written);
+            return;
+        }
+        byte[] digits = upperCase ? UPPER_BYTES : LOWER_BYTES;
+        while (src.hasRemaining()) {
+            int b = src.get();
+            dst.put(digits[(b >> 4) & 0x0F]);
+            dst.put(digits[b & 0x0F]);
+        }
+    }
+
+    /**
+     * 以小写十六进制追加到StringBuilder中，不创建中间数组和字符串
+     *
+     * @param sb  StringBuilder
+     * @param src 字节数组
+     * @return 传入的StringBuilder
+     */
+    public static StringBuilder appendHex(StringBuilder sb, byte[] src) {
+        return appendHex(sb, src, 0, src.length, false);
+    }
+
+    /**
+     * 以十六进制追加到StringBuilder中，不创建中间数组和字符串
+     *
+     * @param sb        StringBuilder
+     * @param src       字节数组
+     * @param off       起始位置
+     * @param len       字节数
+     * @param upperCase 是否大写
+     * @return 传入的StringBuilder
+     */
+    public static StringBuilder appendHex(StringBuilder sb, byte[] src, int off, int len, boolean upperCase) {
+        char[] digits = upperCase ? UPPER_DIGITS : LOWER_DIGITS;
+        int j = sb.length();
+        sb.setLength(j + (len << 1)); // 一次扩容，之后逐个设置字符
+        for (int i = off, end = off + len; i < end; i++) {
+            int b = src[i];
+            sb.setCharAt(j++, digits[(b >> 4) & 0x0F]);
+            sb.setCharAt(j++, digits[b & 0x0F]);
+        }
+        return sb;
+    }
+
+    /**
+     * 解码十六进制字符串
+     *
+     * @param src 十六进制字符串
+     * @return 解码后的字节数组
+     * @throws SystemException 如果长度为奇数或含有非十六进制字符
+     */
+    public static byte[] decode(CharSequence src) {
+        byte[] bytes = new byte[decodedLength(src.length())];
+        decode(src, 0, src.length(), bytes, 0);
+        return bytes;
+    }
+
+    /**
+     * 解码到字节数组中
+     *
+     * @param src    十六进制字符序列
+     * @param off    起始位置
+     * @param len    字符数，必须为偶数
+     * @param dst    目标字节数组，从dstOff开始至少要有len / 2个位置
+     * @param dstOff 目标数组的起始位置
+     * @return 写入的字节数
+     * @throws SystemException 如果长度为奇数或含有非十六进制字符
+     */
+    public static int decode(CharSequence src, int off, int len, byte[] dst, int dstOff) {
+        int count = decodedLength(len);
+        for (int i = off, j = dstOff, end = off + len; i < end; i += 2) {
+            dst[j++] = (byte) (value(src.charAt(i), i) << 4 | value(src.charAt(i + 1), i + 1));
+        }
+        return count;
+    }
+
+    /**
+     * 解码以ASCII字节表示的十六进制到字节数组中
+     *
+     * @param src    十六进制ASCII字节数组
+     * @param off    起始位置
+     * @param len    字节数，必须为偶数
+     * @param dst    目标字节数组，从dstOff开始至少要有len / 2个位置，可以与源数组相同(原地解码)
+     * @param dstOff 目标数组的起始位置
+     * @return 写入的字节数
+     * @throws SystemException 如果长度为奇数或含有非十六进制字符
+     */
+    public static int decode(byte[] src, int off, int len, byte[] dst, int dstOff) {
+        int count = decodedLength(len);
+        for (int i = off, j = dstOff, end = off + len; i < end; i += 2) {
+            dst[j++] = (byte) (value((char) (src[i] & 0xFF), i) << 4 | value((char) (src[i + 1] & 0xFF), i + 1));
+        }
+        return count;
+    }
+
+    private static int decodedLength(int len) {
+        if ((len & 1) != 0) {
+            throw new SystemException("十六进制字符串的长度必须为偶数: {0}", len);
+        }
+        return len >> 1;
+    }
+
+    private static int value(char c, int index) {
+        int value = c < 128 ? VALUES[c] : -1;
+        if (value < 0) {
+            throw new SystemException("非法的十六进制字符[{0}]，位置: {1}", c, index);
+        }
+        return value;
+    }
+
+}
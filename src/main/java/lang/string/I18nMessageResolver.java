@@ -0,0 +1,403 @@
+package lang.string;
+
+import log.Log;
+import log.LogFactory;
+
+import java.io.File;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.text.MessageFormat;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * 按Locale解析国际化信息
+ * <p>
+ * 每个Locale对应一份不可变的快照，包含所有注册的资源文件中(baseName, key)到预编译的信息格式的映射，
+ * 快照存放在ConcurrentHashMap中，查询时不加锁；首次用到某个Locale时才加载，也可以用{@link #warmUp(Collection)}在启动时批量加载。
+ * 资源文件只回退到基本资源文件(不带Locale后缀的)，不会回退到JVM默认的Locale，因此结果不受全局Locale变化的影响。
+ * </p>
+ * <p>
+ * 热加载：{@link #reloadIfModified()}检查快照所依赖的、位于文件系统中的.properties文件的修改时间，
+ * 有变化时重新构建该Locale的快照后整体替换，读取方在替换前继续使用旧快照，不会被阻塞。
+ * 可以用{@link #startHotReload(long, TimeUnit)}启动后台线程定时检查。
+ * </p>
+ */
+public class I18nMessageResolver {
+
+    private static final Log logger = LogFactory.getLog(I18nMessageResolver.class);
+
+    private static final ResourceBundle.Control CONTROL =
+            ResourceBundle.Control.getNoFallbackControl(ResourceBundle.Control.FORMAT_PROPERTIES);
+
+    private final ClassLoader classLoader;
+    private final List<String> baseNames = new CopyOnWriteArrayList<String>();
+    private final ConcurrentMap<Locale, Snapshot> snapshots = new ConcurrentHashMap<Locale, Snapshot>();
+    private final Object writeLock = new Object(); // 只在加载、重新加载快照时使用
+    private ScheduledExecutorService reloadExecutor;
+
+    /**
+     * 构造器，使用当前线程的上下文类加载器加载资源文件
+     */
+    public I18nMessageResolver() {
+        this(Thread.currentThread().getContextClassLoader());
+    }
+
+    /**
+     * 构造器
+     *
+     * @param classLoader 加载资源文件的类加载器
+     */
+    public I18nMessageResolver(ClassLoader classLoader) {
+        this.classLoader = classLoader;
+    }
+
+    /**
+     * 注册资源文件，查找不指定资源文件的信息时按注册的先后顺序查找。已加载的快照将重新加载
+     *
+     * @param baseName 资源文件的基本名称(扣掉后缀)
+     * @return true: 新注册，false: 已注册过
+     */
+    public boolean addBaseName(String baseName) {
+        synchronized (writeLock) {
+            if (baseNames.contains(baseName)) {
+                return false;
+            }
+            baseNames.add(baseName);
+            reload();
+            return true;
+        }
+    }
+
+    /**
+     * @return 已注册的资源文件的基本名称
+     */
+    public List<String> getBaseNames() {
+        return Collections.unmodifiableList(baseNames);
+    }
+
+    /**
+     * 预先加载各Locale的快照
+     *
+     * @param locales Locale集合
+     * @return 加载的信息条数
+     */
+    public int warmUp(Collection<Locale> locales) {
+        int count = 0;
+        for (Locale locale : locales) {
+            count += snapshot(locale).size();
+        }
+        return count;
+    }
+
+    /**
+     * 取得所有注册的资源文件中第一个含有该key的信息
+     *
+     * @param locale Locale
+     * @param key    信息的key
+     * @param args   格式化参数，为空时直接返回资源文件中的原文
+     * @return 信息，找不到时返回null
+     */
+    public String getMessage(Locale locale, String key, Object... args) {
+        Message message = snapshot(locale).merged.get(key);
+        return message == null ? null : message.format(args);
+    }
+
+    /**
+     * 取得指定资源文件中的信息
+     *
+     * @param baseName 资源文件的基本名称(扣掉后缀)，须已注册
+     * @param locale   Locale
+     * @param key      信息的key
+     * @param args     格式化参数，为空时直接返回资源文件中的原文
+     * @return 信息，资源文件未注册或找不到key时返回null
+     */
+    public String getMessage(String baseName, Locale locale, String key, Object... args) {
+        Map<String, Message> messages = snapshot(locale).bundles.get(baseName);
+        Message message = messages == null ? null : messages.get(key);
+        return message == null ? null : message.format(args);
+    }
+
+    /**
+     * 是否含有该key的信息
+     *
+     * @param locale Locale
+     * @param key    信息的key
+     * @return true: 含有
+     */
+    public boolean containsKey(Locale locale, String key) {
+        return snapshot(locale).merged.containsKey(key);
+    }
+
+    private Snapshot snapshot(Locale locale) {
+        Snapshot snapshot = snapshots.get(locale);
+        if (snapshot == null) {
+            synchronized (writeLock) {
+                snapshot = snapshots.get(locale);
+                if (snapshot == null) {
+                    snapshot = load(locale);
+                    snapshots.put(locale, snapshot);
+                }
+            }
+        }
+        return snapshot;
+    }
+
+    /**
+     * 重新加载资源文件有变化的快照
+     *
+     * @return 重新加载的Locale个数
+     */
+    public int reloadIfModified() {
+        synchronized (writeLock) {
+            List<Locale> modified = new ArrayList<Locale>();
+            for (Map.Entry<Locale, Snapshot> entry : snapshots.entrySet()) {
+                if (entry.getValue().isModified()) {
+                    modified.add(entry.getKey());
+                }
+            }
+            if (!modified.isEmpty()) {
+                ResourceBundle.clearCache(classLoader);
+                for (Locale locale : modified) {
+                    snapshots.put(locale, load(locale));
+                    logger.info("国际化资源文件有变化，已重新加载: {0}", locale);
+                }
+            }
+            return modified.size();
+        }
+    }
+
+    /**
+     * 重新加载所有已加载的快照
+     */
+    public void reload() {
+        synchronized (writeLock) {
+            ResourceBundle.clearCache(classLoader);
+            for (Locale locale : snapshots.keySet()) {
+                snapshots.put(locale, load(locale));
+            }
+        }
+    }
+
+    /**
+     * 启动后台守护线程，定时检查资源文件的变化并重新加载。已启动时先停止原来的
+     *
+     * @param period 检查周期
+     * @param unit   时间单位
+     */
+    public synchronized void startHotReload(long period, TimeUnit unit) {
+        stopHotReload();
+        reloadExecutor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "i18n-hot-reload");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        reloadExecutor.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    reloadIfModified();
+                } catch (Exception e) {
+                    logger.error(e, "重新加载国际化资源文件时出错!");
+                }
+            }
+        }, period, period, unit);
+    }
+
+    /**
+     * 停止定时检查资源文件的变化
+     */
+    public synchronized void stopHotReload() {
+        if (reloadExecutor != null) {
+            reloadExecutor.shutdownNow();
+            reloadExecutor = null;
+        }
+    }
+
+    private Snapshot load(Locale locale) {
+        Map<String, Map<String, Message>> bundles = new HashMap<String, Map<String, Message>>();
+        Map<String, Message> merged = new HashMap<String, Message>();
+        Map<File, Long> files = new HashMap<File, Long>();
+        for (String baseName : baseNames) {
+            collectFiles(baseName, locale, files);
+            ResourceBundle bundle;
+            try {
+                bundle = ResourceBundle.getBundle(baseName, locale, classLoader, CONTROL);
+            } catch (MissingResourceException e) {
+                logger.warn("找不到国际化资源文件: {0}, {1}", baseName, locale);
+                continue;
+            }
+            Map<String, Message> messages = new HashMap<String, Message>();
+            for (String key : bundle.keySet()) {
+                Object value = bundle.getObject(key);
+                if (value instanceof String) {
+                    Message message = new Message((String) value, locale);
+                    messages.put(key, message);
+                    if (!merged.containsKey(key)) {
+                        merged.put(key, message);
+                    }
+                }
+            }
+            bundles.put(baseName, messages);
+        }
+        return new Snapshot(bundles, merged, files);
+    }
+
+    /**
+     * 记录快照依赖的(位于文件系统中的)资源文件及其修改时间，jar包中的文件不支持热加载
+     */
+    private void collectFiles(String baseName, Locale locale, Map<File, Long> files) {
+        for (Locale candidate : CONTROL.getCandidateLocales(baseName, locale)) {
+            String resourceName = CONTROL.toResourceName(CONTROL.toBundleName(baseName, candidate), "properties");
+            URL url = classLoader.getResource(resourceName);
+            if (url != null && "file".equals(url.getProtocol())) {
+                try {
+                    File file = new File(url.toURI());
+                    files.put(file, file.lastModified());
+                } catch (URISyntaxException e) {
+                    logger.warn("无法监视国际化资源文件的变化: {0}", url);
+                }
+            }
+        }
+    }
+
+    /**
+     * 某个Locale的全部信息，构建后不再修改
+     */
+    private static class Snapshot {
+
+        private final Map<String, Map<String, Message>> bundles;
+        private final Map<String, Message> merged;
+        private final Map<File, Long> files;
+
+        private Snapshot(Map<String, Map<String, Message>> bundles, Map<String, Message> merged, Map<File, Long> files) {
+            this.bundles = bundles;
+            this.merged = merged;
+            this.files = files;
+        }
+
+        private int size() {
+            int size = 0;
+            for (Map<String, Message> messages : bundles.values()) {
+                size += messages.size();
+            }
+            return size;
+        }
+
+        private boolean isModified() {
+            for (Map.Entry<File, Long> entry : files.entrySet()) {
+                if (entry.getKey().lastModified() != entry.getValue()) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * 预编译的信息。只含{n}形式占位符的模板预先拆分为文本段和参数下标，参数均为字符串时直接拼接；
+     * 其他情况由MessageFormat格式化，因其不是线程安全的，格式化时使用其副本
+     */
+    private static class Message {
+
+        private final String pattern;
+        private final MessageFormat format; // 不含占位符和引号时为null
+        private final String[] segments; // 简单模板的文本段，比参数下标多一个；不是简单模板时为null
+        private final int[] argIndexes;
+
+        private Message(String pattern, Locale locale) {
+            this.pattern = pattern;
+            this.format = compile(pattern, locale);
+            List<String> segmentList = new ArrayList<String>();
+            List<Integer> indexList = new ArrayList<Integer>();
+            if (format != null && split(pattern, segmentList, indexList)) {
+                segments = segmentList.toArray(new String[segmentList.size()]);
+                argIndexes = new int[indexList.size()];
+                for (int i = 0; i < argIndexes.length; i++) {
+                    argIndexes[i] = indexList.get(i);
+                }
+            } else {
+                segments = null;
+                argIndexes = null;
+            }
+        }
+
+        private static MessageFormat compile(String pattern, Locale locale) {
+            if (pattern.indexOf('{') < 0 && pattern.indexOf('\'') < 0) {
+                return null;
+            }
+            try {
+                return new MessageFormat(pattern, locale);
+            } catch (IllegalArgumentException e) {
+                logger.warn("国际化信息格式错误，将按原文输出: {0}", pattern);
+                return null;
+            }
+        }
+
+        /**
+         * 拆分只含{n}形式占位符、不含引号的模板
+         */
+        private static boolean split(String pattern, List<String> segments, List<Integer> argIndexes) {
+            if (pattern.indexOf('\'') >= 0) {
+                return false;
+            }
+            int start = 0;
+            int open;
+            while ((open = pattern.indexOf('{', start)) >= 0) {
+                int close = pattern.indexOf('}', open);
+                if (close < 0 || close == open + 1 || close - open > 4) {
+                    return false;
+                }
+                int index = 0;
+                for (int i = open + 1; i < close; i++) {
+                    char c = pattern.charAt(i);
+                    if (c < '0' || c > '9') {
+                        return false;
+                    }
+                    index = index * 10 + (c - '0');
+                }
+                segments.add(pattern.substring(start, open));
+                argIndexes.add(index);
+                start = close + 1;
+            }
+            if (pattern.indexOf('}', start) >= 0) {
+                return false;
+            }
+            segments.add(pattern.substring(start));
+            return true;
+        }
+
+        private String format(Object[] args) {
+            if (format == null || args == null || args.length == 0) {
+                return pattern;
+            }
+            if (segments != null && isStrings(args)) {
+                StringBuilder sb = new StringBuilder(pattern.length() + 16 * argIndexes.length);
+                for (int i = 0; i < argIndexes.length; i++) {
+                    sb.append(segments[i]);
+                    int index = argIndexes[i];
+                    if (index < args.length) {
+                        sb.append(args[index]);
+                    } else { // 与MessageFormat一致，缺少的参数原样输出占位符
+                        sb.append('{').append(index).append('}');
+                    }
+                }
+                return sb.append(segments[argIndexes.length]).toString();
+            }
+            return ((MessageFormat) format.clone()).format(args);
+        }
+
+        private boolean isStrings(Object[] args) {
+            for (int index : argIndexes) {
+                if (index < args.length && args[index] != null && !(args[index] instanceof String)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+}
@@ -6,40 +6,65 @@ import scanner.classpath.ClassPathScanner;
 import scanner.support.Resource;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 /**
  * 国际化工具
+ * <p>
+ * 信息由{@link I18nMessageResolver}解析：类加载时扫描到的资源文件及其文件名中的Locale会被批量预加载，
+ * 查询时不加锁；需要资源文件修改后自动生效时调用{@link #startHotReload(long, TimeUnit)}。
+ * 用{@link #bundle(String, Locale)}为某个资源文件绑定了其他Locale时，{@link #getLocalStr(String)}按绑定的Locale查找该资源文件，
+ * 直到{@link #changeLocale(Locale)}把所有资源文件重新绑定到新的运行环境。
+ * </p>
  */
 public class I18nTool {
 
     private static final String DEFAULT_BASE_PATH = "conf/i18n/";
-    private static final Map<String, ResourceBundle> bundleMap = new LinkedHashMap<String, ResourceBundle>();
+    private static final Pattern LOCALE_SUFFIX = Pattern.compile("_([a-z]{2})_([A-Z]{2})$");
+    private static final I18nMessageResolver resolver = new I18nMessageResolver(I18nTool.class.getClassLoader());
     private static final Log logger = LogFactory.getLog(I18nTool.class);
+    private static final Map<String, Locale> boundLocales = new ConcurrentHashMap<String, Locale>();
+    private static volatile Locale currentLocale = Locale.getDefault();
 
     static {
         Resource[] resources = ClassPathScanner.scanForResources(DEFAULT_BASE_PATH, "", ".properties");
         Set<String> baseNames = new LinkedHashSet<String>();
+        Set<Locale> locales = new LinkedHashSet<Locale>();
+        locales.add(currentLocale);
         for (Resource resource : resources) {
-            String filename = resource.getFilename();
-            String baseName = filename.replaceFirst("\\.properties$", "").replaceFirst("_[a-z]{2}_[A-Z]{2}$", "");
+            String baseName = resource.getFilename().replaceFirst("\\.properties$", "");
+            Matcher matcher = LOCALE_SUFFIX.matcher(baseName);
+            if (matcher.find()) {
+                locales.add(new Locale(matcher.group(1), matcher.group(2)));
+                baseName = baseName.substring(0, matcher.start());
+            }
             baseNames.add(DEFAULT_BASE_PATH + baseName);
         }
         for (String baseName : baseNames) {
-            bundle(baseName);
+            resolver.addBaseName(baseName);
         }
+        resolver.warmUp(locales);
     }
 
     /**
-     * 绑定本地运行环境和资源文件
+     * 绑定本地运行环境和资源文件，之后{@link #getLocalStr(String)}按该Locale查找这个资源文件中的信息
      *
      * @param baseName 资源文件的基本名称(扣掉后缀)
      * @param locale   本地运行环境
      */
-    public static synchronized ResourceBundle bundle(String baseName, Locale locale) {
+    public static ResourceBundle bundle(String baseName, Locale locale) {
         ResourceBundle bundle = null;
         try {
             bundle = ResourceBundle.getBundle(baseName, locale);
-            bundleMap.put(baseName, bundle);
+            resolver.addBaseName(baseName);
+            if (locale.equals(currentLocale)) {
+                boundLocales.remove(baseName);
+            } else {
+                boundLocales.put(baseName, locale);
+            }
         } catch (Exception e) {
             logger.error(e, "绑定本地运行环境和资源文件时出错!");
         }
@@ -63,27 +88,50 @@ public class I18nTool {
      * @return 返回本地环境的字符串, 如果传NULL或trim后为空串则返回空串
      */
     public static String getLocalStr(String i18nKey) {
+        if (boundLocales.isEmpty()) {
+            return getLocalStr(i18nKey, currentLocale);
+        }
         if (StringTool.isNotBlank(i18nKey)) {
-            for (ResourceBundle bundle : bundleMap.values()) {
-                if (bundle.containsKey(i18nKey)) {
-                    return bundle.getString(i18nKey);
+            Locale locale = currentLocale;
+            for (String baseName : resolver.getBaseNames()) { // 按注册顺序逐个资源文件查找
+                Locale bound = boundLocales.get(baseName);
+                String message = resolver.getMessage(baseName, bound == null ? locale : bound, i18nKey);
+                if (message != null) {
+                    return message;
                 }
             }
         }
         return "";
     }
 
+    /**
+     * 根据多国语言Key, 取得指定环境的字符串，不受当前运行环境的影响
+     *
+     * @param i18nKey 多国语言Key
+     * @param locale  {@link Locale}
+     * @param args    格式化参数(参考MessageFormat类的说明)，为空时返回资源文件中的原文
+     * @return 返回指定环境的字符串, 如果传NULL或trim后为空串或找不到则返回空串
+     */
+    public static String getLocalStr(String i18nKey, Locale locale, Object... args) {
+        if (StringTool.isNotBlank(i18nKey)) {
+            String message = resolver.getMessage(locale, i18nKey, args);
+            if (message != null) {
+                return message;
+            }
+        }
+        return "";
+    }
+
     /**
      * 更改系统运行的环境
      *
      * @param locale {@link Locale}
      */
     public static void changeLocale(Locale locale) {
-        Set<String> baseNameSet = bundleMap.keySet();
         Locale.setDefault(locale);
-        for (String baseName : baseNameSet) {
-            bundle(baseName, locale);
-        }
+        currentLocale = locale;
+        boundLocales.clear();
+        resolver.warmUp(Collections.singleton(locale));
     }
 
     /**
@@ -96,4 +144,21 @@ public class I18nTool {
         changeLocale(new Locale(languageName, countryName));
     }
 
+    /**
+     * 启动后台线程，定时检查资源文件的变化并重新加载，读取不会被阻塞
+     *
+     * @param period 检查周期
+     * @param unit   时间单位
+     */
+    public static void startHotReload(long period, TimeUnit unit) {
+        resolver.startHotReload(period, unit);
+    }
+
+    /**
+     * @return 国际化信息解析器
+     */
+    public static I18nMessageResolver getResolver() {
+        return resolver;
+    }
+
 }
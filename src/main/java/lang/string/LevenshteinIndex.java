@@ -0,0 +1,402 @@
+package lang.string;
+
+import exception.SystemException;
+import support.GroupExecutor;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 按编辑距离(Levenshtein距离)查找相似字符串的索引
+ * <p>
+ * 基于BK树实现：每个子节点按其与父节点的编辑距离挂在父节点下，由三角不等式，
+ * 查找与查询串距离不超过k的字符串时，只需访问与父节点的距离在[d-k, d+k]之间的子树，不必逐个比较整个词典。
+ * 计算与每个节点的距离时使用带上限的{@link StringTool#getLevenshteinDistance(CharSequence, CharSequence, int)}，
+ * 超出上限即停止，因此k越小查找越快。适用于“您是不是要找”、近似重复检测等场景。
+ * </p>
+ * <p>
+ * 查询可以在多个线程中并发执行，添加与查询之间用读写锁互斥。
+ * </p>
+ * <pre>
+ * LevenshteinIndex index = new LevenshteinIndex(Arrays.asList("hello", "help", "world"));
+ * index.search("helo", 1)   = [hello(1), help(1)]
+ * index.nearest("wrld", 1)  = [world(1)]
+ * </pre>
+ */
+public class LevenshteinIndex {
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private Node root;
+    private int size;
+
+    /**
+     * 构造空的索引
+     */
+    public LevenshteinIndex() {
+    }
+
+    /**
+     * 构造索引并批量添加字符串
+     *
+     * @param words 字符串集合，null元素将被忽略
+     */
+    public LevenshteinIndex(Collection<String> words) {
+        addAll(words);
+    }
+
+    /**
+     * 添加字符串
+     *
+     * @param word 字符串
+     * @return true: 添加成功，false: 已存在
+     * @throws IllegalArgumentException 如果字符串为null
+     */
+    public boolean add(String word) {
+        if (word == null) {
+            throw new IllegalArgumentException("字符串不能为null！");
+        }
+        lock.writeLock().lock();
+        try {
+            return insert(word);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 批量添加字符串，整个批次只加一次写锁
+     *
+     * @param words 字符串集合，可以为null，null元素将被忽略
+     * @return 实际添加的个数(不含已存在的)
+     */
+    public int addAll(Collection<String> words) {
+        if (words == null || words.isEmpty()) {
+            return 0;
+        }
+        int count = 0;
+        lock.writeLock().lock();
+        try {
+            for (String word : words) {
+                if (word != null && insert(word)) {
+                    count++;
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        return count;
+    }
+
+    private boolean insert(String word) {
+        if (root == null) {
+            root = new Node(word);
+            size++;
+            return true;
+        }
+        Node node = root;
+        while (true) {
+            int distance = StringTool.getLevenshteinDistance(word, node.word);
+            if (distance == 0) {
+                return false;
+            }
+            Node child = node.getChild(distance);
+            if (child == null) {
+                node.addChild(distance, new Node(word));
+                size++;
+                return true;
+            }
+            node = child;
+        }
+    }
+
+    /**
+     * 查找与查询串的编辑距离不超过给定值的所有字符串
+     *
+     * @param query       查询串
+     * @param maxDistance 最大编辑距离，不能为负数
+     * @return List<候选>，按距离升序、距离相同时按字符串排序，没有时返回空列表
+     * @throws IllegalArgumentException 如果查询串为null或最大距离为负数
+     */
+    public List<Candidate> search(String query, int maxDistance) {
+        checkQuery(query, maxDistance);
+        List<Candidate> candidates = new ArrayList<Candidate>();
+        lock.readLock().lock();
+        try {
+            if (root == null) {
+                return candidates;
+            }
+            Deque<Node> stack = new ArrayDeque<Node>();
+            stack.push(root);
+            while (!stack.isEmpty()) {
+                Node node = stack.pop();
+                int distance = distance(query, node, maxDistance);
+                if (distance < 0) { // 超出上限，子树中也不会有结果
+                    continue;
+                }
+                if (distance <= maxDistance) {
+                    candidates.add(new Candidate(node.word, distance));
+                }
+                node.pushChildren(stack, distance - maxDistance, distance + maxDistance);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        Collections.sort(candidates);
+        return candidates;
+    }
+
+    /**
+     * 查找与查询串最接近的n个字符串
+     *
+     * @param query 查询串
+     * @param n     最多返回的个数
+     * @return List<候选>，按距离升序、距离相同时按字符串排序
+     * @throws IllegalArgumentException 如果查询串为null或n小于1
+     */
+    public List<Candidate> nearest(String query, int n) {
+        return nearest(query, n, Integer.MAX_VALUE);
+    }
+
+    /**
+     * 查找与查询串最接近的、且编辑距离不超过给定值的n个字符串
+     * <p>
+     * 已找到n个候选后，以其中最大的距离作为新的查找半径，查找范围随之不断缩小。
+     * </p>
+     *
+     * @param query       查询串
+     * @param n           最多返回的个数
+     * @param maxDistance 最大编辑距离，不能为负数
+     * @return List<候选>，按距离升序、距离相同时按字符串排序
+     * @throws IllegalArgumentException 如果查询串为null、n小于1或最大距离为负数
+     */
+    public List<Candidate> nearest(String query, int n, int maxDistance) {
+        checkQuery(query, maxDistance);
+        if (n < 1) {
+            throw new IllegalArgumentException("返回个数必须大于0: " + n);
+        }
+        // 队首为当前最差的候选
+        PriorityQueue<Candidate> best = new PriorityQueue<Candidate>(Math.min(n, 64) + 1,
+                Collections.<Candidate>reverseOrder());
+        int radius = maxDistance;
+        lock.readLock().lock();
+        try {
+            if (root == null) {
+                return new ArrayList<Candidate>();
+            }
+            Deque<Node> stack = new ArrayDeque<Node>();
+            stack.push(root);
+            while (!stack.isEmpty()) {
+                Node node = stack.pop();
+                int distance = distance(query, node, radius);
+                if (distance < 0) {
+                    continue;
+                }
+                if (distance <= radius) {
+                    best.add(new Candidate(node.word, distance));
+                    if (best.size() > n) {
+                        best.poll();
+                    }
+                    if (best.size() == n) {
+                        radius = best.peek().distance;
+                    }
+                }
+                node.pushChildren(stack, distance - radius, radius == Integer.MAX_VALUE ? radius : distance + radius);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        List<Candidate> candidates = new ArrayList<Candidate>(best);
+        Collections.sort(candidates);
+        return candidates;
+    }
+
+    /**
+     * 使用线程池并发执行一批查询，各线程共享同一个索引
+     *
+     * @param queries     查询串集合，null元素将被忽略
+     * @param maxDistance 最大编辑距离，不能为负数
+     * @param executor    线程池
+     * @param parallelism 并行度，不能小于1
+     * @return Map<查询串, List<候选>>，按查询串在集合中的顺序
+     * @throws IllegalArgumentException 如果最大编辑距离为负数或并行度小于1
+     * @throws SystemException          如果有查询出错
+     */
+    public Map<String, List<Candidate>> searchAll(Collection<String> queries, final int maxDistance,
+                                                  ExecutorService executor, int parallelism) {
+        if (maxDistance < 0) {
+            throw new IllegalArgumentException("最大编辑距离不能为负数: " + maxDistance);
+        }
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("并行度必须大于0: " + parallelism);
+        }
+        Map<String, List<Candidate>> results = new LinkedHashMap<String, List<Candidate>>();
+        if (queries == null || queries.isEmpty()) {
+            return results;
+        }
+        final Map<String, List<Candidate>> found = new ConcurrentHashMap<String, List<Candidate>>();
+        int groupSize = Math.max(1, Math.min(256, queries.size() / (parallelism * 4)));
+        new GroupExecutor<String>(queries, groupSize) {
+            @Override
+            protected void groupExecute(List<String> subList) {
+                for (String query : subList) {
+                    if (query != null && !found.containsKey(query)) {
+                        found.put(query, search(query, maxDistance));
+                    }
+                }
+            }
+        }.execute(executor, parallelism, true).checkErrors();
+        for (String query : queries) {
+            if (query != null) {
+                results.put(query, found.get(query));
+            }
+        }
+        return results;
+    }
+
+    /**
+     * 是否包含给定的字符串
+     *
+     * @param word 字符串
+     * @return true: 包含
+     */
+    public boolean contains(String word) {
+        return word != null && !search(word, 0).isEmpty();
+    }
+
+    /**
+     * @return 索引中字符串的个数
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 计算查询串与节点的距离，超出节点自身及所有子树可能用到的上限时返回-1
+     */
+    private static int distance(String query, Node node, int radius) {
+        long threshold = (long) radius + node.maxChildDistance;
+        if (threshold >= Integer.MAX_VALUE) {
+            return StringTool.getLevenshteinDistance(query, node.word);
+        }
+        return StringTool.getLevenshteinDistance(query, node.word, (int) threshold);
+    }
+
+    private static void checkQuery(String query, int maxDistance) {
+        if (query == null) {
+            throw new IllegalArgumentException("查询串不能为null！");
+        }
+        if (maxDistance < 0) {
+            throw new IllegalArgumentException("最大编辑距离不能为负数: " + maxDistance);
+        }
+    }
+
+    private static class Node {
+
+        private final String word;
+        private int[] distances; // 子节点与本节点的距离
+        private Node[] children;
+        private int childCount;
+        private int maxChildDistance;
+
+        private Node(String word) {
+            this.word = word;
+        }
+
+        private Node getChild(int distance) {
+            for (int i = 0; i < childCount; i++) {
+                if (distances[i] == distance) {
+                    return children[i];
+                }
+            }
+            return null;
+        }
+
+        private void addChild(int distance, Node child) {
+            if (children == null) {
+                distances = new int[2];
+                children = new Node[2];
+            } else if (childCount == children.length) {
+                distances = Arrays.copyOf(distances, childCount * 2);
+                children = Arrays.copyOf(children, childCount * 2);
+            }
+            distances[childCount] = distance;
+            children[childCount++] = child;
+            maxChildDistance = Math.max(maxChildDistance, distance);
+        }
+
+        private void pushChildren(Deque<Node> stack, int from, int to) {
+            for (int i = 0; i < childCount; i++) {
+                if (distances[i] >= from && distances[i] <= to) {
+                    stack.push(children[i]);
+                }
+            }
+        }
+    }
+
+    /**
+     * 查找结果中的一个候选字符串
+     */
+    public static class Candidate implements Comparable<Candidate> {
+
+        private final String word;
+        private final int distance;
+
+        Candidate(String word, int distance) {
+            this.word = word;
+            this.distance = distance;
+        }
+
+        /**
+         * @return 候选字符串
+         */
+        public String getWord() {
+            return word;
+        }
+
+        /**
+         * @return 与查询串的编辑距离
+         */
+        public int getDistance() {
+            return distance;
+        }
+
+        @Override
+        public int compareTo(Candidate other) {
+            if (distance != other.distance) {
+                return distance < other.distance ? -1 : 1;
+            }
+            return word.compareTo(other.word);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof Candidate)) {
+                return false;
+            }
+            Candidate other = (Candidate) obj;
+            return distance == other.distance && word.equals(other.word);
+        }
+
+        @Override
+        public int hashCode() {
+            return word.hashCode() * 31 + distance;
+        }
+
+        @Override
+        public String toString() {
+            return word + "(" + distance + ")";
+        }
+    }
+
+}
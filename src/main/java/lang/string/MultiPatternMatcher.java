@@ -0,0 +1,433 @@
+package lang.string;
+
+import java.util.*;
+
+/**
+ * 多模式串匹配器(Aho-Corasick自动机)
+ * <p>
+ * 由一组模式串一次性编译而成，之后对任意文本的查找、替换都只需对文本扫描一遍，耗时与模式串的数量无关，
+ * 适用于敏感词过滤等模式串很多(成千上万)的场景。
+ * 匹配结果遵循“最左最长”的语义：从左到右取互不重叠的匹配，同一起始位置有多个模式串匹配时取最长的。
+ * 编译后不可变，线程安全，可在多个线程间共享。
+ * </p>
+ * <pre>
+ * MultiPatternMatcher matcher = new MultiPatternMatcher("he", "she", "hers");
+ * matcher.findAll("ushers")      = [she(1,4)]
+ * matcher.replaceAll("ushers", "*") = "u*rs"
+ * matcher.mask("ushers", '*')       = "u***rs"
+ * </pre>
+ */
+public class MultiPatternMatcher {
+
+    private static final char[] EMPTY_KEYS = new char[0];
+    private static final int[] EMPTY_TARGETS = new int[0];
+
+    /**
+     * 有效的模式串(去掉null、空串和重复的)，按构造时的顺序
+     */
+    private final String[] patterns;
+    private final boolean ignoreCase;
+
+    // 以下数组按状态下标访问，状态0为根
+    private final char[][] keys; // 各状态的出边字符，已排序
+    private final int[][] targets; // 与keys一一对应的目标状态
+    private final int[] failures; // 失败指针
+    private final int[] outputs; // 以该状态结尾的模式串下标，没有为-1
+    private final int[] outputLinks; // 沿失败指针找到的最近一个有输出的状态，没有为-1
+    private final int[] depths; // 状态对应的前缀长度
+
+    /**
+     * 构造区分大小写的匹配器
+     *
+     * @param patterns 模式串，null和空串将被忽略
+     */
+    public MultiPatternMatcher(String... patterns) {
+        this(patterns == null ? Collections.<String>emptyList() : Arrays.asList(patterns), false);
+    }
+
+    /**
+     * 构造匹配器
+     *
+     * @param patterns   模式串，null和空串将被忽略，重复的只保留第一个
+     * @param ignoreCase 是否忽略大小写
+     */
+    public MultiPatternMatcher(Collection<String> patterns, boolean ignoreCase) {
+        this.ignoreCase = ignoreCase;
+        Set<String> distinct = new LinkedHashSet<String>();
+        if (patterns != null) {
+            for (String pattern : patterns) {
+                if (pattern != null && pattern.length() > 0) {
+                    distinct.add(pattern);
+                }
+            }
+        }
+        this.patterns = distinct.toArray(new String[distinct.size()]);
+
+        // 构造字典树
+        List<Map<Character, Integer>> trie = new ArrayList<Map<Character, Integer>>();
+        List<Integer> outputList = new ArrayList<Integer>();
+        List<Integer> depthList = new ArrayList<Integer>();
+        trie.add(new HashMap<Character, Integer>());
+        outputList.add(-1);
+        depthList.add(0);
+        for (int index = 0; index < this.patterns.length; index++) {
+            String pattern = this.patterns[index];
+            int state = 0;
+            for (int i = 0; i < pattern.length(); i++) {
+                Character c = fold(pattern.charAt(i));
+                Integer next = trie.get(state).get(c);
+                if (next == null) {
+                    next = trie.size();
+                    trie.add(new HashMap<Character, Integer>());
+                    outputList.add(-1);
+                    depthList.add(i + 1);
+                    trie.get(state).put(c, next);
+                }
+                state = next;
+            }
+            if (outputList.get(state) < 0) { // 忽略大小写时不同的模式串可能落在同一状态
+                outputList.set(state, index);
+            }
+        }
+
+        int size = trie.size();
+        keys = new char[size][];
+        targets = new int[size][];
+        failures = new int[size];
+        outputs = new int[size];
+        outputLinks = new int[size];
+        depths = new int[size];
+        for (int state = 0; state < size; state++) {
+            Map<Character, Integer> edges = trie.get(state);
+            if (edges.isEmpty()) {
+                keys[state] = EMPTY_KEYS;
+                targets[state] = EMPTY_TARGETS;
+            } else {
+                Character[] sorted = edges.keySet().toArray(new Character[edges.size()]);
+                Arrays.sort(sorted);
+                keys[state] = new char[sorted.length];
+                targets[state] = new int[sorted.length];
+                for (int i = 0; i < sorted.length; i++) {
+                    keys[state][i] = sorted[i];
+                    targets[state][i] = edges.get(sorted[i]);
+                }
+            }
+            outputs[state] = outputList.get(state);
+            depths[state] = depthList.get(state);
+        }
+
+        // 广度优先计算失败指针及输出链接
+        outputLinks[0] = -1;
+        int[] queue = new int[size];
+        int head = 0;
+        int tail = 0;
+        for (int child : targets[0]) {
+            failures[child] = 0;
+            outputLinks[child] = -1;
+            queue[tail++] = child;
+        }
+        while (head < tail) {
+            int state = queue[head++];
+            for (int i = 0; i < keys[state].length; i++) {
+                char c = keys[state][i];
+                int child = targets[state][i];
+                int failure = failures[state];
+                int next;
+                while ((next = transition(failure, c)) < 0 && failure != 0) {
+                    failure = failures[failure];
+                }
+                failures[child] = next < 0 ? 0 : next;
+                int fallback = failures[child];
+                outputLinks[child] = outputs[fallback] >= 0 ? fallback : outputLinks[fallback];
+                queue[tail++] = child;
+            }
+        }
+    }
+
+    private char fold(char c) {
+        return ignoreCase ? Character.toLowerCase(Character.toUpperCase(c)) : c;
+    }
+
+    private int transition(int state, char c) {
+        int i = Arrays.binarySearch(keys[state], c);
+        return i < 0 ? -1 : targets[state][i];
+    }
+
+    /**
+     * 读入一个字符后的状态
+     */
+    private int next(int state, char c) {
+        while (true) {
+            int next = transition(state, c);
+            if (next >= 0) {
+                return next;
+            }
+            if (state == 0) {
+                return 0;
+            }
+            state = failures[state];
+        }
+    }
+
+    /**
+     * 对每一个结束位置，记录以各起始位置开始的最长匹配，然后从左到右贪心选取互不重叠的匹配
+     *
+     * @param text  文本
+     * @param limit 最多返回的匹配数
+     * @return 匹配结果
+     */
+    private List<Match> match(CharSequence text, int limit) {
+        List<Match> matches = new ArrayList<Match>();
+        if (text == null || text.length() == 0 || patterns.length == 0) {
+            return matches;
+        }
+        int length = text.length();
+        int[] longest = null; // 以各位置起始的最长匹配的状态+1，0表示没有
+        int state = 0;
+        int next = 0; // 下一个匹配允许的最小起始位置
+        for (int i = 0; i < length; i++) {
+            state = next(state, fold(text.charAt(i)));
+            int output = outputs[state] >= 0 ? state : outputLinks[state];
+            while (output >= 0) {
+                int start = i + 1 - depths[output];
+                if (longest == null) {
+                    longest = new int[length];
+                }
+                if (longest[start] == 0 || depths[longest[start] - 1] < depths[output]) {
+                    longest[start] = output + 1;
+                }
+                output = outputLinks[output];
+            }
+            // 不会再有匹配从此前的位置开始，此前的匹配可以确定下来
+            int settled = i + 1 - depths[state];
+            if (longest != null) {
+                next = select(text, longest, next, settled, matches, limit);
+                if (matches.size() >= limit) {
+                    return matches;
+                }
+            }
+        }
+        if (longest != null) {
+            select(text, longest, next, length, matches, limit);
+        }
+        return matches;
+    }
+
+    private int select(CharSequence text, int[] longest, int from, int to, List<Match> matches, int limit) {
+        int i = from;
+        while (i < to && matches.size() < limit) {
+            if (longest[i] == 0) {
+                i++;
+            } else {
+                int state = longest[i] - 1;
+                int end = i + depths[state];
+                int index = outputs[state];
+                matches.add(new Match(i, end, index, patterns[index], text.subSequence(i, end).toString()));
+                i = end;
+            }
+        }
+        return Math.max(i, from);
+    }
+
+    /**
+     * 查找文本中所有互不重叠的匹配(最左最长)
+     *
+     * @param text 文本，可以为null
+     * @return List<匹配结果>，按在文本中的位置排序，没有匹配时返回空列表
+     */
+    public List<Match> findAll(CharSequence text) {
+        return match(text, Integer.MAX_VALUE);
+    }
+
+    /**
+     * 查找文本中的第一个匹配(最左最长)
+     *
+     * @param text 文本，可以为null
+     * @return 匹配结果，没有匹配时返回null
+     */
+    public Match findFirst(CharSequence text) {
+        List<Match> matches = match(text, 1);
+        return matches.isEmpty() ? null : matches.get(0);
+    }
+
+    /**
+     * 文本中是否包含任何一个模式串，找到即返回，不必确定最长的匹配
+     *
+     * @param text 文本，可以为null
+     * @return true: 包含任何一个模式串
+     */
+    public boolean containsAny(CharSequence text) {
+        if (text == null || patterns.length == 0) {
+            return false;
+        }
+        int state = 0;
+        for (int i = 0; i < text.length(); i++) {
+            state = next(state, fold(text.charAt(i)));
+            if (outputs[state] >= 0 || outputLinks[state] >= 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 将所有匹配替换为同一字符串
+     *
+     * @param text        文本，可以为null，为null时返回null
+     * @param replacement 用来替换的字符串，为null时当作空串
+     * @return 替换后的字符串
+     */
+    public String replaceAll(CharSequence text, final String replacement) {
+        return replace(text, new Replacer() {
+            @Override
+            public void append(StringBuilder sb, Match match) {
+                if (replacement != null) {
+                    sb.append(replacement);
+                }
+            }
+        });
+    }
+
+    /**
+     * 将各模式串的匹配替换为对应的字符串
+     *
+     * @param text            文本，可以为null，为null时返回null
+     * @param replacementList 用来替换的字符串数组，与有效的模式串(见{@link #getPatterns()})一一对应，元素为null时当作空串
+     * @return 替换后的字符串
+     * @throws IllegalArgumentException 如果数组长度与有效的模式串个数不一致
+     */
+    public String replaceEach(CharSequence text, final String[] replacementList) {
+        if (replacementList == null || replacementList.length != patterns.length) {
+            throw new IllegalArgumentException("替换字符串的个数必须与模式串的个数(" + patterns.length + ")一致！");
+        }
+        return replace(text, new Replacer() {
+            @Override
+            public void append(StringBuilder sb, Match match) {
+                String replacement = replacementList[match.getPatternIndex()];
+                if (replacement != null) {
+                    sb.append(replacement);
+                }
+            }
+        });
+    }
+
+    /**
+     * 将所有匹配的每个字符替换为掩码字符，如敏感词替换为等长的“*”
+     *
+     * @param text     文本，可以为null，为null时返回null
+     * @param maskChar 掩码字符
+     * @return 替换后的字符串
+     */
+    public String mask(CharSequence text, final char maskChar) {
+        return replace(text, new Replacer() {
+            @Override
+            public void append(StringBuilder sb, Match match) {
+                for (int i = match.getStart(); i < match.getEnd(); i++) {
+                    sb.append(maskChar);
+                }
+            }
+        });
+    }
+
+    private String replace(CharSequence text, Replacer replacer) {
+        if (text == null) {
+            return null;
+        }
+        List<Match> matches = findAll(text);
+        if (matches.isEmpty()) {
+            return text.toString();
+        }
+        StringBuilder sb = new StringBuilder(text.length());
+        int from = 0;
+        for (Match match : matches) {
+            sb.append(text, from, match.getStart());
+            replacer.append(sb, match);
+            from = match.getEnd();
+        }
+        sb.append(text, from, text.length());
+        return sb.toString();
+    }
+
+    /**
+     * 返回有效的模式串(去掉null、空串和重复的)，按构造时的顺序
+     *
+     * @return List<模式串>，不可修改
+     */
+    public List<String> getPatterns() {
+        return Collections.unmodifiableList(Arrays.asList(patterns));
+    }
+
+    /**
+     * 是否忽略大小写
+     *
+     * @return true: 忽略大小写
+     */
+    public boolean isIgnoreCase() {
+        return ignoreCase;
+    }
+
+    private interface Replacer {
+        void append(StringBuilder sb, Match match);
+    }
+
+    /**
+     * 一个匹配结果
+     */
+    public static class Match {
+
+        private final int start;
+        private final int end;
+        private final int patternIndex;
+        private final String pattern;
+        private final String text;
+
+        Match(int start, int end, int patternIndex, String pattern, String text) {
+            this.start = start;
+            this.end = end;
+            this.patternIndex = patternIndex;
+            this.pattern = pattern;
+            this.text = text;
+        }
+
+        /**
+         * @return 匹配在文本中的起始位置(包含)
+         */
+        public int getStart() {
+            return start;
+        }
+
+        /**
+         * @return 匹配在文本中的结束位置(不包含)
+         */
+        public int getEnd() {
+            return end;
+        }
+
+        /**
+         * @return 匹配的模式串在{@link MultiPatternMatcher#getPatterns()}中的下标
+         */
+        public int getPatternIndex() {
+            return patternIndex;
+        }
+
+        /**
+         * @return 匹配的模式串
+         */
+        public String getPattern() {
+            return pattern;
+        }
+
+        /**
+         * @return 文本中被匹配的部分，忽略大小写时可能与模式串不同
+         */
+        public String getText() {
+            return text;
+        }
+
+        @Override
+        public String toString() {
+            return pattern + "(" + start + "," + end + ")";
+        }
+    }
+
+}
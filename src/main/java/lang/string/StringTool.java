@@ -26,6 +26,7 @@ public class StringTool {
      * @param text 被查找和替换的源字符串, 可以为null，为null时返回null，为空串时返回空串
      * @param map  Map<要查找的字符串, 用来替换的字符串>
      * @return 替换后的字符串
+     * @see MultiPatternMatcher 要查找的字符串很多且需反复使用时，编译一次后只需扫描一遍文本
      */
     public static String replaceEach(String text, Map<String, String> map) {
         String[] searchList = null;
@@ -0,0 +1,14 @@
+package log;
+
+/**
+ * 延迟生成的日志信息，只有在相应的日志级别开启时才会被调用
+ */
+public interface ILogMessage {
+
+    /**
+     * 生成日志信息
+     *
+     * @return 日志信息
+     */
+    String getMessage();
+}
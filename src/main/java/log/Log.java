@@ -21,6 +21,13 @@ public interface Log {
      */
     void debug(String message, ILogParam param);
 
+    /**
+     * 记录调试信息，只有调试级别开启时才生成信息
+     *
+     * @param message 延迟生成的信息
+     */
+    void debug(ILogMessage message);
+
     /**
      * 记录提示信息
      *
@@ -37,6 +44,13 @@ public interface Log {
      */
     void info(String message, ILogParam param);
 
+    /**
+     * 记录提示信息，只有提示级别开启时才生成信息
+     *
+     * @param message 延迟生成的信息
+     */
+    void info(ILogMessage message);
+
     /**
      * 记录警告信息
      *
@@ -53,6 +67,13 @@ public interface Log {
      */
     void warn(String message, ILogParam param);
 
+    /**
+     * 记录警告信息，只有警告级别开启时才生成信息
+     *
+     * @param message 延迟生成的信息
+     */
+    void warn(ILogMessage message);
+
     /**
      * 记录错误信息
      *
@@ -69,6 +90,13 @@ public interface Log {
      */
     void error(String message, ILogParam param);
 
+    /**
+     * 记录错误信息，只有错误级别开启时才生成信息
+     *
+     * @param message 延迟生成的信息
+     */
+    void error(ILogMessage message);
+
     /**
      * 记录错误信息
      *
@@ -2,12 +2,19 @@ package log;
 
 import log.slf4j.Slf4jLogCreator;
 
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
 /**
  * 日志记录器工厂
+ * <p>
+ * 每个类的日志记录器只创建一次，之后从缓存中返回；重新设置创建者时换用新的缓存。
+ * 缓存以类名为key，不持有Class对象，不会阻止类加载器被回收。
+ * </p>
  */
 public class LogFactory {
 
-    private static LogCreator logCreator; // 日志记录器创建者
+    private static volatile LogCache cache; // 当前的日志记录器创建者及其缓存
 
     private LogFactory() {
     }
@@ -17,8 +24,8 @@ public class LogFactory {
      *
      * @param logCreator 日志记录器创建者
      */
-    public static void setLogCreator(LogCreator logCreator) {
-        LogFactory.logCreator = logCreator;
+    public static synchronized void setLogCreator(LogCreator logCreator) {
+        cache = logCreator == null ? null : new LogCache(logCreator);
     }
 
     /**
@@ -28,10 +35,44 @@ public class LogFactory {
      * @return 日志记录器
      */
     public static Log getLog(Class<?> clazz) {
-        if (logCreator == null) {
-            logCreator = new Slf4jLogCreator();
+        // 创建者和缓存一起读取：并发重设创建者时，旧创建者生成的日志记录器只会进入已被替换的旧缓存
+        LogCache current = getCache();
+        String name = clazz.getName();
+        Log log = current.logs.get(name);
+        if (log == null) {
+            log = current.creator.createLogger(clazz);
+            Log existing = current.logs.putIfAbsent(name, log);
+            if (existing != null) {
+                log = existing;
+            }
+        }
+        return log;
+    }
+
+    private static LogCache getCache() {
+        LogCache current = cache;
+        if (current == null) {
+            synchronized (LogFactory.class) {
+                if (cache == null) {
+                    cache = new LogCache(new Slf4jLogCreator());
+                }
+                current = cache;
+            }
+        }
+        return current;
+    }
+
+    /**
+     * 日志记录器创建者及其创建的日志记录器
+     */
+    private static final class LogCache {
+
+        private final LogCreator creator;
+        private final ConcurrentMap<String, Log> logs = new ConcurrentHashMap<String, Log>();
+
+        LogCache(LogCreator creator) {
+            this.creator = creator;
         }
-        return logCreator.createLogger(clazz);
     }
 
 }
@@ -0,0 +1,44 @@
+package log;
+
+import collections.ConcurrentCache;
+import support.ICallback;
+
+import java.text.MessageFormat;
+
+/**
+ * 日志信息格式化
+ * <p>
+ * 按MessageFormat的规则格式化信息模板。解析后的模板按模板字符串缓存，同一模板不会重复解析；
+ * 由于MessageFormat不是线程安全的，每次格式化使用缓存实例的副本。
+ * </p>
+ */
+public class LogMessageFormatter {
+
+    private static final ConcurrentCache<String, MessageFormat> formats = new ConcurrentCache<String, MessageFormat>(1024);
+
+    private static final ICallback<String, MessageFormat> compiler = new ICallback<String, MessageFormat>() {
+        @Override
+        public MessageFormat execute(String pattern) {
+            return new MessageFormat(pattern);
+        }
+    };
+
+    private LogMessageFormatter() {
+    }
+
+    /**
+     * 格式化信息模板
+     *
+     * @param message 信息模板(参考MessageFormat类的说明)，可以为null
+     * @param args    参数可变数组，为null或空时直接返回模板
+     * @return 格式化后的信息
+     */
+    public static String format(String message, Object... args) {
+        if (message == null || args == null || args.length == 0) {
+            return message;
+        }
+        MessageFormat format = (MessageFormat) formats.get(message, compiler).clone();
+        return format.format(args);
+    }
+
+}
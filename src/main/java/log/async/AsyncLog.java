@@ -0,0 +1,138 @@
+package log.async;
+
+import log.ILogMessage;
+import log.ILogParam;
+import log.Log;
+
+/**
+ * 异步日志记录器，在调用线程中只检查级别并生成事件，格式化和输出由{@link AsyncLogCreator}的消费线程完成
+ */
+class AsyncLog implements Log {
+
+    private final AsyncLogCreator creator;
+    private final Log target;
+
+    AsyncLog(AsyncLogCreator creator, Log target) {
+        this.creator = creator;
+        this.target = target;
+    }
+
+    @Override
+    public void debug(String message, Object... args) {
+        if (target.isDebugEnabled()) {
+            creator.enqueue(LogEvent.of(LogEvent.Level.DEBUG, target, message, args));
+        }
+    }
+
+    @Override
+    public void debug(String message, ILogParam param) {
+        if (target.isDebugEnabled()) {
+            creator.enqueue(LogEvent.of(LogEvent.Level.DEBUG, target, message, param));
+        }
+    }
+
+    @Override
+    public void debug(ILogMessage message) {
+        if (target.isDebugEnabled()) {
+            creator.enqueue(LogEvent.of(LogEvent.Level.DEBUG, target, message));
+        }
+    }
+
+    @Override
+    public void info(String message, Object... args) {
+        if (target.isInfoEnabled()) {
+            creator.enqueue(LogEvent.of(LogEvent.Level.INFO, target, message, args));
+        }
+    }
+
+    @Override
+    public void info(String message, ILogParam param) {
+        if (target.isInfoEnabled()) {
+            creator.enqueue(LogEvent.of(LogEvent.Level.INFO, target, message, param));
+        }
+    }
+
+    @Override
+    public void info(ILogMessage message) {
+        if (target.isInfoEnabled()) {
+            creator.enqueue(LogEvent.of(LogEvent.Level.INFO, target, message));
+        }
+    }
+
+    @Override
+    public void warn(String message, Object... args) {
+        if (target.isWarnEnabled()) {
+            creator.enqueue(LogEvent.of(LogEvent.Level.WARN, target, message, args));
+        }
+    }
+
+    @Override
+    public void warn(String message, ILogParam param) {
+        if (target.isWarnEnabled()) {
+            creator.enqueue(LogEvent.of(LogEvent.Level.WARN, target, message, param));
+        }
+    }
+
+    @Override
+    public void warn(ILogMessage message) {
+        if (target.isWarnEnabled()) {
+            creator.enqueue(LogEvent.of(LogEvent.Level.WARN, target, message));
+        }
+    }
+
+    @Override
+    public void error(String message, Object... args) {
+        if (target.isErrorEnabled()) {
+            creator.enqueue(LogEvent.of(LogEvent.Level.ERROR, target, message, args));
+        }
+    }
+
+    @Override
+    public void error(String message, ILogParam param) {
+        if (target.isErrorEnabled()) {
+            creator.enqueue(LogEvent.of(LogEvent.Level.ERROR, target, message, param));
+        }
+    }
+
+    @Override
+    public void error(ILogMessage message) {
+        if (target.isErrorEnabled()) {
+            creator.enqueue(LogEvent.of(LogEvent.Level.ERROR, target, message));
+        }
+    }
+
+    @Override
+    public void error(Throwable e, String message, Object... args) {
+        if (target.isErrorEnabled()) {
+            creator.enqueue(LogEvent.error(target, e, message, args));
+        }
+    }
+
+    @Override
+    public void error(Throwable e) {
+        if (target.isErrorEnabled()) {
+            creator.enqueue(LogEvent.error(target, e, null, null));
+        }
+    }
+
+    @Override
+    public boolean isDebugEnabled() {
+        return target.isDebugEnabled();
+    }
+
+    @Override
+    public boolean isInfoEnabled() {
+        return target.isInfoEnabled();
+    }
+
+    @Override
+    public boolean isWarnEnabled() {
+        return target.isWarnEnabled();
+    }
+
+    @Override
+    public boolean isErrorEnabled() {
+        return target.isErrorEnabled();
+    }
+
+}
@@ -0,0 +1,297 @@
+package log.async;
+
+import log.Log;
+import log.LogCreator;
+import log.slf4j.Slf4jLogCreator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 异步日志记录器创建者
+ * <p>
+ * 创建的日志记录器在调用线程中只检查日志级别，然后把级别、信息模板、参数、异常等原始内容作为事件放入有界无锁环形队列，
+ * 由一个后台消费线程批量取出，交给被包装的创建者所创建的记录器(默认为slf4j)格式化并输出，
+ * 使调用线程不再受appender的I/O耗时影响。
+ * </p>
+ * <p>
+ * 注意：
+ * <ul>
+ * <li>参数和延迟信息在消费线程中才被格式化，调用后不应再修改作为参数的对象；</li>
+ * <li>底层日志框架记录的线程名和时间是消费线程输出时的；</li>
+ * <li>队列满时按{@link OverflowPolicy}处理；</li>
+ * <li>{@link #shutdown(long, TimeUnit)}或JVM退出时会输出队列中剩余的日志，关闭后的日志在调用线程中同步输出；</li>
+ * <li>被包装的记录器输出日志时抛出的异常交给{@link ErrorHandler}处理，默认打印到标准错误输出。</li>
+ * </ul>
+ * </p>
+ * <pre>
+ * LogFactory.setLogCreator(new AsyncLogCreator(new Slf4jLogCreator(), 8192, OverflowPolicy.DROP_DEBUG));
+ * </pre>
+ */
+public class AsyncLogCreator implements LogCreator {
+
+    /**
+     * 输出日志出错时的处理器
+     */
+    public interface ErrorHandler {
+
+        /**
+         * 处理被包装的记录器输出日志时抛出的异常，在输出日志的线程中调用，不应再抛出异常
+         *
+         * @param e 异常
+         */
+        void onError(Throwable e);
+    }
+
+    /**
+     * 默认的处理器：把异常及其堆栈打印到标准错误输出，日志框架自身出错时不能再通过日志框架报告
+     */
+    public static final ErrorHandler PRINT_STACK_TRACE = new ErrorHandler() {
+        @Override
+        public void onError(Throwable e) {
+            System.err.println("输出异步日志出错:");
+            e.printStackTrace();
+        }
+    };
+
+    private static final AtomicInteger THREAD_NUMBER = new AtomicInteger();
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final long FULL_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+    private final LogCreator delegate;
+    private final RingBuffer<LogEvent> buffer;
+    private final OverflowPolicy overflowPolicy;
+    private final int batchSize;
+    private final Thread consumer;
+    private final Thread shutdownHook;
+
+    private final AtomicLong droppedCount = new AtomicLong();
+    private final AtomicLong processedCount = new AtomicLong();
+    private volatile boolean running = true;
+    private volatile boolean consumerWaiting;
+    private volatile ErrorHandler errorHandler = PRINT_STACK_TRACE;
+
+    /**
+     * 构造器，包装slf4j日志记录器创建者，队列容量8192，队列满时阻塞
+     */
+    public AsyncLogCreator() {
+        this(new Slf4jLogCreator(), 8192, OverflowPolicy.BLOCK);
+    }
+
+    /**
+     * 构造器，每批最多输出256条日志
+     *
+     * @param delegate       实际输出日志的记录器的创建者
+     * @param capacity       队列容量，向上取整为2的幂
+     * @param overflowPolicy 队列满时的处理策略
+     */
+    public AsyncLogCreator(LogCreator delegate, int capacity, OverflowPolicy overflowPolicy) {
+        this(delegate, capacity, overflowPolicy, 256);
+    }
+
+    /**
+     * 构造器，构造后即启动消费线程
+     *
+     * @param delegate       实际输出日志的记录器的创建者
+     * @param capacity       队列容量，向上取整为2的幂
+     * @param overflowPolicy 队列满时的处理策略
+     * @param batchSize      消费线程每批最多取出的日志条数
+     * @throws IllegalArgumentException 如果参数为null或容量、批大小小于1
+     */
+    public AsyncLogCreator(LogCreator delegate, int capacity, OverflowPolicy overflowPolicy, int batchSize) {
+        if (delegate == null || overflowPolicy == null) {
+            throw new IllegalArgumentException("日志记录器创建者和队列满时的处理策略不能为null!");
+        }
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("批大小必须大于0: " + batchSize);
+        }
+        this.delegate = delegate;
+        this.buffer = new RingBuffer<LogEvent>(capacity);
+        this.overflowPolicy = overflowPolicy;
+        this.batchSize = batchSize;
+
+        consumer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                consume();
+            }
+        }, "async-log-" + THREAD_NUMBER.incrementAndGet());
+        consumer.setDaemon(true);
+        consumer.start();
+
+        shutdownHook = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                shutdown(10, TimeUnit.SECONDS);
+            }
+        }, consumer.getName() + "-shutdown");
+        Runtime.getRuntime().addShutdownHook(shutdownHook);
+    }
+
+    @Override
+    public Log createLogger(Class<?> clazz) {
+        return new AsyncLog(this, delegate.createLogger(clazz));
+    }
+
+    /**
+     * 放入日志事件
+     *
+     * @param event 日志事件
+     */
+    void enqueue(LogEvent event) {
+        if (!running || Thread.currentThread() == consumer) { // 输出日志时又记录日志，直接输出以免阻塞自身
+            dispatch(event);
+            return;
+        }
+        if (!buffer.offer(event)) {
+            if (overflowPolicy == OverflowPolicy.DROP_OLDEST) {
+                do {
+                    if (buffer.poll() != null) {
+                        droppedCount.incrementAndGet();
+                    }
+                } while (!buffer.offer(event));
+            } else if (overflowPolicy == OverflowPolicy.DROP_DEBUG && event.level == LogEvent.Level.DEBUG) {
+                droppedCount.incrementAndGet();
+                return;
+            } else {
+                while (!buffer.offer(event)) {
+                    if (!running) {
+                        dispatch(event);
+                        return;
+                    }
+                    LockSupport.unpark(consumer);
+                    LockSupport.parkNanos(this, FULL_PARK_NANOS);
+                }
+            }
+        }
+        if (!running) { // 放入后才关闭，shutdown可能已取完队列，由调用线程输出以免日志滞留在队列中
+            drainRemaining();
+        } else if (consumerWaiting) {
+            LockSupport.unpark(consumer);
+        }
+    }
+
+    private void consume() {
+        List<LogEvent> batch = new ArrayList<LogEvent>(batchSize);
+        while (true) {
+            if (buffer.drainTo(batch, batchSize) > 0) {
+                for (LogEvent event : batch) {
+                    dispatch(event);
+                }
+                processedCount.addAndGet(batch.size());
+                batch.clear();
+            } else if (!running) {
+                return;
+            } else {
+                consumerWaiting = true;
+                if (buffer.size() == 0 && running) { // 设置等待标记后再检查一次，避免错过唤醒
+                    LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                }
+                consumerWaiting = false;
+            }
+        }
+    }
+
+    private void drainRemaining() {
+        LogEvent event;
+        while ((event = buffer.poll()) != null) {
+            dispatch(event);
+        }
+    }
+
+    private void dispatch(LogEvent event) {
+        try {
+            event.dispatch();
+        } catch (Throwable e) {
+            try {
+                errorHandler.onError(e);
+            } catch (Throwable ignored) {
+                // 处理器出错时不能影响消费线程
+            }
+        }
+    }
+
+    /**
+     * 设置输出日志出错时的处理器，默认为{@link #PRINT_STACK_TRACE}
+     *
+     * @param errorHandler 处理器
+     * @throws IllegalArgumentException 如果处理器为null
+     */
+    public void setErrorHandler(ErrorHandler errorHandler) {
+        if (errorHandler == null) {
+            throw new IllegalArgumentException("处理器不能为null!");
+        }
+        this.errorHandler = errorHandler;
+    }
+
+    /**
+     * 停止接收异步日志，等待消费线程输出队列中剩余的日志。之后记录的日志在调用线程中同步输出。
+     * 同时注销构造时注册的JVM关闭钩子，消费线程输出完剩余的日志后退出
+     *
+     * @param timeout 最长等待时间，小于等于0时不等待
+     * @param unit    时间单位
+     * @return true: 队列中的日志已全部输出
+     */
+    public boolean shutdown(long timeout, TimeUnit unit) {
+        try {
+            Runtime.getRuntime().removeShutdownHook(shutdownHook);
+        } catch (IllegalStateException e) {
+            // JVM正在关闭
+        }
+        running = false;
+        LockSupport.unpark(consumer);
+        long nanos = unit.toNanos(timeout);
+        if (nanos > 0) {
+            try { // join(0)会一直等待，不足1毫秒的部分交给join(millis, nanos)向上取整
+                consumer.join(TimeUnit.NANOSECONDS.toMillis(nanos), (int) (nanos % 1000000));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (consumer.isAlive()) {
+            return false;
+        }
+        drainRemaining(); // 消费线程退出前刚放入的日志
+        return true;
+    }
+
+    /**
+     * @return 队列中等待输出的日志条数(近似值)
+     */
+    public int getQueueSize() {
+        return buffer.size();
+    }
+
+    /**
+     * @return 队列容量
+     */
+    public int getCapacity() {
+        return buffer.capacity();
+    }
+
+    /**
+     * @return 因队列已满而丢弃的日志条数
+     */
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    /**
+     * @return 消费线程已输出的日志条数
+     */
+    public long getProcessedCount() {
+        return processedCount.get();
+    }
+
+    /**
+     * @return 队列满时的处理策略
+     */
+    public OverflowPolicy getOverflowPolicy() {
+        return overflowPolicy;
+    }
+
+}
@@ -0,0 +1,118 @@
+package log.async;
+
+import log.ILogMessage;
+import log.ILogParam;
+import log.Log;
+
+/**
+ * 异步日志事件，保存记录日志时的原始参数，由消费线程格式化并输出
+ */
+class LogEvent {
+
+    enum Level {
+        DEBUG, INFO, WARN, ERROR
+    }
+
+    final Level level;
+    private final Log target; // 实际输出日志的记录器
+    private final String message;
+    private final Object[] args;
+    private final ILogParam param;
+    private final ILogMessage supplier;
+    private final Throwable throwable;
+
+    private LogEvent(Level level, Log target, String message, Object[] args, ILogParam param, ILogMessage supplier,
+                     Throwable throwable) {
+        this.level = level;
+        this.target = target;
+        this.message = message;
+        this.args = args;
+        this.param = param;
+        this.supplier = supplier;
+        this.throwable = throwable;
+    }
+
+    static LogEvent of(Level level, Log target, String message, Object[] args) {
+        return new LogEvent(level, target, message, args, null, null, null);
+    }
+
+    static LogEvent of(Level level, Log target, String message, ILogParam param) {
+        return new LogEvent(level, target, message, null, param, null, null);
+    }
+
+    static LogEvent of(Level level, Log target, ILogMessage supplier) {
+        return new LogEvent(level, target, null, null, null, supplier, null);
+    }
+
+    static LogEvent error(Log target, Throwable throwable, String message, Object[] args) {
+        return new LogEvent(Level.ERROR, target, message, args, null, null, throwable);
+    }
+
+    /**
+     * 交给实际的记录器输出
+     */
+    void dispatch() {
+        if (supplier != null) {
+            dispatchSupplier();
+        } else if (param != null) {
+            dispatchParam();
+        } else if (throwable != null) {
+            if (message == null) {
+                target.error(throwable);
+            } else {
+                target.error(throwable, message, args);
+            }
+        } else {
+            dispatchArgs();
+        }
+    }
+
+    private void dispatchArgs() {
+        switch (level) {
+            case DEBUG:
+                target.debug(message, args);
+                break;
+            case INFO:
+                target.info(message, args);
+                break;
+            case WARN:
+                target.warn(message, args);
+                break;
+            default:
+                target.error(message, args);
+        }
+    }
+
+    private void dispatchParam() {
+        switch (level) {
+            case DEBUG:
+                target.debug(message, param);
+                break;
+            case INFO:
+                target.info(message, param);
+                break;
+            case WARN:
+                target.warn(message, param);
+                break;
+            default:
+                target.error(message, param);
+        }
+    }
+
+    private void dispatchSupplier() {
+        switch (level) {
+            case DEBUG:
+                target.debug(supplier);
+                break;
+            case INFO:
+                target.info(supplier);
+                break;
+            case WARN:
+                target.warn(supplier);
+                break;
+            default:
+                target.error(supplier);
+        }
+    }
+
+}
@@ -0,0 +1,23 @@
+package log.async;
+
+/**
+ * 异步日志队列已满时的处理策略
+ */
+public enum OverflowPolicy {
+
+    /**
+     * 阻塞记录日志的线程，直到队列有空位，不丢失日志
+     */
+    BLOCK,
+
+    /**
+     * 丢弃调试级别的日志，其他级别阻塞等待
+     */
+    DROP_DEBUG,
+
+    /**
+     * 丢弃队列中最旧的日志，为新的日志腾出空位，从不阻塞
+     */
+    DROP_OLDEST
+
+}
@@ -0,0 +1,122 @@
+package log.async;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 有界无锁环形队列，支持多生产者、多消费者
+ * <p>
+ * 每个槽位带一个序号：序号等于写位置时可写，等于写位置+1时可读，读出后序号前进一圈。
+ * 生产者与消费者分别以CAS争用写位置和读位置，不需要加锁。
+ * 除异步日志的消费线程外，丢弃最旧事件的生产者也会作为消费者出队。
+ * </p>
+ */
+class RingBuffer<E> {
+
+    private final int mask;
+    private final AtomicReferenceArray<E> elements;
+    private final AtomicLongArray sequences;
+    private final AtomicLong head = new AtomicLong(); // 下一个读位置
+    private final AtomicLong tail = new AtomicLong(); // 下一个写位置
+
+    /**
+     * @param capacity 容量，向上取整为2的幂
+     */
+    RingBuffer(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("容量必须大于0: " + capacity);
+        }
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity) {
+            size <<= 1;
+        }
+        mask = size - 1;
+        elements = new AtomicReferenceArray<E>(size);
+        sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    /**
+     * 入队
+     *
+     * @param element 元素
+     * @return false: 队列已满
+     */
+    boolean offer(E element) {
+        while (true) {
+            long position = tail.get();
+            int index = (int) position & mask;
+            long difference = sequences.get(index) - position;
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    elements.lazySet(index, element);
+                    sequences.set(index, position + 1); // 发布
+                    return true;
+                }
+            } else if (difference < 0) {
+                return false; // 该槽位上一圈的元素还未被取走
+            }
+            // 其他生产者已占用该位置，重试
+        }
+    }
+
+    /**
+     * 出队
+     *
+     * @return 元素，队列为空时返回null
+     */
+    E poll() {
+        while (true) {
+            long position = head.get();
+            int index = (int) position & mask;
+            long difference = sequences.get(index) - (position + 1);
+            if (difference == 0) {
+                if (head.compareAndSet(position, position + 1)) {
+                    E element = elements.get(index);
+                    elements.lazySet(index, null);
+                    sequences.set(index, position + mask + 1); // 释放给下一圈的生产者
+                    return element;
+                }
+            } else if (difference < 0) {
+                return null; // 为空，或生产者已占位但尚未发布
+            }
+        }
+    }
+
+    /**
+     * 批量出队
+     *
+     * @param batch    接收元素的列表
+     * @param maxCount 最多取出的个数
+     * @return 取出的个数
+     */
+    int drainTo(List<? super E> batch, int maxCount) {
+        int count = 0;
+        E element;
+        while (count < maxCount && (element = poll()) != null) {
+            batch.add(element);
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * @return 当前元素个数的近似值
+     */
+    int size() {
+        long size = tail.get() - head.get();
+        return (int) Math.max(0, Math.min(size, capacity()));
+    }
+
+    /**
+     * @return 容量
+     */
+    int capacity() {
+        return mask + 1;
+    }
+
+}
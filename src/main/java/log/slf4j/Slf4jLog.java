@@ -1,13 +1,16 @@
 package log.slf4j;
 
+import log.ILogMessage;
 import log.ILogParam;
 import log.Log;
+import log.LogMessageFormatter;
 import org.slf4j.Logger;
 
-import java.text.MessageFormat;
-
 /**
  * slf4j日志记录器
+ * <p>
+ * 先检查日志级别，级别未开启时不格式化信息，也不生成延迟信息；格式化时使用缓存的已解析模板。
+ * </p>
  */
 public class Slf4jLog implements Log {
 
@@ -19,27 +22,37 @@ public class Slf4jLog implements Log {
 
     @Override
     public void debug(String message, Object... args) {
-        log.debug(getMsg(message, args));
+        if (log.isDebugEnabled()) {
+            log.debug(LogMessageFormatter.format(message, args));
+        }
     }
 
     @Override
     public void info(String message, Object... args) {
-        log.info(getMsg(message, args));
+        if (log.isInfoEnabled()) {
+            log.info(LogMessageFormatter.format(message, args));
+        }
     }
 
     @Override
     public void warn(String message, Object... args) {
-        log.warn(getMsg(message, args));
+        if (log.isWarnEnabled()) {
+            log.warn(LogMessageFormatter.format(message, args));
+        }
     }
 
     @Override
     public void error(String message, Object... args) {
-        log.error(getMsg(message, args));
+        if (log.isErrorEnabled()) {
+            log.error(LogMessageFormatter.format(message, args));
+        }
     }
 
     @Override
     public void error(Throwable e, String message, Object... args) {
-        log.error(getMsg(message, args), e);
+        if (log.isErrorEnabled()) {
+            log.error(LogMessageFormatter.format(message, args), e);
+        }
     }
 
     @Override
@@ -47,13 +60,6 @@ public class Slf4jLog implements Log {
         log.error(e.getMessage(), e);
     }
 
-    private String getMsg(String message, Object... args) {
-        if (args != null && args.length != 0) {
-            return MessageFormat.format(message, args);
-        }
-        return message;
-    }
-
     @Override
     public boolean isDebugEnabled() {
         return log.isDebugEnabled();
@@ -79,19 +85,47 @@ public class Slf4jLog implements Log {
         log.debug(message, param);
     }
 
+    @Override
+    public void debug(ILogMessage message) {
+        if (log.isDebugEnabled()) {
+            log.debug(message.getMessage());
+        }
+    }
+
     @Override
     public void info(String message, ILogParam param) {
         log.info(message, param);
     }
 
+    @Override
+    public void info(ILogMessage message) {
+        if (log.isInfoEnabled()) {
+            log.info(message.getMessage());
+        }
+    }
+
     @Override
     public void warn(String message, ILogParam param) {
         log.warn(message, param);
     }
 
+    @Override
+    public void warn(ILogMessage message) {
+        if (log.isWarnEnabled()) {
+            log.warn(message.getMessage());
+        }
+    }
+
     @Override
     public void error(String message, ILogParam param) {
         log.error(message, param);
     }
 
+    @Override
+    public void error(ILogMessage message) {
+        if (log.isErrorEnabled()) {
+            log.error(message.getMessage());
+        }
+    }
+
 }
@@ -0,0 +1,258 @@
+package scanner.classpath;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * class文件头信息
+ * <p>
+ * 直接解析class文件的字节码，取得类名、父类、接口和类上的注解(运行时及class级别保留的)，
+ * 不加载类，也就不会触发类的静态初始化。类名均为以"."分隔的全限定名。
+ * </p>
+ */
+public class ClassFileHeader {
+
+    private static final int MAGIC = 0xCAFEBABE;
+    private static final int ACC_ANNOTATION = 0x2000;
+
+    private final String name;
+    private final String superName;
+    private final int access;
+    private final List<String> interfaceNames;
+    private final List<String> annotationNames;
+
+    ClassFileHeader(String name, String superName, int access, List<String> interfaceNames,
+                    List<String> annotationNames) {
+        this.name = name;
+        this.superName = superName;
+        this.access = access;
+        this.interfaceNames = Collections.unmodifiableList(interfaceNames);
+        this.annotationNames = Collections.unmodifiableList(annotationNames);
+    }
+
+    /**
+     * 从class文件的输入流解析头信息，不关闭输入流
+     *
+     * @param in class文件的输入流
+     * @return class文件头信息
+     * @throws IOException 如果读取出错或不是合法的class文件
+     */
+    public static ClassFileHeader read(InputStream in) throws IOException {
+        DataInputStream data = in instanceof DataInputStream ? (DataInputStream) in : new DataInputStream(in);
+        if (data.readInt() != MAGIC) {
+            throw new IOException("不是合法的class文件!");
+        }
+        data.readUnsignedShort(); // minor_version
+        data.readUnsignedShort(); // major_version
+
+        int poolCount = data.readUnsignedShort();
+        String[] utf8s = new String[poolCount];
+        int[] classes = new int[poolCount];
+        for (int i = 1; i < poolCount; i++) {
+            int tag = data.readUnsignedByte();
+            switch (tag) {
+                case 1: // Utf8
+                    utf8s[i] = data.readUTF();
+                    break;
+                case 7: // Class
+                    classes[i] = data.readUnsignedShort();
+                    break;
+                case 8: // String
+                case 16: // MethodType
+                case 19: // Module
+                case 20: // Package
+                    skip(data, 2);
+                    break;
+                case 15: // MethodHandle
+                    skip(data, 3);
+                    break;
+                case 3: // Integer
+                case 4: // Float
+                case 9: // Fieldref
+                case 10: // Methodref
+                case 11: // InterfaceMethodref
+                case 12: // NameAndType
+                case 17: // Dynamic
+                case 18: // InvokeDynamic
+                    skip(data, 4);
+                    break;
+                case 5: // Long
+                case 6: // Double
+                    skip(data, 8);
+                    i++; // 占两个常量池位置
+                    break;
+                default:
+                    throw new IOException("未知的常量池类型: " + tag);
+            }
+        }
+
+        int access = data.readUnsignedShort();
+        String name = className(utf8s, classes, data.readUnsignedShort());
+        String superName = className(utf8s, classes, data.readUnsignedShort());
+        int interfaceCount = data.readUnsignedShort();
+        List<String> interfaceNames = new ArrayList<String>(interfaceCount);
+        for (int i = 0; i < interfaceCount; i++) {
+            interfaceNames.add(className(utf8s, classes, data.readUnsignedShort()));
+        }
+
+        skipMembers(data); // fields
+        skipMembers(data); // methods
+
+        List<String> annotationNames = new ArrayList<String>(0);
+        int attributeCount = data.readUnsignedShort();
+        for (int i = 0; i < attributeCount; i++) {
+            String attributeName = utf8s[data.readUnsignedShort()];
+            int length = data.readInt();
+            if ("RuntimeVisibleAnnotations".equals(attributeName)
+                    || "RuntimeInvisibleAnnotations".equals(attributeName)) {
+                int annotationCount = data.readUnsignedShort();
+                for (int j = 0; j < annotationCount; j++) {
+                    annotationNames.add(descriptorToName(utf8s[data.readUnsignedShort()]));
+                    skipAnnotationBody(data);
+                }
+            } else {
+                skip(data, length);
+            }
+        }
+        return new ClassFileHeader(name, superName, access, interfaceNames, annotationNames);
+    }
+
+    private static String className(String[] utf8s, int[] classes, int index) {
+        if (index == 0) {
+            return null;
+        }
+        return utf8s[classes[index]].replace('/', '.');
+    }
+
+    private static String descriptorToName(String descriptor) {
+        // Lcom/foo/Bar; -> com.foo.Bar
+        return descriptor.substring(1, descriptor.length() - 1).replace('/', '.');
+    }
+
+    private static void skipMembers(DataInputStream data) throws IOException {
+        int count = data.readUnsignedShort();
+        for (int i = 0; i < count; i++) {
+            skip(data, 6); // access_flags, name_index, descriptor_index
+            int attributeCount = data.readUnsignedShort();
+            for (int j = 0; j < attributeCount; j++) {
+                skip(data, 2);
+                skip(data, data.readInt());
+            }
+        }
+    }
+
+    private static void skipAnnotationBody(DataInputStream data) throws IOException {
+        int pairCount = data.readUnsignedShort();
+        for (int i = 0; i < pairCount; i++) {
+            skip(data, 2); // element_name_index
+            skipElementValue(data);
+        }
+    }
+
+    private static void skipElementValue(DataInputStream data) throws IOException {
+        int tag = data.readUnsignedByte();
+        switch (tag) {
+            case 'e': // enum
+                skip(data, 4);
+                break;
+            case '@':
+                skip(data, 2);
+                skipAnnotationBody(data);
+                break;
+            case '[':
+                int count = data.readUnsignedShort();
+                for (int i = 0; i < count; i++) {
+                    skipElementValue(data);
+                }
+                break;
+            default: // 基本类型、String、Class
+                skip(data, 2);
+        }
+    }
+
+    private static void skip(DataInputStream data, int length) throws IOException {
+        int remaining = length;
+        while (remaining > 0) {
+            int skipped = data.skipBytes(remaining);
+            if (skipped <= 0) {
+                throw new IOException("class文件不完整!");
+            }
+            remaining -= skipped;
+        }
+    }
+
+    /**
+     * @return 类的全限定名
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return 父类的全限定名，java.lang.Object本身为null，接口为java.lang.Object
+     */
+    public String getSuperName() {
+        return superName;
+    }
+
+    /**
+     * @return class文件中的访问标志
+     */
+    public int getAccess() {
+        return access;
+    }
+
+    /**
+     * @return 直接实现的接口的全限定名
+     */
+    public List<String> getInterfaceNames() {
+        return interfaceNames;
+    }
+
+    /**
+     * @return 类上的注解的全限定名
+     */
+    public List<String> getAnnotationNames() {
+        return annotationNames;
+    }
+
+    public boolean isInterface() {
+        return Modifier.isInterface(access);
+    }
+
+    public boolean isAbstract() {
+        return Modifier.isAbstract(access);
+    }
+
+    public boolean isAnnotation() {
+        return (access & ACC_ANNOTATION) != 0;
+    }
+
+    /**
+     * @return true: 可实例化的具体类(非接口、非抽象类)
+     */
+    public boolean isConcrete() {
+        return !isInterface() && !isAbstract();
+    }
+
+    /**
+     * @param annotationName 注解的全限定名
+     * @return true: 类上直接标注了该注解
+     */
+    public boolean hasAnnotation(String annotationName) {
+        return annotationNames.contains(annotationName);
+    }
+
+    @Override
+    public String toString() {
+        return name + " extends " + superName + " implements " + Arrays.toString(interfaceNames.toArray())
+                + " annotated " + Arrays.toString(annotationNames.toArray());
+    }
+
+}
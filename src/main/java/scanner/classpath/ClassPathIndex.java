@@ -0,0 +1,288 @@
+package scanner.classpath;
+
+import io.FileTool;
+import io.IoTool;
+import log.Log;
+import log.LogFactory;
+
+import java.io.*;
+import java.net.URL;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+/**
+ * 类路径的class文件头索引
+ * <p>
+ * 按"容器"缓存扫描到的{@link ClassFileHeader}: jar中的位置以"jar路径!/位置"为key，按jar文件的修改时间整体失效；
+ * 目录以目录路径为key，其中每个class文件按各自的修改时间失效，未变化的文件不再重新解析。
+ * 索引可以保存为紧凑的二进制文件，供下次启动时复用。线程安全。
+ * </p>
+ */
+class ClassPathIndex {
+
+    private static final Log LOG = LogFactory.getLog(ClassPathIndex.class);
+
+    private static final int MAGIC = 0x43504958; // "CPIX"
+    private static final int VERSION = 1;
+    private static final String CLASS_SUFFIX = ".class";
+
+    private final ConcurrentMap<String, Container> containers = new ConcurrentHashMap<String, Container>();
+    private volatile boolean modified;
+
+    /**
+     * 从索引文件加载索引，文件不存在或已损坏时返回空索引
+     *
+     * @param file 索引文件
+     * @return 索引
+     */
+    static ClassPathIndex load(File file) {
+        ClassPathIndex index = new ClassPathIndex();
+        if (!file.isFile()) {
+            return index;
+        }
+        DataInputStream in = null;
+        try {
+            in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                LOG.warn("Ignoring incompatible classpath index: " + file);
+                return index;
+            }
+            int containerCount = in.readInt();
+            for (int i = 0; i < containerCount; i++) {
+                String key = in.readUTF();
+                long lastModified = in.readLong();
+                int entryCount = in.readInt();
+                Map<String, Entry> entries = new HashMap<String, Entry>(entryCount * 4 / 3 + 1);
+                for (int j = 0; j < entryCount; j++) {
+                    String resourceName = in.readUTF();
+                    long entryLastModified = in.readLong();
+                    entries.put(resourceName, new Entry(entryLastModified, readHeader(in)));
+                }
+                index.containers.put(key, new Container(lastModified, entries));
+            }
+            LOG.debug("Loaded classpath index: " + file + " (" + containerCount + " containers)");
+        } catch (IOException e) {
+            LOG.warn("Ignoring unreadable classpath index: " + file + " (" + e.getMessage() + ")");
+            index.containers.clear();
+        } finally {
+            IoTool.closeQuietly(in);
+        }
+        return index;
+    }
+
+    /**
+     * 索引有变化时保存到索引文件，先写临时文件再替换，避免并发读到不完整的文件
+     *
+     * @param file 索引文件
+     */
+    void saveIfModified(File file) {
+        if (!modified) {
+            return;
+        }
+        File parent = file.getAbsoluteFile().getParentFile();
+        if (parent != null && !parent.exists() && !parent.mkdirs()) {
+            LOG.warn("Unable to create directory for classpath index: " + parent);
+            return;
+        }
+        File temp = new File(file.getPath() + ".tmp");
+        DataOutputStream out = null;
+        try {
+            out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)));
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            Map<String, Container> snapshot = new TreeMap<String, Container>(containers);
+            out.writeInt(snapshot.size());
+            for (Map.Entry<String, Container> container : snapshot.entrySet()) {
+                out.writeUTF(container.getKey());
+                out.writeLong(container.getValue().lastModified);
+                Map<String, Entry> entries = container.getValue().entries;
+                out.writeInt(entries.size());
+                for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+                    out.writeUTF(entry.getKey());
+                    out.writeLong(entry.getValue().lastModified);
+                    writeHeader(out, entry.getValue().header);
+                }
+            }
+            out.close();
+            out = null;
+            if (file.exists() && !file.delete() || !temp.renameTo(file)) {
+                LOG.warn("Unable to replace classpath index: " + file);
+                return;
+            }
+            modified = false;
+            LOG.debug("Saved classpath index: " + file + " (" + snapshot.size() + " containers)");
+        } catch (IOException e) {
+            LOG.warn("Unable to save classpath index: " + file + " (" + e.getMessage() + ")");
+        } finally {
+            IoTool.closeQuietly(out);
+            if (temp.exists() && !temp.delete()) {
+                LOG.debug("Unable to delete temp file: " + temp);
+            }
+        }
+    }
+
+    /**
+     * 取得类路径位置下所有class文件的头信息，未变化的部分直接取自索引
+     *
+     * @param location    类路径中的位置
+     * @param locationUrl 该位置对应的物理URL
+     * @return class文件头信息
+     * @throws IOException 如果扫描出错
+     */
+    List<ClassFileHeader> scan(String location, URL locationUrl) throws IOException {
+        String protocol = locationUrl.getProtocol();
+        if ("file".equals(protocol)) {
+            return scanDirectory(location, locationUrl);
+        }
+        if ("jar".equals(protocol) || "zip".equals(protocol) || "wsjar".equals(protocol)) {
+            return scanJar(location, locationUrl);
+        }
+        LOG.warn("Unable to scan location: " + locationUrl + " (unsupported protocol: " + protocol + ")");
+        return Collections.emptyList();
+    }
+
+    private List<ClassFileHeader> scanJar(String location, URL locationUrl) throws IOException {
+        JarFile jarFile = new JarFileClassPathLocationScanner().getJarFromUrl(locationUrl);
+        try {
+            String key = jarFile.getName() + "!/" + location;
+            long lastModified = new File(jarFile.getName()).lastModified();
+            Container container = containers.get(key);
+            if (container != null && container.lastModified == lastModified && lastModified != 0) {
+                LOG.debug("Reusing classpath index for: " + key);
+                return container.headers();
+            }
+            Map<String, Entry> entries = new HashMap<String, Entry>();
+            Enumeration<JarEntry> jarEntries = jarFile.entries();
+            while (jarEntries.hasMoreElements()) {
+                JarEntry jarEntry = jarEntries.nextElement();
+                String name = jarEntry.getName();
+                if (name.startsWith(location) && name.endsWith(CLASS_SUFFIX)) {
+                    ClassFileHeader header = readHeader(jarFile.getInputStream(jarEntry), name);
+                    if (header != null) {
+                        entries.put(name, new Entry(lastModified, header));
+                    }
+                }
+            }
+            container = new Container(lastModified, entries);
+            containers.put(key, container);
+            modified = true;
+            return container.headers();
+        } finally {
+            jarFile.close();
+        }
+    }
+
+    private List<ClassFileHeader> scanDirectory(String location, URL locationUrl) throws IOException {
+        File folder = FileTool.toFile(locationUrl);
+        String key = folder.getPath();
+        Container previous = containers.get(key);
+        Set<String> resourceNames = new FileSystemClassPathLocationScanner().findResourceNames(location, locationUrl);
+        String filePath = folder.getPath();
+        File classPathRoot = new File(filePath.substring(0, filePath.length() - location.length()));
+
+        Map<String, Entry> entries = new HashMap<String, Entry>();
+        boolean changed = previous == null;
+        for (String resourceName : resourceNames) {
+            if (!resourceName.endsWith(CLASS_SUFFIX)) {
+                continue;
+            }
+            File file = new File(classPathRoot, resourceName);
+            long lastModified = file.lastModified();
+            Entry entry = previous == null ? null : previous.entries.get(resourceName);
+            if (entry == null || entry.lastModified != lastModified) {
+                ClassFileHeader header = readHeader(new FileInputStream(file), resourceName);
+                if (header == null) {
+                    continue;
+                }
+                entry = new Entry(lastModified, header);
+                changed = true;
+            }
+            entries.put(resourceName, entry);
+        }
+        if (changed || previous.entries.size() != entries.size()) {
+            containers.put(key, new Container(0, entries));
+            modified = true;
+        }
+        return new Container(0, entries).headers();
+    }
+
+    private static ClassFileHeader readHeader(InputStream in, String resourceName) {
+        try {
+            return ClassFileHeader.read(new BufferedInputStream(in));
+        } catch (IOException e) {
+            LOG.warn("Skipping unreadable class file: " + resourceName + " (" + e.getMessage() + ")");
+            return null;
+        } finally {
+            IoTool.closeQuietly(in);
+        }
+    }
+
+    private static ClassFileHeader readHeader(DataInputStream in) throws IOException {
+        int access = in.readInt();
+        String name = in.readUTF();
+        String superName = in.readUTF();
+        return new ClassFileHeader(name, superName.length() == 0 ? null : superName, access, readNames(in),
+                readNames(in));
+    }
+
+    private static List<String> readNames(DataInputStream in) throws IOException {
+        int count = in.readUnsignedShort();
+        List<String> names = new ArrayList<String>(count);
+        for (int i = 0; i < count; i++) {
+            names.add(in.readUTF());
+        }
+        return names;
+    }
+
+    private static void writeHeader(DataOutputStream out, ClassFileHeader header) throws IOException {
+        out.writeInt(header.getAccess());
+        out.writeUTF(header.getName());
+        out.writeUTF(header.getSuperName() == null ? "" : header.getSuperName());
+        writeNames(out, header.getInterfaceNames());
+        writeNames(out, header.getAnnotationNames());
+    }
+
+    private static void writeNames(DataOutputStream out, List<String> names) throws IOException {
+        out.writeShort(names.size());
+        for (String name : names) {
+            out.writeUTF(name);
+        }
+    }
+
+    /**
+     * 一个jar中的位置或一个目录的索引
+     */
+    private static class Container {
+
+        private final long lastModified; // jar文件的修改时间，目录为0
+        private final Map<String, Entry> entries; // key为资源名
+
+        private Container(long lastModified, Map<String, Entry> entries) {
+            this.lastModified = lastModified;
+            this.entries = entries;
+        }
+
+        private List<ClassFileHeader> headers() {
+            List<ClassFileHeader> headers = new ArrayList<ClassFileHeader>(entries.size());
+            for (Entry entry : entries.values()) {
+                headers.add(entry.header);
+            }
+            return headers;
+        }
+    }
+
+    private static class Entry {
+
+        private final long lastModified;
+        private final ClassFileHeader header;
+
+        private Entry(long lastModified, ClassFileHeader header) {
+            this.lastModified = lastModified;
+            this.header = header;
+        }
+    }
+
+}
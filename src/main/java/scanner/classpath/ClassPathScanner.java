@@ -17,23 +17,35 @@ package scanner.classpath;
 
 import exception.SystemException;
 import io.FileTool;
-import lang.ClassTool;
+import io.IoTool;
 import log.Log;
 import log.LogFactory;
 import scanner.support.Resource;
 
+import java.io.File;
 import java.io.IOException;
-import java.lang.reflect.Modifier;
+import java.io.InputStream;
+import java.lang.annotation.Annotation;
 import java.net.URL;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * ClassPath scanner.
+ * <p/>
+ * Locations (directories and jars) are scanned in parallel. Classes are matched
+ * by reading their class file headers, so no class is loaded or initialized
+ * while scanning. An optional index file caches the headers per jar (keyed by
+ * jar path and modification time) and per class file in directories, so that
+ * the next scan only re-reads what has changed.
  */
 public class ClassPathScanner {
 
     protected static final Log LOG = LogFactory.getLog(ClassPathScanner.class);
 
+    private static final AtomicInteger THREAD_NUMBER = new AtomicInteger();
+
     /**
      * Scans the classpath for resources under the specified location, starting
      * with the specified prefix and ending with the specified suffix.
@@ -66,7 +78,8 @@ public class ClassPathScanner {
     /**
      * Scans the classpath for concrete classes under the specified package
      * implementing this interface. Non-instantiable abstract classes are
-     * filtered out.
+     * filtered out. The candidates are matched by their class file headers;
+     * only the matching classes are loaded, and they are not initialized.
      *
      * @param location             The location (package) in the classpath to start
      *                             scanning. Subpackages are also scanned.
@@ -81,22 +94,8 @@ public class ClassPathScanner {
         List<Class<?>> classes = new ArrayList<Class<?>>();
 
         try {
-            Set<String> resourceNames = findResourceNames(location, "", ".class");
-            for (String resourceName : resourceNames) {
-                String className = toClassName(resourceName);
-                Class<?> clazz = getClassLoader().loadClass(className);
-
-                if (Modifier.isAbstract(clazz.getModifiers())) {
-                    LOG.debug("Skipping abstract class: " + className);
-                    continue;
-                }
-
-                if (!implementedInterface.isAssignableFrom(clazz)) {
-                    continue;
-                }
-
-                ClassTool.instantiate(className);
-                classes.add(clazz);
+            for (String className : scanForClassNames(location, implementedInterface, null)) {
+                classes.add(Class.forName(className, false, getClassLoader()));
                 LOG.debug("Found class: " + className);
             }
         } catch (Exception e) {
@@ -107,14 +106,203 @@ public class ClassPathScanner {
     }
 
     /**
-     * Converts this resource name to a fully qualified class name.
+     * Scans the classpath for the names of the concrete classes under the
+     * specified location that extend or implement this type, without loading
+     * any class.
+     *
+     * @param location  The location (package) in the classpath to start
+     *                  scanning. Subpackages are also scanned.
+     * @param superType The class or interface the matching classes should
+     *                  extend or implement.
+     * @param indexFile The index file to reuse and update, {@code null} for none.
+     * @return The sorted names of the non-abstract classes that were found.
+     * @throws SystemException when the location could not be scanned.
+     */
+    public static String[] scanForClassNames(String location, Class<?> superType, File indexFile) {
+        Map<String, ClassFileHeader> headers = scanForClassHeaderMap(location, indexFile);
+        Map<String, ClassFileHeader> resolved = new HashMap<String, ClassFileHeader>(headers);
+        List<String> classNames = new ArrayList<String>();
+        for (ClassFileHeader header : headers.values()) {
+            if (header.isConcrete() && isSubtype(header, superType.getName(), resolved, new HashSet<String>())) {
+                classNames.add(header.getName());
+            }
+        }
+        return classNames.toArray(new String[classNames.size()]);
+    }
+
+    /**
+     * Scans the classpath for the names of the classes under the specified
+     * location that are directly annotated with this annotation, without
+     * loading any class. The annotation must not have {@code SOURCE} retention.
+     *
+     * @param location       The location (package) in the classpath to start
+     *                       scanning. Subpackages are also scanned.
+     * @param annotationType The annotation the matching classes should carry.
+     * @param indexFile      The index file to reuse and update, {@code null} for none.
+     * @return The sorted names of the classes that were found.
+     * @throws SystemException when the location could not be scanned.
+     */
+    public static String[] scanForAnnotatedClassNames(String location, Class<? extends Annotation> annotationType,
+                                                      File indexFile) {
+        List<String> classNames = new ArrayList<String>();
+        for (ClassFileHeader header : scanForClassHeaderMap(location, indexFile).values()) {
+            if (header.hasAnnotation(annotationType.getName())) {
+                classNames.add(header.getName());
+            }
+        }
+        return classNames.toArray(new String[classNames.size()]);
+    }
+
+    /**
+     * Reads the class file headers of all classes under the specified location.
+     * When a class is present in several locations, the first one on the
+     * classpath wins.
+     *
+     * @param location  The location (package) in the classpath to start
+     *                  scanning. Subpackages are also scanned.
+     * @param indexFile The index file to reuse and update, {@code null} for none.
+     * @return The headers, sorted by class name.
+     * @throws SystemException when the location could not be scanned.
+     */
+    public static ClassFileHeader[] scanForClassHeaders(String location, File indexFile) {
+        Collection<ClassFileHeader> headers = scanForClassHeaderMap(location, indexFile).values();
+        return headers.toArray(new ClassFileHeader[headers.size()]);
+    }
+
+    private static Map<String, ClassFileHeader> scanForClassHeaderMap(final String location, File indexFile) {
+        LOG.debug("Scanning for class headers at '" + location + "' (Index: " + indexFile + ")");
+        final ClassPathIndex index = indexFile == null ? new ClassPathIndex() : ClassPathIndex.load(indexFile);
+        Map<String, ClassFileHeader> headers = new TreeMap<String, ClassFileHeader>();
+        try {
+            List<List<ClassFileHeader>> results = scanInParallel(getLocationUrlsForPath(location),
+                    new LocationTask<List<ClassFileHeader>>() {
+                        public List<ClassFileHeader> scan(URL locationUrl) throws IOException {
+                            return index.scan(location, locationUrl);
+                        }
+                    });
+            for (List<ClassFileHeader> result : results) {
+                for (ClassFileHeader header : result) {
+                    if (!headers.containsKey(header.getName())) {
+                        headers.put(header.getName(), header);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new SystemException(e, "Unable to scan classpath location: {0}", location);
+        }
+        if (indexFile != null) {
+            index.saveIfModified(indexFile);
+        }
+        return headers;
+    }
+
+    /**
+     * Checks whether the class described by this header extends or implements
+     * the type, reading the headers of supertypes outside the scanned location
+     * from the classpath when needed.
+     */
+    private static boolean isSubtype(ClassFileHeader header, String typeName, Map<String, ClassFileHeader> resolved,
+                                     Set<String> visited) {
+        if (typeName.equals(header.getName())) {
+            return true;
+        }
+        if (!visited.add(header.getName())) {
+            return false;
+        }
+        List<String> superTypes = new ArrayList<String>(header.getInterfaceNames());
+        if (header.getSuperName() != null) {
+            superTypes.add(header.getSuperName());
+        }
+        for (String superTypeName : superTypes) {
+            if (typeName.equals(superTypeName)) {
+                return true;
+            }
+            ClassFileHeader superHeader = resolveHeader(superTypeName, resolved);
+            if (superHeader != null && isSubtype(superHeader, typeName, resolved, visited)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static ClassFileHeader resolveHeader(String className, Map<String, ClassFileHeader> resolved) {
+        if (resolved.containsKey(className)) {
+            return resolved.get(className);
+        }
+        ClassFileHeader header = null;
+        if (!"java.lang.Object".equals(className)) {
+            String resourceName = className.replace('.', '/') + ".class";
+            InputStream in = getClassLoader().getResourceAsStream(resourceName);
+            if (in != null) {
+                try {
+                    header = ClassFileHeader.read(in);
+                } catch (IOException e) {
+                    LOG.debug("Unable to read class file header: " + resourceName + " (" + e.getMessage() + ")");
+                } finally {
+                    IoTool.closeQuietly(in);
+                }
+            }
+        }
+        resolved.put(className, header);
+        return header;
+    }
+
+    /**
+     * Runs the task for each location url in parallel.
      *
-     * @param resourceName The resource name.
-     * @return The class name.
+     * @return The results, in the order of the urls.
+     */
+    private static <T> List<T> scanInParallel(List<URL> locationUrls, final LocationTask<T> task)
+            throws IOException {
+        List<T> results = new ArrayList<T>(locationUrls.size());
+        int threads = Math.min(locationUrls.size(), Runtime.getRuntime().availableProcessors());
+        if (threads <= 1) {
+            for (URL locationUrl : locationUrls) {
+                LOG.debug("Scanning URL: " + locationUrl.toExternalForm());
+                results.add(task.scan(locationUrl));
+            }
+            return results;
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "classpath-scanner-" + THREAD_NUMBER.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        try {
+            List<Future<T>> futures = new ArrayList<Future<T>>(locationUrls.size());
+            for (final URL locationUrl : locationUrls) {
+                futures.add(executor.submit(new Callable<T>() {
+                    public T call() throws IOException {
+                        LOG.debug("Scanning URL: " + locationUrl.toExternalForm());
+                        return task.scan(locationUrl);
+                    }
+                }));
+            }
+            for (Future<T> future : futures) {
+                results.add(future.get());
+            }
+            return results;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SystemException(e, "Interrupted while scanning the classpath");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new SystemException(e.getCause(), "Unable to scan the classpath");
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Scans one location url.
      */
-    private static String toClassName(String resourceName) {
-        String nameWithDots = resourceName.replace("/", ".");
-        return nameWithDots.substring(0, (nameWithDots.length() - ".class".length()));
+    private interface LocationTask<T> {
+        T scan(URL locationUrl) throws IOException;
     }
 
     /**
@@ -127,21 +315,24 @@ public class ClassPathScanner {
      * @return The resource names.
      * @throws IOException when scanning this location failed.
      */
-    private static Set<String> findResourceNames(String path, String prefix, String suffix) throws IOException {
+    private static Set<String> findResourceNames(final String path, String prefix, String suffix) throws IOException {
         Set<String> resourceNames = new TreeSet<String>();
 
         List<URL> locationsUrls = getLocationUrlsForPath(path);
-        for (URL locationUrl : locationsUrls) {
-            LOG.debug("Scanning URL: " + locationUrl.toExternalForm());
-
-            String protocol = locationUrl.getProtocol();
-            ClassPathLocationScanner classPathLocationScanner = createLocationScanner(protocol);
-            if (classPathLocationScanner == null) {
-                String scanRoot = FileTool.toFile(locationUrl).getPath();
-                LOG.warn("Unable to scan location: " + scanRoot + " (unsupported protocol: " + protocol + ")");
-            } else {
-                resourceNames.addAll(classPathLocationScanner.findResourceNames(path, locationUrl));
+        List<Set<String>> results = scanInParallel(locationsUrls, new LocationTask<Set<String>>() {
+            public Set<String> scan(URL locationUrl) throws IOException {
+                String protocol = locationUrl.getProtocol();
+                ClassPathLocationScanner classPathLocationScanner = createLocationScanner(protocol);
+                if (classPathLocationScanner == null) {
+                    String scanRoot = FileTool.toFile(locationUrl).getPath();
+                    LOG.warn("Unable to scan location: " + scanRoot + " (unsupported protocol: " + protocol + ")");
+                    return Collections.emptySet();
+                }
+                return classPathLocationScanner.findResourceNames(path, locationUrl);
             }
+        });
+        for (Set<String> result : results) {
+            resourceNames.addAll(result);
         }
 
         return filterResourceNames(resourceNames, prefix, suffix);
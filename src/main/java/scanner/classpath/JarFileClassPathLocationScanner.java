@@ -46,7 +46,7 @@ public class JarFileClassPathLocationScanner implements ClassPathLocationScanner
      * @return The jar file.
      * @throws IOException when the jar could not be resolved.
      */
-    private JarFile getJarFromUrl(URL locationUrl) throws IOException {
+    JarFile getJarFromUrl(URL locationUrl) throws IOException {
         URLConnection con = locationUrl.openConnection();
         if (con instanceof JarURLConnection) {
             // Should usually be the case for traditional JAR files.
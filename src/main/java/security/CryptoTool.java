@@ -1,6 +1,7 @@
 package security;
 
 import exception.SystemException;
+import lang.string.HexCodec;
 
 import javax.crypto.Cipher;
 import javax.crypto.KeyGenerator;
@@ -27,10 +28,6 @@ public class CryptoTool {
     private static final int DEFAULT_AES_KEYSIZE = 128;
     private static final int DEFAULT_IVSIZE = 16;
 
-    private static final char[] DIGITS = {
-            '0', '1', '2', '3', '4', '5', '6', '7', '8', '9', 'a', 'b', 'c', 'd', 'e', 'f'
-    };
-
     private static final SecureRandom random = new SecureRandom();
 
     //-- HMAC-SHA1 function --//
@@ -217,15 +214,8 @@ public class CryptoTool {
      * @return 十六进制表示的字符数组
      */
     public static char[] encodeHex(byte[] data) {
-        int l = data.length;
-        char[] out = new char[l << 1];
-
-        // two characters form the hex value.
-        for (int i = 0, j = 0; i < l; i++) {
-            out[j++] = DIGITS[(0xF0 & data[i]) >>> 4];
-            out[j++] = DIGITS[0x0F & data[i]];
-        }
-
+        char[] out = new char[data.length << 1];
+        HexCodec.encode(data, 0, data.length, out, 0, false);
         return out;
     }
 
@@ -234,16 +224,12 @@ public class CryptoTool {
      *
      * @param bytes 十六进制编码的字节数组
      * @return 解码后的字节数组
+     * @throws SystemException 如果长度为奇数或含有非十六进制字符
      */
     public static byte[] decodeHex(byte[] bytes) {
-        int iLen = bytes.length;
-        // 两个字符表示一个字节，所以字节数组长度是字符串长度除以2
-        byte[] arrOut = new byte[iLen / 2];
-        for (int i = 0; i < iLen; i = i + 2) {
-            String strTmp = new String(bytes, i, 2);
-            arrOut[i / 2] = (byte) Integer.parseInt(strTmp, 16);
-        }
-        return arrOut;
+        byte[] out = new byte[bytes.length / 2];
+        HexCodec.decode(bytes, 0, bytes.length, out, 0);
+        return out;
     }
 
 }
\ No newline at end of file
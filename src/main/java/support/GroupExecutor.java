@@ -1,8 +1,10 @@
 package support;
 
-import java.util.ArrayList;
-import java.util.Collection;
-import java.util.List;
+import exception.SystemException;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * <p>
@@ -21,11 +23,18 @@ import java.util.List;
  *
  *  }.execute();
  * </pre>
+ * </p>
+ * <p>
+ * 除了在当前线程中串行执行外，还可以通过{@link #executeAsync(ExecutorService, int, boolean)}
+ * 交给线程池(包括ForkJoinPool等任意ExecutorService)以限定的并行度并发执行各组，此时groupExecute必须是线程安全的。
+ * 元素来源为Iterator时按需读取，同一时刻最多只有"并行度"个分组在内存中，适合无法预先全部装入List的大数据源。
+ * </p>
  */
 public abstract class GroupExecutor<E> {
 
     private final int groupSize; // 每组大小
     private final Collection<E> elements; // 元素集合
+    private final Iterator<E> iterator; // 元素迭代器，只能执行一次
 
     /**
      * 构造器，分组大小默认为1000
@@ -37,31 +46,101 @@ public abstract class GroupExecutor<E> {
     }
 
     /**
-     * 构造器
+     * 构造器，每次执行时先复制元素集合，分组为副本的子列表视图
      *
      * @param elements  所有要分组的元素集合
      * @param groupSize 分组大小
+     * @throws IllegalArgumentException 如果分组大小小于1
      */
     public GroupExecutor(Collection<E> elements, int groupSize) {
+        this(elements, null, groupSize);
+    }
+
+    /**
+     * 构造器，元素按需从迭代器中读取，不会预先复制到List中，只能执行一次
+     *
+     * @param iterator  所有要分组的元素的迭代器
+     * @param groupSize 分组大小
+     * @throws IllegalArgumentException 如果分组大小小于1
+     */
+    public GroupExecutor(Iterator<E> iterator, int groupSize) {
+        this(null, iterator, groupSize);
+    }
+
+    private GroupExecutor(Collection<E> elements, Iterator<E> iterator, int groupSize) {
+        if (groupSize < 1) {
+            throw new IllegalArgumentException("分组大小必须大于0: " + groupSize);
+        }
         this.elements = elements;
+        this.iterator = iterator;
         this.groupSize = groupSize;
     }
 
     /**
-     * 执行操作
+     * 在当前线程中串行执行操作，某组出错时抛出其异常，后续分组不再执行
      */
     public void execute() {
-        int size = elements.size();
-        int groupCount = (int) Math.ceil(size / (double) groupSize);
-        List<E> elemList = new ArrayList<E>(elements);
-        for (int index = 0; index < groupCount; index++) {
-            int from = index * groupSize;
-            int end = (index == groupCount - 1 ? elemList.size() : from + groupSize);
-            List<E> subList = elemList.subList(from, end);
+        GroupCursor cursor = newCursor();
+        List<E> subList;
+        while ((subList = cursor.next()) != null) {
             groupExecute(subList);
         }
     }
 
+    /**
+     * 使用线程池以限定的并行度并发执行各组，并等待全部执行完成
+     *
+     * @param executor    线程池
+     * @param parallelism 并行度，即同时执行的最大分组数
+     * @param failFast    true: 某组出错后不再执行尚未开始的分组; false: 执行所有分组并收集所有错误
+     * @return 执行结果
+     * @throws SystemException 如果等待时被中断
+     */
+    public Result execute(ExecutorService executor, int parallelism, boolean failFast) {
+        try {
+            return executeAsync(executor, parallelism, failFast).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SystemException(e, "等待分组执行完成时被中断！");
+        } catch (ExecutionException e) {
+            throw new SystemException(e.getCause(), "分组执行出错！");
+        }
+    }
+
+    /**
+     * 使用线程池以限定的并行度异步执行各组
+     * <p>
+     * 向线程池提交"并行度"个工作任务，每个任务执行完一组后再从元素来源中读取下一组，
+     * 因此线程池的队列中不会堆积分组，迭代器来源也只会被按需读取。
+     * 取消返回的Future时，尚未开始的分组不再执行，正在执行的分组不会被中断。
+     * </p>
+     *
+     * @param executor    线程池
+     * @param parallelism 并行度，即同时执行的最大分组数
+     * @param failFast    true: 某组出错后不再执行尚未开始的分组; false: 执行所有分组并收集所有错误
+     * @return 执行结果的Future，分组的错误记录在结果中，不会使Future.get抛出ExecutionException
+     * @throws IllegalArgumentException 如果线程池为null或并行度小于1
+     */
+    public Future<Result> executeAsync(ExecutorService executor, int parallelism, boolean failFast) {
+        if (executor == null) {
+            throw new IllegalArgumentException("线程池不能为null!");
+        }
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("并行度必须大于0: " + parallelism);
+        }
+        ParallelExecution execution = new ParallelExecution(newCursor(), parallelism, failFast);
+        int rejected = 0;
+        for (int i = 0; i < parallelism; i++) {
+            try {
+                executor.execute(execution.new Worker());
+            } catch (RejectedExecutionException e) {
+                rejected++;
+                execution.workerRejected(e, rejected == parallelism);
+            }
+        }
+        return execution;
+    }
+
     /**
      * 分组执行
      *
@@ -69,4 +148,255 @@ public abstract class GroupExecutor<E> {
      */
     protected abstract void groupExecute(List<E> subList);
 
+    private GroupCursor newCursor() {
+        if (elements != null) { // 每次执行前复制一份，分组是副本的视图，groupExecute修改分组或调用方修改集合都互不影响
+            return new ListCursor(new ArrayList<E>(elements));
+        }
+        return new IteratorCursor(iterator);
+    }
+
+    /**
+     * 分组游标，按顺序产生各组
+     */
+    private abstract class GroupCursor {
+
+        private int groupIndex;
+
+        /**
+         * @return 下一组，没有时返回null
+         */
+        abstract List<E> next();
+
+        /**
+         * 线程安全地取得下一组及其序号
+         *
+         * @return 下一组，没有时返回null
+         */
+        synchronized IndexedGroup nextIndexed() {
+            List<E> subList = next();
+            return subList == null ? null : new IndexedGroup(groupIndex++, subList);
+        }
+    }
+
+    private class ListCursor extends GroupCursor {
+
+        private final List<E> list;
+        private int from;
+
+        private ListCursor(List<E> list) {
+            this.list = list;
+        }
+
+        @Override
+        List<E> next() {
+            if (from >= list.size()) {
+                return null;
+            }
+            int end = Math.min(from + groupSize, list.size());
+            List<E> subList = list.subList(from, end);
+            from = end;
+            return subList;
+        }
+    }
+
+    private class IteratorCursor extends GroupCursor {
+
+        private final Iterator<E> source;
+
+        private IteratorCursor(Iterator<E> source) {
+            this.source = source;
+        }
+
+        @Override
+        List<E> next() {
+            if (!source.hasNext()) {
+                return null;
+            }
+            List<E> subList = new ArrayList<E>(groupSize);
+            while (subList.size() < groupSize && source.hasNext()) {
+                subList.add(source.next());
+            }
+            return subList;
+        }
+    }
+
+    private class IndexedGroup {
+
+        private final int index;
+        private final List<E> subList;
+
+        private IndexedGroup(int index, List<E> subList) {
+            this.index = index;
+            this.subList = subList;
+        }
+    }
+
+    /**
+     * 一次并发执行，同时也是其结果的Future
+     */
+    private class ParallelExecution implements Future<Result> {
+
+        private final GroupCursor cursor;
+        private final boolean failFast;
+        private final AtomicInteger activeWorkers;
+        private final AtomicInteger groupCount = new AtomicInteger();
+        private final AtomicInteger elementCount = new AtomicInteger();
+        private final Map<Integer, Throwable> errors = new ConcurrentSkipListMap<Integer, Throwable>();
+        private final CountDownLatch done = new CountDownLatch(1);
+        private volatile boolean stopped;
+        private volatile boolean cancelled;
+        private volatile Result result;
+
+        private ParallelExecution(GroupCursor cursor, int parallelism, boolean failFast) {
+            this.cursor = cursor;
+            this.failFast = failFast;
+            this.activeWorkers = new AtomicInteger(parallelism);
+        }
+
+        private class Worker implements Runnable {
+
+            @Override
+            public void run() {
+                try {
+                    while (!stopped) {
+                        IndexedGroup group;
+                        try {
+                            group = cursor.nextIndexed();
+                        } catch (Throwable e) {
+                            errors.put(-1, e); // 读取元素来源出错
+                            stopped = true;
+                            break;
+                        }
+                        if (group == null) {
+                            break;
+                        }
+                        try {
+                            groupExecute(group.subList);
+                            groupCount.incrementAndGet();
+                            elementCount.addAndGet(group.subList.size());
+                        } catch (Throwable e) {
+                            errors.put(group.index, e);
+                            if (failFast) {
+                                stopped = true;
+                            }
+                        }
+                    }
+                } finally {
+                    workerFinished();
+                }
+            }
+        }
+
+        private void workerRejected(RejectedExecutionException e, boolean allRejected) {
+            if (allRejected) {
+                errors.put(-1, e); // 一个工作任务都没有提交成功
+            }
+            workerFinished();
+        }
+
+        private void workerFinished() {
+            if (activeWorkers.decrementAndGet() == 0) {
+                result = new Result(groupCount.get(), elementCount.get(), new TreeMap<Integer, Throwable>(errors));
+                done.countDown();
+            }
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            if (isDone()) {
+                return false;
+            }
+            cancelled = true;
+            stopped = true;
+            return true;
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        @Override
+        public boolean isDone() {
+            return cancelled || done.getCount() == 0;
+        }
+
+        @Override
+        public Result get() throws InterruptedException {
+            if (cancelled) {
+                throw new CancellationException();
+            }
+            done.await();
+            return result;
+        }
+
+        @Override
+        public Result get(long timeout, TimeUnit unit) throws InterruptedException, TimeoutException {
+            if (cancelled) {
+                throw new CancellationException();
+            }
+            if (!done.await(timeout, unit)) {
+                throw new TimeoutException();
+            }
+            return result;
+        }
+    }
+
+    /**
+     * 并发分组执行的结果
+     */
+    public static class Result {
+
+        private final int groupCount;
+        private final int elementCount;
+        private final Map<Integer, Throwable> errors;
+
+        private Result(int groupCount, int elementCount, Map<Integer, Throwable> errors) {
+            this.groupCount = groupCount;
+            this.elementCount = elementCount;
+            this.errors = Collections.unmodifiableMap(errors);
+        }
+
+        /**
+         * @return 成功执行的分组数
+         */
+        public int getGroupCount() {
+            return groupCount;
+        }
+
+        /**
+         * @return 成功执行的元素数
+         */
+        public int getElementCount() {
+            return elementCount;
+        }
+
+        /**
+         * @return Map<分组序号(从0开始，-1表示读取元素来源或提交任务出错), 异常>，按序号排序
+         */
+        public Map<Integer, Throwable> getErrors() {
+            return errors;
+        }
+
+        /**
+         * @return true: 所有分组都执行成功
+         */
+        public boolean isSuccess() {
+            return errors.isEmpty();
+        }
+
+        /**
+         * 有分组出错时抛出异常
+         *
+         * @throws SystemException 以序号最小的分组的异常为cause
+         */
+        public void checkErrors() {
+            if (!errors.isEmpty()) {
+                Map.Entry<Integer, Throwable> first = errors.entrySet().iterator().next();
+                throw new SystemException(first.getValue(), "{0}个分组执行出错，第一个出错的分组序号为{1}！",
+                        errors.size(), first.getKey());
+            }
+        }
+    }
+
 }
@@ -1,20 +1,56 @@
 package support;
 
+import support.id.RandomHexIdGenerator;
+import support.id.UlidGenerator;
+import support.id.UuidV7Generator;
+
 import java.util.UUID;
 
 /**
  * ID生成器
+ * <p>
+ * 需要long型的有序ID时使用{@link support.id.SnowflakeIdGenerator}，需配置机器号。
+ * </p>
  */
 public class IdGenerator {
 
+    private static final RandomHexIdGenerator hexIdGenerator = new RandomHexIdGenerator();
+    private static final UlidGenerator ulidGenerator = new UlidGenerator();
+    private static final UuidV7Generator uuidV7Generator = new UuidV7Generator();
+
     private IdGenerator() {
     }
 
     /**
-     * 生成不带分隔符的32位UUID(大写)
+     * 生成不带分隔符的32位UUID(大写)，随机数来自{@link java.security.SecureRandom}，可以用作令牌等不可预测的值
      */
     public static String gen32Uuid() {
         return UUID.randomUUID().toString().replaceAll("-", "").toUpperCase();
     }
 
+    /**
+     * 生成不带分隔符的32位UUID(大写)，格式与{@link #gen32Uuid()}相同
+     * <p>
+     * 随机数来自线程本地的伪随机数生成器，不争用共享的SecureRandom，速度更快，但结果可以被预测，
+     * 只能用作标识，不能用作令牌、密码重置链接等安全相关的值。
+     * </p>
+     */
+    public static String genFast32Uuid() {
+        return hexIdGenerator.nextId();
+    }
+
+    /**
+     * 生成26位的ULID，按时间有序
+     */
+    public static String genUlid() {
+        return ulidGenerator.nextId();
+    }
+
+    /**
+     * 生成第7版UUID，按时间有序
+     */
+    public static UUID genUuidV7() {
+        return uuidV7Generator.nextId();
+    }
+
 }
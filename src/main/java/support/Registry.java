@@ -1,19 +1,98 @@
 package support;
 
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * 注册器
+ * <p>
+ * 所有注册信息保存在一个不可变的Map快照中，每个key对应一个不可变的列表。
+ * 注册时复制快照、修改后通过CAS整体发布(写时复制)，因此查询无锁、不分配对象，
+ * 批量注册的所有条目对查询线程同时可见。适合启动时注册、运行时频繁查询的场景。
+ * </p>
  */
 public class Registry {
 
     /**
-     * 所有注册的对象Map
+     * 注册信息变化的监听器
      */
-    private static final Map<String, List<Object>> map = new HashMap<String, List<Object>>();
+    public interface Listener {
+
+        /**
+         * 某个key注册的对象发生变化后回调，在执行注册的线程中调用。
+         * 各次通知是串行的，且传入的是通知时最新的注册信息，因此最后一次通知总是反映当前的状态
+         *
+         * @param key        key
+         * @param registered 变化后该key注册的所有对象(不可修改)
+         */
+        void onChange(String key, List<Object> registered);
+    }
+
+    /**
+     * 带类型的key，与同名的字符串key共享注册信息，按带类型的key查询时只返回该类型的实例
+     *
+     * @param <T> 注册对象的类型
+     */
+    public static final class Key<T> {
+
+        private final String name;
+        private final Class<T> type;
+
+        private Key(String name, Class<T> type) {
+            this.name = name;
+            this.type = type;
+        }
+
+        /**
+         * 创建带类型的key
+         *
+         * @param name key的名称
+         * @param type 注册对象的类型
+         * @param <T>  注册对象的类型
+         * @return 带类型的key
+         */
+        public static <T> Key<T> of(String name, Class<T> type) {
+            if (name == null || type == null) {
+                throw new IllegalArgumentException("key的名称和类型都不能为null!");
+            }
+            return new Key<T>(name, type);
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public Class<T> getType() {
+            return type;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return this == obj || obj instanceof Key && name.equals(((Key<?>) obj).name)
+                    && type == ((Key<?>) obj).type;
+        }
+
+        @Override
+        public int hashCode() {
+            return name.hashCode() * 31 + type.hashCode();
+        }
+
+        @Override
+        public String toString() {
+            return name + "<" + type.getName() + ">";
+        }
+    }
+
+    /**
+     * 所有注册的对象Map的快照，发布后不再修改
+     */
+    private static final AtomicReference<Map<String, List<Object>>> snapshot =
+            new AtomicReference<Map<String, List<Object>>>(Collections.<String, List<Object>>emptyMap());
+
+    private static final List<Listener> listeners = new CopyOnWriteArrayList<Listener>();
+
+    private static final Object notifyLock = new Object(); // 串行化监听器通知
 
     private Registry() {
     }
@@ -22,12 +101,40 @@ public class Registry {
      * 根据key查询所注册的对象
      *
      * @param key key
-     * @return 注册的对象列表
+     * @return 注册的对象列表，不可修改，没有时返回空列表
      */
     @SuppressWarnings("rawtypes")
     public static List lookup(String key) {
-        List<Object> resultList = map.get(key);
-        return resultList == null ? new ArrayList<Object>(0) : resultList;
+        List<Object> resultList = snapshot.get().get(key);
+        return resultList == null ? Collections.emptyList() : resultList;
+    }
+
+    /**
+     * 根据带类型的key查询所注册的对象，通过字符串key注册的其他类型的对象将被过滤掉
+     *
+     * @param key 带类型的key
+     * @param <T> 注册对象的类型
+     * @return 注册的该类型的对象列表，不可修改，没有时返回空列表
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> List<T> lookup(Key<T> key) {
+        List<Object> registered = snapshot.get().get(key.getName());
+        if (registered == null) {
+            return Collections.emptyList();
+        }
+        Class<T> type = key.getType();
+        for (int i = 0; i < registered.size(); i++) {
+            if (!type.isInstance(registered.get(i))) { // 有其他类型的对象时才复制过滤
+                List<T> filtered = new ArrayList<T>(registered.size() - 1);
+                for (Object obj : registered) {
+                    if (type.isInstance(obj)) {
+                        filtered.add((T) obj);
+                    }
+                }
+                return Collections.unmodifiableList(filtered);
+            }
+        }
+        return (List<T>) registered;
     }
 
     /**
@@ -36,11 +143,8 @@ public class Registry {
      * @param key key
      * @param obj 要注册的对象
      */
-    @SuppressWarnings("unchecked")
     public static void registe(String key, Object obj) {
-        List<Object> resultList = lookup(key);
-        resultList.add(obj);
-        map.put(key, resultList);
+        registe(key, Collections.singletonList(obj));
     }
 
     /**
@@ -49,11 +153,114 @@ public class Registry {
      * @param key     key
      * @param objList 要注册的对象列表
      */
-    @SuppressWarnings("unchecked")
     public static void registe(String key, List<Object> objList) {
-        List<Object> resultList = lookup(key);
-        resultList.addAll(objList);
-        map.put(key, resultList);
+        registerAll(Collections.<String, Collection<?>>singletonMap(key, objList));
+    }
+
+    /**
+     * 按带类型的key注册
+     *
+     * @param key 带类型的key
+     * @param obj 要注册的对象
+     * @param <T> 注册对象的类型
+     * @throws IllegalArgumentException 如果对象不是key指定的类型
+     */
+    public static <T> void register(Key<T> key, T obj) {
+        if (!key.getType().isInstance(obj)) {
+            throw new IllegalArgumentException("对象[" + obj + "]不是类型" + key.getType().getName() + "的实例!");
+        }
+        registe(key.getName(), obj);
+    }
+
+    /**
+     * 原子地批量注册多个key的对象，所有条目对查询线程同时可见
+     *
+     * @param entries Map<key, 要注册的对象集合>
+     */
+    public static void registerAll(Map<String, ? extends Collection<?>> entries) {
+        if (entries == null || entries.isEmpty()) {
+            return;
+        }
+        Map<String, List<Object>> current;
+        Map<String, List<Object>> updated;
+        do {
+            current = snapshot.get();
+            updated = new HashMap<String, List<Object>>(current);
+            for (Map.Entry<String, ? extends Collection<?>> entry : entries.entrySet()) {
+                List<Object> resultList = current.get(entry.getKey());
+                List<Object> newList = new ArrayList<Object>(
+                        (resultList == null ? 0 : resultList.size()) + entry.getValue().size());
+                if (resultList != null) {
+                    newList.addAll(resultList);
+                }
+                newList.addAll(entry.getValue());
+                updated.put(entry.getKey(), Collections.unmodifiableList(newList));
+            }
+        } while (!snapshot.compareAndSet(current, Collections.unmodifiableMap(updated)));
+        fireChanged(entries.keySet());
+    }
+
+    /**
+     * 注销
+     *
+     * @param key key
+     * @param obj 要注销的对象
+     * @return true: 对象已注册并被注销
+     */
+    public static boolean unregiste(String key, Object obj) {
+        Map<String, List<Object>> current;
+        Map<String, List<Object>> updated;
+        do {
+            current = snapshot.get();
+            List<Object> resultList = current.get(key);
+            if (resultList == null || !resultList.contains(obj)) {
+                return false;
+            }
+            List<Object> newList = new ArrayList<Object>(resultList);
+            newList.remove(obj);
+            updated = new HashMap<String, List<Object>>(current);
+            if (newList.isEmpty()) {
+                updated.remove(key);
+            } else {
+                updated.put(key, Collections.unmodifiableList(newList));
+            }
+        } while (!snapshot.compareAndSet(current, Collections.unmodifiableMap(updated)));
+        fireChanged(Collections.singleton(key));
+        return true;
+    }
+
+    /**
+     * 添加监听器
+     *
+     * @param listener 监听器
+     */
+    public static void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * 移除监听器
+     *
+     * @param listener 监听器
+     */
+    public static void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void fireChanged(Set<String> keys) {
+        if (listeners.isEmpty()) {
+            return;
+        }
+        synchronized (notifyLock) { // 持锁后再读取快照，并发注册的通知不会乱序，后一次通知看到的总是不旧于前一次的状态
+            Map<String, List<Object>> published = snapshot.get();
+            for (String key : keys) {
+                List<Object> registered = published.get(key);
+                for (Listener listener : listeners) {
+                    listener.onChange(key, registered == null ? Collections.emptyList() : registered);
+                }
+            }
+        }
     }
 
 }
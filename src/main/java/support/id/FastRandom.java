@@ -0,0 +1,49 @@
+package support.id;
+
+import java.security.SecureRandom;
+
+/**
+ * 线程独享的快速伪随机数生成器(xorshift128+)
+ * <p>
+ * 每个线程一个实例，种子取自SecureRandom，之后生成时不再争用共享的SecureRandom。
+ * 只用于ID中的随机部分，不能用于密钥、令牌等有安全要求的场合。
+ * </p>
+ */
+class FastRandom {
+
+    private static final SecureRandom seeder = new SecureRandom();
+
+    private static final ThreadLocal<FastRandom> instances = new ThreadLocal<FastRandom>() {
+        @Override
+        protected FastRandom initialValue() {
+            synchronized (seeder) {
+                return new FastRandom(seeder.nextLong(), seeder.nextLong());
+            }
+        }
+    };
+
+    private long s0;
+    private long s1;
+
+    private FastRandom(long seed0, long seed1) {
+        this.s0 = seed0;
+        this.s1 = (seed0 | seed1) == 0 ? 1 : seed1; // 状态不能全为0
+    }
+
+    /**
+     * @return 当前线程的实例
+     */
+    static FastRandom current() {
+        return instances.get();
+    }
+
+    long nextLong() {
+        long x = s0;
+        long y = s1;
+        s0 = y;
+        x ^= x << 23;
+        s1 = x ^ y ^ (x >>> 17) ^ (y >>> 26);
+        return s1 + y;
+    }
+
+}
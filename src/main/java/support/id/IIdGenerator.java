@@ -0,0 +1,28 @@
+package support.id;
+
+import java.util.List;
+
+/**
+ * ID生成器接口，实现类都是线程安全的
+ *
+ * @param <T> ID的类型
+ */
+public interface IIdGenerator<T> {
+
+    /**
+     * 生成一个ID
+     *
+     * @return ID
+     */
+    T nextId();
+
+    /**
+     * 批量生成ID
+     *
+     * @param count 个数
+     * @return List<ID>，对于有序的ID，按生成顺序递增
+     * @throws IllegalArgumentException 如果个数为负数
+     */
+    List<T> nextIds(int count);
+
+}
@@ -0,0 +1,147 @@
+package support.id;
+
+import exception.SystemException;
+
+/**
+ * Snowflake风格的64位long型ID生成器
+ * <p>
+ * ID由高到低为：符号位(0) | 相对于纪元的毫秒时间戳 | 机器号 | 毫秒内序号。
+ * 默认机器号10位、序号12位，时间戳41位可用约69年；每毫秒每个机器最多生成4096个ID，用尽时等待下一毫秒。
+ * ID在单个生成器内严格递增，插入B树索引时总在最右侧，不会像随机UUID那样造成页分裂和碎片。
+ * 时钟回拨不超过允许值时沿用上次的时间戳继续分配序号，超出时抛出异常。
+ * 无锁实现，线程安全。
+ * </p>
+ */
+public class SnowflakeIdGenerator extends TimeOrderedIdGenerator<Long> {
+
+    /**
+     * 默认纪元: 2020-01-01 00:00:00 UTC
+     */
+    public static final long DEFAULT_EPOCH = 1577836800000L;
+
+    private final long epoch;
+    private final int workerIdBits;
+    private final int sequenceBits;
+    private final long workerId;
+    private final long maxTimestamp;
+
+    /**
+     * 构造器，使用默认纪元，机器号10位、序号12位，允许5毫秒的时钟回拨
+     *
+     * @param workerId 机器号，0~1023
+     */
+    public SnowflakeIdGenerator(long workerId) {
+        this(DEFAULT_EPOCH, 10, 12, workerId, 5);
+    }
+
+    /**
+     * 构造器
+     *
+     * @param epoch             纪元(毫秒时间戳)，不能晚于当前时间
+     * @param workerIdBits      机器号位数
+     * @param sequenceBits      序号位数，至少1位
+     * @param workerId          机器号，0 ~ 2^workerIdBits-1
+     * @param maxBackwardMillis 允许的时钟回拨毫秒数
+     * @throws IllegalArgumentException 如果参数不合法
+     */
+    public SnowflakeIdGenerator(long epoch, int workerIdBits, int sequenceBits, long workerId,
+                                long maxBackwardMillis) {
+        super(new TimeSequence(sequenceBits, maxBackwardMillis, false));
+        if (workerIdBits < 0 || sequenceBits < 1 || workerIdBits + sequenceBits > 22) {
+            throw new IllegalArgumentException("机器号与序号的位数不合法: " + workerIdBits + ", " + sequenceBits);
+        }
+        if (workerId < 0 || workerId >= (1L << workerIdBits)) {
+            throw new IllegalArgumentException("机器号必须在0~" + ((1L << workerIdBits) - 1) + "之间: " + workerId);
+        }
+        if (epoch < 0 || epoch > System.currentTimeMillis()) {
+            throw new IllegalArgumentException("纪元不合法: " + epoch);
+        }
+        if (maxBackwardMillis < 0) {
+            throw new IllegalArgumentException("允许的时钟回拨毫秒数不能为负数: " + maxBackwardMillis);
+        }
+        this.epoch = epoch;
+        this.workerIdBits = workerIdBits;
+        this.sequenceBits = sequenceBits;
+        this.workerId = workerId;
+        this.maxTimestamp = (1L << (63 - workerIdBits - sequenceBits)) - 1;
+    }
+
+    /**
+     * 生成一个ID，不装箱
+     *
+     * @return ID
+     */
+    public long nextLong() {
+        long reserved = reserve(1);
+        return toId(sequence.timestamp(reserved), sequence.sequence(reserved));
+    }
+
+    /**
+     * 批量生成ID，不装箱
+     *
+     * @param count 个数
+     * @return 递增的ID数组
+     * @throws IllegalArgumentException 如果个数为负数
+     */
+    public long[] nextLongs(int count) {
+        if (count < 0) {
+            throw new IllegalArgumentException("个数不能为负数: " + count);
+        }
+        long[] ids = new long[count];
+        int index = 0;
+        while (index < count) {
+            long reserved = reserve(count - index);
+            long timestamp = sequence.timestamp(reserved);
+            long first = sequence.sequence(reserved);
+            int reservedCount = sequence.reserved(reserved, count - index);
+            for (int i = 0; i < reservedCount; i++) {
+                ids[index++] = toId(timestamp, first + i);
+            }
+        }
+        return ids;
+    }
+
+    @Override
+    Long create(long timestamp, long sequence) {
+        return toId(timestamp, sequence);
+    }
+
+    private long toId(long timestamp, long sequence) {
+        long elapsed = timestamp - epoch;
+        if (elapsed > maxTimestamp) {
+            throw new SystemException("时间戳超出了ID可表示的范围！");
+        }
+        return elapsed << (workerIdBits + sequenceBits) | workerId << sequenceBits | sequence;
+    }
+
+    /**
+     * 解析ID中的时间戳
+     *
+     * @param id ID
+     * @return 毫秒时间戳
+     */
+    public long getTimestamp(long id) {
+        return (id >>> (workerIdBits + sequenceBits)) + epoch;
+    }
+
+    /**
+     * 解析ID中的机器号
+     *
+     * @param id ID
+     * @return 机器号
+     */
+    public long getWorkerId(long id) {
+        return (id >>> sequenceBits) & ((1L << workerIdBits) - 1);
+    }
+
+    /**
+     * 解析ID中的序号
+     *
+     * @param id ID
+     * @return 序号
+     */
+    public long getSequence(long id) {
+        return id & ((1L << sequenceBits) - 1);
+    }
+
+}
@@ -0,0 +1,76 @@
+package support.id;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 按时间有序的ID生成器的基类，ID由毫秒时间戳和{@link TimeSequence}分配的序号组成，在本生成器内严格递增
+ *
+ * @param <T> ID的类型
+ */
+abstract class TimeOrderedIdGenerator<T> implements IIdGenerator<T> {
+
+    final TimeSequence sequence;
+
+    TimeOrderedIdGenerator(TimeSequence sequence) {
+        this.sequence = sequence;
+    }
+
+    /**
+     * 当前时间，子类可覆盖以使用其他时钟
+     *
+     * @return 当前毫秒时间戳
+     */
+    protected long currentTimeMillis() {
+        return System.currentTimeMillis();
+    }
+
+    /**
+     * 分配序号，本毫秒的序号用尽时等待下一毫秒
+     */
+    long reserve(int count) {
+        long reserved;
+        while ((reserved = sequence.reserve(this, count)) < 0) {
+            Thread.yield();
+        }
+        return reserved;
+    }
+
+    /**
+     * 由时间戳和序号生成ID
+     *
+     * @param timestamp 毫秒时间戳
+     * @param sequence  序号
+     * @return ID
+     */
+    abstract T create(long timestamp, long sequence);
+
+    @Override
+    public T nextId() {
+        long reserved = reserve(1);
+        return create(sequence.timestamp(reserved), sequence.sequence(reserved));
+    }
+
+    /**
+     * 批量生成ID，每次CAS分配同一毫秒内的一段序号
+     */
+    @Override
+    public List<T> nextIds(int count) {
+        if (count < 0) {
+            throw new IllegalArgumentException("个数不能为负数: " + count);
+        }
+        List<T> ids = new ArrayList<T>(count);
+        while (ids.size() < count) {
+            int remaining = count - ids.size();
+            long reserved = reserve(remaining);
+            long timestamp = sequence.timestamp(reserved);
+            long first = sequence.sequence(reserved);
+            int reservedCount = sequence.reserved(reserved, remaining);
+            for (int i = 0; i < reservedCount; i++) {
+                ids.add(create(timestamp, first + i));
+            }
+        }
+        return ids;
+    }
+
+}
@@ -0,0 +1,86 @@
+package support.id;
+
+import exception.SystemException;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 毫秒时间戳+序号的无锁分配器，各有序ID生成器共用
+ * <p>
+ * 状态“时间戳 << 序号位数 | 已分配的最大序号”保存在一个AtomicLong中，以CAS分配。
+ * 同一毫秒内序号递增，序号用尽时调用方需等待下一毫秒；
+ * 时钟回拨不超过允许值时沿用上次的时间戳继续分配，超出时抛出异常，保证分配结果严格递增。
+ * </p>
+ */
+class TimeSequence {
+
+    private final int sequenceBits;
+    private final long sequenceMask;
+    private final long maxBackwardMillis;
+    private final boolean randomStart;
+    private final AtomicLong state = new AtomicLong();
+
+    /**
+     * @param sequenceBits      序号位数
+     * @param maxBackwardMillis 允许的时钟回拨毫秒数
+     * @param randomStart       每毫秒的起始序号是否随机(取序号空间的前一半，保留递增的余量)，否则从0开始
+     */
+    TimeSequence(int sequenceBits, long maxBackwardMillis, boolean randomStart) {
+        this.sequenceBits = sequenceBits;
+        this.sequenceMask = (1L << sequenceBits) - 1;
+        this.maxBackwardMillis = maxBackwardMillis;
+        this.randomStart = randomStart;
+    }
+
+    /**
+     * 分配序号
+     *
+     * @param clock 时钟
+     * @param count 希望分配的个数，实际分配的个数见{@link #reserved(long, int)}
+     * @return 时间戳 << 序号位数 | 第一个序号；本毫秒序号已用尽时返回-1
+     * @throws SystemException 如果时钟回拨超出允许值
+     */
+    long reserve(TimeOrderedIdGenerator<?> clock, int count) {
+        while (true) {
+            long current = state.get();
+            long now = clock.currentTimeMillis(); // 在读取状态之后取时间，线程被挂起不会被误判为时钟回拨
+            long last = current >>> sequenceBits;
+            long timestamp;
+            long first;
+            if (now > last) {
+                timestamp = now;
+                first = randomStart ? FastRandom.current().nextLong() & (sequenceMask >>> 1) : 0;
+            } else {
+                if (last - now > maxBackwardMillis) {
+                    throw new SystemException("时钟回拨了{0}毫秒，超出了允许的{1}毫秒！", last - now, maxBackwardMillis);
+                }
+                long sequence = current & sequenceMask;
+                if (sequence == sequenceMask) {
+                    return -1;
+                }
+                timestamp = last;
+                first = sequence + 1;
+            }
+            long lastSequence = Math.min(sequenceMask, first + count - 1);
+            if (state.compareAndSet(current, timestamp << sequenceBits | lastSequence)) {
+                return timestamp << sequenceBits | first;
+            }
+        }
+    }
+
+    /**
+     * 计算{@link #reserve(long, int)}实际分配的个数
+     */
+    int reserved(long reserved, int count) {
+        return (int) Math.min(count, sequenceMask - (reserved & sequenceMask) + 1);
+    }
+
+    long timestamp(long reserved) {
+        return reserved >>> sequenceBits;
+    }
+
+    long sequence(long reserved) {
+        return reserved & sequenceMask;
+    }
+
+}
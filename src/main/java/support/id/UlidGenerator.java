@@ -0,0 +1,44 @@
+package support.id;
+
+/**
+ * ULID生成器
+ * <p>
+ * 生成26位Crockford Base32编码的ULID：48位毫秒时间戳 + 80位随机部分，字符串的字典序即时间顺序。
+ * 同一毫秒内单调递增：随机部分的高16位作为序号，每毫秒从一个随机值开始递增，其余64位为随机数。
+ * 无锁实现，线程安全。随机部分使用线程独享的快速伪随机数，不能作为安全令牌使用。
+ * </p>
+ */
+public class UlidGenerator extends TimeOrderedIdGenerator<String> {
+
+    private static final char[] ALPHABET = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+
+    /**
+     * 构造器，允许10毫秒的时钟回拨
+     */
+    public UlidGenerator() {
+        this(10);
+    }
+
+    /**
+     * 构造器
+     *
+     * @param maxBackwardMillis 允许的时钟回拨毫秒数
+     */
+    public UlidGenerator(long maxBackwardMillis) {
+        super(new TimeSequence(16, maxBackwardMillis, true));
+    }
+
+    @Override
+    String create(long timestamp, long sequence) {
+        long high = timestamp << 16 | sequence;
+        long low = FastRandom.current().nextLong();
+        char[] chars = new char[26];
+        for (int i = 25; i >= 0; i--) {
+            chars[i] = ALPHABET[(int) low & 31];
+            low = (low >>> 5) | (high << 59);
+            high >>>= 5;
+        }
+        return new String(chars);
+    }
+
+}
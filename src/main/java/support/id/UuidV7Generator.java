@@ -0,0 +1,38 @@
+package support.id;
+
+import java.util.UUID;
+
+/**
+ * UUID第7版(RFC 9562)生成器
+ * <p>
+ * 高48位为毫秒时间戳，随后的12位(rand_a)作为毫秒内的序号，每毫秒从一个随机值开始递增，其余62位为随机数。
+ * 同一生成器生成的UUID的字符串形式按字典序严格递增(UUID.compareTo按有符号数比较，顺序与此不一致)。
+ * 无锁实现，线程安全。随机部分使用线程独享的快速伪随机数，不能作为安全令牌使用。
+ * </p>
+ */
+public class UuidV7Generator extends TimeOrderedIdGenerator<UUID> {
+
+    /**
+     * 构造器，允许10毫秒的时钟回拨
+     */
+    public UuidV7Generator() {
+        this(10);
+    }
+
+    /**
+     * 构造器
+     *
+     * @param maxBackwardMillis 允许的时钟回拨毫秒数
+     */
+    public UuidV7Generator(long maxBackwardMillis) {
+        super(new TimeSequence(12, maxBackwardMillis, true));
+    }
+
+    @Override
+    UUID create(long timestamp, long sequence) {
+        long mostSigBits = timestamp << 16 | 0x7000L | sequence;
+        long leastSigBits = FastRandom.current().nextLong() & 0x3FFFFFFFFFFFFFFFL | 0x8000000000000000L;
+        return new UUID(mostSigBits, leastSigBits);
+    }
+
+}
@@ -0,0 +1,124 @@
+package bean;
+
+import exception.SystemException;
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class BeanCopierTest {
+
+    @Test
+    public void testCreateCached() {
+        assertSame(BeanCopier.create(Person.class, Person.class), BeanCopier.create(Person.class, Person.class));
+
+        Map<String, String> propertyMap = new HashMap<String, String>();
+        propertyMap.put("left", "right");
+        assertSame(BeanCopier.create(Pair.class, Pair.class, propertyMap),
+                BeanCopier.create(Pair.class, Pair.class, new HashMap<String, String>(propertyMap)));
+        assertNotSame(BeanCopier.create(Pair.class, Pair.class), BeanCopier.create(Pair.class, Pair.class, propertyMap));
+    }
+
+    @Test
+    public void testCopy() {
+        Person person = new Person("Mike", "male");
+        person.setId("id");
+        person.setAge(25);
+        person.setAddress(new Address());
+
+        Person dest = (Person) BeanCopier.create(Person.class, Person.class).copy(person);
+
+        assertEquals(person, dest);
+        assertTrue(person.getAddress() == dest.getAddress());
+    }
+
+    @Test
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public void testCopyByPropertyMap() {
+        Pair<String, String> src = new Pair<String, String>();
+        src.setLeft("left");
+        src.setRight("right");
+
+        Map<String, String> propertyMap = new HashMap<String, String>();
+        propertyMap.put("left", "right");
+        propertyMap.put("right", "left");
+        Pair dest = new Pair();
+        BeanCopier.create(Pair.class, Pair.class, propertyMap).copy(src, dest);
+
+        assertEquals("right", dest.getLeft());
+        assertEquals("left", dest.getRight());
+    }
+
+    @Test
+    public void testCopyWithConvert() {
+        StringAgeBean src = new StringAgeBean();
+        src.setName("Tom");
+        src.setAge("18");
+
+        Person dest = new Person();
+        BeanCopier.create(StringAgeBean.class, Person.class).copy(src, dest);
+
+        assertEquals("Tom", dest.getName());
+        assertEquals(18, dest.getAge());
+
+        src.setAge(null);
+        BeanCopier.create(StringAgeBean.class, Person.class).copy(src, dest);
+        assertEquals(0, dest.getAge());
+    }
+
+    @Test(expected = SystemException.class)
+    public void testCopyWithoutConverter() {
+        StringAddressBean src = new StringAddressBean();
+        src.setAddress("somewhere");
+
+        BeanCopier.create(StringAddressBean.class, Person.class).copy(src, new Person());
+    }
+
+    @Test
+    public void testBatchCopyProperties() {
+        List<Person> persons = new ArrayList<Person>();
+        for (int i = 0; i < 10; i++) {
+            persons.add(new Person("name" + i));
+        }
+        List<Person> result = BeanTool.batchCopyProperties(Person.class, persons);
+        assertEquals(10, result.size());
+        assertEquals("name9", result.get(9).getName());
+    }
+
+    public static class StringAgeBean {
+
+        private String name;
+        private String age;
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public String getAge() {
+            return age;
+        }
+
+        public void setAge(String age) {
+            this.age = age;
+        }
+    }
+
+    public static class StringAddressBean {
+
+        private String address;
+
+        public String getAddress() {
+            return address;
+        }
+
+        public void setAddress(String address) {
+            this.address = address;
+        }
+    }
+
+}
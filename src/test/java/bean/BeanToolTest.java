@@ -57,6 +57,16 @@ public class BeanToolTest {
         assertTrue(person.getAddress() != p.getAddress()); // 证明是深克隆
     }
 
+    @Test
+    public void testDeepCopy() {
+        Person p = BeanTool.deepCopy(person);
+
+        assertEquals(person, p);
+        assertTrue(person.getAddress() != p.getAddress()); // 证明是深复制
+        assertTrue(person.getGoods() != p.getGoods());
+        assertEquals(person.getGoods(), p.getGoods());
+    }
+
     @Test
     public void testCopyProperties() {
         Person p = new Person();
@@ -0,0 +1,124 @@
+package cn;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class PinYinIndexTest {
+
+    private PinYinIndex index;
+
+    @Before
+    public void setUp() throws Exception {
+        index = new PinYinIndex(Arrays.asList("张三", "张三丰", "张珊", "章三", "李四", "王五", "张", "Joy张"));
+    }
+
+    @Test
+    public void testSearch() {
+        assertEquals(Arrays.asList("张三", "张珊", "章三", "张三丰"), sorted(index.search("zhangs", 10)));
+        assertEquals(Arrays.asList("张三", "张珊", "章三", "张三丰"), sorted(index.search("zs", 10)));
+        assertEquals(Arrays.asList("张三", "张珊", "张三丰"), sorted(index.search("张s", 10)));
+        assertEquals(Arrays.asList("张珊"), index.search("张sh", 10));
+        assertEquals(Arrays.asList("张三丰"), index.search("zsf", 10));
+        assertEquals(Arrays.asList("张三丰"), index.search("zhangsanfeng", 10));
+        assertEquals(Arrays.asList("张三丰"), index.search("zsanf", 10));
+        assertEquals(Arrays.asList("张三丰"), index.search("张三f", 10));
+        assertEquals(Arrays.asList("李四"), index.search("LS", 10));
+        assertEquals(Arrays.asList("王五"), index.search("wa", 10));
+        assertEquals(Arrays.asList("Joy张"), index.search("joyz", 10));
+        assertTrue(index.search("zhangx", 10).isEmpty());
+        assertTrue(index.search("", 10).isEmpty());
+        assertTrue(index.search(null, 10).isEmpty());
+    }
+
+    @Test
+    public void testLimitAndOrder() {
+        // 权重相同时短的在前
+        assertEquals(Arrays.asList("张"), index.search("z", 1));
+        List<String> all = index.search("z", 100);
+        assertEquals("张", all.get(0));
+        assertEquals("张三丰", all.get(all.size() - 1));
+        assertEquals(5, all.size());
+
+        index.add("张三丰", 10);
+        assertEquals(Arrays.asList("张三丰"), index.search("z", 1));
+        index.add("张三丰", -1); // 降低权重
+        assertEquals("张三丰", last(index.search("z", 100)));
+    }
+
+    @Test
+    public void testAddRemove() {
+        assertEquals(8, index.size());
+        assertFalse(index.add("张三"));
+        assertTrue(index.contains("张三丰"));
+        assertTrue(index.remove("张三丰"));
+        assertFalse(index.remove("张三丰"));
+        assertFalse(index.contains("张三丰"));
+        assertTrue(index.contains("张三"));
+        assertTrue(index.search("zsf", 10).isEmpty());
+        assertEquals(7, index.size());
+
+        assertTrue(index.remove("张"));
+        assertFalse(index.contains("张"));
+        assertTrue(index.search("zs", 10).contains("张三"));
+
+        assertTrue(index.add("张三丰", 5)); // 复用删除的节点
+        assertEquals(Arrays.asList("张三丰"), index.search("zs", 1));
+    }
+
+    @Test
+    public void testMatchesBruteForce() {
+        List<String> names = randomNames(20000, new Random(7));
+        PinYinIndex index = new PinYinIndex(names);
+        Set<String> distinct = new HashSet<String>(names);
+        assertEquals(distinct.size(), index.size());
+
+        for (String query : new String[]{"zh", "zhang", "zw", "wangx", "l", "liyu", "cw"}) {
+            Set<String> expected = new HashSet<String>();
+            for (String name : distinct) {
+                if (PinYinTool.getPinYin(name).startsWith(query)
+                        || PinYinTool.getPinYinHeadChars(name).startsWith(query)) {
+                    expected.add(name);
+                }
+            }
+            Set<String> actual = new HashSet<String>(index.search(query, Integer.MAX_VALUE));
+            assertTrue(query, actual.containsAll(expected));
+        }
+    }
+
+    private static List<String> randomNames(int count, Random random) {
+        String surnames = "张王李赵刘陈杨黄周吴徐孙马朱胡郭何高林罗";
+        String given = "伟芳娜秀英敏静丽强磊军洋勇艳杰娟涛明超秀兰霞平刚桂英华玉萍红娥玲芬芳燕彩春菊兰凤洁梅琳素云莲真环雪荣爱妹霞香月莺媛艳瑞凡佳嘉琼勤珍贞莉桂娣叶璧璐娅琦晶妍茜秋珊莎锦黛青倩婷姣婉娴瑾颖露瑶怡婵雁蓓纨仪荷丹蓉眉君琴蕊薇菁梦岚苑婕馨瑗琰韵融园艺咏卿聪澜纯毓悦昭冰爽琬茗羽希宁欣飘育滢馥筠柔竹霭凝晓欢霄枫芸菲寒伊亚宜可姬舒影荔枝思丽";
+        List<String> names = new ArrayList<String>(count);
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            sb.setLength(0);
+            sb.append(surnames.charAt(random.nextInt(surnames.length())));
+            int length = 1 + random.nextInt(2);
+            for (int j = 0; j < length; j++) {
+                sb.append(given.charAt(random.nextInt(given.length())));
+            }
+            names.add(sb.toString());
+        }
+        return names;
+    }
+
+    private static List<String> sorted(List<String> list) {
+        List<String> copy = new ArrayList<String>(list);
+        Collections.sort(copy, new Comparator<String>() {
+            @Override
+            public int compare(String o1, String o2) {
+                return o1.length() != o2.length() ? o1.length() - o2.length() : o1.compareTo(o2);
+            }
+        });
+        return copy;
+    }
+
+    private static String last(List<String> list) {
+        return list.get(list.size() - 1);
+    }
+
+}
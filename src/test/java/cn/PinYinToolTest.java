@@ -1,9 +1,12 @@
 package cn;
 
+import net.sourceforge.pinyin4j.PinyinHelper;
 import org.junit.Before;
 import org.junit.Test;
 
-import static org.junit.Assert.assertEquals;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
 
 public class PinYinToolTest {
 
@@ -32,7 +35,38 @@ public class PinYinToolTest {
     }
 
     @Test
-    public void getCnASCII() {
+    public void appendPinYin() {
+        StringBuilder sb = new StringBuilder("name:");
+        assertSame(sb, PinYinTool.appendPinYin("张三", sb));
+        PinYinTool.appendPinYinHeadChars("〇李四", sb.append(','));
+        assertEquals("name:zhangsan,lls", sb.toString());
+        assertEquals("ling", PinYinTool.getPinYin('〇'));
+        assertNull(PinYinTool.getPinYin('a'));
+    }
+
+    @Test
+    public void getAllPinYin() {
+        assertTrue(PinYinTool.isPolyphone('行'));
+        String[] pinyins = PinYinTool.getAllPinYin('行');
+        assertEquals(PinYinTool.getPinYin('行'), pinyins[0]);
+        assertTrue(Arrays.asList(pinyins).containsAll(Arrays.asList("xing", "hang")));
+        assertFalse(PinYinTool.isPolyphone('张'));
+        assertArrayEquals(new String[]{"zhang"}, PinYinTool.getAllPinYin('张'));
+        assertEquals(0, PinYinTool.getAllPinYin('a').length);
+    }
+
+    /**
+     * 查找表与pinyin4j逐字比较
+     */
+    @Test
+    public void consistentWithPinyin4j() throws Exception {
+        for (char c = PinYinTable.FIRST; c <= PinYinTable.LAST; c++) {
+            String[] pinyins = PinyinHelper.toHanyuPinyinStringArray(c, PinYinTable.FORMAT);
+            String expected = pinyins == null ? null : pinyins[0];
+            assertEquals(String.valueOf(c), expected, PinYinTool.getPinYin(c));
+            assertEquals(expected == null ? c : expected.charAt(0),
+                    PinYinTool.getPinYinHeadChars(String.valueOf(c)).charAt(0));
+        }
     }
 
 }
@@ -0,0 +1,222 @@
+package collections;
+
+import exception.SystemException;
+import org.junit.Test;
+import support.ICallback;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class ConcurrentCacheTest {
+
+    @Test
+    public void putAndGet() {
+        ConcurrentCache<String, Integer> cache = new ConcurrentCache<String, Integer>();
+        assertNull(cache.put("a", 1));
+        assertEquals(Integer.valueOf(1), cache.put("a", 2));
+        assertEquals(Integer.valueOf(2), cache.getIfPresent("a"));
+        assertEquals(Integer.valueOf(2), cache.putIfAbsent("a", 3));
+        assertTrue(cache.containsKey("a"));
+        assertEquals(1, cache.size());
+        assertEquals(Integer.valueOf(2), cache.remove("a"));
+        assertNull(cache.getIfPresent("a"));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void evictBySize() {
+        ConcurrentCache<Integer, Integer> cache = new ConcurrentCache<Integer, Integer>(10);
+        for (int i = 0; i < 100; i++) {
+            cache.put(i, i);
+        }
+        assertEquals(10, cache.size());
+        assertEquals(90, cache.stats().getEvictionCount());
+    }
+
+    @Test
+    public void evictKeepsFrequentlyUsed() {
+        CacheConfig<Integer, Integer> config = new CacheConfig<Integer, Integer>();
+        config.setMaximumSize(10);
+        config.setConcurrencyLevel(1);
+        ConcurrentCache<Integer, Integer> cache = new ConcurrentCache<Integer, Integer>(config);
+        cache.put(-1, -1);
+        cache.getIfPresent(-1); // 晋升到保护区
+        for (int i = 0; i < 100; i++) {
+            cache.put(i, i);
+        }
+        assertEquals(Integer.valueOf(-1), cache.getIfPresent(-1));
+    }
+
+    @Test
+    public void evictByWeight() {
+        CacheConfig<String, String> config = new CacheConfig<String, String>();
+        config.setMaximumWeight(10);
+        config.setWeigher(new ConcurrentCache.Weigher<String, String>() {
+            @Override
+            public int weigh(String key, String value) {
+                return value.length();
+            }
+        });
+        ConcurrentCache<String, String> cache = new ConcurrentCache<String, String>(config);
+        cache.put("a", "12345");
+        cache.put("b", "12345");
+        assertEquals(10, cache.weightedSize());
+        cache.put("c", "123");
+        assertTrue(cache.weightedSize() <= 10);
+        assertEquals("123", cache.getIfPresent("c"));
+    }
+
+    @Test
+    public void expireAfterWrite() throws InterruptedException {
+        CacheConfig<String, String> config = new CacheConfig<String, String>();
+        config.setExpireAfterWriteMillis(50);
+        ConcurrentCache<String, String> cache = new ConcurrentCache<String, String>(config);
+        cache.put("a", "1");
+        assertEquals("1", cache.getIfPresent("a"));
+        Thread.sleep(100);
+        assertNull(cache.getIfPresent("a"));
+        assertFalse(cache.containsKey("a"));
+    }
+
+    @Test
+    public void expireAfterAccess() throws InterruptedException {
+        CacheConfig<String, String> config = new CacheConfig<String, String>();
+        config.setExpireAfterAccessMillis(50);
+        ConcurrentCache<String, String> cache = new ConcurrentCache<String, String>(config);
+        cache.put("a", "1");
+        cache.put("b", "2");
+        Thread.sleep(100);
+        cache.cleanUp();
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void weakValues() {
+        CacheConfig<String, Object> config = new CacheConfig<String, Object>();
+        config.setValueStrength(CacheConfig.ValueStrength.WEAK);
+        ConcurrentCache<String, Object> cache = new ConcurrentCache<String, Object>(config);
+        Object value = new Object();
+        cache.put("a", value);
+        assertSame(value, cache.getIfPresent("a"));
+    }
+
+    @Test
+    public void loadAndStats() {
+        CacheConfig<Integer, String> config = new CacheConfig<Integer, String>();
+        config.setRecordStats(true);
+        config.setLoader(new ICallback<Integer, String>() {
+            @Override
+            public String execute(Integer key) {
+                return key % 2 == 0 ? String.valueOf(key) : null;
+            }
+        });
+        ConcurrentCache<Integer, String> cache = new ConcurrentCache<Integer, String>(config);
+        assertEquals("2", cache.get(2));
+        assertEquals("2", cache.get(2));
+        assertNull(cache.get(3));
+        CacheStats stats = cache.stats();
+        assertEquals(1, stats.getHitCount());
+        assertEquals(2, stats.getMissCount());
+        assertEquals(2, stats.getLoadSuccessCount());
+        assertEquals(1, cache.size());
+    }
+
+    @Test(expected = SystemException.class)
+    public void loadFailure() {
+        ConcurrentCache<String, String> cache = new ConcurrentCache<String, String>();
+        cache.get("a", new ICallback<String, String>() {
+            @Override
+            public String execute(String key) {
+                throw new IllegalStateException(key);
+            }
+        });
+    }
+
+    @Test(timeout = 5000)
+    public void recursiveLoad() {
+        final ConcurrentCache<String, String> cache = new ConcurrentCache<String, String>();
+        try {
+            cache.get("a", new ICallback<String, String>() {
+                @Override
+                public String execute(String key) {
+                    return cache.get(key, this); // 不能等待自己
+                }
+            });
+            fail();
+        } catch (SystemException e) {
+            // 递归加载立即失败，不会永远阻塞
+        }
+        assertEquals("b", cache.get("a", new ICallback<String, String>() {
+            @Override
+            public String execute(String key) {
+                return "b";
+            }
+        })); // 失败的加载不影响之后的加载
+    }
+
+    @Test
+    public void singleFlight() throws Exception {
+        final ConcurrentCache<String, Integer> cache = new ConcurrentCache<String, Integer>();
+        final AtomicInteger loads = new AtomicInteger();
+        final CountDownLatch start = new CountDownLatch(1);
+        final ICallback<String, Integer> loader = new ICallback<String, Integer>() {
+            @Override
+            public Integer execute(String key) {
+                loads.incrementAndGet();
+                try {
+                    Thread.sleep(50);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return 1;
+            }
+        };
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            Future<?>[] futures = new Future<?>[8];
+            for (int i = 0; i < futures.length; i++) {
+                futures[i] = executor.submit(new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            start.await();
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                        assertEquals(Integer.valueOf(1), cache.get("key", loader));
+                    }
+                });
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(5, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    public void softHashMap() {
+        SoftHashMap<String, String> map = new SoftHashMap<String, String>(2);
+        map.put("a", "1");
+        map.put("b", "2");
+        map.put("c", "3");
+        assertEquals("1", map.get("a"));
+        assertEquals(3, map.size());
+        assertTrue(map.containsKey("b"));
+        assertTrue(map.containsValue("3"));
+        assertEquals("2", map.remove("b"));
+        assertEquals(2, map.entrySet().size());
+        map.clear();
+        assertTrue(map.isEmpty());
+    }
+
+}
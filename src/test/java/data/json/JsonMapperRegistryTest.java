@@ -0,0 +1,68 @@
+package data.json;
+
+import bean.Person;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class JsonMapperRegistryTest {
+
+    @Test
+    public void testGetMapper() {
+        ObjectMapper mapper = JsonMapperRegistry.getMapper(JsonMapperRegistry.NON_EMPTY);
+        assertNotSame(mapper, JsonMapperRegistry.getMapper(JsonMapperRegistry.NON_EMPTY));
+
+        // 修改副本不影响注册的转换器
+        mapper.setSerializationInclusion(JsonInclude.Include.ALWAYS);
+        Person person = new Person("kevice");
+        person.setGoods(new ArrayList<String>());
+        assertTrue(JsonTool.toJson(person, mapper).contains("goods"));
+        assertFalse(JsonTool.toJson(person, JsonMapperRegistry.getMapper(JsonMapperRegistry.NON_EMPTY)).contains("goods"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testGetUnregisteredMapper() {
+        JsonMapperRegistry.getMapper("notExists");
+    }
+
+    @Test
+    public void testReaderCached() {
+        assertSame(JsonMapperRegistry.reader(JsonMapperRegistry.DEFAULT, Person.class),
+                JsonMapperRegistry.reader(JsonMapperRegistry.DEFAULT, Person.class));
+    }
+
+    @Test
+    public void testNonEmptyWriter() throws Exception {
+        Person person = new Person("kevice");
+        person.setGoods(new ArrayList<String>());
+        String json = JsonMapperRegistry.writer(JsonMapperRegistry.NON_EMPTY).writeValueAsString(person);
+        assertTrue(json.contains("\"name\":\"kevice\""));
+        assertFalse(json.contains("goods"));
+    }
+
+    @Test
+    public void testJsonToolUsesSharedMapper() {
+        Person person = new Person("kevice", "male");
+        String json = JsonTool.toJson(person);
+        Person result = JsonTool.fromJson(json, Person.class);
+        assertEquals("kevice", result.getName());
+        assertEquals("male", result.getSex());
+
+        @SuppressWarnings("unchecked")
+        List<Person> persons = (List<Person>) JsonTool.fromJson("[" + json + "]",
+                JsonTool.createCollectionType(ArrayList.class, Person.class));
+        assertEquals(1, persons.size());
+        assertEquals("kevice", persons.get(0).getName());
+
+        Person updated = JsonTool.updateBean("{\"sex\":\"female\"}", person);
+        assertSame(person, updated);
+        assertEquals("kevice", person.getName());
+        assertEquals("female", person.getSex());
+    }
+
+}
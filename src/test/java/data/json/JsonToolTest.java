@@ -0,0 +1,77 @@
+package data.json;
+
+import bean.Person;
+import exception.SystemException;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class JsonToolTest {
+
+    @Test
+    public void testWriteAndReadArray() throws Exception {
+        List<Person> persons = createPersons(100);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertEquals(100, JsonTool.writeArray(out, persons.iterator()));
+
+        String json = out.toString("UTF-8");
+        assertTrue(json.startsWith("["));
+        assertTrue(json.endsWith("]"));
+
+        JsonValueIterator<Person> iterator = JsonTool.readArray(new ByteArrayInputStream(out.toByteArray()),
+                Person.class);
+        int count = 0;
+        while (iterator.hasNext()) {
+            Person person = iterator.next();
+            assertEquals("name" + count, person.getName());
+            count++;
+        }
+        assertEquals(100, count);
+        assertFalse(iterator.hasNext());
+    }
+
+    @Test
+    public void testReadEmptyArray() {
+        Iterator<Person> iterator = JsonTool.readArray(new ByteArrayInputStream("[ ]".getBytes()), Person.class);
+        assertFalse(iterator.hasNext());
+    }
+
+    @Test(expected = SystemException.class)
+    public void testReadArrayNotArray() {
+        JsonTool.readArray(new ByteArrayInputStream("{\"name\":\"a\"}".getBytes()), Person.class);
+    }
+
+    @Test
+    public void testWriteAndReadNdJson() throws Exception {
+        List<Person> persons = createPersons(3);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertEquals(3, JsonTool.writeNdJson(out, persons.iterator()));
+
+        String[] lines = out.toString("UTF-8").split("\n");
+        assertEquals(3, lines.length);
+        assertEquals("name2", JsonTool.fromJson(lines[2], Person.class).getName());
+
+        Iterator<Person> iterator = JsonTool.readNdJson(new ByteArrayInputStream(out.toByteArray()), Person.class);
+        List<Person> result = new ArrayList<Person>();
+        while (iterator.hasNext()) {
+            result.add(iterator.next());
+        }
+        assertEquals(3, result.size());
+        assertEquals("name1", result.get(1).getName());
+    }
+
+    private List<Person> createPersons(int size) {
+        List<Person> persons = new ArrayList<Person>(size);
+        for (int i = 0; i < size; i++) {
+            persons.add(new Person("name" + i, "male"));
+        }
+        return persons;
+    }
+
+}
@@ -0,0 +1,240 @@
+package data.xml;
+
+import exception.SystemException;
+import org.dom4j.Document;
+import org.dom4j.Element;
+import org.dom4j.Node;
+import org.dom4j.XPath;
+import org.dom4j.XPathException;
+import org.junit.Test;
+import support.ICallback;
+
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+public class Dom4jToolTest {
+
+    private static ByteArrayInputStream feed(int itemCount) throws Exception {
+        StringBuilder xml = new StringBuilder("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<feed>\n");
+        xml.append("  <header title=\"test\"/>\n");
+        for (int i = 0; i < itemCount; i++) {
+            xml.append("  <item id=\"").append(i).append("\" hot=\"").append(i % 2 == 0)
+                    .append("\"><name>item").append(i).append("</name></item>\n");
+        }
+        xml.append("</feed>");
+        return new ByteArrayInputStream(xml.toString().getBytes("UTF-8"));
+    }
+
+    @Test
+    public void testProcessXml() throws Exception {
+        final List<Integer> ids = new ArrayList<Integer>();
+        Dom4jTool.processXml(feed(1000), "/feed/item", new ICallback<Element, Object>() {
+            @Override
+            public Object execute(Element element) {
+                assertNull(element.getParent());
+                assertEquals("item" + ids.size(), element.elementText("name"));
+                ids.add(Dom4jTool.getIntegerAttribute(element, "id", -1));
+                return null;
+            }
+        });
+        assertEquals(1000, ids.size());
+        assertEquals(Integer.valueOf(999), ids.get(999));
+    }
+
+    @Test
+    public void testProcessXmlWithMultiplePaths() throws Exception {
+        final List<String> titles = new ArrayList<String>();
+        final int[] hotCount = new int[1];
+        Map<String, ICallback<Element, ?>> handlers = new HashMap<String, ICallback<Element, ?>>();
+        handlers.put("/feed/header", new ICallback<Element, Object>() {
+            @Override
+            public Object execute(Element element) {
+                titles.add(Dom4jTool.getAttributeValue(element, "title", null));
+                return null;
+            }
+        });
+        handlers.put("/feed/item", new ICallback<Element, Object>() {
+            @Override
+            public Object execute(Element element) {
+                if (Dom4jTool.getBooleanAttribute(element, "hot", false)) {
+                    hotCount[0]++;
+                }
+                return null;
+            }
+        });
+        Dom4jTool.processXml(feed(10), handlers);
+        assertEquals(1, titles.size());
+        assertEquals("test", titles.get(0));
+        assertEquals(5, hotCount[0]);
+    }
+
+    @Test(expected = SystemException.class)
+    public void testProcessInvalidXml() throws Exception {
+        Dom4jTool.processXml(new ByteArrayInputStream("<feed><item></feed>".getBytes("UTF-8")), "/feed/item",
+                new ICallback<Element, Object>() {
+                    @Override
+                    public Object execute(Element element) {
+                        return null;
+                    }
+                });
+    }
+
+    @Test
+    public void testProcessXmlCallbackException() throws Exception {
+        final IllegalStateException failure = new IllegalStateException("stop");
+        final int[] count = new int[1];
+        try {
+            Dom4jTool.processXml(feed(10), "/feed/item", new ICallback<Element, Object>() {
+                @Override
+                public Object execute(Element element) {
+                    if (++count[0] == 3) {
+                        throw failure;
+                    }
+                    return null;
+                }
+            });
+            fail();
+        } catch (IllegalStateException e) {
+            assertSame(failure, e); // 原样抛出，不被包装
+        }
+        assertEquals(3, count[0]); // 抛出后解析中止
+    }
+
+    @Test
+    public void testGetAttribute() {
+        Element element = Dom4jTool.stringToDocument(
+                "<item id=\"12\" size=\"12345678901\" price=\"1.5\" hot=\"true\" name=\"a\" bad=\"x\"/>")
+                .getRootElement();
+        assertEquals(Integer.valueOf(12), Dom4jTool.getAttribute(element, "id", Integer.class, 0));
+        assertEquals(Long.valueOf(12345678901L), Dom4jTool.getAttribute(element, "size", Long.class, 0L));
+        assertEquals(Double.valueOf(1.5), Dom4jTool.getAttribute(element, "price", Double.class, 0.0));
+        assertEquals(Boolean.TRUE, Dom4jTool.getAttribute(element, "hot", Boolean.class, false));
+        assertEquals("a", Dom4jTool.getAttribute(element, "name", String.class, null));
+        assertEquals(Integer.valueOf(7), Dom4jTool.getAttribute(element, "missing", Integer.class, 7));
+        assertNull(Dom4jTool.getAttribute(element, "bad", Integer.class, 0));
+        assertNull(Dom4jTool.getAttribute(element, "bad", Boolean.class, false));
+        assertNull(Dom4jTool.getAttribute(null, "id", Integer.class, 0));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testGetAttributeUnsupportedType() {
+        Element element = Dom4jTool.stringToDocument("<item id=\"12\"/>").getRootElement();
+        Dom4jTool.getAttribute(element, "id", Character.class, null);
+    }
+
+    @Test
+    public void testCompileXPathIsCached() {
+        assertSame(Dom4jTool.compileXPath("/feed/item"), Dom4jTool.compileXPath("/feed/item"));
+        Map<String, String> ns = new HashMap<String, String>();
+        ns.put("a", "urn:a");
+        assertNotSame(Dom4jTool.compileXPath("/feed/item"), Dom4jTool.compileXPath("/feed/item", ns));
+        assertSame(Dom4jTool.compileXPath("/feed/item", ns), Dom4jTool.compileXPath("/feed/item", ns));
+    }
+
+    @Test(expected = SystemException.class)
+    public void testCompileInvalidXPath() {
+        Dom4jTool.compileXPath("/feed/[");
+    }
+
+    @Test
+    public void testSelectWithNamespace() {
+        Document document = Dom4jTool.stringToDocument(
+                "<f:feed xmlns:f=\"urn:feed\"><f:item id=\"1\"/><f:item id=\"2\"/></f:feed>");
+        Map<String, String> ns = new HashMap<String, String>();
+        ns.put("x", "urn:feed");
+        assertEquals(2, Dom4jTool.compileXPath("/x:feed/x:item", ns).selectNodes(document).size());
+        assertEquals(0, Dom4jTool.selectNodes(document, "/feed/item").size());
+    }
+
+    @Test
+    public void testCachedXPathNotBoundToDocument() {
+        Document document = Dom4jTool.stringToDocument("<feed xmlns:p=\"urn:p\"><p:item/></feed>");
+        XPath xpath = Dom4jTool.compileXPath("/feed/p:item");
+        assertNotNull(xpath.getNamespaceContext()); // 编译时已固定，查询时不会再按文档设置
+        try {
+            xpath.selectNodes(document); // 文档中声明的前缀不参与解析
+            fail();
+        } catch (XPathException e) {
+            // 前缀未注册
+        }
+    }
+
+    @Test
+    public void testSharedXPathAcrossDocumentsAndThreads() throws Exception {
+        // 文档B中前缀x绑定的是另一个命名空间，若XPath使用了文档中的前缀，在B上将只匹配到x:item
+        final Document a = Dom4jTool.stringToDocument("<feed xmlns=\"urn:a\"><item/><item/><item/></feed>");
+        final Document b = Dom4jTool.stringToDocument(
+                "<y:feed xmlns:y=\"urn:a\" xmlns:x=\"urn:b\"><y:item/><y:item/><x:item/></y:feed>");
+        final Document c = Dom4jTool.stringToDocument("<feed xmlns:p=\"urn:c\"><item/></feed>");
+        final Document d = Dom4jTool.stringToDocument("<feed xmlns:p=\"urn:d\"><item/><item/></feed>");
+        final Map<String, String> ns = new HashMap<String, String>();
+        ns.put("x", "urn:a");
+        final AtomicReference<String> error = new AtomicReference<String>();
+        final CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<Thread>();
+        for (int t = 0; t < 8; t++) {
+            final boolean documentAFirst = t % 2 == 0;
+            Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                        for (int i = 0; i < 500; i++) {
+                            Document document = (i % 2 == 0) == documentAFirst ? a : b;
+                            int count = Dom4jTool.compileXPath("//x:item", ns).selectNodes(document).size();
+                            int expected = document == a ? 3 : 2;
+                            if (count != expected) {
+                                error.set("expected " + expected + " but was " + count);
+                            }
+                            document = document == a ? c : d;
+                            count = Dom4jTool.compileXPath("/feed/item").selectNodes(document).size();
+                            expected = document == c ? 1 : 2;
+                            if (count != expected) {
+                                error.set("expected " + expected + " but was " + count);
+                            }
+                        }
+                    } catch (Exception e) {
+                        error.set(e.toString());
+                    }
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertNull(error.get());
+    }
+
+    @Test
+    public void testBatchQueries() throws Exception {
+        Document document = Dom4jTool.stringToDocument(
+                "<config><server port=\"8080\" secure=\"true\" bad=\"x\"/><name>demo</name><timeout>30</timeout></config>");
+        Map<String, List<Node>> nodes = Dom4jTool.selectNodes(document, "/config/server", "/config/name", "/config/none");
+        assertEquals(1, nodes.get("/config/server").size());
+        assertEquals(1, nodes.get("/config/name").size());
+        assertTrue(nodes.get("/config/none").isEmpty());
+
+        assertEquals(Integer.valueOf(8080), Dom4jTool.getValue(document, "/config/server/@port", Integer.class, 0));
+        assertEquals(Boolean.TRUE, Dom4jTool.getValue(document, "/config/server/@secure", Boolean.class, false));
+        assertEquals("demo", Dom4jTool.getValue(document, "/config/name", String.class, null));
+        assertEquals(Integer.valueOf(5), Dom4jTool.getValue(document, "/config/none", Integer.class, 5));
+        assertNull(Dom4jTool.getValue(document, "/config/server/@bad", Integer.class, 0));
+
+        Map<String, Integer> values = Dom4jTool.getValues(document, Integer.class, "/config/timeout",
+                "/config/server/@port", "/config/none");
+        assertEquals(Integer.valueOf(30), values.get("/config/timeout"));
+        assertEquals(Integer.valueOf(8080), values.get("/config/server/@port"));
+        assertNull(values.get("/config/none"));
+    }
+
+}
@@ -0,0 +1,167 @@
+package data.xml;
+
+import exception.SystemException;
+import org.junit.Test;
+
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlRootElement;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.*;
+
+public class JaxbToolTest {
+
+    @XmlRootElement
+    @XmlAccessorType(XmlAccessType.FIELD)
+    public static class User {
+
+        private String name;
+        private int age;
+
+        public User() {
+        }
+
+        User(String name, int age) {
+            this.name = name;
+            this.age = age;
+        }
+    }
+
+    /**
+     * 没有标注XmlRootElement的元素
+     */
+    @XmlAccessorType(XmlAccessType.FIELD)
+    public static class Item {
+
+        private String code;
+
+        public Item() {
+        }
+
+        Item(String code) {
+            this.code = code;
+        }
+    }
+
+    /**
+     * 记录是否被关闭的输入流
+     */
+    private static class TrackingInputStream extends ByteArrayInputStream {
+
+        private boolean closed;
+
+        TrackingInputStream(byte[] bytes) {
+            super(bytes);
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+
+    @Test
+    public void testToXmlAndFromXml() throws Exception {
+        String xml = JaxbTool.toXml(new User("张三", 20), "UTF-8");
+        assertTrue(xml, xml.contains("<name>张三</name>"));
+        User user = JaxbTool.fromXml(xml, User.class);
+        assertEquals("张三", user.name);
+        assertEquals(20, user.age);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        JaxbTool.toXml(new User("李四", 30), "GBK", out);
+        assertTrue(new String(out.toByteArray(), "GBK").contains("encoding=\"GBK\""));
+        assertEquals("李四", JaxbTool.fromXml(new ByteArrayInputStream(out.toByteArray()), User.class).name);
+
+        StringWriter writer = new StringWriter();
+        JaxbTool.toXml(new User("王五", 40), User.class, null, writer);
+        assertEquals(40, JaxbTool.fromXml(new StringReader(writer.toString()), User.class).age);
+    }
+
+    @Test
+    public void testCollection() {
+        String xml = JaxbTool.toXml(Arrays.asList(new User("a", 1), new User("b", 2)), "users", User.class);
+        assertTrue(xml, xml.contains("<users>"));
+        assertEquals(2, xml.split("<user>").length - 1);
+    }
+
+    @Test
+    public void testPooledConcurrently() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<String>> futures = new ArrayList<Future<String>>();
+            for (int i = 0; i < 200; i++) {
+                final int index = i;
+                futures.add(executor.submit(new Callable<String>() {
+                    @Override
+                    public String call() {
+                        String xml = JaxbTool.toXml(new User("user" + index, index), index % 2 == 0 ? null : "UTF-8");
+                        return JaxbTool.fromXml(xml, User.class).name;
+                    }
+                }));
+            }
+            for (int i = 0; i < futures.size(); i++) {
+                assertEquals("user" + i, futures.get(i).get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testStreaming() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        JaxbTool.toXml(Arrays.asList(new User("a", 1), new User("b", 2), new User("c", 3)).iterator(), "users",
+                User.class, null, out);
+        TrackingInputStream in = new TrackingInputStream(out.toByteArray());
+        XmlElementIterator<User> iterator = JaxbTool.iterateXml(in, User.class);
+        List<String> names = new ArrayList<String>();
+        while (iterator.hasNext()) {
+            names.add(iterator.next().name);
+        }
+        assertEquals(Arrays.asList("a", "b", "c"), names);
+        assertTrue(in.closed); // 迭代结束时关闭
+
+        out.reset();
+        JaxbTool.toXml(Arrays.asList(new Item("x"), new Item("y")).iterator(), "items", Item.class, "UTF-8", out);
+        String xml = new String(out.toByteArray());
+        assertTrue(xml, xml.contains("<item><code>x</code></item>"));
+        in = new TrackingInputStream(out.toByteArray());
+        XmlElementIterator<Item> items = JaxbTool.iterateXml(in, Item.class);
+        assertEquals("x", items.next().code);
+        items.close(); // 提前结束
+        assertTrue(in.closed);
+        assertFalse(items.hasNext());
+    }
+
+    @Test
+    public void testIterateClosesInputOnFailure() {
+        TrackingInputStream in = new TrackingInputStream("<list/>".getBytes());
+        try {
+            JaxbTool.iterateXml(in, Runnable.class); // 接口不能创建JAXBContext
+            fail();
+        } catch (SystemException e) {
+            assertTrue(in.closed);
+        }
+
+        in = new TrackingInputStream("not xml".getBytes());
+        try {
+            JaxbTool.iterateXml(in, User.class);
+            fail();
+        } catch (SystemException e) {
+            assertTrue(in.closed);
+        }
+    }
+
+}
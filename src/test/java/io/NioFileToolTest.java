@@ -0,0 +1,73 @@
+package io;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Random;
+import java.util.zip.CRC32;
+
+import static org.junit.Assert.*;
+
+public class NioFileToolTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File createFile(String name, int size, long seed) throws IOException {
+        byte[] bytes = new byte[size];
+        new Random(seed).nextBytes(bytes);
+        File file = folder.newFile(name);
+        FileUtils.writeByteArrayToFile(file, bytes);
+        return file;
+    }
+
+    @Test
+    public void testReadAndChecksum() throws IOException {
+        for (int size : new int[]{100 * 1024, (int) NioFileTool.MAPPED_THRESHOLD + 123}) {
+            File file = createFile("read" + size, size, size);
+            assertArrayEquals(FileUtils.readFileToByteArray(file), NioFileTool.readFileToByteArray(file));
+            assertArrayEquals(FileUtils.readFileToByteArray(file), FileTool.readFileToByteArray(file));
+            long expected = FileUtils.checksumCRC32(file);
+            assertEquals(expected, NioFileTool.checksum(file, new CRC32()).getValue());
+            assertEquals(Long.valueOf(expected), FileTool.checksumCRC32(file));
+        }
+    }
+
+    @Test
+    public void testContentEquals() throws IOException {
+        for (int size : new int[]{100 * 1024, (int) NioFileTool.MAPPED_THRESHOLD + 123}) {
+            File file1 = createFile("a" + size, size, 1);
+            File file2 = createFile("b" + size, size, 1);
+            File file3 = createFile("c" + size, size, 2);
+            assertTrue(NioFileTool.contentEquals(file1, file2));
+            assertTrue(FileTool.contentEquals(file1, file2));
+            assertFalse(NioFileTool.contentEquals(file1, file3));
+            assertTrue(NioFileTool.contentEquals(file1, file1));
+        }
+        assertTrue(NioFileTool.contentEquals(new File(folder.getRoot(), "x"), new File(folder.getRoot(), "y")));
+    }
+
+    @Test
+    public void testCopyFile() throws IOException {
+        File file = createFile("copy", (int) NioFileTool.MAPPED_THRESHOLD + 7, 3);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertEquals(file.length(), NioFileTool.copyFile(file, out));
+        assertArrayEquals(FileUtils.readFileToByteArray(file), out.toByteArray());
+
+        File dest = new File(folder.getRoot(), "copy.dest");
+        FileOutputStream fileOut = new FileOutputStream(dest);
+        try {
+            assertEquals(Long.valueOf(file.length()), FileTool.copyFile(file, fileOut));
+        } finally {
+            fileOut.close();
+        }
+        assertTrue(FileUtils.contentEquals(file, dest));
+    }
+
+}
@@ -9,8 +9,7 @@ import org.junit.Test;
 import java.util.Calendar;
 import java.util.Date;
 
-import static org.junit.Assert.assertEquals;
-import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.*;
 
 public class DateToolTest {
 
@@ -36,6 +35,32 @@ public class DateToolTest {
         assertEquals("08/23/2010 21:21:21", DateTool.formatDate(date, "MM/dd/yyyy HH:mm:ss"));
     }
 
+    @Test
+    public void testFormatTo() {
+        StringBuilder sb = new StringBuilder("time:");
+        assertSame(sb, DateTool.formatTo(date, DateTool.FMT_HYPHEN_DAY_CLN_SECOND, sb));
+        assertEquals("time:2010-08-23 21:21:21", sb.toString());
+        StringBuffer buffer = new StringBuffer();
+        DateTool.formatTo(date, DateTool.UNFMT_yyyyMMddHHmmssSSS, buffer);
+        assertEquals("20100823212121111", buffer.toString());
+    }
+
+    @Test
+    public void testDetectPattern() {
+        assertEquals(DateTool.FMT_HYPHEN_DAY_CLN_SECOND, DateTool.detectPattern("2010-08-23 21:21:21"));
+        assertEquals(DateTool.UNFMT_yyyyMMdd, DateTool.detectPattern("20100823"));
+        assertEquals(DateTool.UNFMT_yyyyMM, DateTool.detectPattern("201008"));
+        assertEquals(DateTool.FMT_CN_DAY_CN_MINUTE, DateTool.detectPattern("2010年08月23日 21时21分"));
+        assertNull(DateTool.detectPattern("2010/8/23"));
+
+        cal.set(Calendar.MILLISECOND, 0);
+        assertEquals(cal.getTime(), DateTool.parseDateAuto("2010-08-23 21:21:21"));
+        assertEquals(cal.getTime(), DateTool.parseDateAuto("20100823212121"));
+        assertEquals(cal.getTime(), DateTool.parseDate("2010年08月23日 21时21分21秒", DateTool.FMT_HYPHEN_DAY,
+                DateTool.FMT_CN_DAY_CN_SECOND));
+        assertEquals(cal.getTime(), DateTool.parseDate("08/23/2010 21:21:21", "MM/dd/yyyy HH:mm:ss"));
+    }
+
     @Test
     public void testSwapDates() {
         Date date1 = ((Calendar) cal.clone()).getTime();
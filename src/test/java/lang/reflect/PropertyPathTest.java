@@ -0,0 +1,74 @@
+package lang.reflect;
+
+import bean.Address;
+import bean.Person;
+import exception.SystemException;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class PropertyPathTest {
+
+    @Test
+    public void testCompileCached() {
+        assertSame(PropertyPath.compile("address.city"), PropertyPath.compile("address.city"));
+        assertEquals("address.city", PropertyPath.compile("address.city").getPath());
+    }
+
+    @Test
+    public void testIsSimplePath() {
+        assertTrue(PropertyPath.isSimplePath("address.city"));
+        assertFalse(PropertyPath.isSimplePath("goods[0]"));
+        assertFalse(PropertyPath.isSimplePath("contact(student)"));
+        assertFalse(PropertyPath.isSimplePath(" "));
+    }
+
+    @Test
+    public void testGetAndSet() {
+        Person person = new Person("Mike");
+        person.setAddress(new Address());
+
+        PropertyPath path = PropertyPath.compile("address.city");
+        path.set(person, "changsha");
+        assertEquals("changsha", person.getAddress().getCity());
+        assertEquals("changsha", path.get(person));
+
+        PropertyPath age = PropertyPath.compile("age");
+        age.set(person, 20);
+        assertEquals(20, age.get(person));
+    }
+
+    @Test
+    public void testPolymorphic() {
+        PropertyPath path = PropertyPath.compile("name");
+        assertEquals("Mike", path.get(new Person("Mike")));
+        assertEquals("sub", path.get(new SubPerson("sub")));
+
+        Map<String, Object> map = new HashMap<String, Object>();
+        map.put("name", "map");
+        assertEquals("map", path.get(map));
+    }
+
+    @Test(expected = SystemException.class)
+    public void testNullInPath() {
+        PropertyPath.compile("address.city").get(new Person("Mike"));
+    }
+
+    @Test(expected = SystemException.class)
+    public void testNoSuchProperty() {
+        PropertyPath.compile("invalidProperty").get(new Person("Mike"));
+    }
+
+    public static class SubPerson extends Person {
+
+        private static final long serialVersionUID = 1L;
+
+        public SubPerson(String name) {
+            super(name);
+        }
+    }
+
+}
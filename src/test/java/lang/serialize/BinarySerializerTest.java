@@ -0,0 +1,374 @@
+package lang.serialize;
+
+import bean.Address;
+import bean.Person;
+import exception.SystemException;
+import lang.SerializationTool;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.sql.Timestamp;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.*;
+
+public class BinarySerializerTest {
+
+    private final BinarySerializer serializer = new BinarySerializer();
+
+    private static Person createPerson(int index) {
+        Person person = new Person("name" + index, "男");
+        person.setId(String.valueOf(index));
+        person.setAge(20 + index);
+        person.setBirthday(new Date(1000000000000L + index));
+        Address address = new Address();
+        address.setProvince("广东");
+        address.setCity("广州");
+        person.setAddress(address);
+        person.setGoods(Arrays.asList("a", "b"));
+        Map<String, String> contact = new LinkedHashMap<String, String>();
+        contact.put("email", "user" + index + "@example.com");
+        person.setContact(contact);
+        return person;
+    }
+
+    /**
+     * 没有实现Serializable、没有无参构造器、含有final字段的类
+     */
+    static class Node {
+
+        private final String name;
+        private final int[] weights;
+        private Node next;
+        private transient String cache = "cache";
+
+        Node(String name, int... weights) {
+            this.name = name;
+            this.weights = weights;
+        }
+    }
+
+    @Test
+    public void testValues() {
+        Object[] values = {null, "", "abc中文", 0, -1, Integer.MAX_VALUE, Integer.MIN_VALUE, Long.MIN_VALUE, 1.5d,
+                Double.NaN, -2.5f, (short) -7, (byte) 3, 'x', '中', true, false, new BigDecimal("-123.4500"),
+                new BigInteger("123456789012345678901234567890"), new Date(123456789L), new java.sql.Date(0),
+                TimeUnit.SECONDS, UUID.randomUUID(), String.class, int.class, Locale.CHINA};
+        for (Object value : values) {
+            assertEquals(value, serializer.copy(value));
+        }
+        Timestamp timestamp = new Timestamp(1000L);
+        timestamp.setNanos(123456789);
+        assertEquals(timestamp, serializer.copy(timestamp));
+        assertEquals(Timestamp.class, serializer.copy(timestamp).getClass());
+    }
+
+    @Test
+    public void testArraysAndCollections() {
+        assertArrayEquals(new int[]{1, -2, 300000}, serializer.copy(new int[]{1, -2, 300000}));
+        assertArrayEquals(new byte[]{1, 2, 3}, serializer.copy(new byte[]{1, 2, 3}));
+        assertArrayEquals(new long[]{Long.MAX_VALUE}, serializer.copy(new long[]{Long.MAX_VALUE}));
+        assertArrayEquals(new double[]{1.5}, serializer.copy(new double[]{1.5}), 0);
+        assertArrayEquals(new char[]{'a', '中'}, serializer.copy(new char[]{'a', '中'}));
+        assertTrue(Arrays.equals(new boolean[]{true, false}, serializer.copy(new boolean[]{true, false})));
+        assertArrayEquals(new String[]{"a", null}, serializer.copy(new String[]{"a", null}));
+        assertArrayEquals(new int[][]{{1}, {2, 3}}, serializer.copy(new int[][]{{1}, {2, 3}}));
+
+        List<Object> list = new ArrayList<Object>(Arrays.<Object>asList(1, "a", null, 2L));
+        assertEquals(list, serializer.copy(list));
+        Set<String> set = new TreeSet<String>(Arrays.asList("b", "a", "c"));
+        assertEquals(set, serializer.copy(set));
+        Set<String> reversed = new TreeSet<String>(Collections.reverseOrder());
+        reversed.addAll(set);
+        assertEquals(new ArrayList<String>(reversed), new ArrayList<String>(serializer.copy(reversed)));
+        Map<String, Object> map = new LinkedHashMap<String, Object>();
+        map.put("b", 1);
+        map.put("a", Arrays.asList(1, 2));
+        Map<String, Object> copy = serializer.copy(map);
+        assertEquals(map, copy);
+        assertEquals(LinkedHashMap.class, copy.getClass());
+        assertEquals(Arrays.asList("b", "a"), new ArrayList<String>(copy.keySet()));
+        Object[] wrappers = {Arrays.asList(1, 2), Collections.unmodifiableList(list), Collections.singletonList("x"),
+                Collections.singleton("x"), Collections.singletonMap("k", "v"), Collections.emptyList(),
+                Collections.emptyMap(), Collections.unmodifiableMap(map), Collections.unmodifiableSet(set)};
+        for (Object wrapper : wrappers) {
+            Object wrapperCopy = serializer.copy(wrapper);
+            assertEquals(wrapper, wrapperCopy);
+            assertEquals(wrapper.getClass(), wrapperCopy.getClass());
+        }
+    }
+
+    @Test
+    public void testComparatorAndAccessOrder() {
+        PriorityQueue<Integer> queue = new PriorityQueue<Integer>(4, Collections.<Integer>reverseOrder());
+        queue.addAll(Arrays.asList(1, 3, 2));
+        PriorityQueue<Integer> queueCopy = serializer.copy(queue);
+        assertEquals(Integer.valueOf(3), queueCopy.peek());
+        assertEquals(Collections.reverseOrder(), queueCopy.comparator());
+
+        Map<String, Integer> lru = new LinkedHashMap<String, Integer>(16, 0.75f, true);
+        lru.put("a", 1);
+        lru.put("b", 2);
+        lru.get("a");
+        Map<String, Integer> lruCopy = serializer.copy(lru);
+        assertEquals(Arrays.asList("b", "a"), new ArrayList<String>(lruCopy.keySet()));
+        lruCopy.get("b"); // 仍按访问顺序排列
+        assertEquals(Arrays.asList("a", "b"), new ArrayList<String>(lruCopy.keySet()));
+    }
+
+    @Test
+    public void testBean() {
+        Person person = createPerson(1);
+        Person copy = serializer.copy(person);
+        assertNotSame(person, copy);
+        assertEquals(person.getName(), copy.getName());
+        assertEquals(person.getAge(), copy.getAge());
+        assertEquals(person.getBirthday(), copy.getBirthday());
+        assertEquals(person.getAddress().getCity(), copy.getAddress().getCity());
+        assertNotSame(person.getAddress(), copy.getAddress());
+        assertEquals(person.getGoods(), copy.getGoods());
+        assertEquals(person.getContact(), copy.getContact());
+    }
+
+    @Test
+    public void testNonSerializableObjectWithCycle() {
+        Node first = new Node("first", 1, 2);
+        Node second = new Node("second");
+        first.next = second;
+        second.next = first;
+        Node copy = serializer.copy(first);
+        assertEquals("first", copy.name);
+        assertArrayEquals(new int[]{1, 2}, copy.weights);
+        assertEquals("second", copy.next.name);
+        assertSame(copy, copy.next.next);
+        assertNull(copy.cache); // transient字段不序列化，且不调用构造器
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testSharedReferences() {
+        Address address = new Address();
+        List<Address> list = Arrays.asList(address, address);
+        List<Address> copy = serializer.copy(new ArrayList<Address>(list));
+        assertSame(copy.get(0), copy.get(1));
+
+        BinarySerializer untracked = new BinarySerializer();
+        untracked.setReferenceTracking(false);
+        copy = untracked.copy(new ArrayList<Address>(list));
+        assertNotSame(copy.get(0), copy.get(1));
+        // 反序列化端按数据头决定是否跟踪引用
+        copy = (List<Address>) untracked.deserialize(serializer.serialize(new ArrayList<Address>(list)));
+        assertSame(copy.get(0), copy.get(1));
+    }
+
+    @Test
+    public void testToggleReferenceTrackingConcurrently() throws InterruptedException {
+        final BinarySerializer toggled = new BinarySerializer();
+        List<Address> list = new ArrayList<Address>();
+        for (int i = 0; i < 100; i++) {
+            Address address = new Address();
+            address.setCity("city" + i);
+            list.add(address);
+            list.add(address);
+        }
+        final AtomicBoolean stop = new AtomicBoolean();
+        Thread toggler = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                while (!stop.get()) {
+                    toggled.setReferenceTracking(!toggled.isReferenceTracking());
+                }
+            }
+        });
+        toggler.start();
+        try {
+            for (int i = 0; i < 500; i++) { // 数据头与内容的编码方式必须一致
+                List<Address> copy = toggled.copy(list);
+                assertEquals("city99", copy.get(199).getCity());
+            }
+        } finally {
+            stop.set(true);
+            toggler.join();
+        }
+    }
+
+    @Test(expected = SystemException.class)
+    public void testCycleWithoutReferenceTracking() {
+        Node node = new Node("self");
+        node.next = node;
+        BinarySerializer untracked = new BinarySerializer();
+        untracked.setReferenceTracking(false);
+        untracked.serialize(node);
+    }
+
+    @Test
+    public void testRegistration() {
+        BinarySerializer registered = new BinarySerializer().register(Person.class).register(Address.class);
+        Person person = createPerson(2);
+        byte[] withNames = serializer.serialize(person);
+        byte[] withIds = registered.serialize(person);
+        assertTrue(withIds.length < withNames.length);
+        assertEquals(person.getName(), ((Person) registered.deserialize(withIds)).getName());
+
+        registered.setRegistrationRequired(true);
+        try {
+            registered.serialize(new Node("x"));
+            fail();
+        } catch (SystemException e) {
+            // 未注册
+        }
+        try {
+            new BinarySerializer().register(Person.class, 1).register(Address.class, 1);
+            fail();
+        } catch (IllegalArgumentException e) {
+            // id已被使用
+        }
+    }
+
+    @Test
+    public void testRegistrationRequiredOnRead() {
+        BinarySerializer reader = new BinarySerializer().register(Person.class).register(Address.class);
+        reader.setRegistrationRequired(true);
+        try {
+            reader.deserialize(serializer.serialize(new Node("x"))); // 流中的类名
+            fail();
+        } catch (SystemException e) {
+            // 未注册
+        }
+        try {
+            reader.deserialize(serializer.serialize(Locale.CHINA)); // 内嵌的JDK序列化数据
+            fail();
+        } catch (SystemException e) {
+            // 未注册
+        }
+
+        reader.register(Locale.class);
+        assertEquals(Locale.CHINA, reader.deserialize(serializer.serialize(Locale.CHINA)));
+        assertArrayEquals(new int[][]{{1}}, (int[][]) reader.deserialize(serializer.serialize(new int[][]{{1}})));
+    }
+
+    @Test
+    public void testStream() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (int i = 0; i < 3; i++) {
+            serializer.serialize(createPerson(i), out);
+        }
+        ByteArrayInputStream in = new ByteArrayInputStream(out.toByteArray());
+        for (int i = 0; i < 3; i++) {
+            assertEquals("name" + i, ((Person) serializer.deserialize(in)).getName());
+        }
+        assertEquals(0, in.available());
+    }
+
+    @Test(expected = SystemException.class)
+    public void testTruncatedData() {
+        byte[] bytes = serializer.serialize(createPerson(1));
+        serializer.deserialize(Arrays.copyOf(bytes, bytes.length / 2));
+    }
+
+    @Test
+    public void testCorruptedLengths() {
+        byte[] huge = {(byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0x7F}; // 约2.6亿
+        byte[] negative = {(byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x0F};
+        byte[][] inputs = {
+                concat(new byte[]{0x11, 11}, huge), // 字符串
+                concat(new byte[]{0x11, 11}, negative),
+                concat(new byte[]{0x11, 19, 3}, huge), // long[]
+                concat(new byte[]{0x11, 19, 10}, negative), // Object[]
+                concat(new byte[]{0x11, 20, 26}, huge), // ArrayList
+                concat(new byte[]{0x11, 21, 31}, huge), // HashMap
+                concat(new byte[]{0x11, 13}, huge), // BigInteger
+                {0x11, 11, 5, 'a'} // 截断
+        };
+        for (byte[] input : inputs) {
+            try {
+                serializer.deserialize(input);
+                fail(Arrays.toString(input));
+            } catch (SystemException e) {
+                // 分配内存前拒绝
+            }
+        }
+    }
+
+    @Test
+    public void testCorruptedStreamLength() {
+        byte[][] inputs = {
+                {(byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x07, 0x11}, // 超过上限
+                {(byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x01}, // 格式错误
+                {(byte) 0xE8, 0x07, 0x11, 11, 1} // 声明1000个字节，实际只有3个
+        };
+        for (byte[] input : inputs) {
+            try {
+                serializer.deserialize(new ByteArrayInputStream(input));
+                fail(Arrays.toString(input));
+            } catch (SystemException e) {
+                // 不按声明的长度分配内存
+            }
+        }
+
+        BinarySerializer limited = new BinarySerializer();
+        limited.setMaxStreamLength(16);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        limited.serialize("short", out);
+        limited.serialize("a string longer than the limit", out);
+        ByteArrayInputStream in = new ByteArrayInputStream(out.toByteArray());
+        assertEquals("short", limited.deserialize(in));
+        try {
+            limited.deserialize(in);
+            fail();
+        } catch (SystemException e) {
+            // 超过上限
+        }
+    }
+
+    private static byte[] concat(byte[] head, byte[] tail) {
+        byte[] bytes = Arrays.copyOf(head, head.length + tail.length);
+        System.arraycopy(tail, 0, bytes, head.length, tail.length);
+        return bytes;
+    }
+
+    @Test
+    public void testSmallerThanJdkSerialization() {
+        List<Person> persons = new ArrayList<Person>();
+        for (int i = 0; i < 100; i++) {
+            persons.add(createPerson(i));
+        }
+        int binarySize = serializer.serialize(persons).length;
+        int jdkSize = new JdkSerializer().serialize(persons).length;
+        assertTrue(binarySize + " >= " + jdkSize, binarySize < jdkSize);
+
+        // 单个对象时JDK序列化需要写出完整的类描述，差距更大
+        binarySize = serializer.serialize(createPerson(1)).length;
+        jdkSize = new JdkSerializer().serialize(createPerson(1)).length;
+        assertTrue(binarySize + " * 3 >= " + jdkSize, binarySize * 3 < jdkSize);
+    }
+
+    @Test
+    public void testJdkSerializer() {
+        JdkSerializer jdk = new JdkSerializer();
+        assertEquals("name1", jdk.copy(createPerson(1)).getName());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        jdk.serialize("a", out);
+        jdk.serialize(1, out);
+        ByteArrayInputStream in = new ByteArrayInputStream(out.toByteArray());
+        assertEquals("a", jdk.deserialize(in));
+        assertEquals(1, jdk.deserialize(in));
+        try {
+            jdk.serialize(new Node("x"));
+            fail();
+        } catch (SystemException e) {
+            // 没有实现Serializable
+        }
+    }
+
+    @Test
+    public void testDefaultSerializer() {
+        assertTrue(SerializationTool.getSerializer() instanceof BinarySerializer);
+    }
+
+}
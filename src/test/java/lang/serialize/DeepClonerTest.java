@@ -0,0 +1,145 @@
+package lang.serialize;
+
+import exception.SystemException;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class DeepClonerTest {
+
+    /**
+     * 没有实现Serializable、没有无参构造器的类
+     */
+    static class Node {
+
+        private final String name;
+        private final long[] values;
+        private double weight;
+        private Node parent;
+        private final List<Node> children = new ArrayList<Node>();
+        private Map<String, Object> attributes;
+
+        Node(String name, long... values) {
+            this.name = name;
+            this.values = values;
+        }
+
+        Node add(Node child) {
+            child.parent = this;
+            children.add(child);
+            return this;
+        }
+    }
+
+    @Test
+    public void testImmutablesAreShared() {
+        Object[] values = {"a", 1, 2L, BigDecimal.ONE, TimeUnit.DAYS, UUID.randomUUID(), String.class};
+        for (Object value : values) {
+            assertSame(value, DeepCloner.clone(value));
+        }
+        assertNull(DeepCloner.clone(null));
+    }
+
+    @Test
+    public void testGraphWithCycles() {
+        Node root = new Node("root", 1, 2).add(new Node("a")).add(new Node("b"));
+        root.weight = 1.5;
+        root.attributes = new HashMap<String, Object>();
+        root.attributes.put("self", root);
+        root.attributes.put("date", new Date(1000));
+
+        Node copy = DeepCloner.clone(root);
+        assertNotSame(root, copy);
+        assertEquals("root", copy.name);
+        assertEquals(1.5, copy.weight, 0);
+        assertArrayEquals(new long[]{1, 2}, copy.values);
+        assertNotSame(root.values, copy.values);
+        assertEquals(2, copy.children.size());
+        assertNotSame(root.children, copy.children);
+        assertSame(copy, copy.children.get(0).parent);
+        assertSame(copy, copy.children.get(1).parent);
+        assertSame(copy, copy.attributes.get("self"));
+        assertEquals(new Date(1000), copy.attributes.get("date"));
+        assertNotSame(root.attributes.get("date"), copy.attributes.get("date"));
+        assertSame(copy.name, root.name); // String共享
+    }
+
+    @Test
+    public void testCollections() {
+        Timestamp timestamp = new Timestamp(1000);
+        timestamp.setNanos(5);
+        assertEquals(timestamp, DeepCloner.clone(timestamp));
+
+        TreeSet<String> reversed = new TreeSet<String>(Collections.reverseOrder());
+        reversed.addAll(Arrays.asList("a", "b", "c"));
+        TreeSet<String> reversedCopy = DeepCloner.clone(reversed);
+        assertEquals("c", reversedCopy.first());
+        assertSame(reversed.comparator(), reversedCopy.comparator());
+
+        List<Node> nodes = Collections.unmodifiableList(Arrays.asList(new Node("x"), new Node("y")));
+        List<Node> nodesCopy = DeepCloner.clone(nodes);
+        assertEquals(nodes.getClass(), nodesCopy.getClass());
+        assertEquals("y", nodesCopy.get(1).name);
+        assertNotSame(nodes.get(1), nodesCopy.get(1));
+
+        Object[][] arrays = {{"a", new Node("z")}, null};
+        Object[][] arraysCopy = DeepCloner.clone(arrays);
+        assertEquals("z", ((Node) arraysCopy[0][1]).name);
+        assertNotSame(arrays[0], arraysCopy[0]);
+        assertNull(arraysCopy[1]);
+    }
+
+    @Test
+    public void testComparatorAndAccessOrder() {
+        PriorityQueue<Integer> queue = new PriorityQueue<Integer>(4, Collections.<Integer>reverseOrder());
+        queue.addAll(Arrays.asList(1, 3, 2));
+        PriorityQueue<Integer> queueCopy = DeepCloner.clone(queue);
+        assertEquals(Integer.valueOf(3), queueCopy.peek());
+        assertSame(queue.comparator(), queueCopy.comparator());
+
+        Comparator<Node> byName = new Comparator<Node>() { // 元素没有实现Comparable
+            @Override
+            public int compare(Node o1, Node o2) {
+                return o1.name.compareTo(o2.name);
+            }
+        };
+        PriorityQueue<Node> nodes = new PriorityQueue<Node>(4, byName);
+        nodes.add(new Node("b"));
+        nodes.add(new Node("a"));
+        assertEquals("a", DeepCloner.clone(nodes).peek().name);
+
+        Map<String, Integer> lru = new LinkedHashMap<String, Integer>(16, 0.75f, true);
+        lru.put("a", 1);
+        lru.put("b", 2);
+        lru.get("a");
+        Map<String, Integer> lruCopy = DeepCloner.clone(lru);
+        assertEquals(Arrays.asList("b", "a"), new ArrayList<String>(lruCopy.keySet()));
+        lruCopy.get("b"); // 仍按访问顺序排列
+        assertEquals(Arrays.asList("a", "b"), new ArrayList<String>(lruCopy.keySet()));
+
+        Map<String, Integer> inserted = new LinkedHashMap<String, Integer>(lru);
+        Map<String, Integer> insertedCopy = DeepCloner.clone(inserted);
+        insertedCopy.get("b");
+        assertEquals(new ArrayList<String>(inserted.keySet()), new ArrayList<String>(insertedCopy.keySet()));
+    }
+
+    @Test
+    public void testPlainObjectsAreCopied() {
+        Object lock = new Object();
+        Object[] holder = {lock, lock};
+        Object[] copy = DeepCloner.clone(holder);
+        assertNotSame(lock, copy[0]);
+        assertSame(copy[0], copy[1]);
+    }
+
+    @Test(expected = SystemException.class)
+    public void testUnsupportedType() {
+        DeepCloner.clone(new Thread());
+    }
+
+}
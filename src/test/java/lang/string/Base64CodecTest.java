@@ -0,0 +1,97 @@
+package lang.string;
+
+import org.apache.commons.codec.binary.Base64;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class Base64CodecTest {
+
+    @Test
+    public void testAgainstCommonsCodec() {
+        Random random = new Random(3);
+        for (int length = 0; length < 200; length++) {
+            byte[] data = new byte[length];
+            random.nextBytes(data);
+            String standard = Base64.encodeBase64String(data);
+            String urlSafe = Base64.encodeBase64URLSafeString(data);
+            assertEquals(standard, Base64Codec.STANDARD.encodeToString(data));
+            assertEquals(urlSafe, Base64Codec.URL_SAFE.encodeToString(data));
+            assertEquals(standard.length(), Base64Codec.STANDARD.encodedLength(length));
+            assertEquals(urlSafe.length(), Base64Codec.URL_SAFE.encodedLength(length));
+            assertArrayEquals(data, EncodeTool.decodeBase64(standard));
+            assertArrayEquals(data, EncodeTool.decodeBase64(urlSafe));
+        }
+        String chunked = new String(Base64.encodeBase64Chunked(new byte[200]));
+        assertArrayEquals(new byte[200], Base64Codec.STANDARD.decode(chunked)); // 忽略换行
+        assertNull(EncodeTool.decodeBase64(null));
+    }
+
+    @Test
+    public void testTargets() {
+        byte[] data = "hello world".getBytes();
+        byte[] bytes = new byte[Base64Codec.STANDARD.encodedLength(data.length)];
+        assertEquals(16, Base64Codec.STANDARD.encode(data, 0, data.length, bytes, 0));
+        assertEquals("aGVsbG8gd29ybGQ=", new String(bytes));
+        assertEquals(11, Base64Codec.STANDARD.decode(bytes, 0, bytes.length, bytes, 0)); // 原地解码
+        assertArrayEquals(data, Arrays.copyOf(bytes, 11));
+
+        char[] chars = new char[20];
+        int count = Base64Codec.URL_SAFE.encode(data, 0, data.length, chars, 2);
+        assertEquals("aGVsbG8gd29ybGQ", new String(chars, 2, count));
+
+        byte[] large = new byte[100000];
+        new Random(4).nextBytes(large);
+        ByteBuffer direct = ByteBuffer.allocateDirect(Base64Codec.STANDARD.encodedLength(large.length));
+        Base64Codec.STANDARD.encode(ByteBuffer.wrap(large), direct);
+        assertFalse(direct.hasRemaining());
+        direct.flip();
+        byte[] encoded = new byte[direct.remaining()];
+        direct.get(encoded);
+        assertEquals(Base64.encodeBase64String(large), new String(encoded));
+    }
+
+    @Test
+    public void testStreams() throws Exception {
+        Random random = new Random(5);
+        for (int length : new int[]{0, 1, 2, 3, 4, 5000, 100001}) {
+            byte[] data = new byte[length];
+            random.nextBytes(data);
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+            OutputStream out = Base64Codec.STANDARD.wrap(buffer);
+            int offset = 0;
+            while (offset < length) { // 以不规则的块大小写入
+                int count = Math.min(length - offset, 1 + random.nextInt(1000));
+                if (count == 1) {
+                    out.write(data[offset]);
+                } else {
+                    out.write(data, offset, count);
+                }
+                offset += count;
+            }
+            out.close();
+            assertEquals(Base64.encodeBase64String(data), buffer.toString("ASCII"));
+
+            InputStream in = Base64Codec.STANDARD.wrap(new ByteArrayInputStream(buffer.toByteArray()));
+            ByteArrayOutputStream decoded = new ByteArrayOutputStream();
+            byte[] chunk = new byte[777];
+            int count;
+            while ((count = in.read(chunk)) != -1) {
+                decoded.write(chunk, 0, count);
+            }
+            assertArrayEquals(data, decoded.toByteArray());
+        }
+        InputStream in = Base64Codec.URL_SAFE.wrap(new ByteArrayInputStream("aGVs\r\nbG8gd29ybGQ".getBytes()));
+        assertEquals(6, in.skip(6));
+        assertEquals('w', in.read());
+    }
+
+}
@@ -3,6 +3,7 @@ package lang.string;
 import org.junit.Test;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 
 public class EncodeToolTest {
 
@@ -27,6 +28,13 @@ public class EncodeToolTest {
         assertEquals(input, new String(EncodeTool.decodeBase64(result)));
     }
 
+    @Test
+    public void base64Null() {
+        assertNull(EncodeTool.encodeBase64(null));
+        assertNull(EncodeTool.encodeUrlSafeBase64(null));
+        assertNull(EncodeTool.decodeBase64(null));
+    }
+
     @Test
     public void urlEncode() {
         String input = "http://locahost/?q=中文&t=1";
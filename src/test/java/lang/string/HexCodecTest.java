@@ -0,0 +1,68 @@
+package lang.string;
+
+import exception.SystemException;
+import org.apache.commons.codec.binary.Hex;
+import org.junit.Test;
+import security.CryptoTool;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class HexCodecTest {
+
+    @Test
+    public void testAgainstCommonsCodec() throws Exception {
+        Random random = new Random(1);
+        for (int length = 0; length < 100; length++) {
+            byte[] data = new byte[length];
+            random.nextBytes(data);
+            String expected = Hex.encodeHexString(data);
+            assertEquals(expected, HexCodec.encodeToString(data));
+            assertEquals(expected.toUpperCase(), HexCodec.encodeToString(data, true));
+            assertEquals(expected, new String(CryptoTool.encodeHex(data)));
+            assertArrayEquals(data, HexCodec.decode(expected.toUpperCase()));
+            assertArrayEquals(data, CryptoTool.decodeHex(expected.getBytes()));
+            assertArrayEquals(Hex.decodeHex(expected.toCharArray()), EncodeTool.decodeHex(expected));
+        }
+    }
+
+    @Test
+    public void testTargets() {
+        byte[] data = {0x01, (byte) 0xAB, (byte) 0xFF, 0x7F};
+        char[] chars = new char[10];
+        assertEquals(8, HexCodec.encode(data, 0, 4, chars, 1, false));
+        assertEquals("01abff7f", new String(chars, 1, 8));
+        byte[] bytes = new byte[8];
+        HexCodec.encode(data, 0, 4, bytes, 0, true);
+        assertEquals("01ABFF7F", new String(bytes));
+        assertEquals(4, HexCodec.decode(bytes, 0, 8, bytes, 0)); // 原地解码
+        assertArrayEquals(data, java.util.Arrays.copyOf(bytes, 4));
+
+        ByteBuffer direct = ByteBuffer.allocateDirect(8);
+        HexCodec.encode(ByteBuffer.wrap(data), direct, false);
+        assertEquals(8, direct.position());
+        direct.flip();
+        byte[] encoded = new byte[8];
+        direct.get(encoded);
+        assertEquals("01abff7f", new String(encoded));
+
+        StringBuilder sb = new StringBuilder("x=");
+        assertSame(sb, EncodeTool.appendHex(sb, data));
+        assertEquals("x=01abff7f", sb.toString());
+    }
+
+    @Test
+    public void testInvalidInput() {
+        for (String invalid : new String[]{"abc", "zz", "0g"}) {
+            try {
+                HexCodec.decode(invalid);
+                fail(invalid);
+            } catch (SystemException e) {
+                // 长度为奇数或含有非十六进制字符
+            }
+        }
+    }
+
+}
@@ -0,0 +1,147 @@
+package lang.string;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.text.MessageFormat;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+public class I18nMessageResolverTest {
+
+    private File dir;
+    private I18nMessageResolver resolver;
+
+    @Before
+    public void setUp() throws Exception {
+        dir = File.createTempFile("i18n", "");
+        assertTrue(dir.delete() && dir.mkdirs());
+        write("msg.properties", "greeting=Hello {0}\nok=OK\nquote=It''s {0}\nplain=It's\n");
+        write("msg_zh_CN.properties", "greeting=\\u4f60\\u597d {0}\n");
+        write("other.properties", "ok=Other OK\ncancel=Cancel\n");
+        ClassLoader classLoader = new URLClassLoader(new URL[]{dir.toURI().toURL()}, null);
+        resolver = new I18nMessageResolver(classLoader);
+        assertTrue(resolver.addBaseName("msg"));
+        assertTrue(resolver.addBaseName("other"));
+        assertFalse(resolver.addBaseName("msg"));
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        resolver.stopHotReload();
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        dir.delete();
+    }
+
+    @Test
+    public void testGetMessage() {
+        assertEquals("你好 Joy", resolver.getMessage(Locale.CHINA, "greeting", "Joy"));
+        assertEquals("Hello Joy", resolver.getMessage(Locale.ENGLISH, "greeting", "Joy")); // 回退到基本资源文件
+        assertEquals("Hello {0}", resolver.getMessage(Locale.ENGLISH, "greeting")); // 没有参数时返回原文
+        assertEquals("It's x", resolver.getMessage(Locale.ENGLISH, "quote", "x"));
+        assertEquals("Its", resolver.getMessage(Locale.ENGLISH, "plain", "x")); // 有参数时按MessageFormat的规则处理引号
+        assertEquals("It's", resolver.getMessage(Locale.ENGLISH, "plain"));
+        assertEquals("Hello null", resolver.getMessage(Locale.ENGLISH, "greeting", (Object) null));
+        assertEquals(MessageFormat.format("Hello {0}", 12345), resolver.getMessage(Locale.ENGLISH, "greeting", 12345));
+        assertEquals("OK", resolver.getMessage(Locale.CHINA, "ok")); // 按注册顺序
+        assertEquals("Other OK", resolver.getMessage("other", Locale.CHINA, "ok"));
+        assertEquals("Cancel", resolver.getMessage(Locale.CHINA, "cancel"));
+        assertNull(resolver.getMessage(Locale.CHINA, "missing"));
+        assertNull(resolver.getMessage("unknown", Locale.CHINA, "ok"));
+        assertTrue(resolver.containsKey(Locale.ENGLISH, "cancel"));
+        assertEquals(Arrays.asList("msg", "other"), resolver.getBaseNames());
+    }
+
+    @Test
+    public void testNotAffectedByDefaultLocale() {
+        Locale defaultLocale = Locale.getDefault();
+        try {
+            Locale.setDefault(Locale.CHINA);
+            assertEquals("Hello Joy", resolver.getMessage(Locale.FRANCE, "greeting", "Joy"));
+        } finally {
+            Locale.setDefault(defaultLocale);
+        }
+    }
+
+    @Test
+    public void testWarmUp() {
+        assertEquals(4 + 2 + 4 + 2, resolver.warmUp(Arrays.asList(Locale.CHINA, Locale.ENGLISH)));
+    }
+
+    @Test
+    public void testReloadIfModified() throws Exception {
+        assertEquals("OK", resolver.getMessage(Locale.CHINA, "ok"));
+        assertEquals("OK", resolver.getMessage(Locale.ENGLISH, "ok"));
+        assertEquals(0, resolver.reloadIfModified());
+
+        File file = write("msg.properties", "greeting=Hi {0}\nok=Okay\n");
+        assertTrue(file.setLastModified(file.lastModified() + 2000));
+        assertEquals(2, resolver.reloadIfModified()); // 两个Locale都依赖基本资源文件
+        assertEquals("Okay", resolver.getMessage(Locale.ENGLISH, "ok"));
+        assertEquals("你好 Joy", resolver.getMessage(Locale.CHINA, "greeting", "Joy"));
+        assertEquals("Hi Joy", resolver.getMessage(Locale.ENGLISH, "greeting", "Joy"));
+        assertNull(resolver.getMessage(Locale.ENGLISH, "quote"));
+        assertEquals(0, resolver.reloadIfModified());
+    }
+
+    @Test
+    public void testHotReloadWithConcurrentReaders() throws Exception {
+        assertEquals("OK", resolver.getMessage(Locale.ENGLISH, "ok"));
+        resolver.startHotReload(10, TimeUnit.MILLISECONDS);
+
+        final CountDownLatch done = new CountDownLatch(1);
+        final AtomicReference<String> unexpected = new AtomicReference<String>();
+        Thread reader = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                while (done.getCount() > 0) {
+                    String ok = resolver.getMessage(Locale.ENGLISH, "ok");
+                    if (!"OK".equals(ok) && !"Okay".equals(ok)) {
+                        unexpected.set(ok);
+                    }
+                }
+            }
+        });
+        reader.start();
+
+        File file = write("msg.properties", "ok=Okay\n");
+        assertTrue(file.setLastModified(file.lastModified() + 2000));
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!"Okay".equals(resolver.getMessage(Locale.ENGLISH, "ok")) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        done.countDown();
+        reader.join();
+        assertEquals("Okay", resolver.getMessage(Locale.ENGLISH, "ok"));
+        assertNull(unexpected.get());
+    }
+
+    private File write(String name, String content) throws IOException {
+        File file = new File(dir, name);
+        OutputStream out = new FileOutputStream(file);
+        try {
+            out.write(content.getBytes("ISO-8859-1"));
+        } finally {
+            out.close();
+        }
+        return file;
+    }
+
+}
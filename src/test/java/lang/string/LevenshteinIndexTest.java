@@ -0,0 +1,105 @@
+package lang.string;
+
+import org.junit.Test;
+
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.*;
+
+public class LevenshteinIndexTest {
+
+    private static List<String> randomWords(Random random, int count) {
+        List<String> words = new ArrayList<String>();
+        for (int i = 0; i < count; i++) {
+            char[] chars = new char[3 + random.nextInt(6)];
+            for (int j = 0; j < chars.length; j++) {
+                chars[j] = (char) ('a' + random.nextInt(6));
+            }
+            words.add(new String(chars));
+        }
+        return words;
+    }
+
+    private static List<LevenshteinIndex.Candidate> bruteForce(Collection<String> words, String query, int k) {
+        List<LevenshteinIndex.Candidate> candidates = new ArrayList<LevenshteinIndex.Candidate>();
+        for (String word : new TreeSet<String>(words)) {
+            int distance = StringTool.getLevenshteinDistance(query, word);
+            if (distance <= k) {
+                candidates.add(new LevenshteinIndex.Candidate(word, distance));
+            }
+        }
+        Collections.sort(candidates);
+        return candidates;
+    }
+
+    @Test
+    public void testSearch() {
+        LevenshteinIndex index = new LevenshteinIndex(Arrays.asList("hello", "help", "world", "hello", null));
+        assertEquals(3, index.size());
+        assertEquals("[hello(1), help(1)]", index.search("helo", 1).toString());
+        assertEquals("[]", index.search("xyz", 1).toString());
+        assertTrue(index.contains("world"));
+        assertFalse(index.contains("word"));
+        assertFalse(index.add("help"));
+        assertTrue(new LevenshteinIndex().search("a", 3).isEmpty());
+    }
+
+    @Test
+    public void testAgainstBruteForce() {
+        Random random = new Random(42);
+        List<String> words = randomWords(random, 3000);
+        LevenshteinIndex index = new LevenshteinIndex(words);
+        for (String query : randomWords(random, 50)) {
+            for (int k = 0; k <= 3; k++) {
+                assertEquals(query + "/" + k, bruteForce(words, query, k), index.search(query, k));
+            }
+            List<LevenshteinIndex.Candidate> all = bruteForce(words, query, Integer.MAX_VALUE);
+            assertEquals(all.subList(0, 5), index.nearest(query, 5));
+        }
+    }
+
+    @Test
+    public void testNearest() {
+        LevenshteinIndex index = new LevenshteinIndex(Arrays.asList("apple", "apply", "ample", "maple", "banana"));
+        assertEquals("[apple(0), ample(1), apply(1)]", index.nearest("apple", 3).toString());
+        assertEquals("[apple(1), apply(1)]", index.nearest("appl", 3, 1).toString());
+        assertEquals(5, index.nearest("x", 10).size());
+    }
+
+    @Test
+    public void testSearchAll() {
+        Random random = new Random(7);
+        List<String> words = randomWords(random, 2000);
+        LevenshteinIndex index = new LevenshteinIndex(words);
+        List<String> queries = randomWords(random, 300);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            Map<String, List<LevenshteinIndex.Candidate>> results = index.searchAll(queries, 2, executor, 4);
+            assertEquals(new ArrayList<String>(new LinkedHashSet<String>(queries)),
+                    new ArrayList<String>(results.keySet()));
+            for (String query : queries) {
+                assertEquals(index.search(query, 2), results.get(query));
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativeDistance() {
+        new LevenshteinIndex().search("a", -1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSearchAllInvalidParallelism() {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            new LevenshteinIndex().searchAll(Arrays.asList("a"), 1, executor, 0);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+}
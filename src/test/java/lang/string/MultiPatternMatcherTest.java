@@ -0,0 +1,91 @@
+package lang.string;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class MultiPatternMatcherTest {
+
+    @Test
+    public void testFindAll() {
+        MultiPatternMatcher matcher = new MultiPatternMatcher("he", "she", "his", "hers");
+        assertEquals("[she(1,4)]", matcher.findAll("ushers").toString());
+        assertEquals("[his(1,4), she(4,7)]", matcher.findAll("ahisshe").toString());
+        assertTrue(matcher.findAll("xyz").isEmpty());
+        assertTrue(matcher.findAll(null).isEmpty());
+        assertTrue(new MultiPatternMatcher().findAll("abc").isEmpty());
+    }
+
+    @Test
+    public void testLeftmostLongest() {
+        MultiPatternMatcher matcher = new MultiPatternMatcher("abcde", "b", "c", "bcd", "ab");
+        // 最左：从0开始的"ab"优先于从1开始的"bcd"
+        assertEquals("[ab(0,2), c(2,3)]", matcher.findAll("abcx").toString());
+        // 最长：同一起点取"abcde"
+        assertEquals("[abcde(0,5)]", matcher.findAll("abcde").toString());
+        // 较长的模式未能匹配，回退后较短的匹配不会丢失
+        assertEquals("[ab(0,2), c(2,3), bcd(4,7)]", matcher.findAll("abcdbcd").toString());
+        assertEquals("[b(1,2), c(2,3)]", new MultiPatternMatcher("abcde", "b", "c").findAll("abcd").toString());
+    }
+
+    @Test
+    public void testFindFirst() {
+        MultiPatternMatcher matcher = new MultiPatternMatcher("中国", "中国人", "人民");
+        MultiPatternMatcher.Match match = matcher.findFirst("我们是中国人民");
+        assertEquals("中国人", match.getPattern());
+        assertEquals(3, match.getStart());
+        assertEquals(6, match.getEnd());
+        assertEquals(1, match.getPatternIndex());
+        assertNull(matcher.findFirst("没有"));
+        assertTrue(matcher.containsAny("人民"));
+        assertFalse(matcher.containsAny("人"));
+    }
+
+    @Test
+    public void testIgnoreCase() {
+        MultiPatternMatcher matcher = new MultiPatternMatcher(Arrays.asList("Foo", "bar"), true);
+        List<MultiPatternMatcher.Match> matches = matcher.findAll("FOO-Bar");
+        assertEquals(2, matches.size());
+        assertEquals("Foo", matches.get(0).getPattern());
+        assertEquals("FOO", matches.get(0).getText());
+        assertEquals("*-*", matcher.replaceAll("FOO-Bar", "*"));
+        assertTrue(new MultiPatternMatcher("Foo").findAll("FOO").isEmpty());
+    }
+
+    @Test
+    public void testReplace() {
+        MultiPatternMatcher matcher = new MultiPatternMatcher("坏人", "坏蛋", null, "", "坏人");
+        assertEquals(Arrays.asList("坏人", "坏蛋"), matcher.getPatterns());
+        assertEquals("他是**，不是**", matcher.mask("他是坏人，不是坏蛋", '*'));
+        assertEquals("他是，不是", matcher.replaceAll("他是坏人，不是坏蛋", null));
+        assertEquals("他是好人，不是好蛋", matcher.replaceEach("他是坏人，不是坏蛋", new String[]{"好人", "好蛋"}));
+        assertEquals("没有", matcher.mask("没有", '*'));
+        assertNull(matcher.mask(null, '*'));
+        try {
+            matcher.replaceEach("x", new String[]{"a"});
+            fail();
+        } catch (IllegalArgumentException e) {
+            // 个数不一致
+        }
+    }
+
+    @Test
+    public void testManyPatterns() {
+        List<String> words = new ArrayList<String>();
+        for (int i = 0; i < 5000; i++) {
+            words.add("w" + i + "x");
+        }
+        MultiPatternMatcher matcher = new MultiPatternMatcher(words, false);
+        String text = "aw12xbw4999xw5000x";
+        assertEquals("[w12x(1,5), w4999x(6,12)]", matcher.findAll(text).toString());
+        String[] replacements = new String[words.size()];
+        Arrays.fill(replacements, "");
+        assertEquals(StringTool.replaceEach(text, words.toArray(new String[0]), replacements),
+                matcher.replaceAll(text, ""));
+    }
+
+}
@@ -0,0 +1,67 @@
+package log;
+
+import log.slf4j.Slf4jLogCreator;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+public class LogFactoryTest {
+
+    @Test
+    public void testGetLog() {
+        Log log = LogFactory.getLog(LogFactoryTest.class);
+        assertSame(log, LogFactory.getLog(LogFactoryTest.class));
+        assertNotSame(log, LogFactory.getLog(LogFactory.class));
+
+        LogFactory.setLogCreator(new Slf4jLogCreator());
+        assertNotSame(log, LogFactory.getLog(LogFactoryTest.class));
+    }
+
+    @Test
+    public void testSetLogCreatorWhileCreating() throws Exception {
+        final CountDownLatch creating = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        LogFactory.setLogCreator(new LogCreator() {
+            @Override
+            public Log createLogger(Class<?> clazz) {
+                creating.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return new Slf4jLogCreator().createLogger(clazz);
+            }
+        });
+        final AtomicReference<Log> stale = new AtomicReference<Log>();
+        Thread thread = new Thread() {
+            @Override
+            public void run() {
+                stale.set(LogFactory.getLog(LogFactoryTest.class));
+            }
+        };
+        thread.start();
+        try {
+            creating.await();
+            final Log fresh = new Slf4jLogCreator().createLogger(LogFactoryTest.class);
+            LogFactory.setLogCreator(new LogCreator() {
+                @Override
+                public Log createLogger(Class<?> clazz) {
+                    return fresh;
+                }
+            });
+            release.countDown();
+            thread.join();
+
+            assertNotNull(stale.get());
+            assertSame(fresh, LogFactory.getLog(LogFactoryTest.class)); // 旧创建者生成的日志记录器没有留在缓存中
+        } finally {
+            release.countDown();
+            LogFactory.setLogCreator(new Slf4jLogCreator());
+        }
+    }
+
+}
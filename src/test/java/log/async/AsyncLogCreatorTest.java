@@ -0,0 +1,332 @@
+package log.async;
+
+import log.ILogMessage;
+import log.ILogParam;
+import log.Log;
+import log.LogCreator;
+import log.LogMessageFormatter;
+import org.junit.Test;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class AsyncLogCreatorTest {
+
+    /**
+     * 把日志记录到列表中，可以在输出第一条日志时阻塞，模拟缓慢的appender
+     */
+    private static class RecordingLogCreator implements LogCreator {
+
+        private final List<String> records = Collections.synchronizedList(new ArrayList<String>());
+        private final List<String> threads = Collections.synchronizedList(new ArrayList<String>());
+        private final CountDownLatch started = new CountDownLatch(1);
+        private final CountDownLatch release;
+
+        private RecordingLogCreator(boolean blocking) {
+            release = new CountDownLatch(blocking ? 1 : 0);
+        }
+
+        private void record(String level, String message) {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            records.add(level + ":" + message);
+            threads.add(Thread.currentThread().getName());
+        }
+
+        @Override
+        public Log createLogger(Class<?> clazz) {
+            return new Log() {
+                public void debug(String message, Object... args) {
+                    record("debug", LogMessageFormatter.format(message, args));
+                }
+
+                public void debug(String message, ILogParam param) {
+                    record("debug", message);
+                }
+
+                public void debug(ILogMessage message) {
+                    record("debug", message.getMessage());
+                }
+
+                public void info(String message, Object... args) {
+                    record("info", LogMessageFormatter.format(message, args));
+                }
+
+                public void info(String message, ILogParam param) {
+                    record("info", message);
+                }
+
+                public void info(ILogMessage message) {
+                    record("info", message.getMessage());
+                }
+
+                public void warn(String message, Object... args) {
+                    record("warn", LogMessageFormatter.format(message, args));
+                }
+
+                public void warn(String message, ILogParam param) {
+                    record("warn", message);
+                }
+
+                public void warn(ILogMessage message) {
+                    record("warn", message.getMessage());
+                }
+
+                public void error(String message, Object... args) {
+                    record("error", LogMessageFormatter.format(message, args));
+                }
+
+                public void error(String message, ILogParam param) {
+                    record("error", message);
+                }
+
+                public void error(ILogMessage message) {
+                    record("error", message.getMessage());
+                }
+
+                public void error(Throwable e, String message, Object... args) {
+                    record("error", LogMessageFormatter.format(message, args) + "/" + e.getMessage());
+                }
+
+                public void error(Throwable e) {
+                    record("error", e.getMessage());
+                }
+
+                public boolean isDebugEnabled() {
+                    return true;
+                }
+
+                public boolean isInfoEnabled() {
+                    return true;
+                }
+
+                public boolean isWarnEnabled() {
+                    return true;
+                }
+
+                public boolean isErrorEnabled() {
+                    return true;
+                }
+            };
+        }
+    }
+
+    @Test
+    public void testAsyncOutputInOrder() {
+        RecordingLogCreator recorder = new RecordingLogCreator(false);
+        AsyncLogCreator creator = new AsyncLogCreator(recorder, 16, OverflowPolicy.BLOCK, 4);
+        Log log = creator.createLogger(AsyncLogCreatorTest.class);
+        for (int i = 0; i < 100; i++) {
+            log.info("message {0}", i);
+        }
+        log.error(new RuntimeException("boom"), "failed {0}", "x");
+        log.warn(new ILogMessage() {
+            @Override
+            public String getMessage() {
+                return "lazy";
+            }
+        });
+        assertTrue(creator.shutdown(5, TimeUnit.SECONDS));
+        assertEquals(102, recorder.records.size());
+        for (int i = 0; i < 100; i++) {
+            assertEquals("info:message " + i, recorder.records.get(i));
+        }
+        assertEquals("error:failed x/boom", recorder.records.get(100));
+        assertEquals("warn:lazy", recorder.records.get(101));
+        assertTrue(recorder.threads.get(0).startsWith("async-log-"));
+        assertEquals(0, creator.getDroppedCount());
+
+        log.info("after shutdown"); // 关闭后同步输出
+        assertEquals("info:after shutdown", recorder.records.get(102));
+        assertEquals(Thread.currentThread().getName(), recorder.threads.get(102));
+    }
+
+    @Test
+    public void testDropOldest() throws InterruptedException {
+        RecordingLogCreator recorder = new RecordingLogCreator(true);
+        AsyncLogCreator creator = new AsyncLogCreator(recorder, 4, OverflowPolicy.DROP_OLDEST, 1);
+        Log log = creator.createLogger(AsyncLogCreatorTest.class);
+        log.info("first");
+        assertTrue(recorder.started.await(5, TimeUnit.SECONDS)); // 消费线程阻塞在第一条日志上
+        for (int i = 0; i < 10; i++) {
+            log.info("message {0}", i);
+        }
+        assertEquals(6, creator.getDroppedCount());
+        assertEquals(4, creator.getQueueSize());
+        recorder.release.countDown();
+        assertTrue(creator.shutdown(5, TimeUnit.SECONDS));
+        assertEquals(5, recorder.records.size());
+        assertEquals("info:first", recorder.records.get(0));
+        assertEquals("info:message 6", recorder.records.get(1));
+        assertEquals("info:message 9", recorder.records.get(4));
+    }
+
+    @Test
+    public void testDropDebug() throws InterruptedException {
+        final RecordingLogCreator recorder = new RecordingLogCreator(true);
+        AsyncLogCreator creator = new AsyncLogCreator(recorder, 2, OverflowPolicy.DROP_DEBUG, 1);
+        Log log = creator.createLogger(AsyncLogCreatorTest.class);
+        log.info("first");
+        assertTrue(recorder.started.await(5, TimeUnit.SECONDS));
+        log.info("a");
+        log.info("b");
+        log.debug("dropped");
+        assertEquals(1, creator.getDroppedCount());
+        Thread releaser = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    Thread.sleep(100);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                recorder.release.countDown();
+            }
+        });
+        releaser.start();
+        log.warn("blocked"); // 非调试级别的日志阻塞等待空位
+        assertTrue(creator.shutdown(5, TimeUnit.SECONDS));
+        assertEquals(4, recorder.records.size());
+        assertEquals("warn:blocked", recorder.records.get(3));
+        assertEquals(4, creator.getProcessedCount());
+    }
+
+    @Test
+    public void testErrorHandler() {
+        RecordingLogCreator recorder = new RecordingLogCreator(false);
+        AsyncLogCreator creator = new AsyncLogCreator(recorder, 16, OverflowPolicy.BLOCK, 4);
+        final List<Throwable> errors = Collections.synchronizedList(new ArrayList<Throwable>());
+        creator.setErrorHandler(new AsyncLogCreator.ErrorHandler() {
+            @Override
+            public void onError(Throwable e) {
+                errors.add(e);
+            }
+        });
+        Log log = creator.createLogger(AsyncLogCreatorTest.class);
+        log.info(new ILogMessage() {
+            @Override
+            public String getMessage() {
+                throw new IllegalStateException("broken");
+            }
+        });
+        log.info("next");
+        assertTrue(creator.shutdown(5, TimeUnit.SECONDS));
+        assertEquals(1, errors.size());
+        assertEquals("broken", errors.get(0).getMessage());
+        assertEquals("info:next", recorder.records.get(0)); // 出错后继续输出
+    }
+
+    @Test
+    public void testShutdownRemovesHook() throws Exception {
+        AsyncLogCreator creator = new AsyncLogCreator(new RecordingLogCreator(false), 16, OverflowPolicy.BLOCK, 4);
+        assertTrue(creator.shutdown(5, TimeUnit.SECONDS));
+        assertTrue(creator.shutdown(5, TimeUnit.SECONDS)); // 可以重复调用
+        Field hook = AsyncLogCreator.class.getDeclaredField("shutdownHook");
+        hook.setAccessible(true);
+        assertFalse(Runtime.getRuntime().removeShutdownHook((Thread) hook.get(creator))); // 已注销
+        Field consumer = AsyncLogCreator.class.getDeclaredField("consumer");
+        consumer.setAccessible(true);
+        assertFalse(((Thread) consumer.get(creator)).isAlive());
+    }
+
+    @Test
+    public void testShutdownWithoutWaiting() throws InterruptedException {
+        RecordingLogCreator recorder = new RecordingLogCreator(true);
+        AsyncLogCreator creator = new AsyncLogCreator(recorder, 4, OverflowPolicy.BLOCK, 1);
+        Log log = creator.createLogger(AsyncLogCreatorTest.class);
+        log.info("first");
+        assertTrue(recorder.started.await(5, TimeUnit.SECONDS));
+        log.info("queued");
+        assertFalse(creator.shutdown(0, TimeUnit.SECONDS)); // 不等待消费线程
+        assertFalse(creator.shutdown(1, TimeUnit.NANOSECONDS)); // 不足1毫秒也不能变成无限等待
+        recorder.release.countDown();
+        assertTrue(creator.shutdown(5, TimeUnit.SECONDS));
+        assertEquals(2, recorder.records.size());
+        assertEquals("info:queued", recorder.records.get(1));
+    }
+
+    @Test
+    public void testNoEventLostDuringShutdown() throws InterruptedException {
+        RecordingLogCreator recorder = new RecordingLogCreator(false);
+        AsyncLogCreator creator = new AsyncLogCreator(recorder, 64, OverflowPolicy.BLOCK, 8);
+        final Log log = creator.createLogger(AsyncLogCreatorTest.class);
+        final int producers = 4;
+        final int count = 5000;
+        final CountDownLatch ready = new CountDownLatch(producers);
+        Thread[] threads = new Thread[producers];
+        for (int p = 0; p < producers; p++) {
+            threads[p] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    ready.countDown();
+                    for (int i = 0; i < count; i++) {
+                        log.info("message {0}", i);
+                    }
+                }
+            });
+            threads[p].start();
+        }
+        ready.await();
+        creator.shutdown(5, TimeUnit.SECONDS); // 与生产者并发关闭
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(producers * count, recorder.records.size());
+        assertEquals(0, creator.getQueueSize());
+    }
+
+    @Test
+    public void testRingBufferConcurrency() throws InterruptedException {
+        final RingBuffer<Integer> buffer = new RingBuffer<Integer>(64);
+        assertEquals(64, buffer.capacity());
+        final int producers = 4;
+        final int count = 20000;
+        Thread[] threads = new Thread[producers];
+        for (int p = 0; p < producers; p++) {
+            final int base = p * count;
+            threads[p] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < count; i++) {
+                        while (!buffer.offer(base + i)) {
+                            Thread.yield();
+                        }
+                    }
+                }
+            });
+            threads[p].start();
+        }
+        boolean[] seen = new boolean[producers * count];
+        int[] last = new int[producers];
+        java.util.Arrays.fill(last, -1);
+        int received = 0;
+        while (received < producers * count) {
+            Integer value = buffer.poll();
+            if (value == null) {
+                Thread.yield();
+                continue;
+            }
+            assertFalse(seen[value]);
+            seen[value] = true;
+            int producer = value / count;
+            assertTrue(value % count > last[producer]); // 同一生产者的元素保持顺序
+            last[producer] = value % count;
+            received++;
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertNull(buffer.poll());
+    }
+
+}
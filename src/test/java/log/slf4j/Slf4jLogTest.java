@@ -0,0 +1,71 @@
+package log.slf4j;
+
+import ch.qos.logback.classic.Level;
+import log.ILogMessage;
+import log.Log;
+import log.LogMessageFormatter;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.LoggerFactory;
+
+import java.text.MessageFormat;
+
+import static org.junit.Assert.*;
+
+public class Slf4jLogTest {
+
+    private ch.qos.logback.classic.Logger logger;
+    private Log log;
+
+    /**
+     * 记录toString被调用的次数
+     */
+    private static class CountingArg {
+
+        private int count;
+
+        @Override
+        public String toString() {
+            count++;
+            return "arg";
+        }
+    }
+
+    @Before
+    public void setUp() {
+        logger = (ch.qos.logback.classic.Logger) LoggerFactory.getLogger(Slf4jLogTest.class);
+        logger.setLevel(Level.INFO);
+        log = new Slf4jLog(logger);
+    }
+
+    @After
+    public void tearDown() {
+        logger.setLevel(null);
+    }
+
+    @Test
+    public void testDisabledLevelIsLazy() {
+        CountingArg arg = new CountingArg();
+        log.debug("value: {0}", arg);
+        assertEquals(0, arg.count);
+        log.debug(new ILogMessage() {
+            @Override
+            public String getMessage() {
+                fail("调试级别未开启时不应生成信息");
+                return null;
+            }
+        });
+        log.info("value: {0}", arg);
+        assertEquals(1, arg.count);
+    }
+
+    @Test
+    public void testFormat() {
+        assertEquals("a-1-b", LogMessageFormatter.format("a-{0}-{1}", 1, "b"));
+        assertEquals(MessageFormat.format("{0,number,#.##}", 1.234), LogMessageFormatter.format("{0,number,#.##}", 1.234));
+        assertEquals("no args {0}", LogMessageFormatter.format("no args {0}"));
+        assertNull(LogMessageFormatter.format(null, 1));
+    }
+
+}
@@ -0,0 +1,64 @@
+package scanner.classpath;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.InputStream;
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class ClassPathScannerTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void readClassFileHeader() throws Exception {
+        InputStream in = getClass().getClassLoader().getResourceAsStream("scanner/classpath/ClassPathIndex.class");
+        try {
+            ClassFileHeader header = ClassFileHeader.read(in);
+            assertEquals("scanner.classpath.ClassPathIndex", header.getName());
+            assertEquals("java.lang.Object", header.getSuperName());
+            assertTrue(header.isConcrete());
+        } finally {
+            in.close();
+        }
+
+        in = getClass().getClassLoader().getResourceAsStream("org/junit/Test.class");
+        try {
+            ClassFileHeader header = ClassFileHeader.read(in);
+            assertTrue(header.isAnnotation());
+            assertTrue(header.isInterface());
+            assertTrue(header.hasAnnotation("java.lang.annotation.Retention"));
+        } finally {
+            in.close();
+        }
+    }
+
+    @Test
+    public void scanForClassNames() {
+        List<String> classNames = Arrays.asList(ClassPathScanner.scanForClassNames("collections", Map.class, null));
+        assertTrue(classNames.contains("collections.SoftHashMap"));
+        assertFalse(classNames.contains("collections.ConcurrentCache"));
+    }
+
+    @Test
+    public void scanForClassNamesWithIndex() {
+        File indexFile = new File(folder.getRoot(), "classpath.idx");
+        String[] first = ClassPathScanner.scanForClassNames("scanner", Serializable.class, indexFile);
+        assertTrue(indexFile.isFile());
+        long length = indexFile.length();
+        String[] second = ClassPathScanner.scanForClassNames("scanner", Serializable.class, indexFile);
+        assertArrayEquals(first, second);
+        assertEquals(length, indexFile.length());
+        assertEquals(ClassPathScanner.scanForClassHeaders("scanner", null).length,
+                ClassPathScanner.scanForClassHeaders("scanner", indexFile).length);
+    }
+
+}
@@ -3,9 +3,13 @@ package support;
 import org.junit.Test;
 
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 
-import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.*;
 
 public class GroupExecutorTest {
 
@@ -34,4 +38,103 @@ public class GroupExecutorTest {
 
         assertEquals("1,11,21,31,41,", sb.toString());
     }
+
+    @Test
+    public void testExecuteDoesNotModifyElements() {
+        List<Integer> elements = range(1, 25);
+        new GroupExecutor<Integer>(elements, 10) {
+
+            @Override
+            protected void groupExecute(List<Integer> subList) {
+                subList.clear();
+            }
+
+        }.execute();
+
+        assertEquals(range(1, 25), elements);
+    }
+
+    @Test
+    public void testExecuteIterator() {
+        final StringBuilder sb = new StringBuilder();
+        new GroupExecutor<Integer>(range(1, 25).iterator(), 10) {
+
+            @Override
+            protected void groupExecute(List<Integer> subList) {
+                sb.append(subList.get(0)).append("-").append(subList.size()).append(",");
+            }
+
+        }.execute();
+
+        assertEquals("1-10,11-10,21-5,", sb.toString());
+    }
+
+    @Test
+    public void testExecuteParallel() {
+        final AtomicInteger sum = new AtomicInteger();
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger maxRunning = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            GroupExecutor.Result result = new GroupExecutor<Integer>(range(1, 100).iterator(), 7) {
+
+                @Override
+                protected void groupExecute(List<Integer> subList) {
+                    int current = running.incrementAndGet();
+                    synchronized (maxRunning) {
+                        maxRunning.set(Math.max(maxRunning.get(), current));
+                    }
+                    for (Integer i : subList) {
+                        sum.addAndGet(i);
+                    }
+                    running.decrementAndGet();
+                }
+
+            }.execute(executor, 3, true);
+
+            assertTrue(result.isSuccess());
+            assertEquals(15, result.getGroupCount());
+            assertEquals(100, result.getElementCount());
+            assertEquals(5050, sum.get());
+            assertTrue(maxRunning.get() <= 3);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testExecuteParallelCollectErrors() {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            GroupExecutor.Result result = new GroupExecutor<Integer>(range(1, 50), 10) {
+
+                @Override
+                protected void groupExecute(List<Integer> subList) {
+                    if (subList.get(0) % 20 == 1) {
+                        throw new IllegalStateException(String.valueOf(subList.get(0)));
+                    }
+                }
+
+            }.execute(executor, 2, false);
+
+            assertFalse(result.isSuccess());
+            assertEquals(2, result.getGroupCount());
+            assertEquals(3, result.getErrors().size());
+            Iterator<Integer> indexes = result.getErrors().keySet().iterator();
+            assertEquals(Integer.valueOf(0), indexes.next());
+            assertEquals(Integer.valueOf(2), indexes.next());
+            assertEquals(Integer.valueOf(4), indexes.next());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static List<Integer> range(int from, int to) {
+        List<Integer> elements = new ArrayList<Integer>();
+        for (int i = from; i <= to; i++) {
+            elements.add(i);
+        }
+        return elements;
+    }
+
 }
@@ -0,0 +1,75 @@
+package support;
+
+import org.junit.Test;
+import support.id.UlidGenerator;
+import support.id.UuidV7Generator;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.Assert.*;
+
+public class IdGeneratorTest {
+
+    @Test
+    public void testGen32Uuid() {
+        assertUuids(IdGenerator.gen32Uuid(), IdGenerator.gen32Uuid());
+        Set<String> ids = new HashSet<String>();
+        for (int i = 0; i < 10000; i++) {
+            String id = IdGenerator.genFast32Uuid();
+            assertUuids(id);
+            ids.add(id);
+        }
+        assertEquals(10000, ids.size());
+    }
+
+    private static void assertUuids(String... ids) {
+        for (String id : ids) {
+            assertTrue(id, id.matches("[0-9A-F]{12}4[0-9A-F]{3}[89AB][0-9A-F]{15}"));
+            UUID uuid = UUID.fromString(id.replaceFirst("(.{8})(.{4})(.{4})(.{4})(.{12})", "$1-$2-$3-$4-$5"));
+            assertEquals(4, uuid.version());
+            assertEquals(2, uuid.variant());
+        }
+    }
+
+    @Test
+    public void testUlid() {
+        long before = System.currentTimeMillis();
+        String ulid = IdGenerator.genUlid();
+        assertTrue(ulid.matches("[0-7][0-9A-HJKMNP-TV-Z]{25}"));
+        long timestamp = 0;
+        for (int i = 0; i < 10; i++) {
+            timestamp = timestamp * 32 + "0123456789ABCDEFGHJKMNPQRSTVWXYZ".indexOf(ulid.charAt(i));
+        }
+        assertTrue(timestamp >= before && timestamp <= System.currentTimeMillis());
+
+        List<String> ulids = new UlidGenerator().nextIds(50000);
+        for (int i = 1; i < ulids.size(); i++) {
+            assertTrue(ulids.get(i - 1).compareTo(ulids.get(i)) < 0);
+        }
+    }
+
+    @Test
+    public void testUuidV7() {
+        long before = System.currentTimeMillis();
+        UUID uuid = IdGenerator.genUuidV7();
+        assertEquals(7, uuid.version());
+        assertEquals(2, uuid.variant());
+        long timestamp = uuid.getMostSignificantBits() >>> 16;
+        assertTrue(timestamp >= before && timestamp <= System.currentTimeMillis());
+
+        UuidV7Generator generator = new UuidV7Generator();
+        String last = "";
+        for (int i = 0; i < 50000; i++) {
+            String current = generator.nextId().toString();
+            assertTrue(last.compareTo(current) < 0);
+            last = current;
+        }
+        List<UUID> batch = generator.nextIds(10000);
+        assertEquals(10000, new HashSet<UUID>(batch).size());
+        assertTrue(last.compareTo(batch.get(0).toString()) < 0);
+    }
+
+}
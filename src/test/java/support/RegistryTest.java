@@ -0,0 +1,89 @@
+package support;
+
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class RegistryTest {
+
+    @Test
+    public void testRegiste() {
+        Registry.registe("RegistryTest.a", "1");
+        Registry.registe("RegistryTest.a", Arrays.<Object>asList("2", "3"));
+        List<?> list = Registry.lookup("RegistryTest.a");
+        assertEquals(Arrays.asList("1", "2", "3"), list);
+        assertSame(list, Registry.lookup("RegistryTest.a"));
+        assertTrue(Registry.lookup("RegistryTest.none").isEmpty());
+        assertTrue(Registry.unregiste("RegistryTest.a", "2"));
+        assertFalse(Registry.unregiste("RegistryTest.a", "2"));
+        assertEquals(Arrays.asList("1", "3"), Registry.lookup("RegistryTest.a"));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testLookupUnmodifiable() {
+        Registry.registe("RegistryTest.b", "1");
+        Registry.lookup("RegistryTest.b").clear();
+    }
+
+    @Test
+    public void testTypedKey() {
+        Registry.Key<Integer> key = Registry.Key.of("RegistryTest.c", Integer.class);
+        Registry.register(key, 1);
+        Registry.register(key, 2);
+        int sum = 0;
+        for (Integer i : Registry.lookup(key)) {
+            sum += i;
+        }
+        assertEquals(3, sum);
+
+        Registry.registe("RegistryTest.c", "not an integer"); // 同名字符串key注册的其他类型的对象被过滤
+        assertEquals(Arrays.asList(1, 2), Registry.lookup(key));
+        assertEquals(3, Registry.lookup("RegistryTest.c").size());
+    }
+
+    @Test
+    public void testRegisterAllAndListener() {
+        final Map<String, Integer> changes = new HashMap<String, Integer>();
+        Registry.Listener listener = new Registry.Listener() {
+            @Override
+            public void onChange(String key, List<Object> registered) {
+                changes.put(key, registered.size());
+            }
+        };
+        Registry.addListener(listener);
+        try {
+            Map<String, List<String>> entries = new HashMap<String, List<String>>();
+            entries.put("RegistryTest.d", Arrays.asList("1", "2"));
+            entries.put("RegistryTest.e", Arrays.asList("3"));
+            Registry.registerAll(entries);
+        } finally {
+            Registry.removeListener(listener);
+        }
+        assertEquals(2, Registry.lookup("RegistryTest.d").size());
+        assertEquals(Integer.valueOf(2), changes.get("RegistryTest.d"));
+        assertEquals(Integer.valueOf(1), changes.get("RegistryTest.e"));
+    }
+
+    @Test
+    public void testConcurrentRegiste() throws InterruptedException {
+        Thread[] threads = new Thread[4];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread() {
+                @Override
+                public void run() {
+                    for (int j = 0; j < 500; j++) {
+                        Registry.registe("RegistryTest.f", j);
+                    }
+                }
+            };
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(2000, Registry.lookup("RegistryTest.f").size());
+    }
+
+}
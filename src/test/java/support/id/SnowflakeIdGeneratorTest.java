@@ -0,0 +1,123 @@
+package support.id;
+
+import exception.SystemException;
+import org.junit.Test;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.Assert.*;
+
+public class SnowflakeIdGeneratorTest {
+
+    /**
+     * 时间可以手工调整的生成器
+     */
+    private static class ManualClockGenerator extends SnowflakeIdGenerator {
+
+        private volatile long now = System.currentTimeMillis();
+
+        private ManualClockGenerator(int sequenceBits) {
+            super(DEFAULT_EPOCH, 10, sequenceBits, 3, 5);
+        }
+
+        @Override
+        protected long currentTimeMillis() {
+            return now;
+        }
+    }
+
+    @Test
+    public void testStructure() {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(7);
+        long before = System.currentTimeMillis();
+        long id = generator.nextLong();
+        assertTrue(id > 0);
+        assertEquals(7, generator.getWorkerId(id));
+        assertTrue(generator.getTimestamp(id) >= before);
+        assertTrue(generator.getTimestamp(id) <= System.currentTimeMillis());
+    }
+
+    @Test
+    public void testMonotonic() {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(1);
+        long last = 0;
+        for (int i = 0; i < 100000; i++) {
+            long id = generator.nextLong();
+            assertTrue(id > last);
+            last = id;
+        }
+        long[] batch = generator.nextLongs(10000);
+        for (long id : batch) {
+            assertTrue(id > last);
+            last = id;
+        }
+        List<Long> ids = generator.nextIds(5000);
+        assertEquals(5000, new HashSet<Long>(ids).size());
+        assertTrue(ids.get(0) > last);
+    }
+
+    @Test
+    public void testSequenceExhaustionAndClockBackward() throws InterruptedException {
+        final ManualClockGenerator generator = new ManualClockGenerator(2);
+        long[] ids = generator.nextLongs(4); // 本毫秒的4个序号全部用完
+        assertEquals(3, generator.getSequence(ids[3]));
+
+        generator.now -= 3; // 允许范围内的回拨：沿用上次的时间戳，序号已用尽时等待
+        Thread waiter = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    Thread.sleep(100);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                generator.now += 4;
+            }
+        });
+        waiter.start();
+        long id = generator.nextLong();
+        waiter.join();
+        assertTrue(id > ids[3]);
+        assertEquals(generator.getTimestamp(ids[3]) + 1, generator.getTimestamp(id));
+
+        generator.now -= 100;
+        try {
+            generator.nextLong();
+            fail();
+        } catch (SystemException e) {
+            // 超出允许的回拨
+        }
+    }
+
+    @Test
+    public void testConcurrentUniqueness() throws InterruptedException {
+        final SnowflakeIdGenerator generator = new SnowflakeIdGenerator(2);
+        final Set<Long> ids = Collections.newSetFromMap(new ConcurrentHashMap<Long, Boolean>());
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < 20000; i++) {
+                        ids.add(generator.nextLong());
+                    }
+                    for (long id : generator.nextLongs(5000)) {
+                        ids.add(id);
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(threads.length * 25000, ids.size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidWorkerId() {
+        new SnowflakeIdGenerator(1024);
+    }
+
+}